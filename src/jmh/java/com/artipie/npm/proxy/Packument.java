@@ -0,0 +1,106 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Generated package metadata (packument) for benchmarks.
+ * @since 0.3
+ */
+final class Packument {
+    /**
+     * Package name.
+     */
+    private final String name;
+
+    /**
+     * Number of versions.
+     */
+    private final int versions;
+
+    /**
+     * Ctor.
+     * @param name Package name
+     * @param versions Number of versions
+     */
+    Packument(final String name, final int versions) {
+        this.name = name;
+        this.versions = versions;
+    }
+
+    /**
+     * Packument as served by the remote registry.
+     * @return JSON string
+     */
+    String original() {
+        return this.json("https://registry.npmjs.org/");
+    }
+
+    /**
+     * Packument as stored in the cache.
+     * @return JSON string
+     */
+    String cached() {
+        return this.json("/");
+    }
+
+    /**
+     * Build packument JSON.
+     * @param base Tarball references base
+     * @return JSON string
+     */
+    private String json(final String base) {
+        final JsonObject all = new JsonObject();
+        String latest = "";
+        for (int idx = 0; idx < this.versions; idx += 1) {
+            latest = String.format("1.%d.0", idx);
+            all.put(
+                latest,
+                new JsonObject()
+                    .put("name", this.name)
+                    .put("version", latest)
+                    .put("description", "Generated package for benchmarks")
+                    .put("dependencies", new JsonObject().put("left-pad", "^1.3.0"))
+                    .put(
+                        "dist",
+                        new JsonObject()
+                            .put("shasum", "0123456789abcdef0123456789abcdef01234567")
+                            .put(
+                                "tarball",
+                                String.format(
+                                    "%s%s/-/%s-%s.tgz", base, this.name, this.name, latest
+                                )
+                            )
+                    )
+            );
+        }
+        return new JsonObject()
+            .put("_id", this.name)
+            .put("name", this.name)
+            .put("dist-tags", new JsonObject().put("latest", latest))
+            .put("versions", all)
+            .encode();
+    }
+}
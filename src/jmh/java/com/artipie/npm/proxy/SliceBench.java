@@ -0,0 +1,203 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.amihaiemil.eoyaml.Yaml;
+import com.artipie.asto.Concatenation;
+import com.artipie.asto.Content;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.rx.RxStorageWrapper;
+import com.artipie.http.Headers;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.npm.proxy.http.NpmProxySlice;
+import com.artipie.npm.proxy.model.NpmAsset;
+import com.artipie.npm.proxy.model.NpmPackage;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.vertx.reactivex.core.Vertx;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.cactoos.map.MapEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.reactivestreams.Publisher;
+
+/**
+ * End-to-end benchmark of NPM Proxy slice serving cached packages and assets
+ * from in-memory storage with stub remote repository.
+ * @since 0.3
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle JavadocMethodCheck (500 lines)
+ * @checkstyle VisibilityModifierCheck (500 lines)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class SliceBench {
+    /**
+     * Number of package versions.
+     */
+    @Param({"10", "1000"})
+    public int versions;
+
+    /**
+     * Vertx instance.
+     */
+    private Vertx vertx;
+
+    /**
+     * NPM Proxy.
+     */
+    private NpmProxy npm;
+
+    /**
+     * Slice under benchmark.
+     */
+    private NpmProxySlice slice;
+
+    /**
+     * Request headers.
+     */
+    private Iterable<Map.Entry<String, String>> headers;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.vertx = Vertx.vertx();
+        final String cached = new Packument("bench", this.versions).cached();
+        this.npm = new NpmProxy(
+            new NpmProxyConfig(
+                Yaml.createYamlMappingBuilder().add(
+                    "remote", Yaml.createYamlMappingBuilder().add("url", "http://stub").build()
+                ).build()
+            ),
+            this.vertx,
+            new RxNpmProxyStorage(new RxStorageWrapper(new InMemoryStorage())),
+            new StubRemote(cached)
+        );
+        this.slice = new NpmProxySlice("npm-proxy", this.npm);
+        this.headers = Collections.singletonList(new MapEntry<>("Host", "localhost:8080"));
+        this.request("GET /npm-proxy/bench HTTP/1.1");
+        this.request("GET /npm-proxy/bench/-/bench-1.0.0.tgz HTTP/1.1");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        this.npm.close();
+        this.vertx.close();
+    }
+
+    @Benchmark
+    public ByteBuffer servesPackage() {
+        return this.request("GET /npm-proxy/bench HTTP/1.1");
+    }
+
+    @Benchmark
+    public ByteBuffer servesAsset() {
+        return this.request("GET /npm-proxy/bench/-/bench-1.0.0.tgz HTTP/1.1");
+    }
+
+    /**
+     * Send request to the slice and read response body.
+     * @param line Request line
+     * @return Response body
+     */
+    private ByteBuffer request(final String line) {
+        final CompletableFuture<ByteBuffer> body = new CompletableFuture<>();
+        this.slice.response(line, this.headers, Flowable.empty()).send(
+            (final RsStatus status, final Headers rsheaders,
+                final Publisher<ByteBuffer> publisher) -> {
+                new Concatenation(publisher).single()
+                    .subscribe(body::complete, body::completeExceptionally);
+                return body.thenApply(ignored -> null);
+            }
+        ).toCompletableFuture().join();
+        return body.join();
+    }
+
+    /**
+     * Stub remote repository.
+     * @since 0.3
+     */
+    private static final class StubRemote implements NpmRemote {
+        /**
+         * Asset size.
+         */
+        private static final int SIZE = 64 * 1024;
+
+        /**
+         * Package content in cached format.
+         */
+        private final String content;
+
+        /**
+         * Ctor.
+         * @param content Package content in cached format
+         */
+        StubRemote(final String content) {
+            this.content = content;
+        }
+
+        @Override
+        public Maybe<NpmPackage> loadPackage(final String name) {
+            return Maybe.just(new NpmPackage(name, this.content, "", OffsetDateTime.now()));
+        }
+
+        @Override
+        public Maybe<NpmAsset> loadAsset(final String path, final Path tmp) {
+            return Maybe.just(
+                new NpmAsset(
+                    path,
+                    new Content.From(new byte[StubRemote.SIZE]),
+                    "",
+                    "application/octet-stream"
+                )
+            );
+        }
+
+        @Override
+        public void close() {
+            // nothing to close
+        }
+    }
+}
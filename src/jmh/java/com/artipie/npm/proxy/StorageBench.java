@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.asto.Concatenation;
+import com.artipie.asto.Content;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.rx.RxStorageWrapper;
+import com.artipie.npm.proxy.model.NpmAsset;
+import com.artipie.npm.proxy.model.NpmPackage;
+import java.nio.ByteBuffer;
+import java.time.OffsetDateTime;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of NPM Proxy storage reads and writes over in-memory storage.
+ * @since 0.3
+ * @checkstyle DesignForExtensionCheck (500 lines)
+ * @checkstyle JavadocMethodCheck (500 lines)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+public class StorageBench {
+    /**
+     * Asset path.
+     */
+    private static final String ASSET = "bench/-/bench-1.0.0.tgz";
+
+    /**
+     * Asset size.
+     */
+    private static final int SIZE = 64 * 1024;
+
+    /**
+     * NPM Proxy storage.
+     */
+    private NpmProxyStorage storage;
+
+    /**
+     * Package to save.
+     */
+    private NpmPackage pkg;
+
+    /**
+     * Asset data.
+     */
+    private byte[] data;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.storage = new RxNpmProxyStorage(new RxStorageWrapper(new InMemoryStorage()));
+        this.pkg = new NpmPackage(
+            "bench", new Packument("bench", 100).cached(), "", OffsetDateTime.now()
+        );
+        this.data = new byte[StorageBench.SIZE];
+        this.storage.save(this.pkg).blockingAwait();
+        this.savesAsset();
+    }
+
+    @Benchmark
+    public void savesPackage() {
+        this.storage.save(this.pkg).blockingAwait();
+    }
+
+    @Benchmark
+    public NpmPackage readsPackage() {
+        return this.storage.getPackage("bench").blockingGet();
+    }
+
+    @Benchmark
+    public void savesAsset() {
+        this.storage.save(
+            new NpmAsset(
+                StorageBench.ASSET, new Content.From(this.data), "", "application/octet-stream"
+            )
+        ).blockingAwait();
+    }
+
+    @Benchmark
+    public ByteBuffer readsAsset() {
+        return new Concatenation(
+            this.storage.getAsset(StorageBench.ASSET).blockingGet().dataPublisher()
+        ).single().blockingGet();
+    }
+}
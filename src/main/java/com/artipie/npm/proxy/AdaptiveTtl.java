@@ -0,0 +1,238 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.jayway.jsonpath.DocumentContext;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Per-package metadata TTL computed from publish activity recorded in the
+ * {@code time} field of the package metadata. The expected interval until the
+ * next change is the longest of the time since the last change and the median
+ * interval between recent publishes, TTL is a fraction of it (similar to the
+ * heuristic freshness of HTTP caches) bounded by configured minimum and
+ * maximum. So packages publishing daily are refreshed often, while packages
+ * not published for years are refreshed rarely.
+ * @since 0.3
+ */
+public final class AdaptiveTtl {
+    /**
+     * Number of recent publishes to estimate publish interval.
+     */
+    private static final int RECENT = 10;
+
+    /**
+     * Package creation time key.
+     */
+    private static final String CREATED = "created";
+
+    /**
+     * Package modification time key.
+     */
+    private static final String MODIFIED = "modified";
+
+    /**
+     * Minimal TTL.
+     */
+    private final Duration min;
+
+    /**
+     * Maximal TTL (zero if adaptive TTL is disabled).
+     */
+    private final Duration max;
+
+    /**
+     * Fraction of expected interval until next change.
+     */
+    private final double factor;
+
+    /**
+     * Ctor.
+     * @param config NPM Proxy configuration
+     */
+    public AdaptiveTtl(final NpmProxyConfig config) {
+        this(config.adaptiveTtlMin(), config.adaptiveTtlMax(), config.adaptiveTtlFactor());
+    }
+
+    /**
+     * Ctor.
+     * @param min Minimal TTL
+     * @param max Maximal TTL (zero if adaptive TTL is disabled)
+     * @param factor Fraction of expected interval until next change
+     */
+    public AdaptiveTtl(final Duration min, final Duration max, final double factor) {
+        this.min = min;
+        this.max = max;
+        this.factor = factor;
+    }
+
+    /**
+     * Compute metadata TTL of the package.
+     * @param json Parsed package metadata
+     * @param now Current time
+     * @return TTL or empty if adaptive TTL is disabled
+     */
+    @SuppressWarnings("unchecked")
+    public Optional<Duration> ttl(final DocumentContext json, final OffsetDateTime now) {
+        final Optional<Duration> result;
+        if (this.max.isZero()) {
+            result = Optional.empty();
+        } else {
+            final Object root = json.json();
+            final Object time;
+            if (root instanceof Map) {
+                time = ((Map<String, Object>) root).get("time");
+            } else {
+                time = null;
+            }
+            if (time instanceof Map) {
+                result = Optional.of(this.ttl((Map<String, Object>) time, now));
+            } else {
+                result = Optional.of(this.max);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compute metadata TTL from the package time field.
+     * @param time Package time field
+     * @param now Current time
+     * @return TTL
+     */
+    private Duration ttl(final Map<String, Object> time, final OffsetDateTime now) {
+        final List<OffsetDateTime> publishes = new ArrayList<>(time.size());
+        OffsetDateTime changed = null;
+        for (final Map.Entry<String, Object> entry : time.entrySet()) {
+            final OffsetDateTime date = AdaptiveTtl.date(entry.getValue());
+            if (date != null && !AdaptiveTtl.CREATED.equals(entry.getKey())) {
+                if (!AdaptiveTtl.MODIFIED.equals(entry.getKey())) {
+                    publishes.add(date);
+                }
+                if (changed == null || date.isAfter(changed)) {
+                    changed = date;
+                }
+            }
+        }
+        final Duration result;
+        if (changed == null) {
+            result = this.max;
+        } else {
+            Collections.sort(publishes);
+            final Duration expected = AdaptiveTtl.longest(
+                Duration.between(changed, now),
+                AdaptiveTtl.median(
+                    publishes.subList(
+                        Math.max(0, publishes.size() - AdaptiveTtl.RECENT), publishes.size()
+                    )
+                )
+            );
+            result = AdaptiveTtl.longest(
+                this.min,
+                AdaptiveTtl.shortest(
+                    this.max, Duration.ofMillis((long) (expected.toMillis() * this.factor))
+                )
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Median interval between publishes.
+     * @param publishes Publish dates in chronological order
+     * @return Median interval (zero if there are less than two publishes)
+     */
+    private static Duration median(final List<OffsetDateTime> publishes) {
+        final List<Duration> intervals = new ArrayList<>(publishes.size());
+        for (int idx = 1; idx < publishes.size(); idx += 1) {
+            intervals.add(Duration.between(publishes.get(idx - 1), publishes.get(idx)));
+        }
+        final Duration result;
+        if (intervals.isEmpty()) {
+            result = Duration.ZERO;
+        } else {
+            Collections.sort(intervals);
+            result = intervals.get(intervals.size() / 2);
+        }
+        return result;
+    }
+
+    /**
+     * Parse date of the time field entry.
+     * @param value Entry value
+     * @return Date or null if the value is not a date
+     */
+    private static OffsetDateTime date(final Object value) {
+        OffsetDateTime result;
+        if (value instanceof String) {
+            try {
+                result = OffsetDateTime.parse((String) value);
+            } catch (final DateTimeParseException ex) {
+                result = null;
+            }
+        } else {
+            result = null;
+        }
+        return result;
+    }
+
+    /**
+     * Longest of two durations.
+     * @param first First duration
+     * @param second Second duration
+     * @return Longest duration
+     */
+    private static Duration longest(final Duration first, final Duration second) {
+        final Duration result;
+        if (first.compareTo(second) >= 0) {
+            result = first;
+        } else {
+            result = second;
+        }
+        return result;
+    }
+
+    /**
+     * Shortest of two durations.
+     * @param first First duration
+     * @param second Second duration
+     * @return Shortest duration
+     */
+    private static Duration shortest(final Duration first, final Duration second) {
+        final Duration result;
+        if (first.compareTo(second) <= 0) {
+            result = first;
+        } else {
+            result = second;
+        }
+        return result;
+    }
+}
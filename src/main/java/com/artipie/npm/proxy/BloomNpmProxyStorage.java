@@ -0,0 +1,396 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.asto.Concatenation;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Remaining;
+import com.artipie.asto.rx.RxStorage;
+import com.artipie.npm.proxy.model.NpmAsset;
+import com.artipie.npm.proxy.model.NpmPackage;
+import com.jcabi.log.Logger;
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * NPM Proxy storage with Bloom filter of cached keys, so that lookups of
+ * packages and assets which are definitely not cached do not touch the
+ * storage. The filter is updated on save and on delete (eviction) of stored
+ * objects.
+ * <p>
+ * On close the filter is persisted, on start the persisted filter is read and
+ * deleted, so that filter is rebuilt by listing the storage if the proxy was
+ * not closed properly. Until the filter is loaded, all lookups go to the
+ * storage, deletions are not applied to the filter while it is loading.
+ * @since 0.3
+ */
+public final class BloomNpmProxyStorage implements NpmProxyStorage {
+    /**
+     * Persisted filter key (package names can not start with dot).
+     */
+    private static final Key SNAPSHOT = new Key.From(".bloom");
+
+    /**
+     * Time to wait for filter persisting on close (in seconds).
+     */
+    private static final long CLOSE_WAIT = 30;
+
+    /**
+     * Origin storage.
+     */
+    private final NpmProxyStorage origin;
+
+    /**
+     * Underlying storage.
+     */
+    private final RxStorage storage;
+
+    /**
+     * Filter of cached keys.
+     */
+    private final CountingBloomFilter filter;
+
+    /**
+     * Keys saved while the filter is loading.
+     */
+    private final List<String> early;
+
+    /**
+     * Lookups skipped as definite misses.
+     */
+    private final AtomicLong skipped;
+
+    /**
+     * Lookups of absent keys not detected by the filter.
+     */
+    private final AtomicLong positives;
+
+    /**
+     * Filter loading.
+     */
+    private final Completable loading;
+
+    /**
+     * Whether the filter is loaded.
+     */
+    private boolean ready;
+
+    /**
+     * Ctor.
+     * @param origin Origin storage
+     * @param storage Underlying storage
+     * @param config NPM Proxy configuration
+     */
+    public BloomNpmProxyStorage(final NpmProxyStorage origin, final RxStorage storage,
+        final NpmProxyConfig config) {
+        this(origin, storage, new CountingBloomFilter(config.bloomEntries(), config.bloomFpp()));
+    }
+
+    /**
+     * Ctor.
+     * @param origin Origin storage
+     * @param storage Underlying storage
+     * @param filter Filter of cached keys
+     */
+    @SuppressWarnings("PMD.ConstructorOnlyInitializesOrCallOtherConstructors")
+    BloomNpmProxyStorage(final NpmProxyStorage origin, final RxStorage storage,
+        final CountingBloomFilter filter) {
+        this.origin = origin;
+        this.storage = storage;
+        this.filter = filter;
+        this.early = new ArrayList<>(0);
+        this.skipped = new AtomicLong();
+        this.positives = new AtomicLong();
+        this.loading = Completable.defer(this::load).cache();
+        this.loading.subscribe();
+    }
+
+    @Override
+    public Completable save(final NpmPackage pkg) {
+        return Completable.fromAction(() -> this.add(BloomNpmProxyStorage.packageKey(pkg.name())))
+            .andThen(this.origin.save(pkg));
+    }
+
+    @Override
+    public Completable refresh(final NpmPackage pkg) {
+        return this.origin.refresh(pkg);
+    }
+
+    @Override
+    public Completable save(final NpmAsset asset) {
+        return Completable.fromAction(() -> this.add(BloomNpmProxyStorage.assetKey(asset.path())))
+            .andThen(this.origin.save(asset));
+    }
+
+    @Override
+    public Maybe<NpmPackage> getPackage(final String name) {
+        return this.lookup(
+            BloomNpmProxyStorage.packageKey(name), () -> this.origin.getPackage(name)
+        );
+    }
+
+    @Override
+    public Maybe<NpmAsset> getAsset(final String path) {
+        return this.lookup(BloomNpmProxyStorage.assetKey(path), () -> this.origin.getAsset(path));
+    }
+
+    @Override
+    public Completable deletePackage(final String name) {
+        return this.deleted(
+            BloomNpmProxyStorage.packageKey(name), () -> this.origin.deletePackage(name)
+        );
+    }
+
+    @Override
+    public Completable deleteAsset(final String path) {
+        return this.deleted(
+            BloomNpmProxyStorage.assetKey(path), () -> this.origin.deleteAsset(path)
+        );
+    }
+
+    /**
+     * Persist the filter and close origin storage.
+     * @throws IOException If origin storage fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        final boolean loaded;
+        synchronized (this.early) {
+            loaded = this.ready;
+        }
+        if (loaded && !this.storage.save(
+            BloomNpmProxyStorage.SNAPSHOT, new Content.From(this.filter.bytes())
+        ).blockingAwait(BloomNpmProxyStorage.CLOSE_WAIT, TimeUnit.SECONDS)) {
+            Logger.warn(this, "Bloom filter was not persisted on close");
+        }
+        this.origin.close();
+    }
+
+    /**
+     * Filter loading completion, lookups are not filtered before it.
+     * @return Completion
+     */
+    public Completable loaded() {
+        return this.loading;
+    }
+
+    /**
+     * Number of lookups skipped as definite misses.
+     * @return Skipped lookups count
+     */
+    public long skipped() {
+        return this.skipped.get();
+    }
+
+    /**
+     * Number of lookups of absent keys which were not detected by the filter,
+     * observed false positive rate is {@code positives / (positives + skipped)}.
+     * @return False positives count
+     */
+    public long positives() {
+        return this.positives.get();
+    }
+
+    /**
+     * Expected false positive probability of the filter.
+     * @return False positive probability
+     */
+    public double fpp() {
+        return this.filter.fpp();
+    }
+
+    /**
+     * Lookup origin storage unless the key is definitely absent.
+     * @param key Storage key
+     * @param lookup Origin storage lookup
+     * @param <T> Lookup result type
+     * @return Lookup result
+     */
+    private <T> Maybe<T> lookup(final String key, final Supplier<Maybe<T>> lookup) {
+        return Maybe.defer(
+            () -> {
+                final boolean loaded;
+                synchronized (this.early) {
+                    loaded = this.ready;
+                }
+                final Maybe<T> result;
+                if (!loaded) {
+                    result = lookup.get();
+                } else if (this.filter.contains(key)) {
+                    result = lookup.get().doOnComplete(this.positives::incrementAndGet);
+                } else {
+                    this.skipped.incrementAndGet();
+                    result = Maybe.empty();
+                }
+                return result;
+            }
+        );
+    }
+
+    /**
+     * Add saved key to the filter.
+     * @param key Storage key
+     */
+    private void add(final String key) {
+        synchronized (this.early) {
+            if (this.ready) {
+                this.filter.add(key);
+            } else {
+                this.early.add(key);
+            }
+        }
+    }
+
+    /**
+     * Delete the object and remove its key from the filter if the object was
+     * stored, so the key was added to the filter on save, rebuild or restore.
+     * Keys which were never added are not removed, otherwise removal of
+     * a false positive would hide other cached keys.
+     * @param key Storage key
+     * @param delete Deletion, it is started after existence check
+     * @return Completion
+     */
+    private Completable deleted(final String key, final Supplier<Completable> delete) {
+        return Single.defer(() -> this.storage.exists(new Key.From(key))).flatMapCompletable(
+            existed -> delete.get().doOnComplete(
+                () -> {
+                    if (existed) {
+                        this.remove(key);
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Remove deleted key from the filter if it is loaded.
+     * @param key Storage key
+     */
+    private void remove(final String key) {
+        synchronized (this.early) {
+            if (this.ready) {
+                this.filter.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Load the filter: read persisted one or rebuild it by listing storage.
+     * If the filter can not be loaded, all lookups go to the storage.
+     * @return Completion
+     */
+    private Completable load() {
+        return this.restore().flatMapCompletable(
+            restored -> {
+                final Completable result;
+                if (restored) {
+                    result = this.storage.delete(BloomNpmProxyStorage.SNAPSHOT);
+                } else {
+                    result = this.rebuild();
+                }
+                return result;
+            }
+        ).doOnComplete(
+            () -> {
+                synchronized (this.early) {
+                    this.early.forEach(this.filter::add);
+                    this.early.clear();
+                    this.ready = true;
+                }
+                Logger.info(this, "Bloom filter loaded, expected fpp %.4f", this.filter.fpp());
+            }
+        ).doOnError(
+            err -> Logger.error(
+                this, "Failed to load Bloom filter, it is not used: %s", err.getMessage()
+            )
+        ).onErrorComplete();
+    }
+
+    /**
+     * Read persisted filter.
+     * @return True if the filter was restored
+     */
+    private Single<Boolean> restore() {
+        return this.storage.exists(BloomNpmProxyStorage.SNAPSHOT).flatMap(
+            exists -> {
+                final Single<Boolean> result;
+                if (exists) {
+                    result = this.storage.value(BloomNpmProxyStorage.SNAPSHOT)
+                        .map(Concatenation::new).flatMap(Concatenation::single)
+                        .map(buf -> this.filter.restore(new Remaining(buf).bytes()));
+                } else {
+                    result = Single.just(false);
+                }
+                return result;
+            }
+        );
+    }
+
+    /**
+     * Rebuild the filter by listing storage keys, metadata files of assets and
+     * journal segments are skipped.
+     * @return Completion
+     */
+    private Completable rebuild() {
+        return this.storage.list(Key.ROOT).flatMapCompletable(
+            keys -> Completable.fromAction(
+                () -> {
+                    for (final Key key : keys) {
+                        final String str = key.string();
+                        if (!str.startsWith(".") && !str.endsWith(".meta")) {
+                            this.filter.add(str);
+                        }
+                    }
+                    Logger.info(this, "Bloom filter rebuilt from %d keys", keys.size());
+                }
+            )
+        );
+    }
+
+    /**
+     * Package metadata storage key.
+     * @param name Package name
+     * @return Key
+     */
+    private static String packageKey(final String name) {
+        return new Key.From(name, "meta.json").string();
+    }
+
+    /**
+     * Asset storage key.
+     * @param path Asset path
+     * @return Key
+     */
+    private static String assetKey(final String path) {
+        return new Key.From(path).string();
+    }
+}
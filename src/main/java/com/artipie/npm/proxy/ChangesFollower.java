@@ -0,0 +1,396 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.asto.Concatenation;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Remaining;
+import com.artipie.asto.rx.RxStorage;
+import com.jcabi.log.Logger;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.ext.web.client.WebClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Follower of upstream CouchDB-style `_changes` feed. It reads the feed
+ * incrementally in batches starting from persisted checkpoint and passes
+ * changed packages to {@link Invalidations}, which refreshes cached ones only.
+ * Checkpoint is saved only after all cached packages of the batch are
+ * refreshed, so changes are not lost on restart: if any of them failed to
+ * refresh, the checkpoint is kept and the batch is read again after backoff,
+ * refreshing only the packages not refreshed yet. A package which failed to
+ * refresh several times is given up on, so it does not stall the feed.
+ * If the feed has more changes than one batch, next batches are read at once
+ * (up to a limit per tick). On failures reading is paused with exponential
+ * backoff. On the first start the feed is followed from now.
+ * @since 0.3
+ */
+public final class ChangesFollower {
+    /**
+     * Checkpoint key (package names can not start with dot).
+     */
+    private static final Key CHECKPOINT = new Key.From(".changes");
+
+    /**
+     * Sequence to start following the feed from now.
+     */
+    private static final String NOW = "now";
+
+    /**
+     * Maximum number of batches read per tick.
+     */
+    private static final int BATCHES = 10;
+
+    /**
+     * Number of attempts to refresh changed package before giving up on it.
+     */
+    private static final int ATTEMPTS = 3;
+
+    /**
+     * Maximum backoff after failures.
+     */
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(10);
+
+    /**
+     * Feed request timeout (in millis).
+     */
+    private static final long TIMEOUT = 60_000;
+
+    /**
+     * Web client.
+     */
+    private final WebClient client;
+
+    /**
+     * Changes feed URL.
+     */
+    private final String url;
+
+    /**
+     * Checkpoint storage.
+     */
+    private final RxStorage storage;
+
+    /**
+     * Notified packages invalidation.
+     */
+    private final Invalidations invalidations;
+
+    /**
+     * Maximum number of changes per batch.
+     */
+    private final int batch;
+
+    /**
+     * Ticks interval.
+     */
+    private final Duration interval;
+
+    /**
+     * Ticks scheduler.
+     */
+    private final Scheduler scheduler;
+
+    /**
+     * Number of notified changes.
+     */
+    private final AtomicLong changes;
+
+    /**
+     * Number of failed ticks.
+     */
+    private final AtomicLong failed;
+
+    /**
+     * Failed refresh attempts by package name since the checkpoint.
+     */
+    private final Map<String, Integer> attempts;
+
+    /**
+     * Packages refreshed since the checkpoint.
+     */
+    private final Set<String> done;
+
+    /**
+     * Ticks subscription.
+     */
+    private final Disposable ticks;
+
+    /**
+     * Number of consecutive failures.
+     */
+    private int failures;
+
+    /**
+     * Time when reading is resumed after failures (in millis of scheduler time).
+     */
+    private long resume;
+
+    /**
+     * Ctor.
+     * @param vertx Vertx instance
+     * @param storage Checkpoint storage
+     * @param invalidations Notified packages invalidation
+     * @param config NPM Proxy configuration
+     */
+    public ChangesFollower(final Vertx vertx, final RxStorage storage,
+        final Invalidations invalidations, final NpmProxyConfig config) {
+        this(
+            WebClient.create(vertx), config.changesUrl(), storage, invalidations,
+            config.changesBatch(), config.changesInterval(), Schedulers.io()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param client Web client
+     * @param url Changes feed URL
+     * @param storage Checkpoint storage
+     * @param invalidations Notified packages invalidation
+     * @param batch Maximum number of changes per batch
+     * @param interval Ticks interval
+     * @param scheduler Ticks scheduler
+     * @checkstyle ParameterNumberCheck (10 lines)
+     */
+    @SuppressWarnings("PMD.ConstructorOnlyInitializesOrCallOtherConstructors")
+    ChangesFollower(final WebClient client, final String url, final RxStorage storage,
+        final Invalidations invalidations, final int batch, final Duration interval,
+        final Scheduler scheduler) {
+        this.client = client;
+        this.url = url;
+        this.storage = storage;
+        this.invalidations = invalidations;
+        this.batch = batch;
+        this.interval = interval;
+        this.scheduler = scheduler;
+        this.changes = new AtomicLong();
+        this.failed = new AtomicLong();
+        this.attempts = new ConcurrentHashMap<>();
+        this.done = ConcurrentHashMap.newKeySet();
+        this.ticks = Flowable.interval(interval.toMillis(), TimeUnit.MILLISECONDS, scheduler)
+            .onBackpressureDrop()
+            .concatMapCompletable(tick -> this.tick(), 1)
+            .subscribe();
+    }
+
+    /**
+     * Number of changes notified for invalidation.
+     * @return Changes count
+     */
+    public long changes() {
+        return this.changes.get();
+    }
+
+    /**
+     * Number of failed attempts to read the feed.
+     * @return Failures count
+     */
+    public long failed() {
+        return this.failed.get();
+    }
+
+    /**
+     * Stop following the feed.
+     */
+    public void close() {
+        this.ticks.dispose();
+        this.client.close();
+    }
+
+    /**
+     * Read the feed unless reading is paused after failures.
+     * @return Completion
+     */
+    Completable tick() {
+        return Completable.defer(
+            () -> {
+                final Completable result;
+                if (this.scheduler.now(TimeUnit.MILLISECONDS) < this.resume) {
+                    result = Completable.complete();
+                } else {
+                    result = this.follow(ChangesFollower.BATCHES)
+                        .doOnComplete(() -> this.failures = 0)
+                        .doOnError(this::backoff)
+                        .onErrorComplete();
+                }
+                return result;
+            }
+        );
+    }
+
+    /**
+     * Read batches of the feed from the checkpoint.
+     * @param left Number of batches left to read
+     * @return Completion
+     */
+    private Completable follow(final int left) {
+        return this.checkpoint().flatMap(this::read).flatMapCompletable(
+            body -> {
+                final JsonArray results = body.getJsonArray("results", new JsonArray());
+                final Set<String> names = new LinkedHashSet<>(results.size());
+                for (final Object item : results) {
+                    final String name = ((JsonObject) item).getString("id");
+                    if (name != null && !name.startsWith("_design/")) {
+                        names.add(name);
+                    }
+                }
+                names.removeAll(this.done);
+                this.changes.addAndGet(names.size());
+                final Completable saved = this.invalidations.invalidate(names)
+                    .flatMapCompletable(
+                        failures -> {
+                            names.removeAll(failures);
+                            this.done.addAll(names);
+                            this.retry(failures);
+                            return this.storage.save(
+                                ChangesFollower.CHECKPOINT,
+                                new Content.From(
+                                    String.valueOf(body.getValue("last_seq"))
+                                        .getBytes(StandardCharsets.UTF_8)
+                                )
+                            );
+                        }
+                    ).doOnComplete(
+                        () -> {
+                            this.attempts.clear();
+                            this.done.clear();
+                        }
+                    );
+                final Completable result;
+                if (results.size() >= this.batch && left > 1) {
+                    result = saved.andThen(Completable.defer(() -> this.follow(left - 1)));
+                } else {
+                    result = saved;
+                }
+                return result;
+            }
+        );
+    }
+
+    /**
+     * Read batch of changes since the sequence.
+     * @param since Sequence
+     * @return Feed response body
+     */
+    private Single<JsonObject> read(final String since) {
+        return this.client.getAbs(this.url)
+            .addQueryParam("since", since)
+            .addQueryParam("limit", String.valueOf(this.batch))
+            .timeout(ChangesFollower.TIMEOUT)
+            .rxSend()
+            .map(
+                response -> {
+                    // @checkstyle MagicNumberCheck (1 line)
+                    if (response.statusCode() != 200) {
+                        throw new IllegalStateException(
+                            String.format("Changes feed responded %d", response.statusCode())
+                        );
+                    }
+                    final JsonObject body = response.bodyAsJsonObject();
+                    if (body == null || !body.containsKey("last_seq")) {
+                        throw new IllegalStateException("Changes feed has no last_seq");
+                    }
+                    return body;
+                }
+            );
+    }
+
+    /**
+     * Read persisted checkpoint.
+     * @return Sequence to read the feed since
+     */
+    private Single<String> checkpoint() {
+        return this.storage.exists(ChangesFollower.CHECKPOINT).flatMap(
+            exists -> {
+                final Single<String> result;
+                if (exists) {
+                    result = this.storage.value(ChangesFollower.CHECKPOINT)
+                        .map(Concatenation::new).flatMap(Concatenation::single)
+                        .map(buf -> new String(new Remaining(buf).bytes(), StandardCharsets.UTF_8));
+                } else {
+                    result = Single.just(ChangesFollower.NOW);
+                }
+                return result;
+            }
+        );
+    }
+
+    /**
+     * Count failed refresh attempts of the packages.
+     * @param failures Names of the packages which failed to refresh
+     * @throws IllegalStateException If some of the packages should be retried
+     */
+    private void retry(final Set<String> failures) {
+        int retried = 0;
+        for (final String name : failures) {
+            if (this.attempts.merge(name, 1, Integer::sum) < ChangesFollower.ATTEMPTS) {
+                retried += 1;
+            } else {
+                Logger.warn(
+                    this, "Giving up refreshing changed package %s after %d attempts",
+                    name, ChangesFollower.ATTEMPTS
+                );
+            }
+        }
+        if (retried > 0) {
+            throw new IllegalStateException(
+                String.format("%d changed packages failed to refresh", retried)
+            );
+        }
+    }
+
+    /**
+     * Pause reading after failure.
+     * @param err Failure
+     */
+    private void backoff(final Throwable err) {
+        this.failed.incrementAndGet();
+        this.failures += 1;
+        final long pause = Math.min(
+            ChangesFollower.MAX_BACKOFF.toMillis(),
+            this.interval.toMillis() << Math.min(this.failures, Integer.SIZE)
+        );
+        this.resume = this.scheduler.now(TimeUnit.MILLISECONDS) + pause;
+        Logger.warn(
+            this, "Failed to read changes feed %s, pausing for %d ms: %s",
+            this.url, pause, err.getMessage()
+        );
+    }
+}
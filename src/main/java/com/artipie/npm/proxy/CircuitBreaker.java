@@ -0,0 +1,350 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.reactivex.Maybe;
+import io.reactivex.functions.Function;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Circuit breaker for remote repository calls. It counts consecutive failed
+ * (or too slow) calls and opens after the configured threshold. While it is open
+ * all calls fail fast without touching the remote repository. After the open
+ * duration passes, a single probe call is let through (half-open state): its
+ * success closes the breaker, its failure opens it again.
+ * A call may be judged by the time the remote repository takes to start
+ * answering, see {@link #protect(Function)}: the rest of the call is not
+ * judged then.
+ * @since 0.3
+ */
+public final class CircuitBreaker {
+    /**
+     * Breaker state.
+     * @since 0.3
+     */
+    enum State {
+        /**
+         * Calls go through.
+         */
+        CLOSED,
+
+        /**
+         * Calls fail fast.
+         */
+        OPEN,
+
+        /**
+         * One probe call is in progress, others fail fast.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * Number of consecutive failures to open the breaker.
+     */
+    private final int threshold;
+
+    /**
+     * Calls lasting longer are counted as failures (zero disables the check).
+     */
+    private final Duration slow;
+
+    /**
+     * How long the breaker stays open before probing.
+     */
+    private final Duration open;
+
+    /**
+     * Clock.
+     */
+    private final Clock clock;
+
+    /**
+     * Current state.
+     */
+    private State state;
+
+    /**
+     * Consecutive failures counter.
+     */
+    private int failures;
+
+    /**
+     * The moment the breaker was opened.
+     */
+    private Instant opened;
+
+    /**
+     * Ctor.
+     * @param threshold Number of consecutive failures to open the breaker
+     * @param slow Calls lasting longer are counted as failures (zero disables the check)
+     * @param open How long the breaker stays open before probing
+     */
+    public CircuitBreaker(final int threshold, final Duration slow, final Duration open) {
+        this(threshold, slow, open, Clock.systemUTC());
+    }
+
+    /**
+     * Ctor.
+     * @param threshold Number of consecutive failures to open the breaker
+     * @param slow Calls lasting longer are counted as failures (zero disables the check)
+     * @param open How long the breaker stays open before probing
+     * @param clock Clock
+     * @checkstyle ParameterNumberCheck (10 lines)
+     */
+    CircuitBreaker(final int threshold,
+        final Duration slow,
+        final Duration open,
+        final Clock clock) {
+        this.threshold = threshold;
+        this.slow = slow;
+        this.open = open;
+        this.clock = clock;
+        this.state = State.CLOSED;
+        this.opened = Instant.MIN;
+    }
+
+    /**
+     * Protect remote call with the breaker. Error signal of the source is counted
+     * as failure, any other signal is counted as success (unless it is too slow).
+     * @param source Remote call
+     * @param <T> Result type
+     * @return Remote call result or {@link OpenException} error if the breaker is open
+     */
+    public <T> Maybe<T> protect(final Maybe<T> source) {
+        return this.protect(gate -> source);
+    }
+
+    /**
+     * Protect remote call with the breaker judging it by its answer start. The call
+     * marks with the gate the moment the request is actually sent (the slow call
+     * timer restarts then, so waiting before it is not counted) and the moment
+     * the remote repository starts answering: the call is judged then. Error before
+     * the answer start is counted as failure, the call completed without explicit
+     * answer start is judged on completion.
+     * @param call Remote call, accepts the gate
+     * @param <T> Result type
+     * @return Remote call result or {@link OpenException} error if the breaker is open
+     */
+    public <T> Maybe<T> protect(final Function<Gate, Maybe<T>> call) {
+        return Maybe.defer(
+            () -> {
+                final Maybe<T> result;
+                if (this.acquire()) {
+                    final Gate gate = new Gate(this);
+                    result = call.apply(gate)
+                        .doOnSuccess(ignored -> gate.answered())
+                        .doOnComplete(gate::answered)
+                        .doOnError(ignored -> gate.failed())
+                        .doOnDispose(gate::released);
+                } else {
+                    result = Maybe.error(new OpenException(this.remaining()));
+                }
+                return result;
+            }
+        );
+    }
+
+    /**
+     * Current breaker state.
+     * @return Breaker state
+     */
+    synchronized State state() {
+        return this.state;
+    }
+
+    /**
+     * Try to acquire permission for the call.
+     * @return True if the call is permitted
+     */
+    private synchronized boolean acquire() {
+        final boolean permitted;
+        if (this.state == State.CLOSED) {
+            permitted = true;
+        } else if (this.state == State.OPEN
+            && !this.clock.instant().isBefore(this.opened.plus(this.open))) {
+            this.state = State.HALF_OPEN;
+            permitted = true;
+        } else {
+            permitted = false;
+        }
+        return permitted;
+    }
+
+    /**
+     * Time left before the breaker lets the probe call through.
+     * @return Time left, zero if the probe call is in progress already
+     */
+    private synchronized Duration remaining() {
+        Duration result = Duration.ZERO;
+        if (this.state == State.OPEN) {
+            final Duration left = Duration.between(
+                this.clock.instant(), this.opened.plus(this.open)
+            );
+            if (!left.isNegative()) {
+                result = left;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Register successful call.
+     * @param start The moment call was started
+     */
+    private synchronized void succeeded(final Instant start) {
+        if (!this.slow.isZero()
+            && Duration.between(start, this.clock.instant()).compareTo(this.slow) > 0) {
+            this.failed();
+        } else {
+            this.failures = 0;
+            this.state = State.CLOSED;
+        }
+    }
+
+    /**
+     * Register failed call.
+     */
+    private synchronized void failed() {
+        this.failures += 1;
+        if (this.state == State.HALF_OPEN || this.failures >= this.threshold) {
+            this.state = State.OPEN;
+            this.opened = this.clock.instant();
+        }
+    }
+
+    /**
+     * Register cancelled call. Cancelled probe does not tell anything about remote
+     * repository health, so the next call is allowed to probe again.
+     */
+    private synchronized void released() {
+        if (this.state == State.HALF_OPEN) {
+            this.state = State.OPEN;
+            this.opened = this.clock.instant().minus(this.open);
+        }
+    }
+
+    /**
+     * Gate of the protected call: the call is judged once it is passed.
+     * @since 0.3
+     */
+    public static final class Gate {
+        /**
+         * Circuit breaker.
+         */
+        private final CircuitBreaker breaker;
+
+        /**
+         * The moment the request was sent.
+         */
+        private final AtomicReference<Instant> start;
+
+        /**
+         * Whether the call is judged already.
+         */
+        private final AtomicBoolean passed;
+
+        /**
+         * Ctor.
+         * @param breaker Circuit breaker
+         */
+        private Gate(final CircuitBreaker breaker) {
+            this.breaker = breaker;
+            this.start = new AtomicReference<>(breaker.clock.instant());
+            this.passed = new AtomicBoolean();
+        }
+
+        /**
+         * Mark the request is sent, slow call timer starts over.
+         */
+        public void sent() {
+            this.start.set(this.breaker.clock.instant());
+        }
+
+        /**
+         * Mark the remote repository started answering: the call succeeded
+         * unless the answer took too long.
+         */
+        public void answered() {
+            if (this.passed.compareAndSet(false, true)) {
+                this.breaker.succeeded(this.start.get());
+            }
+        }
+
+        /**
+         * Register the call failure if it did not start answering.
+         */
+        private void failed() {
+            if (this.passed.compareAndSet(false, true)) {
+                this.breaker.failed();
+            }
+        }
+
+        /**
+         * Register the call cancelled before it started answering.
+         */
+        private void released() {
+            if (this.passed.compareAndSet(false, true)) {
+                this.breaker.released();
+            }
+        }
+    }
+
+    /**
+     * Error signalled when the breaker is open and call is rejected.
+     * @since 0.3
+     */
+    public static final class OpenException extends IllegalStateException {
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Time left before the breaker lets the probe call through.
+         */
+        private final Duration pause;
+
+        /**
+         * Ctor.
+         * @param pause Time left before the breaker lets the probe call through
+         */
+        OpenException(final Duration pause) {
+            super("Circuit breaker is open, remote repository call rejected");
+            this.pause = pause;
+        }
+
+        /**
+         * Pause before the call is worth retrying.
+         * @return Pause
+         */
+        public Duration retryAfter() {
+            return this.pause;
+        }
+    }
+}
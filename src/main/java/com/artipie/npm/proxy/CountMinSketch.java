@@ -0,0 +1,152 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Count-min sketch: compact frequency estimator. It never underestimates the
+ * frequency but may overestimate it due to hash collisions. Counters are
+ * halved once the number of additions reaches the sample size, so old
+ * popularity fades away.
+ * @since 0.3
+ */
+final class CountMinSketch {
+    /**
+     * Number of hash functions (rows).
+     */
+    private static final int DEPTH = 4;
+
+    /**
+     * Hash seeds for the rows.
+     */
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    /**
+     * Counters table.
+     */
+    private final long[][] table;
+
+    /**
+     * Row width mask (width is the power of two).
+     */
+    private final int mask;
+
+    /**
+     * Number of additions after which counters are halved.
+     */
+    private final long sample;
+
+    /**
+     * Additions since the last halving.
+     */
+    private long additions;
+
+    /**
+     * Ctor.
+     * @param width Minimal row width
+     */
+    CountMinSketch(final int width) {
+        final int size = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.table = new long[CountMinSketch.DEPTH][size];
+        this.mask = size - 1;
+        // @checkstyle MagicNumberCheck (1 line)
+        this.sample = size * 10L;
+    }
+
+    /**
+     * Count the occurrence of the item.
+     * @param item Item
+     * @return Estimated frequency of the item including this occurrence
+     */
+    long add(final String item) {
+        final int hash = CountMinSketch.hash(item);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < CountMinSketch.DEPTH; row += 1) {
+            final int idx = this.index(hash, row);
+            this.table[row][idx] += 1;
+            min = Math.min(min, this.table[row][idx]);
+        }
+        this.additions += 1;
+        if (this.additions >= this.sample) {
+            this.halve();
+        }
+        return min;
+    }
+
+    /**
+     * Estimate item frequency.
+     * @param item Item
+     * @return Estimated frequency
+     */
+    long estimate(final String item) {
+        final int hash = CountMinSketch.hash(item);
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < CountMinSketch.DEPTH; row += 1) {
+            min = Math.min(min, this.table[row][this.index(hash, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * Halve all counters.
+     */
+    private void halve() {
+        for (final long[] row : this.table) {
+            for (int idx = 0; idx < row.length; idx += 1) {
+                row[idx] >>>= 1;
+            }
+        }
+        this.additions = Arrays.stream(this.table[0]).sum();
+    }
+
+    /**
+     * Counter index in the row.
+     * @param hash Item hash
+     * @param row Row
+     * @return Index
+     */
+    private int index(final int hash, final int row) {
+        int mixed = hash * CountMinSketch.SEEDS[row];
+        // @checkstyle MagicNumberCheck (1 line)
+        mixed ^= mixed >>> 16;
+        return mixed & this.mask;
+    }
+
+    /**
+     * Item hash.
+     * @param item Item
+     * @return Hash
+     */
+    private static int hash(final String item) {
+        // @checkstyle MagicNumberCheck (1 line)
+        int hash = 0x811C9DC5;
+        for (final byte octet : item.getBytes(StandardCharsets.UTF_8)) {
+            // @checkstyle MagicNumberCheck (1 line)
+            hash = (hash ^ octet) * 0x01000193;
+        }
+        return hash;
+    }
+}
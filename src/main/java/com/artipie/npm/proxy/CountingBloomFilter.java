@@ -0,0 +1,262 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Counting Bloom filter with 4-bit counters. It never reports added item as
+ * absent (unless the item shares all counters with removed items which were
+ * never added), but may report absent item as present with the configured
+ * probability. Unlike plain Bloom filter, items can be removed. Saturated
+ * counters are never decremented.
+ * @since 0.3
+ */
+final class CountingBloomFilter {
+    /**
+     * Maximal counter value.
+     */
+    private static final int MAX = 15;
+
+    /**
+     * Counter bits.
+     */
+    private static final int BITS = 4;
+
+    /**
+     * Serialized header size.
+     */
+    private static final int HEADER = 16;
+
+    /**
+     * Packed counters, two per byte.
+     */
+    private final byte[] counters;
+
+    /**
+     * Number of counters.
+     */
+    private final int size;
+
+    /**
+     * Number of hash functions.
+     */
+    private final int hashes;
+
+    /**
+     * Number of items in the filter.
+     */
+    private long items;
+
+    /**
+     * Ctor.
+     * @param expected Expected number of items
+     * @param fpp Desired false positive probability at expected number of items
+     */
+    CountingBloomFilter(final int expected, final double fpp) {
+        this(
+            CountingBloomFilter.counters(expected, fpp),
+            CountingBloomFilter.hashes(expected, CountingBloomFilter.counters(expected, fpp))
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param size Number of counters
+     * @param hashes Number of hash functions
+     */
+    private CountingBloomFilter(final int size, final int hashes) {
+        this.size = size;
+        this.hashes = hashes;
+        this.counters = new byte[(size + 1) / 2];
+    }
+
+    /**
+     * Add the item.
+     * @param item Item
+     */
+    synchronized void add(final String item) {
+        final long hash = CountingBloomFilter.hash(item);
+        for (int idx = 0; idx < this.hashes; idx += 1) {
+            final int pos = this.position(hash, idx);
+            final int value = this.get(pos);
+            if (value < CountingBloomFilter.MAX) {
+                this.set(pos, value + 1);
+            }
+        }
+        this.items += 1;
+    }
+
+    /**
+     * Remove the item. The item must be added before: removal of a false
+     * positive would make other items reported as absent.
+     * @param item Item
+     */
+    synchronized void remove(final String item) {
+        if (this.contains(item)) {
+            final long hash = CountingBloomFilter.hash(item);
+            for (int idx = 0; idx < this.hashes; idx += 1) {
+                final int pos = this.position(hash, idx);
+                final int value = this.get(pos);
+                if (value < CountingBloomFilter.MAX) {
+                    this.set(pos, value - 1);
+                }
+            }
+            this.items -= 1;
+        }
+    }
+
+    /**
+     * Check the item might be in the filter.
+     * @param item Item
+     * @return False if the item is definitely absent
+     */
+    synchronized boolean contains(final String item) {
+        final long hash = CountingBloomFilter.hash(item);
+        boolean result = true;
+        for (int idx = 0; result && idx < this.hashes; idx += 1) {
+            result = this.get(this.position(hash, idx)) > 0;
+        }
+        return result;
+    }
+
+    /**
+     * Expected false positive probability for the current number of items.
+     * @return False positive probability
+     */
+    synchronized double fpp() {
+        return Math.pow(
+            1 - Math.exp(-(double) this.hashes * Math.max(0, this.items) / this.size),
+            this.hashes
+        );
+    }
+
+    /**
+     * Serialize the filter.
+     * @return Bytes
+     */
+    synchronized byte[] bytes() {
+        return ByteBuffer.allocate(CountingBloomFilter.HEADER + this.counters.length)
+            .putInt(this.size)
+            .putInt(this.hashes)
+            .putLong(this.items)
+            .put(this.counters)
+            .array();
+    }
+
+    /**
+     * Restore the filter from bytes, if it has the same parameters.
+     * @param bytes Serialized filter
+     * @return True if filter was restored
+     */
+    synchronized boolean restore(final byte[] bytes) {
+        final ByteBuffer buf = ByteBuffer.wrap(bytes);
+        final boolean result = bytes.length == CountingBloomFilter.HEADER + this.counters.length
+            && buf.getInt() == this.size && buf.getInt() == this.hashes;
+        if (result) {
+            this.items = buf.getLong();
+            buf.get(this.counters);
+        }
+        return result;
+    }
+
+    /**
+     * Counter position for the hash function.
+     * @param hash Item hash
+     * @param idx Hash function index
+     * @return Counter position
+     */
+    private int position(final long hash, final int idx) {
+        // @checkstyle MagicNumberCheck (2 lines)
+        final int first = (int) hash;
+        final int second = (int) (hash >>> 32) | 1;
+        return Math.floorMod(first + idx * second, this.size);
+    }
+
+    /**
+     * Get counter value.
+     * @param pos Counter position
+     * @return Value
+     */
+    private int get(final int pos) {
+        // @checkstyle MagicNumberCheck (1 line)
+        return this.counters[pos >> 1] >> ((pos & 1) * CountingBloomFilter.BITS) & 0xF;
+    }
+
+    /**
+     * Set counter value.
+     * @param pos Counter position
+     * @param value Value
+     */
+    private void set(final int pos, final int value) {
+        final int shift = (pos & 1) * CountingBloomFilter.BITS;
+        // @checkstyle MagicNumberCheck (2 lines)
+        this.counters[pos >> 1] = (byte) (
+            this.counters[pos >> 1] & ~(0xF << shift) | value << shift
+        );
+    }
+
+    /**
+     * Optimal number of counters.
+     * @param expected Expected number of items
+     * @param fpp Desired false positive probability
+     * @return Number of counters
+     */
+    private static int counters(final int expected, final double fpp) {
+        return (int) Math.max(
+            Byte.SIZE,
+            Math.ceil(-Math.max(1, expected) * Math.log(fpp) / (Math.log(2) * Math.log(2)))
+        );
+    }
+
+    /**
+     * Optimal number of hash functions.
+     * @param expected Expected number of items
+     * @param size Number of counters
+     * @return Number of hash functions
+     */
+    private static int hashes(final int expected, final int size) {
+        return (int) Math.max(1, Math.round((double) size / Math.max(1, expected) * Math.log(2)));
+    }
+
+    /**
+     * Item hash: 64-bit FNV-1a with final avalanche mixing.
+     * @param item Item
+     * @return Hash
+     */
+    private static long hash(final String item) {
+        // @checkstyle MagicNumberCheck (10 lines)
+        long hash = 0xCBF29CE484222325L;
+        for (final byte octet : item.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ octet) * 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
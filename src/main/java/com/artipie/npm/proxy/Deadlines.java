@@ -0,0 +1,179 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.timeout.IdleStateHandler;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpConnection;
+import io.vertx.core.net.impl.ConnectionBase;
+import io.vertx.ext.web.client.impl.ClientPhase;
+import io.vertx.ext.web.client.impl.HttpContext;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Web client interceptor which applies remote call timeouts. Vert.x request
+ * timeout fails the request when no response is received within the first
+ * byte timeout. Once response starts, the idle (between data chunks) timeout
+ * is watched by idle state handler on the connection channel: Vert.x request
+ * timeout is cancelled by the first rescheduling after data is received, so
+ * it can not detect stalled responses. Idle connection is closed by Vert.x.
+ * The total timeout resets the request when the whole call takes too long.
+ * Failed request closes its connection, so stuck downloads do not hold pool
+ * slots.
+ * @since 0.3
+ */
+final class Deadlines implements Handler<HttpContext<?>> {
+    /**
+     * Context key of the total timeout timer.
+     */
+    private static final String TIMER = "npm.proxy.total-timeout";
+
+    /**
+     * Context key of the idle state handler removal.
+     */
+    private static final String IDLE = "npm.proxy.idle-timeout";
+
+    /**
+     * The Vertx instance.
+     */
+    private final Vertx vertx;
+
+    /**
+     * First byte timeout.
+     */
+    private final Duration first;
+
+    /**
+     * Idle timeout.
+     */
+    private final Duration idle;
+
+    /**
+     * Total timeout (zero if not limited).
+     */
+    private final Duration total;
+
+    /**
+     * Ctor.
+     * @param vertx The Vertx instance
+     * @param config NPM Proxy config
+     */
+    Deadlines(final Vertx vertx, final NpmProxyConfig config) {
+        this(vertx, config.firstByteTimeout(), config.idleTimeout(), config.totalTimeout());
+    }
+
+    /**
+     * Ctor.
+     * @param vertx The Vertx instance
+     * @param first First byte timeout
+     * @param idle Idle timeout
+     * @param total Total timeout (zero if not limited)
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Deadlines(final Vertx vertx, final Duration first, final Duration idle,
+        final Duration total) {
+        this.vertx = vertx;
+        this.first = first;
+        this.idle = idle;
+        this.total = total;
+    }
+
+    @Override
+    public void handle(final HttpContext<?> ctx) {
+        final ClientPhase phase = ctx.phase();
+        if (phase == ClientPhase.SEND_REQUEST) {
+            ctx.clientRequest().setTimeout(this.first.toMillis());
+            if (!this.total.isZero() && ctx.get(Deadlines.TIMER) == null) {
+                ctx.set(
+                    Deadlines.TIMER,
+                    this.vertx.setTimer(this.total.toMillis(), id -> this.expired(ctx))
+                );
+            }
+        } else if (phase == ClientPhase.RECEIVE_RESPONSE) {
+            this.watch(ctx);
+        } else if (phase == ClientPhase.DISPATCH_RESPONSE || phase == ClientPhase.FAILURE) {
+            final Long timer = ctx.get(Deadlines.TIMER);
+            if (timer != null) {
+                this.vertx.cancelTimer(timer);
+            }
+            Deadlines.unwatch(ctx);
+        }
+        ctx.next();
+    }
+
+    /**
+     * Start watching idle timeout of the response.
+     * @param ctx Call context
+     */
+    private void watch(final HttpContext<?> ctx) {
+        final HttpConnection conn = ctx.clientRequest().connection();
+        if (conn instanceof ConnectionBase) {
+            final ChannelHandler handler = new IdleStateHandler(
+                0, 0, this.idle.toMillis(), TimeUnit.MILLISECONDS
+            );
+            final ChannelPipeline pipeline = ((ConnectionBase) conn).channel().pipeline();
+            pipeline.addFirst(handler);
+            ctx.set(
+                Deadlines.IDLE,
+                (Runnable) () -> {
+                    if (pipeline.context(handler) != null) {
+                        pipeline.remove(handler);
+                    }
+                }
+            );
+        } else {
+            ctx.clientRequest().setTimeout(this.idle.toMillis());
+        }
+    }
+
+    /**
+     * Stop watching idle timeout of the response.
+     * @param ctx Call context
+     */
+    private static void unwatch(final HttpContext<?> ctx) {
+        final Runnable remove = ctx.get(Deadlines.IDLE);
+        if (remove != null) {
+            ctx.set(Deadlines.IDLE, null);
+            remove.run();
+        }
+    }
+
+    /**
+     * Fail the call by total timeout.
+     * @param ctx Call context
+     */
+    private void expired(final HttpContext<?> ctx) {
+        ctx.fail(
+            new TimeoutException(
+                String.format("Remote call exceeded total timeout %s", this.total)
+            )
+        );
+        ctx.clientRequest().reset();
+    }
+}
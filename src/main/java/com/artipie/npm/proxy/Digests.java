@@ -0,0 +1,122 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Streaming SHA-512 and SHA-1 digests of the downloaded asset. They are
+ * updated with every received chunk, so the asset integrity (in the form of
+ * NPM {@code dist.integrity} and {@code dist.shasum}) is known as soon as
+ * the download completes, without reading the asset once more.
+ * @since 0.3
+ */
+final class Digests {
+    /**
+     * SHA-512 digest.
+     */
+    private final MessageDigest sha512;
+
+    /**
+     * SHA-1 digest.
+     */
+    private final MessageDigest sha1;
+
+    /**
+     * Ctor.
+     */
+    Digests() {
+        this.sha512 = Digests.digest("SHA-512");
+        this.sha1 = Digests.digest("SHA-1");
+    }
+
+    /**
+     * Update digests with the next chunk of data.
+     * @param data Data chunk
+     */
+    synchronized void update(final ByteBuffer data) {
+        this.sha512.update(data.duplicate());
+        this.sha1.update(data.duplicate());
+    }
+
+    /**
+     * Reset digests to start over.
+     */
+    synchronized void reset() {
+        this.sha512.reset();
+        this.sha1.reset();
+    }
+
+    /**
+     * Subresource integrity of the data, as NPM {@code dist.integrity}.
+     * @return SHA-512 integrity string
+     */
+    synchronized String integrity() {
+        return String.format(
+            "sha512-%s",
+            Base64.getEncoder().encodeToString(Digests.value(this.sha512))
+        );
+    }
+
+    /**
+     * Hex SHA-1 of the data, as NPM {@code dist.shasum}.
+     * @return SHA-1 hex string
+     */
+    synchronized String shasum() {
+        final StringBuilder hex = new StringBuilder();
+        for (final byte item : Digests.value(this.sha1)) {
+            hex.append(String.format("%02x", item));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * Get digest value of the data received so far, digest is not reset.
+     * @param digest Message digest
+     * @return Digest value
+     */
+    private static byte[] value(final MessageDigest digest) {
+        try {
+            return ((MessageDigest) digest.clone()).digest();
+        } catch (final CloneNotSupportedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Create message digest.
+     * @param algorithm Algorithm name
+     * @return Message digest
+     */
+    private static MessageDigest digest(final String algorithm) {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (final NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
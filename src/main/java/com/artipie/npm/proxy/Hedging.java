@@ -0,0 +1,248 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.reactivex.Maybe;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hedging policy for remote repository calls. If the call has not answered
+ * within the configured percentile of recently observed answer latencies,
+ * the second (hedge) call is sent and the first one to finish wins.
+ * The number of hedges is capped by the budget: every call earns a fraction
+ * of a hedge token and every hedge spends a whole token.
+ * @since 0.3
+ */
+public final class Hedging {
+    /**
+     * Number of latency samples kept.
+     */
+    private static final int WINDOW = 128;
+
+    /**
+     * Minimal number of latency samples to start hedging.
+     */
+    private static final int WARMUP = 16;
+
+    /**
+     * Maximum number of accumulated hedge tokens.
+     */
+    private static final double MAX_TOKENS = 10.0;
+
+    /**
+     * Latency percentile to wait for before hedging (0-100).
+     */
+    private final int percentile;
+
+    /**
+     * Minimal delay before hedging.
+     */
+    private final Duration min;
+
+    /**
+     * Hedge tokens earned by every call (budget ratio).
+     */
+    private final double budget;
+
+    /**
+     * Recent answer latencies ring buffer (in nanos).
+     */
+    private final long[] latencies;
+
+    /**
+     * Number of hedges sent.
+     */
+    private final AtomicLong sent;
+
+    /**
+     * Number of hedges that won.
+     */
+    private final AtomicLong won;
+
+    /**
+     * Number of recorded latencies.
+     */
+    private long recorded;
+
+    /**
+     * Accumulated hedge tokens.
+     */
+    private double tokens;
+
+    /**
+     * Ctor.
+     * @param percentile Latency percentile to wait for before hedging (0-100)
+     * @param min Minimal delay before hedging
+     * @param budget Hedges budget (ratio of calls that may be hedged, zero disables hedging)
+     */
+    public Hedging(final int percentile, final Duration min, final double budget) {
+        this.percentile = percentile;
+        this.min = min;
+        this.budget = budget;
+        this.latencies = new long[Hedging.WINDOW];
+        this.sent = new AtomicLong();
+        this.won = new AtomicLong();
+    }
+
+    /**
+     * Perform the call, hedging it if required.
+     * @param attempt Call attempt
+     * @param <T> Result type
+     * @return Result of the first finished attempt
+     */
+    public <T> Maybe<T> apply(final Attempt<T> attempt) {
+        return Maybe.defer(
+            () -> {
+                final long start = System.nanoTime();
+                final AtomicBoolean answered = new AtomicBoolean();
+                final Runnable first = () -> {
+                    if (answered.compareAndSet(false, true)) {
+                        this.record(System.nanoTime() - start);
+                    }
+                };
+                final Maybe<T> primary = attempt.start(false, first);
+                final long delay = this.delay();
+                final Maybe<T> result;
+                if (delay > 0) {
+                    result = primary.ambWith(
+                        Maybe.timer(delay, TimeUnit.NANOSECONDS).flatMap(
+                            tick -> this.hedge(attempt, first, answered)
+                        )
+                    );
+                } else {
+                    result = primary;
+                }
+                return result;
+            }
+        );
+    }
+
+    /**
+     * Number of hedges sent.
+     * @return Hedges count
+     */
+    public long sent() {
+        return this.sent.get();
+    }
+
+    /**
+     * Number of hedges that finished before the primary call.
+     * @return Won hedges count
+     */
+    public long won() {
+        return this.won.get();
+    }
+
+    /**
+     * Send hedge call if primary has not answered yet and budget allows.
+     * Hedge errors are ignored, so the primary call decides the result.
+     * @param attempt Call attempt
+     * @param first Answer callback
+     * @param answered Primary call answered flag
+     * @param <T> Result type
+     * @return Hedge call result or never
+     */
+    private <T> Maybe<T> hedge(final Attempt<T> attempt, final Runnable first,
+        final AtomicBoolean answered) {
+        final Maybe<T> result;
+        if (!answered.get() && this.withdraw()) {
+            this.sent.incrementAndGet();
+            result = attempt.start(true, first)
+                .doOnSuccess(ignored -> this.won.incrementAndGet())
+                .doOnComplete(this.won::incrementAndGet)
+                .onErrorResumeNext(Maybe.never());
+        } else {
+            result = Maybe.never();
+        }
+        return result;
+    }
+
+    /**
+     * Compute hedge delay and earn budget tokens for the call.
+     * @return Delay in nanos or zero if the call should not be hedged
+     */
+    private synchronized long delay() {
+        final long delay;
+        if (this.budget > 0 && this.recorded >= Hedging.WARMUP) {
+            this.tokens = Math.min(Hedging.MAX_TOKENS, this.tokens + this.budget);
+            final long[] sorted = Arrays.copyOf(
+                this.latencies, (int) Math.min(this.recorded, Hedging.WINDOW)
+            );
+            Arrays.sort(sorted);
+            // @checkstyle MagicNumberCheck (1 line)
+            final int idx = (int) Math.ceil(sorted.length * this.percentile / 100.0) - 1;
+            delay = Math.max(
+                this.min.toNanos(),
+                sorted[Math.max(0, Math.min(idx, sorted.length - 1))]
+            );
+        } else {
+            delay = 0;
+        }
+        return delay;
+    }
+
+    /**
+     * Record answer latency.
+     * @param nanos Latency in nanos
+     */
+    private synchronized void record(final long nanos) {
+        this.latencies[(int) (this.recorded % Hedging.WINDOW)] = nanos;
+        this.recorded += 1;
+    }
+
+    /**
+     * Spend hedge token if available.
+     * @return True if token was spent
+     */
+    private synchronized boolean withdraw() {
+        final boolean result;
+        if (this.tokens >= 1.0) {
+            this.tokens -= 1.0;
+            result = true;
+        } else {
+            result = false;
+        }
+        return result;
+    }
+
+    /**
+     * Call attempt.
+     * @param <T> Result type
+     * @since 0.3
+     */
+    @FunctionalInterface
+    public interface Attempt<T> {
+        /**
+         * Start the call.
+         * @param hedge True if it is a hedge call
+         * @param answered Callback to invoke when remote starts answering
+         * @return Call result
+         */
+        Maybe<T> start(boolean hedge, Runnable answered);
+    }
+}
@@ -25,26 +25,58 @@ package com.artipie.npm.proxy;
 
 import com.artipie.asto.fs.RxFile;
 import com.artipie.npm.proxy.json.CachedContent;
+import com.artipie.npm.proxy.json.TransformedContent;
 import com.artipie.npm.proxy.model.NpmAsset;
 import com.artipie.npm.proxy.model.NpmPackage;
+import com.jayway.jsonpath.JsonPath;
 import com.jcabi.log.Logger;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
-import io.vertx.core.file.OpenOptions;
+import io.reactivex.Single;
+import io.reactivex.functions.Action;
+import io.reactivex.functions.Function;
 import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.ext.web.client.impl.WebClientInternal;
 import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.ext.web.client.HttpResponse;
 import io.vertx.reactivex.ext.web.client.WebClient;
-import io.vertx.reactivex.ext.web.codec.BodyCodec;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Base NPM Remote client implementation. It calls remote NPM repository
  * to download NPM packages and assets. It uses underlying Vertx Web Client inside
- * and works in Rx-way.
+ * and works in Rx-way. If several remote repository mirrors (upstreams) are
+ * configured, it calls the best scored upstream first and fails over to
+ * others within the same call. In-flight calls to every upstream are limited
+ * adaptively, and calls throttled by the upstream are retried after the pause
+ * it requested (see {@link Limiter}). Remote calls are bounded by first byte,
+ * idle and total timeouts (see {@link Deadlines}). Interrupted asset downloads
+ * are resumed by range requests (see {@link RangeDownload}).
  * @since 0.1
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
  */
 @SuppressWarnings("PMD.AvoidDuplicateLiterals")
 public final class HttpNpmRemote implements NpmRemote {
+    /**
+     * Pause after throttled call if remote repository did not specify it.
+     */
+    private static final Duration PAUSE = Duration.ofSeconds(1);
+
     /**
      * Web client.
      */
@@ -60,101 +92,191 @@ public final class HttpNpmRemote implements NpmRemote {
      */
     private final Vertx vertx;
 
+    /**
+     * Remote repository upstreams.
+     */
+    private final Upstreams upstreams;
+
+    /**
+     * Hedging policy for package calls.
+     */
+    private final Hedging packages;
+
+    /**
+     * Hedging policy for asset calls (hedged by the first byte arrival).
+     */
+    private final Hedging assets;
+
+    /**
+     * Meter registry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Remote call latency timers by call type and response status.
+     */
+    private final Map<String, Timer> timers;
+
+    /**
+     * Cached content transformation timer.
+     */
+    private final Timer transform;
+
+    /**
+     * Resumable asset downloads.
+     */
+    private final RangeDownload downloads;
+
+    /**
+     * Package metadata transformation pool.
+     */
+    private final TransformPool pool;
+
+    /**
+     * Whether the transformation pool is created and closed by this remote.
+     */
+    private final boolean owned;
+
+    /**
+     * Per-package metadata TTL.
+     */
+    private final AdaptiveTtl ttl;
+
     /**
      * Ctor.
      * @param config Npm Proxy config
      * @param vertx The Vertx instance
      */
     HttpNpmRemote(final NpmProxyConfig config, final Vertx vertx) {
+        this(config, vertx, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Ctor.
+     * @param config Npm Proxy config
+     * @param vertx The Vertx instance
+     * @param registry Meter registry
+     */
+    HttpNpmRemote(final NpmProxyConfig config, final Vertx vertx,
+        final MeterRegistry registry) {
+        this(config, vertx, registry, new TransformPool(config, registry), true);
+    }
+
+    /**
+     * Ctor.
+     * @param config Npm Proxy config
+     * @param vertx The Vertx instance
+     * @param registry Meter registry
+     * @param pool Package metadata transformation pool, closed by its owner
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    HttpNpmRemote(final NpmProxyConfig config, final Vertx vertx,
+        final MeterRegistry registry, final TransformPool pool) {
+        this(config, vertx, registry, pool, false);
+    }
+
+    /**
+     * Ctor.
+     * @param config Npm Proxy config
+     * @param vertx The Vertx instance
+     * @param registry Meter registry
+     * @param pool Package metadata transformation pool
+     * @param owned Whether the pool is closed with this remote
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private HttpNpmRemote(final NpmProxyConfig config, final Vertx vertx,
+        final MeterRegistry registry, final TransformPool pool, final boolean owned) {
         this.config = config;
         this.vertx = vertx;
+        this.registry = registry;
+        this.timers = HttpNpmRemote.timers(registry);
+        this.transform = TransformedContent.timer(registry, CachedContent.class);
+        this.pool = pool;
+        this.owned = owned;
+        this.ttl = new AdaptiveTtl(config);
         this.client = WebClient.create(vertx, this.defaultWebClientOptions());
+        final ResponseStarts starts = new ResponseStarts();
+        ((WebClientInternal) this.client.getDelegate())
+            .addInterceptor(new Deadlines(vertx.getDelegate(), config))
+            .addInterceptor(starts);
+        this.downloads = new RangeDownload(vertx, this.client, starts, config);
+        this.upstreams = new Upstreams(config);
+        this.packages = new Hedging(
+            config.hedgingPercentile(), config.hedgingMinDelay(), config.hedgingBudget()
+        );
+        this.assets = new Hedging(
+            config.hedgingPercentile(), config.hedgingMinDelay(), config.hedgingBudget()
+        );
+        HttpNpmRemote.register(registry, "package", this.packages);
+        HttpNpmRemote.register(registry, "asset", this.assets);
     }
 
     @Override
     //@checkstyle ReturnCountCheck (40 lines)
     public Maybe<NpmPackage> loadPackage(final String name) {
-        return this.client.getAbs(String.format("%s/%s", this.config.url(), name))
-            .timeout(this.config.requestTimeout())
-            .rxSend()
-            .flatMapMaybe(
-                response -> {
-                    //@checkstyle MagicNumberCheck (1 line)
-                    if (response.statusCode() == 200) {
-                        return Maybe.just(
-                            new NpmPackage(
+        return this.packages.apply(
+            (hedge, answered) -> HttpNpmRemote.failover(
+                this.order(hedge).iterator(),
+                upstream -> upstream.call(
+                    first -> first.limited(
+                        Limiter.Priority.METADATA,
+                        this.timed(
+                            "package",
+                            this.client.getAbs(String.format("%s/%s", upstream.url(), name))
+                                .rxSend()
+                        ),
+                        HttpNpmRemote::throttled
+                    ).doOnSuccess(ignored -> answered.run())
+                        .map(HttpNpmRemote::healthy)
+                        .doOnSuccess(ignored -> first.run())
+                        .toMaybe()
+                )
+            )
+        ).flatMap(
+            response -> {
+                //@checkstyle MagicNumberCheck (1 line)
+                if (response.statusCode() == 200) {
+                    return this.pool.submit(
+                        () -> {
+                            final String body = response.bodyAsString();
+                            final OffsetDateTime now = OffsetDateTime.now();
+                            return new NpmPackage(
                                 name,
-                                new CachedContent(response.bodyAsString(), name).value(),
+                                new CachedContent(body, name).value(this.transform),
                                 response.getHeader("Last-Modified"),
-                                OffsetDateTime.now()
-                            )
-                        );
-                    } else {
-                        Logger.debug(
-                            NpmProxy.class,
-                            "Could not load package: status code %d",
-                            response.statusCode()
-                        );
-                        return Maybe.empty();
-                    }
-                }
-            ).onErrorResumeNext(
-                throwable -> {
-                    Logger.error(
+                                now,
+                                this.ttl.ttl(JsonPath.parse(body), now).orElse(null)
+                            );
+                        }
+                    ).toMaybe();
+                } else {
+                    Logger.debug(
                         NpmProxy.class,
-                        "Error occurred when process get package call: %s",
-                        throwable.getMessage()
+                        "Could not load package: status code %d",
+                        response.statusCode()
                     );
-                    return Maybe.empty();
+                    return HttpNpmRemote.notFound(response);
                 }
-            );
+            }
+        ).doOnError(throwable -> HttpNpmRemote.logError("package", throwable));
     }
 
     @Override
-    //@checkstyle ReturnCountCheck (50 lines)
     public Maybe<NpmAsset> loadAsset(final String path, final Path tmp) {
-        return this.vertx.fileSystem().rxOpen(
-            tmp.toAbsolutePath().toString(),
-            new OpenOptions().setSync(true).setTruncateExisting(true)
-        ).flatMapMaybe(
-            asyncfile ->
-                this.client.getAbs(
-                    String.format("%s/%s", this.config.url(), path)
-                ).as(
-                    BodyCodec.pipe(asyncfile)
-                ).rxSend().flatMapMaybe(
-                    response -> {
-                        // @checkstyle MagicNumberCheck (1 line)
-                        if (response.statusCode() == 200) {
-                            return Maybe.just(
-                                new NpmAsset(
-                                    path,
-                                    new RxFile(
-                                        tmp,
-                                        this.vertx.fileSystem()
-                                    ).flow(),
-                                    response.getHeader("Last-Modified"),
-                                    response.getHeader("Content-Type")
-                                )
-                            );
-                        } else {
-                            Logger.debug(
-                                NpmProxy.class,
-                                "Could not load asset: status code %d",
-                                response.statusCode()
-                            );
-                            return Maybe.empty();
-                        }
-                    }
-                )
+        return this.assets.apply(
+            (hedge, answered) -> {
+                final Maybe<NpmAsset> result;
+                if (hedge) {
+                    result = this.hedgeAsset(path, answered);
+                } else {
+                    result = this.downloadAsset(path, tmp, this.order(false), answered);
+                }
+                return result;
+            }
         ).onErrorResumeNext(
             throwable -> {
-                Logger.error(
-                    NpmProxy.class,
-                    "Error occurred when process get asset call: %s",
-                    throwable.getMessage()
-                );
-                return Maybe.empty();
+                HttpNpmRemote.logError("asset", throwable);
+                return HttpNpmRemote.failed(throwable);
             }
         );
     }
@@ -162,6 +284,410 @@ public final class HttpNpmRemote implements NpmRemote {
     @Override
     public void close() {
         this.client.close();
+        if (this.owned) {
+            this.pool.close();
+        }
+    }
+
+    /**
+     * Hedging policy for package calls.
+     * @return Hedging policy
+     */
+    Hedging packageHedging() {
+        return this.packages;
+    }
+
+    /**
+     * Hedging policy for asset calls.
+     * @return Hedging policy
+     */
+    Hedging assetHedging() {
+        return this.assets;
+    }
+
+    /**
+     * Record remote call latency by response status.
+     * @param type Call type
+     * @param call Remote call
+     * @param <T> Response body type
+     * @return Remote call with latency recording
+     */
+    private <T> Single<HttpResponse<T>> timed(final String type,
+        final Single<HttpResponse<T>> call) {
+        return Single.defer(
+            () -> {
+                final Timer.Sample sample = Timer.start(this.registry);
+                return call.doOnSuccess(
+                    response -> sample.stop(
+                        this.upstreamTimer(type, String.valueOf(response.statusCode()))
+                    )
+                ).doOnError(ignored -> sample.stop(this.upstreamTimer(type, "error")));
+            }
+        );
+    }
+
+    /**
+     * Register hedging counters.
+     * @param registry Meter registry
+     * @param type Call type
+     * @param hedging Hedging policy
+     */
+    private static void register(final MeterRegistry registry, final String type,
+        final Hedging hedging) {
+        FunctionCounter.builder("npm.proxy.hedging.sent", hedging, Hedging::sent)
+            .tag("type", type)
+            .register(registry);
+        FunctionCounter.builder("npm.proxy.hedging.won", hedging, Hedging::won)
+            .tag("type", type)
+            .register(registry);
+    }
+
+    /**
+     * Remote call latency timer.
+     * @param type Call type
+     * @param status Response status
+     * @return Timer
+     */
+    private Timer upstreamTimer(final String type, final String status) {
+        return this.timers.computeIfAbsent(
+            String.join(":", type, status),
+            key -> HttpNpmRemote.timer(this.registry, type, status)
+        );
+    }
+
+    /**
+     * Register remote call latency timers of expected response statuses,
+     * timers of other statuses are registered on the first call.
+     * @param registry Meter registry
+     * @return Timers by call type and response status
+     */
+    private static Map<String, Timer> timers(final MeterRegistry registry) {
+        final Map<String, Timer> result = new ConcurrentHashMap<>();
+        for (final String type : new String[] {"package", "asset"}) {
+            for (final String status : new String[] {"200", "206", "304", "404", "error"}) {
+                result.put(
+                    String.join(":", type, status),
+                    HttpNpmRemote.timer(registry, type, status)
+                );
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Register remote call latency timer.
+     * @param registry Meter registry
+     * @param type Call type
+     * @param status Response status
+     * @return Timer
+     */
+    private static Timer timer(final MeterRegistry registry, final String type,
+        final String status) {
+        return Timer.builder("npm.proxy.upstream")
+            .tag("type", type)
+            .tag("status", status)
+            .publishPercentileHistogram()
+            .register(registry);
+    }
+
+    /**
+     * Upstreams to call in order.
+     * @param hedge True if it is a hedge call
+     * @return Ordered upstreams
+     */
+    private List<Upstream> order(final boolean hedge) {
+        final List<Upstream> result;
+        if (hedge) {
+            result = this.upstreams.hedgeOrdered();
+        } else {
+            result = this.upstreams.ordered();
+        }
+        return result;
+    }
+
+    /**
+     * Download asset from remote repository to the file.
+     * @param path Asset path
+     * @param file File to store asset data
+     * @param order Upstreams to call in order
+     * @param answered Callback to invoke on the first received byte
+     * @return NpmAsset or empty
+     * @checkstyle ParameterNumberCheck (10 lines)
+     */
+    //@checkstyle ReturnCountCheck (50 lines)
+    private Maybe<NpmAsset> downloadAsset(final String path, final Path file,
+        final List<Upstream> order, final Runnable answered) {
+        final Digests digests = new Digests();
+        return HttpNpmRemote.failover(
+            order.iterator(),
+            upstream -> upstream.call(
+                first -> first.limited(
+                    Limiter.Priority.TARBALL,
+                    this.timed(
+                        "asset",
+                        this.downloads.download(
+                            String.format("%s/%s", upstream.url(), path),
+                            file,
+                            () -> {
+                                first.run();
+                                answered.run();
+                            },
+                            digests
+                        )
+                    ),
+                    HttpNpmRemote::throttled
+                ).doOnSuccess(ignored -> answered.run())
+                    .map(HttpNpmRemote::healthy)
+                    .doOnSuccess(ignored -> first.run())
+                    .toMaybe()
+            )
+        ).flatMap(
+            response -> {
+                // @checkstyle MagicNumberCheck (1 line)
+                if (HttpNpmRemote.ok(response)) {
+                    return this.vertx.fileSystem().rxProps(file.toAbsolutePath().toString())
+                        .map(
+                            props -> new NpmAsset(
+                                path,
+                                new RxFile(
+                                    file,
+                                    this.vertx.fileSystem()
+                                ).flow(),
+                                new NpmAsset.Metadata(
+                                    response.getHeader("Last-Modified"),
+                                    response.getHeader("Content-Type"),
+                                    props.size(),
+                                    digests.integrity(),
+                                    digests.shasum()
+                                )
+                            )
+                        ).toMaybe();
+                } else {
+                    Logger.debug(
+                        NpmProxy.class,
+                        "Could not load asset: status code %d",
+                        response.statusCode()
+                    );
+                    return HttpNpmRemote.notFound(response);
+                }
+            }
+        );
+    }
+
+    /**
+     * Download asset by hedge call. Hedge call uses its own temporary file,
+     * which is removed after asset data is consumed or the call is lost.
+     * @param path Asset path
+     * @param answered Callback to invoke on the first received byte
+     * @return NpmAsset or empty
+     */
+    private Maybe<NpmAsset> hedgeAsset(final String path, final Runnable answered) {
+        return this.vertx.fileSystem().rxCreateTempFile("npm-asset-", ".hedge").flatMapMaybe(
+            name -> {
+                final Path file = Paths.get(name);
+                final Action delete = () -> this.vertx.fileSystem().rxDelete(name)
+                    .onErrorComplete().subscribe();
+                return this.downloadAsset(path, file, this.order(true), answered).map(
+                    asset -> new NpmAsset(
+                        asset.path(),
+                        Flowable.fromPublisher(asset.dataPublisher()).doFinally(delete),
+                        asset.meta()
+                    )
+                ).doOnComplete(delete).doOnError(ignored -> delete.run()).doOnDispose(delete);
+            }
+        );
+    }
+
+    /**
+     * Call upstreams one by one until one of them responds with 200 status
+     * or there are no more upstreams to call.
+     * @param upstreams Upstreams to call
+     * @param call Upstream call
+     * @param <T> Response body type
+     * @return Response of the last called upstream
+     */
+    private static <T> Maybe<HttpResponse<T>> failover(final Iterator<Upstream> upstreams,
+        final Function<Upstream, Maybe<HttpResponse<T>>> call) {
+        final Upstream upstream = upstreams.next();
+        return Maybe.defer(() -> call.apply(upstream)).flatMap(
+            response -> {
+                final Maybe<HttpResponse<T>> result;
+                if (HttpNpmRemote.ok(response) || !upstreams.hasNext()) {
+                    result = Maybe.just(response);
+                } else {
+                    Logger.debug(
+                        NpmProxy.class,
+                        "Upstream %s responded with status code %d, failing over",
+                        upstream,
+                        response.statusCode()
+                    );
+                    result = HttpNpmRemote.failover(upstreams, call);
+                }
+                return result;
+            },
+            error -> {
+                final Maybe<HttpResponse<T>> result;
+                if (upstreams.hasNext()) {
+                    Logger.debug(
+                        NpmProxy.class,
+                        "Upstream %s failed, failing over: %s",
+                        upstream,
+                        error.getMessage()
+                    );
+                    result = HttpNpmRemote.failover(upstreams, call);
+                } else {
+                    result = Maybe.error(error);
+                }
+                return result;
+            },
+            Maybe::empty
+        );
+    }
+
+    /**
+     * Check remote repository response is successful: 200 or, for resumed
+     * or segmented asset downloads, 206.
+     * @param response Remote repository response
+     * @return True if successful
+     */
+    private static boolean ok(final HttpResponse<?> response) {
+        // @checkstyle MagicNumberCheck (1 line)
+        return response.statusCode() == 200 || response.statusCode() == 206;
+    }
+
+    /**
+     * Check remote repository response is not a server error, so it can be
+     * counted by circuit breaker as successful call. Server error with
+     * requested pause (503 with Retry-After header) is reported as
+     * {@link NpmRemote.ThrottledException}, so the pause reaches the client.
+     * @param response Remote repository response
+     * @param <T> Response body type
+     * @return The same response
+     * @throws IllegalStateException If remote repository responded with server error
+     */
+    private static <T> HttpResponse<T> healthy(final HttpResponse<T> response) {
+        //@checkstyle MagicNumberCheck (1 line)
+        if (response.statusCode() >= 500) {
+            final Optional<Duration> pause = HttpNpmRemote.throttled(response);
+            if (pause.isPresent()) {
+                throw new NpmRemote.ThrottledException(pause.get());
+            }
+            throw new IllegalStateException(
+                String.format("Remote repository failed with status code %d", response.statusCode())
+            );
+        }
+        return response;
+    }
+
+    /**
+     * Result for remote repository response without the package or asset:
+     * empty if it is not found, {@link NpmRemote.ThrottledException} error
+     * if remote repository throttled the call.
+     * @param response Remote repository response
+     * @param <T> Result type
+     * @return Empty or error
+     */
+    private static <T> Maybe<T> notFound(final HttpResponse<?> response) {
+        return HttpNpmRemote.throttled(response)
+            .map(pause -> Maybe.<T>error(new NpmRemote.ThrottledException(pause)))
+            .orElseGet(Maybe::empty);
+    }
+
+    /**
+     * Result for failed remote call: throttled calls and calls rejected by
+     * open circuit breaker are reported as errors, all other failures as
+     * empty result.
+     * @param throwable Error
+     * @param <T> Result type
+     * @return Empty or error
+     */
+    private static <T> Maybe<T> failed(final Throwable throwable) {
+        final Maybe<T> result;
+        if (throwable instanceof NpmRemote.ThrottledException
+            || throwable instanceof CircuitBreaker.OpenException) {
+            result = Maybe.error(throwable);
+        } else {
+            result = Maybe.empty();
+        }
+        return result;
+    }
+
+    /**
+     * Check whether remote repository throttled the call: it responded with
+     * 429 status or with 503 status and Retry-After header.
+     * @param response Remote repository response
+     * @return Pause requested by remote repository or empty if not throttled
+     */
+    private static Optional<Duration> throttled(final HttpResponse<?> response) {
+        final Optional<Duration> pause = HttpNpmRemote.retryAfter(
+            response.getHeader("Retry-After")
+        );
+        final Optional<Duration> result;
+        // @checkstyle MagicNumberCheck (3 lines)
+        if (response.statusCode() == 429) {
+            result = Optional.of(pause.orElse(HttpNpmRemote.PAUSE));
+        } else if (response.statusCode() == 503) {
+            result = pause;
+        } else {
+            result = Optional.empty();
+        }
+        return result;
+    }
+
+    /**
+     * Parse Retry-After header value: delay in seconds or HTTP date.
+     * @param header Header value or null
+     * @return Pause or empty if header is absent or malformed
+     */
+    private static Optional<Duration> retryAfter(final String header) {
+        Optional<Duration> result = Optional.empty();
+        if (header != null) {
+            final String value = header.trim();
+            try {
+                if (value.chars().allMatch(Character::isDigit)) {
+                    result = Optional.of(Duration.ofSeconds(Long.parseLong(value)));
+                } else {
+                    final Duration pause = Duration.between(
+                        ZonedDateTime.now(),
+                        ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    );
+                    if (pause.isNegative()) {
+                        result = Optional.of(Duration.ZERO);
+                    } else {
+                        result = Optional.of(pause);
+                    }
+                }
+            } catch (final NumberFormatException | DateTimeParseException ex) {
+                Logger.debug(NpmProxy.class, "Malformed Retry-After header: %s", value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Log remote call error. Calls rejected by open circuit breaker or
+     * throttled by remote repository are logged at debug level to avoid
+     * flooding the log.
+     * @param type Call type
+     * @param throwable Error
+     */
+    private static void logError(final String type, final Throwable throwable) {
+        if (throwable instanceof CircuitBreaker.OpenException
+            || throwable instanceof NpmRemote.ThrottledException) {
+            Logger.debug(
+                NpmProxy.class,
+                "Get %s call rejected: %s",
+                type,
+                throwable.getMessage()
+            );
+        } else {
+            Logger.error(
+                NpmProxy.class,
+                "Error occurred when process get %s call: %s",
+                type,
+                throwable.getMessage()
+            );
+        }
     }
 
     /**
@@ -0,0 +1,164 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.npm.proxy.model.NpmAsset;
+import io.vertx.core.json.JsonObject;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Expected asset integrity from package metadata ({@code dist.integrity}
+ * and {@code dist.shasum} of the version the asset belongs to).
+ * @since 0.3
+ */
+final class Integrity {
+    /**
+     * Asset path separator between package name and file name.
+     */
+    private static final String SEPARATOR = "/-/";
+
+    /**
+     * SHA-512 subresource integrity prefix.
+     */
+    private static final String SHA512 = "sha512-";
+
+    /**
+     * Expected SHA-512 subresource integrity values.
+     */
+    private final List<String> sri;
+
+    /**
+     * Expected hex SHA-1 digest, null if unknown.
+     */
+    private final String sha;
+
+    /**
+     * Ctor.
+     * @param integrity Subresource integrity, null if unknown
+     * @param shasum Hex SHA-1 digest, null if unknown
+     */
+    Integrity(final String integrity, final String shasum) {
+        this.sri = Integrity.sha512(integrity);
+        this.sha = shasum;
+    }
+
+    /**
+     * Check downloaded asset matches expected integrity. Expected SHA-512
+     * takes precedence over SHA-1. If neither the expected nor the actual
+     * digest is known, the asset is considered to match.
+     * @param meta Downloaded asset metadata
+     * @return True if asset matches
+     */
+    boolean matches(final NpmAsset.Metadata meta) {
+        final boolean result;
+        if (!this.sri.isEmpty() && meta.integrity().isPresent()) {
+            result = this.sri.contains(meta.integrity().get());
+        } else if (this.sha != null && meta.shasum().isPresent()) {
+            result = this.sha.equalsIgnoreCase(meta.shasum().get());
+        } else {
+            result = true;
+        }
+        return result;
+    }
+
+    /**
+     * Get name of the package the asset belongs to.
+     * @param path Asset path
+     * @return Package name or empty if path is not a package tarball path
+     */
+    static Optional<String> packageName(final String path) {
+        final int idx = path.indexOf(Integrity.SEPARATOR);
+        final Optional<String> result;
+        if (idx > 0) {
+            result = Optional.of(path.substring(0, idx));
+        } else {
+            result = Optional.empty();
+        }
+        return result;
+    }
+
+    /**
+     * Find expected integrity of the asset in package metadata.
+     * @param content Package metadata JSON
+     * @param path Asset path
+     * @return Expected integrity or empty if the asset is not listed
+     */
+    static Optional<Integrity> of(final String content, final String path) {
+        final String suffix = String.format("/%s", path);
+        final JsonObject versions = new JsonObject(content).getJsonObject(
+            "versions", new JsonObject()
+        );
+        return versions.getMap().keySet().stream()
+            .map(version -> versions.getJsonObject(version).getJsonObject("dist"))
+            .filter(
+                dist -> dist != null
+                    && dist.getString("tarball", "").endsWith(suffix)
+            ).findFirst()
+            .map(
+                dist -> new Integrity(dist.getString("integrity"), dist.getString("shasum"))
+            );
+    }
+
+    /**
+     * Extract SHA-512 values from subresource integrity string, which may
+     * contain several whitespace separated hashes with options.
+     * @param integrity Subresource integrity, null if unknown
+     * @return SHA-512 integrity values
+     */
+    private static List<String> sha512(final String integrity) {
+        final List<String> result;
+        if (integrity == null) {
+            result = Collections.emptyList();
+        } else {
+            result = Arrays.stream(integrity.trim().split("\\s+"))
+                .filter(item -> item.startsWith(Integrity.SHA512))
+                .map(item -> item.split("\\?", 2)[0])
+                .collect(Collectors.toList());
+        }
+        return result;
+    }
+
+    /**
+     * Downloaded asset does not match expected integrity.
+     * @since 0.3
+     */
+    static final class MismatchException extends IllegalStateException {
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Ctor.
+         * @param path Asset path
+         */
+        MismatchException(final String path) {
+            super(String.format("Downloaded asset %s does not match its integrity", path));
+        }
+    }
+}
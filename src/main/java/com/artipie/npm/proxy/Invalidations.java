@@ -0,0 +1,340 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.jcabi.log.Logger;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Push-based invalidation of package metadata by upstream change
+ * notifications (npm hooks). Notified packages are collected during the batch
+ * window, so a burst of notifications about the same package causes one
+ * refresh, and then refreshed with bounded concurrency. Cached packages are
+ * loaded from the remote repository again, packages remembered as not found
+ * are forgotten.
+ * @since 0.3
+ */
+public final class Invalidations {
+    /**
+     * Maximum number of packages waiting for refresh.
+     */
+    private static final int CAPACITY = 10_000;
+
+    /**
+     * Events which do not change package metadata served to clients.
+     */
+    private static final Set<String> IGNORED = Collections.unmodifiableSet(
+        new HashSet<>(Arrays.asList("package:star", "package:unstar"))
+    );
+
+    /**
+     * Signature prefix of HMAC SHA-256 hex digest.
+     */
+    private static final String SHA256 = "sha256=";
+
+    /**
+     * Package metadata refresher.
+     */
+    private final Function<String, Completable> refresh;
+
+    /**
+     * Secret of notifications signatures (empty if they are not signed).
+     */
+    private final String secret;
+
+    /**
+     * Maximum number of concurrent refreshes.
+     */
+    private final int concurrency;
+
+    /**
+     * Packages waiting for refresh.
+     */
+    private final Set<String> pending;
+
+    /**
+     * Number of accepted notifications.
+     */
+    private final AtomicLong received;
+
+    /**
+     * Number of notifications coalesced with pending ones.
+     */
+    private final AtomicLong coalesced;
+
+    /**
+     * Number of refreshed packages.
+     */
+    private final AtomicLong refreshed;
+
+    /**
+     * Ticks subscription.
+     */
+    private final Disposable ticks;
+
+    /**
+     * Ctor.
+     * @param refresh Package metadata refresher
+     * @param config NPM Proxy configuration
+     */
+    public Invalidations(final Function<String, Completable> refresh,
+        final NpmProxyConfig config) {
+        this(
+            refresh, config.hookSecret(), config.hookWindow(), config.hookConcurrency(),
+            Schedulers.computation()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param refresh Package metadata refresher
+     * @param secret Secret of notifications signatures (empty if they are not signed)
+     * @param window Batch window
+     * @param concurrency Maximum number of concurrent refreshes
+     * @param scheduler Ticks scheduler
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    @SuppressWarnings("PMD.ConstructorOnlyInitializesOrCallOtherConstructors")
+    Invalidations(final Function<String, Completable> refresh, final String secret,
+        final Duration window, final int concurrency, final Scheduler scheduler) {
+        this.refresh = refresh;
+        this.secret = secret;
+        this.concurrency = concurrency;
+        this.pending = new LinkedHashSet<>();
+        this.received = new AtomicLong();
+        this.coalesced = new AtomicLong();
+        this.refreshed = new AtomicLong();
+        this.ticks = Flowable.interval(window.toMillis(), TimeUnit.MILLISECONDS, scheduler)
+            .onBackpressureDrop()
+            .concatMapCompletable(tick -> this.flush(), 1)
+            .subscribe(() -> { }, this::failed);
+    }
+
+    /**
+     * Whether change notifications are accepted: the secret to verify their
+     * signatures is configured.
+     * @return True if enabled
+     */
+    public boolean enabled() {
+        return !this.secret.isEmpty();
+    }
+
+    /**
+     * Verify notification signature: hex HMAC SHA-256 digest of the body
+     * with the secret in `sha256=` form, as npm hooks sign notifications.
+     * @param body Notification body
+     * @param signature Notification signature (nullable)
+     * @return True if the signature is valid, notifications are rejected if
+     *  the secret is not configured
+     */
+    public boolean verify(final byte[] body, final String signature) {
+        final boolean result;
+        if (!this.enabled() || signature == null || !signature.startsWith(Invalidations.SHA256)) {
+            result = false;
+        } else {
+            result = MessageDigest.isEqual(
+                Invalidations.hmac(this.secret, body).getBytes(StandardCharsets.US_ASCII),
+                signature.substring(Invalidations.SHA256.length())
+                    .toLowerCase(Locale.US).getBytes(StandardCharsets.US_ASCII)
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Register change notification.
+     * @param name Package name
+     * @param event Change event, e.g. {@code package:publish}
+     * @return False if the notification is ignored
+     */
+    public boolean notify(final String name, final String event) {
+        final boolean result;
+        if (Invalidations.IGNORED.contains(event)) {
+            result = false;
+        } else {
+            synchronized (this.pending) {
+                if (this.pending.contains(name)) {
+                    this.coalesced.incrementAndGet();
+                    result = true;
+                } else if (this.pending.size() < Invalidations.CAPACITY) {
+                    this.pending.add(name);
+                    result = true;
+                } else {
+                    result = false;
+                }
+            }
+            if (result) {
+                this.received.incrementAndGet();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Refresh packages notified so far.
+     * @return Completion
+     */
+    public Completable flush() {
+        return Completable.defer(
+            () -> {
+                final List<String> names;
+                synchronized (this.pending) {
+                    names = new ArrayList<>(this.pending);
+                    this.pending.clear();
+                }
+                return Flowable.fromIterable(names).flatMapCompletable(
+                    name -> this.refresh.apply(name)
+                        .doOnComplete(this.refreshed::incrementAndGet)
+                        .onErrorComplete(
+                            err -> {
+                                Logger.warn(
+                                    this, "Failed to refresh notified package %s: %s",
+                                    name, err.getMessage()
+                                );
+                                return true;
+                            }
+                        ),
+                    false,
+                    this.concurrency
+                );
+            }
+        );
+    }
+
+    /**
+     * Refresh the packages right away, e.g. changed packages read from
+     * upstream changes feed. Pending notifications of the packages are
+     * dropped, as they are refreshed now.
+     * @param names Package names
+     * @return Names of the packages which failed to refresh
+     */
+    public Single<Set<String>> invalidate(final Collection<String> names) {
+        return Single.defer(
+            () -> {
+                synchronized (this.pending) {
+                    this.pending.removeAll(names);
+                }
+                final Set<String> failed = ConcurrentHashMap.newKeySet();
+                return Flowable.fromIterable(names).flatMapCompletable(
+                    name -> Completable.defer(() -> this.refresh.apply(name))
+                        .doOnComplete(this.refreshed::incrementAndGet)
+                        .onErrorComplete(
+                            err -> {
+                                Logger.warn(
+                                    this, "Failed to refresh changed package %s: %s",
+                                    name, err.getMessage()
+                                );
+                                return failed.add(name);
+                            }
+                        ),
+                    false,
+                    this.concurrency
+                ).toSingleDefault(failed);
+            }
+        );
+    }
+
+    /**
+     * Number of accepted notifications.
+     * @return Notifications count
+     */
+    public long received() {
+        return this.received.get();
+    }
+
+    /**
+     * Number of notifications coalesced with pending ones.
+     * @return Coalesced notifications count
+     */
+    public long coalesced() {
+        return this.coalesced.get();
+    }
+
+    /**
+     * Number of refreshed packages.
+     * @return Refreshed packages count
+     */
+    public long refreshed() {
+        return this.refreshed.get();
+    }
+
+    /**
+     * Stop refreshing.
+     */
+    public void close() {
+        this.ticks.dispose();
+    }
+
+    /**
+     * Hex HMAC SHA-256 digest.
+     * @param secret Secret
+     * @param body Signed data
+     * @return Hex digest
+     */
+    static String hmac(final String secret, final byte[] body) {
+        try {
+            final Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            final StringBuilder hex = new StringBuilder();
+            for (final byte item : mac.doFinal(body)) {
+                hex.append(String.format("%02x", item));
+            }
+            return hex.toString();
+        } catch (final GeneralSecurityException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Log ticks failure.
+     * @param err Failure
+     */
+    private void failed(final Throwable err) {
+        Logger.error(this, "Notified packages refreshing failed: %s", err.getMessage());
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.reactivex.Scheduler;
+import io.reactivex.Single;
+import io.reactivex.SingleEmitter;
+import io.reactivex.disposables.CompositeDisposable;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adaptive (AIMD) limiter of in-flight calls to the upstream. The limit grows
+ * by one per limit of successful calls and halves when the upstream throttles
+ * a call. Calls over the limit wait in the queue, metadata calls ahead of
+ * tarball calls. Throttled call pauses dispatching for the period requested by
+ * the upstream (but not longer than the maximal wait) and is retried first.
+ * @since 0.3
+ */
+final class Limiter {
+    /**
+     * Multiplicative decrease factor.
+     */
+    private static final double DECREASE = 0.5;
+
+    /**
+     * Maximal limit.
+     */
+    private final int max;
+
+    /**
+     * Maximal number of retries of a throttled call.
+     */
+    private final int retries;
+
+    /**
+     * Maximal pause to honour.
+     */
+    private final Duration wait;
+
+    /**
+     * Scheduler to resume dispatching on.
+     */
+    private final Scheduler scheduler;
+
+    /**
+     * Waiting calls.
+     */
+    private final PriorityQueue<Pending<?>> queue;
+
+    /**
+     * Current limit.
+     */
+    private double limit;
+
+    /**
+     * Number of calls in flight.
+     */
+    private int inflight;
+
+    /**
+     * Calls counter to keep the queue order.
+     */
+    private long sequence;
+
+    /**
+     * The moment (scheduler millis) until which dispatching is paused.
+     */
+    private long paused;
+
+    /**
+     * Whether dispatching resume is scheduled.
+     */
+    private boolean resume;
+
+    /**
+     * Ctor.
+     * @param config NPM Proxy configuration
+     */
+    Limiter(final NpmProxyConfig config) {
+        this(
+            config.concurrencyInitial(), config.concurrencyMax(),
+            config.concurrencyRetries(), config.concurrencyMaxWait(),
+            Schedulers.computation()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param initial Initial limit
+     * @param max Maximal limit
+     * @param retries Maximal number of retries of a throttled call
+     * @param wait Maximal pause to honour
+     * @param scheduler Scheduler to resume dispatching on
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Limiter(final int initial, final int max, final int retries, final Duration wait,
+        final Scheduler scheduler) {
+        this.max = Math.max(1, max);
+        this.retries = retries;
+        this.wait = wait;
+        this.scheduler = scheduler;
+        this.limit = Math.max(1, Math.min(initial, this.max));
+        this.queue = new PriorityQueue<>(
+            Comparator.comparing((Pending<?> pending) -> pending.priority)
+                .thenComparingLong(pending -> pending.order)
+        );
+    }
+
+    /**
+     * Perform the call within the limit.
+     * @param priority Call priority
+     * @param call Call
+     * @param throttle Checks whether the result is throttled, returns requested pause
+     * @param <T> Result type
+     * @return Result of the call (throttled result if retries are exhausted)
+     */
+    <T> Single<T> limited(final Priority priority, final Single<T> call,
+        final Function<? super T, Optional<Duration>> throttle) {
+        return Single.create(
+            emitter -> {
+                final Pending<T> pending = new Pending<>(
+                    priority, this.next(), call, throttle, emitter
+                );
+                emitter.setCancellable(() -> this.cancel(pending));
+                this.enqueue(pending);
+            }
+        );
+    }
+
+    /**
+     * Current limit.
+     * @return Limit
+     */
+    synchronized int limit() {
+        return (int) this.limit;
+    }
+
+    /**
+     * Number of calls in flight.
+     * @return Calls in flight
+     */
+    synchronized int inflight() {
+        return this.inflight;
+    }
+
+    /**
+     * Number of waiting calls.
+     * @return Queue size
+     */
+    synchronized int queued() {
+        return this.queue.size();
+    }
+
+    /**
+     * Next call order number.
+     * @return Order number
+     */
+    private synchronized long next() {
+        this.sequence += 1;
+        return this.sequence;
+    }
+
+    /**
+     * Put the call to the queue and dispatch ready calls.
+     * @param pending Call
+     */
+    private void enqueue(final Pending<?> pending) {
+        final List<Pending<?>> ready;
+        synchronized (this) {
+            pending.state = State.QUEUED;
+            this.queue.add(pending);
+            ready = this.ready();
+        }
+        ready.forEach(Pending::run);
+    }
+
+    /**
+     * Register finished call and dispatch ready calls.
+     * @param pending Call
+     * @param retry Whether the call should be queued again
+     * @return True if the call was in flight
+     */
+    private boolean finished(final Pending<?> pending, final boolean retry) {
+        final boolean running;
+        final List<Pending<?>> ready;
+        synchronized (this) {
+            running = pending.state == State.RUNNING;
+            if (running) {
+                this.inflight -= 1;
+                if (retry) {
+                    pending.state = State.QUEUED;
+                    this.queue.add(pending);
+                } else {
+                    pending.state = State.FINISHED;
+                }
+            }
+            ready = this.ready();
+        }
+        ready.forEach(Pending::run);
+        return running;
+    }
+
+    /**
+     * Additive limit increase on successful call.
+     */
+    private synchronized void increase() {
+        this.limit = Math.min(this.max, this.limit + 1 / this.limit);
+    }
+
+    /**
+     * Multiplicative limit decrease on throttled call. The limit is decreased
+     * once per pause, so a burst of throttled answers does not collapse it.
+     * @param pause Pause requested by upstream
+     */
+    private synchronized void decrease(final Duration pause) {
+        final long now = this.scheduler.now(TimeUnit.MILLISECONDS);
+        if (now >= this.paused) {
+            this.limit = Math.max(1, this.limit * Limiter.DECREASE);
+        }
+        this.paused = Math.max(
+            this.paused, now + Math.min(pause.toMillis(), this.wait.toMillis())
+        );
+    }
+
+    /**
+     * Cancel the call.
+     * @param pending Call
+     */
+    private void cancel(final Pending<?> pending) {
+        final List<Pending<?>> ready;
+        synchronized (this) {
+            if (pending.state == State.QUEUED) {
+                this.queue.remove(pending);
+            } else if (pending.state == State.RUNNING) {
+                this.inflight -= 1;
+            }
+            pending.state = State.FINISHED;
+            ready = this.ready();
+        }
+        pending.disposables.dispose();
+        ready.forEach(Pending::run);
+    }
+
+    /**
+     * Resume dispatching after pause.
+     */
+    private void resumed() {
+        final List<Pending<?>> ready;
+        synchronized (this) {
+            this.resume = false;
+            ready = this.ready();
+        }
+        ready.forEach(Pending::run);
+    }
+
+    /**
+     * Take calls ready to be dispatched from the queue.
+     * Should be called holding the lock.
+     * @return Calls to run
+     */
+    private List<Pending<?>> ready() {
+        final List<Pending<?>> ready = new ArrayList<>(0);
+        final long now = this.scheduler.now(TimeUnit.MILLISECONDS);
+        if (now < this.paused) {
+            if (!this.resume && !this.queue.isEmpty()) {
+                this.resume = true;
+                this.scheduler.scheduleDirect(
+                    this::resumed, this.paused - now, TimeUnit.MILLISECONDS
+                );
+            }
+        } else {
+            while (this.inflight < (int) this.limit && !this.queue.isEmpty()) {
+                final Pending<?> pending = this.queue.poll();
+                pending.state = State.RUNNING;
+                this.inflight += 1;
+                ready.add(pending);
+            }
+        }
+        return ready;
+    }
+
+    /**
+     * Call priority, the first is the highest.
+     * @since 0.3
+     */
+    enum Priority {
+        /**
+         * Package metadata call.
+         */
+        METADATA,
+
+        /**
+         * Tarball call.
+         */
+        TARBALL
+    }
+
+    /**
+     * Call state.
+     * @since 0.3
+     */
+    private enum State {
+        /**
+         * Waiting in the queue.
+         */
+        QUEUED,
+
+        /**
+         * In flight.
+         */
+        RUNNING,
+
+        /**
+         * Finished or cancelled.
+         */
+        FINISHED
+    }
+
+    /**
+     * Limited call.
+     * @param <T> Result type
+     * @since 0.3
+     */
+    private final class Pending<T> {
+        /**
+         * Call priority.
+         */
+        private final Priority priority;
+
+        /**
+         * Call order number.
+         */
+        private final long order;
+
+        /**
+         * Call.
+         */
+        private final Single<T> call;
+
+        /**
+         * Throttled result check.
+         */
+        private final Function<? super T, Optional<Duration>> throttle;
+
+        /**
+         * Result emitter.
+         */
+        private final SingleEmitter<T> emitter;
+
+        /**
+         * Call subscriptions.
+         */
+        private final CompositeDisposable disposables;
+
+        /**
+         * Call state, guarded by the limiter.
+         */
+        private State state;
+
+        /**
+         * Number of retries made.
+         */
+        private int attempts;
+
+        /**
+         * Ctor.
+         * @param priority Call priority
+         * @param order Call order number
+         * @param call Call
+         * @param throttle Throttled result check
+         * @param emitter Result emitter
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        Pending(final Priority priority, final long order, final Single<T> call,
+            final Function<? super T, Optional<Duration>> throttle,
+            final SingleEmitter<T> emitter) {
+            this.priority = priority;
+            this.order = order;
+            this.call = call;
+            this.throttle = throttle;
+            this.emitter = emitter;
+            this.disposables = new CompositeDisposable();
+        }
+
+        /**
+         * Run the call.
+         */
+        void run() {
+            this.disposables.add(this.call.subscribe(this::succeeded, this::failed));
+        }
+
+        /**
+         * Handle call result.
+         * @param result Result
+         * @throws Exception If throttled check fails
+         */
+        private void succeeded(final T result) throws Exception {
+            final Optional<Duration> pause = this.throttle.apply(result);
+            final boolean retry;
+            if (pause.isPresent()) {
+                Limiter.this.decrease(pause.get());
+                retry = this.attempts < Limiter.this.retries
+                    && pause.get().compareTo(Limiter.this.wait) <= 0;
+            } else {
+                Limiter.this.increase();
+                retry = false;
+            }
+            if (retry) {
+                this.attempts += 1;
+            }
+            if (Limiter.this.finished(this, retry) && !retry) {
+                this.emitter.onSuccess(result);
+            }
+        }
+
+        /**
+         * Handle call error.
+         * @param error Error
+         */
+        private void failed(final Throwable error) {
+            if (Limiter.this.finished(this, false)) {
+                this.emitter.tryOnError(error);
+            }
+        }
+    }
+}
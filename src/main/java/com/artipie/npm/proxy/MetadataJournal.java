@@ -0,0 +1,422 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.asto.Concatenation;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Remaining;
+import com.artipie.asto.rx.RxStorage;
+import com.artipie.npm.proxy.model.NpmPackage;
+import com.jcabi.log.Logger;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import io.vertx.core.json.JsonObject;
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only journal of package metadata (last modification and refresh
+ * dates), so that metadata refreshes do not rewrite per-package metadata
+ * files and lookups do not read them. Metadata is kept in memory, changes
+ * are buffered and periodically appended to the storage as new immutable
+ * journal segments. On start the journal segments are read to rebuild the
+ * index. When there are too many segments, they are compacted into one
+ * snapshot segment. The newest snapshot is the base of the index: segments
+ * written before it are skipped on load, so packages deleted before the
+ * compaction do not come back if obsolete segments failed to be deleted.
+ * <p>
+ * Journal is not the only metadata source: per-package metadata file is still
+ * written when the package is saved for the first time, so changes lost on
+ * crash only make packages look older than they are.
+ * @since 0.3
+ */
+public final class MetadataJournal implements Closeable {
+    /**
+     * Journal segments key prefix (package names can not start with dot).
+     */
+    private static final Key PREFIX = new Key.From(".journal");
+
+    /**
+     * Number of segments to compact.
+     */
+    private static final int COMPACT = 64;
+
+    /**
+     * Time to wait for buffered changes flush on close (in seconds).
+     */
+    private static final long CLOSE_WAIT = 30;
+
+    /**
+     * Package name field.
+     */
+    private static final String NAME = "name";
+
+    /**
+     * Deleted package field.
+     */
+    private static final String DELETED = "deleted";
+
+    /**
+     * Journal segment key suffix.
+     */
+    private static final String LOG = "log";
+
+    /**
+     * Snapshot segment key suffix.
+     */
+    private static final String SNAPSHOT = "snapshot";
+
+    /**
+     * Underlying storage.
+     */
+    private final RxStorage storage;
+
+    /**
+     * Metadata index by package name.
+     */
+    private final Map<String, NpmPackage.Metadata> index;
+
+    /**
+     * Buffered journal records.
+     */
+    private final List<JsonObject> buffer;
+
+    /**
+     * Journal segments keys to compact.
+     */
+    private final List<Key> segments;
+
+    /**
+     * Index loading.
+     */
+    private final Completable loaded;
+
+    /**
+     * Flush ticks subscription.
+     */
+    private final Disposable ticks;
+
+    /**
+     * Segments sequence number.
+     */
+    private long seq;
+
+    /**
+     * Ctor.
+     * @param storage Underlying storage
+     * @param config NPM Proxy configuration
+     */
+    public MetadataJournal(final RxStorage storage, final NpmProxyConfig config) {
+        this(storage, config.journalInterval(), Schedulers.io());
+    }
+
+    /**
+     * Ctor.
+     * @param storage Underlying storage
+     * @param interval Buffered changes flush interval
+     * @param scheduler Flush ticks scheduler
+     */
+    @SuppressWarnings("PMD.ConstructorOnlyInitializesOrCallOtherConstructors")
+    MetadataJournal(final RxStorage storage, final Duration interval,
+        final Scheduler scheduler) {
+        this.storage = storage;
+        this.index = new ConcurrentHashMap<>();
+        this.buffer = new ArrayList<>(0);
+        this.segments = new ArrayList<>(0);
+        this.loaded = Completable.defer(this::load).cache();
+        this.loaded.subscribe();
+        this.ticks = Flowable.interval(interval.toMillis(), TimeUnit.MILLISECONDS, scheduler)
+            .onBackpressureDrop()
+            .concatMapCompletable(
+                tick -> this.flush().doOnError(this::failed).onErrorComplete(), 1
+            ).subscribe();
+    }
+
+    /**
+     * Get package metadata.
+     * @param name Package name
+     * @return Metadata or empty if it is not journaled
+     */
+    public Maybe<NpmPackage.Metadata> metadata(final String name) {
+        return this.loaded.andThen(Maybe.fromCallable(() -> this.index.get(name)));
+    }
+
+    /**
+     * Record package metadata.
+     * @param name Package name
+     * @param meta Package metadata
+     * @return Completion
+     */
+    public Completable record(final String name, final NpmPackage.Metadata meta) {
+        return this.loaded.andThen(
+            Completable.fromAction(
+                () -> {
+                    synchronized (this) {
+                        this.index.put(name, meta);
+                        this.buffer.add(meta.json().put(MetadataJournal.NAME, name));
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Forget deleted package metadata.
+     * @param name Package name
+     * @return Completion
+     */
+    public Completable forget(final String name) {
+        return this.loaded.andThen(
+            Completable.fromAction(
+                () -> {
+                    synchronized (this) {
+                        this.index.remove(name);
+                        this.buffer.add(
+                            new JsonObject()
+                                .put(MetadataJournal.NAME, name)
+                                .put(MetadataJournal.DELETED, true)
+                        );
+                    }
+                }
+            )
+        );
+    }
+
+    /**
+     * Append buffered changes to the journal, compacting the journal if it has
+     * too many segments. If the segment is not saved, buffered changes and
+     * segments to compact are restored for the next flush.
+     * @return Completion
+     */
+    public Completable flush() {
+        return this.loaded.andThen(
+            Completable.defer(
+                () -> {
+                    final List<JsonObject> buffered;
+                    final List<JsonObject> records;
+                    final List<Key> obsolete;
+                    final Key key;
+                    synchronized (this) {
+                        buffered = new ArrayList<>(this.buffer);
+                        if (this.segments.size() >= MetadataJournal.COMPACT) {
+                            records = this.index.entrySet().stream().map(
+                                entry -> entry.getValue().json()
+                                    .put(MetadataJournal.NAME, entry.getKey())
+                            ).collect(Collectors.toList());
+                            obsolete = new ArrayList<>(this.segments);
+                            this.segments.clear();
+                            key = this.next(MetadataJournal.SNAPSHOT);
+                        } else {
+                            records = buffered;
+                            obsolete = new ArrayList<>(0);
+                            key = this.next(MetadataJournal.LOG);
+                        }
+                        this.buffer.clear();
+                    }
+                    final Completable result;
+                    if (records.isEmpty() && obsolete.isEmpty()) {
+                        result = Completable.complete();
+                    } else {
+                        result = this.storage.save(key, MetadataJournal.content(records))
+                            .doOnComplete(() -> this.written(key))
+                            .doOnError(err -> this.restore(buffered, obsolete))
+                            .andThen(
+                                Flowable.fromIterable(obsolete).concatMapCompletable(
+                                    old -> Completable.defer(() -> this.storage.delete(old))
+                                        .doOnError(err -> this.undeleted(old, err))
+                                        .onErrorComplete()
+                                )
+                            );
+                    }
+                    return result;
+                }
+            )
+        );
+    }
+
+    /**
+     * Number of journaled packages.
+     * @return Index size
+     */
+    public int size() {
+        return this.index.size();
+    }
+
+    /**
+     * Stop periodic flushing and flush buffered changes.
+     */
+    @Override
+    public void close() {
+        this.ticks.dispose();
+        if (!this.flush().blockingAwait(MetadataJournal.CLOSE_WAIT, TimeUnit.SECONDS)) {
+            Logger.warn(this, "Metadata journal was not flushed on close");
+        }
+    }
+
+    /**
+     * Load the index from journal segments. Segments are read concurrently
+     * but applied in order of writing, starting from the newest snapshot.
+     * Segments older than the snapshot are not read, but are kept to be
+     * deleted on next compaction. If the journal can not be read, the index
+     * starts empty and metadata files are used instead.
+     * @return Completion
+     */
+    private Completable load() {
+        return this.storage.list(MetadataJournal.PREFIX).flatMapCompletable(
+            keys -> {
+                final List<Key> sorted = keys.stream()
+                    .sorted(Comparator.comparing(Key::string))
+                    .collect(Collectors.toList());
+                int base = 0;
+                for (int idx = 0; idx < sorted.size(); idx += 1) {
+                    if (sorted.get(idx).string().endsWith(MetadataJournal.SNAPSHOT)) {
+                        base = idx;
+                    }
+                }
+                synchronized (this) {
+                    this.segments.addAll(sorted);
+                }
+                return Flowable.fromIterable(sorted.subList(base, sorted.size()))
+                    .concatMapEager(
+                        key -> this.storage.value(key)
+                            .map(Concatenation::new).flatMap(Concatenation::single)
+                            .map(
+                                buf -> new String(
+                                    new Remaining(buf).bytes(), StandardCharsets.UTF_8
+                                )
+                            )
+                            .toFlowable()
+                    ).doOnNext(this::apply)
+                    .ignoreElements();
+            }
+        ).doOnComplete(
+            () -> Logger.info(
+                this, "Metadata journal loaded: %d packages", this.index.size()
+            )
+        ).doOnError(
+            err -> Logger.error(
+                this, "Failed to load metadata journal, starting empty: %s", err.getMessage()
+            )
+        ).onErrorComplete();
+    }
+
+    /**
+     * Apply journal segment to the index.
+     * @param segment Journal segment content
+     */
+    private void apply(final String segment) {
+        for (final String line : segment.split("\n")) {
+            if (!line.isEmpty()) {
+                final JsonObject record = new JsonObject(line);
+                final String name = record.getString(MetadataJournal.NAME);
+                if (record.getBoolean(MetadataJournal.DELETED, false)) {
+                    this.index.remove(name);
+                } else {
+                    this.index.put(name, new NpmPackage.Metadata(record));
+                }
+            }
+        }
+    }
+
+    /**
+     * Next journal segment key. Keys are ordered by creation time.
+     * Must be called with the lock held.
+     * @param suffix Segment key suffix
+     * @return Segment key
+     */
+    private Key next(final String suffix) {
+        this.seq += 1;
+        return new Key.From(
+            MetadataJournal.PREFIX,
+            String.format("%013d-%06d.%s", System.currentTimeMillis(), this.seq, suffix)
+        );
+    }
+
+    /**
+     * Remember written segment.
+     * @param key Segment key
+     */
+    private synchronized void written(final Key key) {
+        this.segments.add(key);
+    }
+
+    /**
+     * Restore changes and segments to compact of failed flush. They are put
+     * before the ones added since the flush started to keep journal order.
+     * @param buffered Buffered journal records
+     * @param obsolete Journal segments keys to compact
+     */
+    private synchronized void restore(final List<JsonObject> buffered,
+        final List<Key> obsolete) {
+        this.buffer.addAll(0, buffered);
+        this.segments.addAll(0, obsolete);
+    }
+
+    /**
+     * Log obsolete segment delete failure. The segment is skipped on load as
+     * it is older than the snapshot and is deleted on compaction after restart.
+     * @param key Segment key
+     * @param err Failure
+     */
+    private void undeleted(final Key key, final Throwable err) {
+        Logger.warn(
+            this, "Failed to delete obsolete journal segment %s: %s",
+            key.string(), err.getMessage()
+        );
+    }
+
+    /**
+     * Log flush failure, buffered changes are kept for the next flush.
+     * @param err Failure
+     */
+    private void failed(final Throwable err) {
+        Logger.error(this, "Metadata journal flush failed: %s", err.getMessage());
+    }
+
+    /**
+     * Journal segment content.
+     * @param records Journal records
+     * @return Content
+     */
+    private static Content content(final List<JsonObject> records) {
+        return new Content.From(
+            records.stream().map(JsonObject::encode)
+                .collect(Collectors.joining("\n", "", "\n"))
+                .getBytes(StandardCharsets.UTF_8)
+        );
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Packages not found in remote repository, so they are not looked up again
+ * until their negative TTL expires. The number of entries is bounded: when
+ * it is full, the least recently used entry is evicted. Expired entries are
+ * purged when they are accessed.
+ * @since 0.3
+ */
+final class NegativeCache {
+    /**
+     * Clock.
+     */
+    private final Clock clock;
+
+    /**
+     * Expiration times by package name.
+     */
+    private final Map<String, Instant> entries;
+
+    /**
+     * Ctor.
+     * @param capacity Maximum number of entries
+     * @param clock Clock
+     */
+    NegativeCache(final int capacity, final Clock clock) {
+        this.clock = clock;
+        this.entries = Collections.synchronizedMap(
+            // @checkstyle MagicNumberCheck (1 line)
+            new LinkedHashMap<String, Instant>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Instant> eldest) {
+                    return this.size() > capacity;
+                }
+            }
+        );
+    }
+
+    /**
+     * Remember package which was not found.
+     * @param name Package name
+     * @param ttl How long the package is not looked up again
+     */
+    void add(final String name, final Duration ttl) {
+        if (!ttl.isZero()) {
+            this.entries.put(name, this.clock.instant().plus(ttl));
+        }
+    }
+
+    /**
+     * Check the package is known to be absent in remote repository.
+     * @param name Package name
+     * @return True if the package should not be looked up
+     */
+    boolean contains(final String name) {
+        final Instant expires = this.entries.get(name);
+        final boolean result;
+        if (expires == null) {
+            result = false;
+        } else if (expires.isAfter(this.clock.instant())) {
+            result = true;
+        } else {
+            this.entries.remove(name, expires);
+            result = false;
+        }
+        return result;
+    }
+
+    /**
+     * Forget the package, e.g. when it was found.
+     * @param name Package name
+     */
+    void remove(final String name) {
+        this.entries.remove(name);
+    }
+
+    /**
+     * Number of entries, including expired ones which are not purged yet.
+     * @return Number of entries
+     */
+    int size() {
+        return this.entries.size();
+    }
+}
@@ -24,15 +24,32 @@
 package com.artipie.npm.proxy;
 
 import com.artipie.asto.Storage;
+import com.artipie.asto.rx.RxStorage;
 import com.artipie.asto.rx.RxStorageWrapper;
 import com.artipie.npm.proxy.model.NpmAsset;
 import com.artipie.npm.proxy.model.NpmPackage;
+import com.jcabi.log.Logger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.reactivex.Completable;
 import io.reactivex.Maybe;
+import io.reactivex.Single;
 import io.vertx.reactivex.core.Vertx;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * NPM Proxy.
@@ -40,6 +57,16 @@ import java.time.OffsetDateTime;
  * @checkstyle ClassDataAbstractionCouplingCheck (200 lines)
  */
 public class NpmProxy {
+    /**
+     * Cache lookup results recorder of background work, which ignores them.
+     */
+    private static final Consumer<String> UNCOUNTED = result -> { };
+
+    /**
+     * Maximum number of packages remembered as not found in remote repository.
+     */
+    private static final int ABSENT = 10_000;
+
     /**
      * NPM Proxy config.
      */
@@ -60,6 +87,76 @@ public class NpmProxy {
      */
     private final NpmRemote remote;
 
+    /**
+     * Dependencies metadata prefetcher.
+     */
+    private final Prefetcher prefetcher;
+
+    /**
+     * Popularity-driven background metadata refresher.
+     */
+    private final Refresher refresher;
+
+    /**
+     * Bulk cache warm-up.
+     */
+    private final WarmUp warmup;
+
+    /**
+     * Package metadata transformation pool.
+     */
+    private final TransformPool pool;
+
+    /**
+     * Prefetch pool, apart from the transformation pool for client requests.
+     */
+    private final TransformPool prefetches;
+
+    /**
+     * Package metadata write-behind.
+     */
+    private final WriteBehind writes;
+
+    /**
+     * Package caching policies.
+     */
+    private final PackagePolicies policies;
+
+    /**
+     * Packages not found in remote repository.
+     */
+    private final NegativeCache absent;
+
+    /**
+     * Push-based invalidation by upstream change notifications.
+     */
+    private final Invalidations invalidations;
+
+    /**
+     * Upstream changes feed follower.
+     */
+    private final Optional<ChangesFollower> follower;
+
+    /**
+     * Cache lookups counters by object type and lookup result.
+     */
+    private final Map<String, Counter> lookups;
+
+    /**
+     * Asset integrity mismatches counter.
+     */
+    private final Counter mismatches;
+
+    /**
+     * Refreshed package merges counters by result.
+     */
+    private final Map<String, Counter> merges;
+
+    /**
+     * Refreshed package merges bytes counters by result.
+     */
+    private final Map<String, Counter> merged;
+
     /**
      * Ctor.
      * @param config NPM Proxy configuration
@@ -67,11 +164,45 @@ public class NpmProxy {
      * @param storage Adapter storage
      */
     public NpmProxy(final NpmProxyConfig config, final Vertx vertx, final Storage storage) {
+        this(config, vertx, storage, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Ctor.
+     * @param config NPM Proxy configuration
+     * @param vertx Vertx instance
+     * @param storage Adapter storage
+     * @param registry Meter registry
+     */
+    public NpmProxy(final NpmProxyConfig config, final Vertx vertx, final Storage storage,
+        final MeterRegistry registry) {
+        this(config, vertx, storage, registry, new TransformPool(config, registry));
+    }
+
+    /**
+     * Ctor.
+     * @param config NPM Proxy configuration
+     * @param vertx Vertx instance
+     * @param storage Adapter storage
+     * @param registry Meter registry
+     * @param pool Package metadata transformation pool
+     * @checkstyle ParameterNumberCheck (10 lines)
+     */
+    private NpmProxy(final NpmProxyConfig config, final Vertx vertx, final Storage storage,
+        final MeterRegistry registry, final TransformPool pool) {
         this(
             config,
             vertx,
-            new RxNpmProxyStorage(new RxStorageWrapper(storage)),
-            new HttpNpmRemote(config, vertx)
+            NpmProxy.quota(
+                config,
+                NpmProxy.filtered(config, new RxStorageWrapper(storage), registry),
+                new RxStorageWrapper(storage),
+                registry
+            ),
+            new HttpNpmRemote(config, vertx, registry, pool),
+            registry,
+            pool,
+            Optional.of(new RxStorageWrapper(storage))
         );
     }
 
@@ -87,45 +218,400 @@ public class NpmProxy {
         final Vertx vertx,
         final NpmProxyStorage storage,
         final NpmRemote remote) {
+        this(config, vertx, storage, remote, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Default-scoped ctor (for tests).
+     * @param config NPM Proxy configuration
+     * @param vertx Vertx instance
+     * @param storage NPM storage
+     * @param remote Remote repository client
+     * @param registry Meter registry
+     * @checkstyle ParameterNumberCheck (10 lines)
+     */
+    NpmProxy(final NpmProxyConfig config,
+        final Vertx vertx,
+        final NpmProxyStorage storage,
+        final NpmRemote remote,
+        final MeterRegistry registry) {
+        this(
+            config, vertx, storage, remote, registry, new TransformPool(config, registry),
+            Optional.empty()
+        );
+    }
+
+    /**
+     * Primary ctor.
+     * @param config NPM Proxy configuration
+     * @param vertx Vertx instance
+     * @param storage NPM storage
+     * @param remote Remote repository client
+     * @param registry Meter registry
+     * @param pool Package metadata transformation pool
+     * @param raw Adapter storage for changes feed checkpoint (empty if the
+     *  changes feed is not followed)
+     * @checkstyle ParameterNumberCheck (10 lines)
+     */
+    @SuppressWarnings("PMD.ConstructorOnlyInitializesOrCallOtherConstructors")
+    NpmProxy(final NpmProxyConfig config,
+        final Vertx vertx,
+        final NpmProxyStorage storage,
+        final NpmRemote remote,
+        final MeterRegistry registry,
+        final TransformPool pool,
+        final Optional<RxStorage> raw) {
         this.config = config;
+        this.pool = pool;
+        this.prefetches = new TransformPool(
+            "prefetch", 1, config.prefetchConcurrency(), registry
+        );
+        this.lookups = NpmProxy.lookups(registry);
+        this.mismatches = Counter.builder("npm.proxy.integrity.mismatch").register(registry);
+        this.merges = NpmProxy.merges(registry, "npm.proxy.refresh.merged", null);
+        this.merged = NpmProxy.merges(registry, "npm.proxy.refresh.bytes", "bytes");
         this.vertx = vertx;
         this.storage = storage;
         this.remote = remote;
+        this.writes = new WriteBehind(storage, config);
+        this.policies = config.policies();
+        this.absent = new NegativeCache(NpmProxy.ABSENT, Clock.systemUTC());
+        this.prefetcher = new Prefetcher(
+            this::prefetchedPackage,
+            config.prefetchDepth(),
+            config.prefetchConcurrency(),
+            this.prefetches
+        );
+        this.refresher = new Refresher(this::refreshedPackage, this::ttl, config);
+        this.warmup = new WarmUp(this, config);
+        this.invalidations = new Invalidations(this::invalidate, config);
+        this.follower = raw.filter(any -> !config.changesUrl().isEmpty()).map(
+            rxs -> new ChangesFollower(vertx, rxs, this.invalidations, config)
+        );
+        this.follower.ifPresent(
+            changes -> {
+                FunctionCounter.builder(
+                    "npm.proxy.changes.received", changes, ChangesFollower::changes
+                ).register(registry);
+                FunctionCounter.builder(
+                    "npm.proxy.changes.failed", changes, ChangesFollower::failed
+                ).register(registry);
+            }
+        );
+        FunctionCounter.builder(
+            "npm.proxy.prefetch.fetched", this.prefetcher, Prefetcher::prefetched
+        ).register(registry);
+        FunctionCounter.builder("npm.proxy.prefetch.hits", this.prefetcher, Prefetcher::hits)
+            .register(registry);
+        FunctionCounter.builder(
+            "npm.proxy.refresh.fetched", this.refresher, Refresher::refreshed
+        ).register(registry);
+        Gauge.builder("npm.proxy.write-behind.queue", this.writes, WriteBehind::size)
+            .register(registry);
+        FunctionCounter.builder(
+            "npm.proxy.write-behind.coalesced", this.writes, WriteBehind::coalesced
+        ).register(registry);
+        FunctionCounter.builder(
+            "npm.proxy.write-behind.failed", this.writes, WriteBehind::failed
+        ).register(registry);
+        Gauge.builder("npm.proxy.cache.absent", this.absent, NegativeCache::size)
+            .register(registry);
+        FunctionCounter.builder(
+            "npm.proxy.hook.received", this.invalidations, Invalidations::received
+        ).register(registry);
+        FunctionCounter.builder(
+            "npm.proxy.hook.coalesced", this.invalidations, Invalidations::coalesced
+        ).register(registry);
+        FunctionCounter.builder(
+            "npm.proxy.hook.refreshed", this.invalidations, Invalidations::refreshed
+        ).register(registry);
     }
 
     /**
      * Retrieve package metadata.
      * @param name Package name
      * @return Package metadata (cached or downloaded from remote repository)
-     * @checkstyle ReturnCountCheck (15 lines)
      */
     public Maybe<NpmPackage> getPackage(final String name) {
-        return this.storage.getPackage(name).flatMap(
+        return this.cachedPackage(name, this.counted("package")).doOnSuccess(
+            pkg -> {
+                final PackagePolicies.Rule policy = this.policies.policy(name);
+                if (policy.prefetch()) {
+                    this.prefetcher.packageRequested(pkg);
+                }
+                if (policy.hot()) {
+                    this.refresher.packageRequested(pkg);
+                }
+            }
+        );
+    }
+
+    /**
+     * Retrieve asset.
+     * @param path Asset path
+     * @return Asset data (cached or downloaded from remote repository)
+     */
+    public Maybe<NpmAsset> getAsset(final String path) {
+        return this.cachedAsset(path, this.counted("asset")).doOnSuccess(
+            asset -> this.prefetcher.assetRequested(path)
+        );
+    }
+
+    /**
+     * Retrieve package metadata for background work (prefetching, warm-up).
+     * Unlike {@link #getPackage(String)} it is not counted as client cache
+     * lookup and does not make the package popular or prefetch its
+     * dependencies.
+     * @param name Package name
+     * @return Package metadata (cached or downloaded from remote repository)
+     */
+    public Maybe<NpmPackage> backgroundPackage(final String name) {
+        return this.cachedPackage(name, NpmProxy.UNCOUNTED);
+    }
+
+    /**
+     * Retrieve asset for background work (warm-up). Unlike
+     * {@link #getAsset(String)} it is not counted as client cache lookup
+     * and does not prefetch the asset package.
+     * @param path Asset path
+     * @return Asset data (cached or downloaded from remote repository)
+     */
+    public Maybe<NpmAsset> backgroundAsset(final String path) {
+        return this.cachedAsset(path, NpmProxy.UNCOUNTED);
+    }
+
+    /**
+     * Bulk cache warm-up of this proxy.
+     * @return Warm-up
+     */
+    public WarmUp warmUp() {
+        return this.warmup;
+    }
+
+    /**
+     * Push-based invalidation of this proxy by upstream change notifications.
+     * @return Invalidations
+     */
+    public Invalidations invalidations() {
+        return this.invalidations;
+    }
+
+    /**
+     * Package metadata transformation pool, so that heavy JSON processing
+     * does not block event loop.
+     * @return Transformation pool
+     */
+    public TransformPool transformations() {
+        return this.pool;
+    }
+
+    /**
+     * Close NPM Proxy adapter and underlying remote client.
+     * @throws IOException when underlying remote client fails to close
+     */
+    public void close() throws IOException {
+        this.prefetcher.close();
+        this.refresher.close();
+        this.follower.ifPresent(ChangesFollower::close);
+        this.invalidations.close();
+        this.writes.close();
+        this.remote.close();
+        this.storage.close();
+        this.pool.close();
+        this.prefetches.close();
+    }
+
+    /**
+     * Create NPM storage with Bloom filter of cached keys if it is configured.
+     * @param config NPM Proxy configuration
+     * @param storage Adapter storage
+     * @param registry Meter registry
+     * @return NPM storage
+     */
+    private static NpmProxyStorage filtered(final NpmProxyConfig config,
+        final RxStorage storage, final MeterRegistry registry) {
+        final NpmProxyStorage journaled = NpmProxy.journaled(config, storage, registry);
+        final NpmProxyStorage result;
+        if (config.bloomEntries() > 0) {
+            final BloomNpmProxyStorage bloom = new BloomNpmProxyStorage(
+                journaled, storage, config
+            );
+            FunctionCounter.builder(
+                "npm.proxy.bloom.skipped", bloom, BloomNpmProxyStorage::skipped
+            ).register(registry);
+            FunctionCounter.builder(
+                "npm.proxy.bloom.false-positives", bloom, BloomNpmProxyStorage::positives
+            ).register(registry);
+            Gauge.builder("npm.proxy.bloom.fpp", bloom, BloomNpmProxyStorage::fpp)
+                .register(registry);
+            result = bloom;
+        } else {
+            result = journaled;
+        }
+        return result;
+    }
+
+    /**
+     * Create NPM storage with metadata journal if it is configured.
+     * @param config NPM Proxy configuration
+     * @param storage Adapter storage
+     * @param registry Meter registry
+     * @return NPM storage
+     */
+    private static NpmProxyStorage journaled(final NpmProxyConfig config,
+        final RxStorage storage, final MeterRegistry registry) {
+        final NpmProxyStorage result;
+        if (config.journalInterval().isZero()) {
+            result = new RxNpmProxyStorage(storage, registry);
+        } else {
+            final MetadataJournal journal = new MetadataJournal(storage, config);
+            Gauge.builder("npm.proxy.journal.size", journal, MetadataJournal::size)
+                .register(registry);
+            result = new RxNpmProxyStorage(storage, registry, journal);
+        }
+        return result;
+    }
+
+    /**
+     * Limit storage size if cache size budget is configured.
+     * @param config NPM Proxy configuration
+     * @param storage NPM storage
+     * @param raw Adapter storage to discover cached objects in
+     * @param registry Meter registry
+     * @return NPM storage with quota or the storage itself
+     */
+    private static NpmProxyStorage quota(final NpmProxyConfig config,
+        final NpmProxyStorage storage, final RxStorage raw, final MeterRegistry registry) {
+        final NpmProxyStorage result;
+        if (config.cacheMaxSize() > 0) {
+            final QuotaNpmProxyStorage quota = new QuotaNpmProxyStorage(
+                storage, raw, config.cacheMaxSize(), config.cacheEviction()
+            );
+            Gauge.builder("npm.proxy.cache.size", quota, QuotaNpmProxyStorage::size)
+                .baseUnit("bytes")
+                .register(registry);
+            FunctionCounter.builder("npm.proxy.cache.evicted", quota, QuotaNpmProxyStorage::evicted)
+                .register(registry);
+            result = quota;
+        } else {
+            result = storage;
+        }
+        return result;
+    }
+
+    /**
+     * Retrieve package metadata from the cache, refreshing it if TTL is
+     * exceeded. Packages recently not found in remote repository are not
+     * looked up again until their negative cache TTL expires, packages
+     * which failed to load are not remembered as not found.
+     * @param name Package name
+     * @param lookups Cache lookup results recorder
+     * @return Package metadata (cached or downloaded from remote repository)
+     * @checkstyle ReturnCountCheck (15 lines)
+     */
+    private Maybe<NpmPackage> cachedPackage(final String name,
+        final Consumer<String> lookups) {
+        return this.storedPackage(name).flatMap(
             pkg -> {
                 if (Duration.between(pkg.meta().lastRefreshed(), OffsetDateTime.now())
-                    .compareTo(this.config.metadataTtl()) > 0) {
-                    return this.remotePackage(name).switchIfEmpty(Maybe.just(pkg));
+                    .compareTo(this.ttl(pkg)) > 0) {
+                    lookups.accept("stale");
+                    return this.mergedPackage(pkg)
+                        .onErrorReturnItem(pkg)
+                        .switchIfEmpty(Maybe.just(pkg));
                 } else {
+                    lookups.accept("hit");
                     return Maybe.just(pkg);
                 }
             }
-        ).switchIfEmpty(Maybe.defer(() -> this.remotePackage(name)));
+        ).switchIfEmpty(
+            Maybe.defer(
+                () -> {
+                    final Maybe<NpmPackage> result;
+                    if (this.absent.contains(name)) {
+                        lookups.accept("absent");
+                        result = Maybe.empty();
+                    } else {
+                        lookups.accept("miss");
+                        result = this.remotePackage(name).doOnComplete(
+                            () -> this.absent.add(
+                                name, this.policies.policy(name).negativeTtl()
+                            )
+                        ).onErrorResumeNext((Throwable err) -> NpmProxy.unavailable(err));
+                    }
+                    return result;
+                }
+            )
+        );
     }
 
     /**
-     * Retrieve asset.
+     * Invalidate package metadata on upstream change notification: load cached
+     * package from remote repository again or forget that the package was not
+     * found.
+     * @param name Package name
+     * @return Completion
+     */
+    private Completable invalidate(final String name) {
+        return Completable.defer(
+            () -> {
+                this.absent.remove(name);
+                return this.storedPackage(name)
+                    .flatMap(this::mergedPackage)
+                    .ignoreElement();
+            }
+        );
+    }
+
+    /**
+     * Retrieve package metadata for prefetching, if the package takes part
+     * in prefetching.
+     * @param name Package name
+     * @return Package metadata or empty
+     */
+    private Maybe<NpmPackage> prefetchedPackage(final String name) {
+        final Maybe<NpmPackage> result;
+        if (this.policies.policy(name).prefetch()) {
+            result = this.backgroundPackage(name);
+        } else {
+            result = Maybe.empty();
+        }
+        return result;
+    }
+
+    /**
+     * Metadata TTL of the package: TTL of the package policy, otherwise TTL
+     * computed for the package, otherwise the global one.
+     * @param pkg Package
+     * @return Metadata TTL
+     */
+    private Duration ttl(final NpmPackage pkg) {
+        return this.policies.policy(pkg.name()).ttl().orElseGet(
+            () -> pkg.meta().ttl().orElse(this.config.metadataTtl())
+        );
+    }
+
+    /**
+     * Retrieve asset from the cache.
      * @param path Asset path
+     * @param lookups Cache lookup results recorder
      * @return Asset data (cached or downloaded from remote repository)
      */
-    public Maybe<NpmAsset> getAsset(final String path) {
-        return this.storage.getAsset(path).switchIfEmpty(
+    private Maybe<NpmAsset> cachedAsset(final String path,
+        final Consumer<String> lookups) {
+        return this.storage.getAsset(path).doOnSuccess(
+            asset -> lookups.accept("hit")
+        ).switchIfEmpty(
             Maybe.defer(
                 () -> this.vertx.fileSystem().rxCreateTempFile("npm-asset-", ".tmp")
+                    .doOnSuccess(tmp -> lookups.accept("miss"))
                     .flatMapMaybe(
-                        tmp -> this.remote.loadAsset(path, Paths.get(tmp)).flatMap(
+                        tmp -> this.verifiedAsset(path, Paths.get(tmp)).flatMap(
                             asset -> this.storage.save(asset)
                                 .andThen(Maybe.defer(() -> this.storage.getAsset(path)))
-                                .doOnTerminate(() -> this.vertx.fileSystem().rxDelete(tmp))
+                        ).doFinally(
+                            () -> this.vertx.fileSystem().rxDelete(tmp)
+                                .onErrorComplete().subscribe()
                         )
                     )
             )
@@ -133,21 +619,218 @@ public class NpmProxy {
     }
 
     /**
-     * Close NPM Proxy adapter and underlying remote client.
-     * @throws IOException when underlying remote client fails to close
+     * Download asset from remote repository and verify it against integrity
+     * from cached package metadata, the digests are computed by remote
+     * client while downloading. The asset is downloaded again on mismatch.
+     * Expected integrity is resolved before download, so that the asset is
+     * never cached unverified if the lookup fails.
+     * @param path Asset path
+     * @param file File to store asset data
+     * @return Verified asset
      */
-    public void close() throws IOException {
-        this.remote.close();
+    private Maybe<NpmAsset> verifiedAsset(final String path, final Path file) {
+        return this.integrity(path).flatMapMaybe(
+            expected -> Maybe.defer(
+                () -> this.remote.loadAsset(path, file).map(
+                    asset -> {
+                        if (expected.isPresent() && !expected.get().matches(asset.meta())) {
+                            this.mismatches.increment();
+                            throw new Integrity.MismatchException(path);
+                        }
+                        return asset;
+                    }
+                )
+            ).retry(
+                this.config.integrityRetries(),
+                err -> {
+                    final boolean retry = err instanceof Integrity.MismatchException;
+                    if (retry) {
+                        Logger.warn(NpmProxy.class, "%s, downloading again", err.getMessage());
+                    }
+                    return retry;
+                }
+            )
+        );
+    }
+
+    /**
+     * Find expected asset integrity in cached package metadata. Metadata
+     * is parsed by transformation pool, lookup failures (busy pool, storage
+     * errors) are propagated rather than treated as unknown integrity.
+     * @param path Asset path
+     * @return Expected integrity or empty if package is not cached or does
+     *  not list the asset
+     */
+    private Single<Optional<Integrity>> integrity(final String path) {
+        return Maybe.fromCallable(() -> Integrity.packageName(path).orElse(null))
+            .flatMap(this::storedPackage)
+            .flatMapSingleElement(
+                pkg -> this.pool.submit(() -> Integrity.of(pkg.content(), path))
+            ).toSingle(Optional.empty());
     }
 
     /**
-     * Get package from remote repository and save it to storage.
+     * Get package from the storage, including the one which is not written yet.
+     * @param name Package name
+     * @return Npm Package
+     */
+    private Maybe<NpmPackage> storedPackage(final String name) {
+        return this.writes.pending(name).switchIfEmpty(
+            Maybe.defer(() -> this.storage.getPackage(name))
+        );
+    }
+
+    /**
+     * Get package from remote repository and save it to storage. With
+     * write-behind enabled, it is returned before it is written.
      * @param name Package name
      * @return Npm Package
      */
     private Maybe<NpmPackage> remotePackage(final String name) {
         return this.remote.loadPackage(name).flatMap(
-            pkg -> this.storage.save(pkg).andThen(Maybe.just(pkg))
+            pkg -> this.writes.save(pkg).andThen(Maybe.just(pkg))
+        );
+    }
+
+    /**
+     * Refresh package from remote repository, merging it into the cached one
+     * if the package is cached.
+     * @param name Package name
+     * @return Npm Package
+     */
+    private Maybe<NpmPackage> refreshedPackage(final String name) {
+        return this.storedPackage(name).flatMap(this::mergedPackage)
+            .switchIfEmpty(Maybe.defer(() -> this.remotePackage(name)));
+    }
+
+    /**
+     * Get package from remote repository and merge it into the cached one.
+     * Changed package is saved to storage, otherwise only its metadata is
+     * updated (unless the package is pending in write-behind queue). If
+     * cached content can not be merged, it is replaced.
+     * @param cached Cached package
+     * @return Npm Package
+     */
+    private Maybe<NpmPackage> mergedPackage(final NpmPackage cached) {
+        return this.remote.loadPackage(cached.name()).flatMap(
+            fresh -> this.pool.submit(() -> new PackageMerge(cached, fresh).result())
+                .onErrorReturn(err -> new PackageMerge.Result(fresh, 1))
+                .toMaybe()
+        ).flatMap(
+            merge -> {
+                final NpmPackage pkg = merge.pkg();
+                final int size = pkg.content().getBytes(StandardCharsets.UTF_8).length;
+                final Completable write;
+                if (merge.changed()) {
+                    this.merged("rewritten", size);
+                    write = this.writes.save(pkg);
+                } else {
+                    this.merged("untouched", size);
+                    write = this.writes.pending(pkg.name()).isEmpty().flatMapCompletable(
+                        none -> {
+                            final Completable meta;
+                            if (none) {
+                                meta = this.storage.refresh(pkg);
+                            } else {
+                                meta = this.writes.save(pkg);
+                            }
+                            return meta;
+                        }
+                    );
+                }
+                return write.andThen(Maybe.just(pkg));
+            }
         );
     }
+
+    /**
+     * Record refreshed package merge.
+     * @param result Whether package content is rewritten or untouched
+     * @param size Package content size in bytes
+     */
+    private void merged(final String result, final int size) {
+        this.merges.get(result).increment();
+        this.merged.get(result).increment(size);
+    }
+
+    /**
+     * Register refreshed package merges counters.
+     * @param registry Meter registry
+     * @param name Counter name
+     * @param unit Counter base unit (nullable)
+     * @return Counters by merge result
+     */
+    private static Map<String, Counter> merges(final MeterRegistry registry,
+        final String name, final String unit) {
+        final Map<String, Counter> result = new HashMap<>();
+        for (final String merge : new String[]{"rewritten", "untouched"}) {
+            result.put(
+                merge,
+                Counter.builder(name).tag("result", merge).baseUnit(unit).register(registry)
+            );
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Result of failed remote package call: throttled call, call rejected by
+     * open circuit breaker and busy transformation pool are reported as error,
+     * so that clients get 503 and retry, other failures as not found package.
+     * @param err Error
+     * @param <T> Result type
+     * @return Empty or error
+     */
+    private static <T> Maybe<T> unavailable(final Throwable err) {
+        final Maybe<T> result;
+        if (err instanceof NpmRemote.ThrottledException
+            || err instanceof CircuitBreaker.OpenException
+            || err instanceof TransformPool.BusyException) {
+            result = Maybe.error(err);
+        } else {
+            result = Maybe.empty();
+        }
+        return result;
+    }
+
+    /**
+     * Cache lookup results recorder of client requests.
+     * @param type Object type
+     * @return Recorder incrementing cache lookups counters
+     */
+    private Consumer<String> counted(final String type) {
+        return result -> this.cache(type, result).increment();
+    }
+
+    /**
+     * Cache lookups counter.
+     * @param type Object type
+     * @param result Lookup result
+     * @return Counter
+     */
+    private Counter cache(final String type, final String result) {
+        return this.lookups.get(String.join(":", type, result));
+    }
+
+    /**
+     * Register cache lookups counters.
+     * @param registry Meter registry
+     * @return Counters by object type and lookup result
+     */
+    private static Map<String, Counter> lookups(final MeterRegistry registry) {
+        final Map<String, Counter> result = new HashMap<>();
+        final String[][] lookups = {
+            {"package", "hit"}, {"package", "stale"}, {"package", "miss"},
+            {"package", "absent"}, {"asset", "hit"}, {"asset", "miss"},
+        };
+        for (final String[] lookup : lookups) {
+            result.put(
+                String.join(":", lookup),
+                Counter.builder("npm.proxy.cache")
+                    .tag("type", lookup[0])
+                    .tag("result", lookup[1])
+                    .register(registry)
+            );
+        }
+        return Collections.unmodifiableMap(result);
+    }
 }
@@ -23,10 +23,16 @@
  */
 package com.artipie.npm.proxy;
 
+import com.amihaiemil.eoyaml.Yaml;
 import com.amihaiemil.eoyaml.YamlMapping;
+import com.amihaiemil.eoyaml.YamlSequence;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import org.apache.commons.lang3.StringUtils;
 
 /**
@@ -49,6 +55,146 @@ public final class NpmProxyConfig {
      */
     private static final int REQUEST_TIMEOUT = 5_000;
 
+    /**
+     * Default total remote call timeout (in millis).
+     */
+    private static final int TOTAL_TIMEOUT = 300_000;
+
+    /**
+     * Default maximal number of asset download resumes.
+     */
+    private static final int DOWNLOAD_RESUMES = 3;
+
+    /**
+     * Default metadata journal flush interval (in millis, disabled).
+     */
+    private static final int JOURNAL_INTERVAL = 0;
+
+    /**
+     * Default changes feed reading interval (in millis).
+     */
+    private static final int CHANGES_INTERVAL = 30_000;
+
+    /**
+     * Default maximum number of changes read from the feed at once.
+     */
+    private static final int CHANGES_BATCH = 500;
+
+    /**
+     * Default change notifications batch window (in millis).
+     */
+    private static final int HOOK_WINDOW = 1_000;
+
+    /**
+     * Default number of concurrent refreshes of notified packages.
+     */
+    private static final int HOOK_CONCURRENCY = 4;
+
+    /**
+     * Default minimal adaptive metadata TTL in minutes.
+     */
+    private static final int ADAPTIVE_TTL_MIN = 5;
+
+    /**
+     * Default adaptive metadata TTL percent of expected interval until next change.
+     */
+    private static final int ADAPTIVE_TTL_PERCENT = 10;
+
+    /**
+     * Default expected number of cached keys in Bloom filter (disabled).
+     */
+    private static final int BLOOM_ENTRIES = 0;
+
+    /**
+     * Default Bloom filter false positive probability.
+     */
+    private static final double BLOOM_FPP = 0.01;
+
+    /**
+     * Default number of concurrent write-behind storage writes.
+     */
+    private static final int WRITE_BEHIND_CONCURRENCY = 4;
+
+    /**
+     * Default number of asset download retries on integrity mismatch.
+     */
+    private static final int INTEGRITY_RETRIES = 2;
+
+    /**
+     * Default asset download segment size (in KB).
+     */
+    private static final int DOWNLOAD_SEGMENT = 4096;
+
+    /**
+     * Default number of consecutive remote failures to open circuit breaker.
+     */
+    private static final int BREAKER_FAILURES = 5;
+
+    /**
+     * Default circuit breaker open duration (in millis).
+     */
+    private static final int BREAKER_OPEN = 30_000;
+
+    /**
+     * Default hedging latency percentile.
+     */
+    private static final int HEDGING_PERCENTILE = 95;
+
+    /**
+     * Default minimal hedging delay (in millis).
+     */
+    private static final int HEDGING_DELAY = 50;
+
+    /**
+     * Default initial limit of in-flight calls to an upstream.
+     */
+    private static final int CONCURRENCY_INITIAL = 16;
+
+    /**
+     * Default maximal limit of in-flight calls to an upstream.
+     */
+    private static final int CONCURRENCY_MAX = 128;
+
+    /**
+     * Default maximal number of retries of a throttled upstream call.
+     */
+    private static final int CONCURRENCY_RETRIES = 2;
+
+    /**
+     * Default maximal upstream Retry-After pause to honour (in millis).
+     */
+    private static final int CONCURRENCY_WAIT = 10_000;
+
+    /**
+     * Default number of concurrent metadata prefetches.
+     */
+    private static final int PREFETCH_CONCURRENCY = 4;
+
+    /**
+     * Default number of concurrent warm-up fetches.
+     */
+    private static final int WARMUP_CONCURRENCY = 8;
+
+    /**
+     * Default time before metadata TTL expiration to refresh hot packages (in millis).
+     */
+    private static final int REFRESH_LEAD = 60_000;
+
+    /**
+     * Default maximum number of background refreshes per tick.
+     */
+    private static final int REFRESH_RATE = 10;
+
+    /**
+     * Default background refresh ticks interval (in millis).
+     */
+    private static final int REFRESH_INTERVAL = 10_000;
+
+    /**
+     * Default maximum number of queued package metadata transformations.
+     */
+    private static final int TRANSFORM_QUEUE = 256;
+
     /**
      * Custom Repository YAML configuration.
      */
@@ -63,15 +209,38 @@ public final class NpmProxyConfig {
     }
 
     /**
-     * Get remote repository base URL.
+     * Get remote repository base URL. If several upstreams are configured,
+     * the first one is returned.
      * @return Remote repository base URL
      */
     public String url() {
-        return this.remoteSettings().string("url");
+        return this.urls().get(0);
     }
 
     /**
-     * Get request timeout to remote repo (in millis).
+     * Get remote repository upstreams (mirrors) base URLs. Upstreams are
+     * configured either by single `url` or by `urls` sequence.
+     * @return Remote repository base URLs
+     */
+    public List<String> urls() {
+        final YamlSequence seq = this.remoteSettings().yamlSequence("urls");
+        final List<String> result;
+        if (seq == null) {
+            result = Collections.singletonList(
+                Objects.requireNonNull(this.remoteSettings().string("url"))
+            );
+        } else {
+            result = new ArrayList<>(seq.size());
+            for (int idx = 0; idx < seq.size(); idx += 1) {
+                result.add(seq.string(idx));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get request timeout to remote repo (in millis). It is the default for
+     * both first byte and idle timeouts.
      * @return Request timeout
      */
     public int requestTimeout() {
@@ -92,6 +261,45 @@ public final class NpmProxyConfig {
         );
     }
 
+    /**
+     * Get time to wait for the first byte of remote repo response.
+     * @return First byte timeout
+     */
+    public Duration firstByteTimeout() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                this.remoteSettings().string("first-byte-timeout"),
+                this.requestTimeout()
+            )
+        );
+    }
+
+    /**
+     * Get maximal time between two chunks of remote repo response data.
+     * @return Idle timeout
+     */
+    public Duration idleTimeout() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                this.remoteSettings().string("idle-timeout"),
+                this.requestTimeout()
+            )
+        );
+    }
+
+    /**
+     * Get maximal duration of remote repo call, including data transfer.
+     * @return Total timeout (zero if not limited)
+     */
+    public Duration totalTimeout() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                this.remoteSettings().string("total-timeout"),
+                NpmProxyConfig.TOTAL_TIMEOUT
+            )
+        );
+    }
+
     /**
      * Get metadata time-to-live.
      * @return Metadata TTL
@@ -104,6 +312,489 @@ public final class NpmProxyConfig {
         return Duration.of(ttl, ChronoUnit.MINUTES);
     }
 
+    /**
+     * Get minimal adaptive metadata TTL.
+     * @return Minimal TTL
+     */
+    public Duration adaptiveTtlMin() {
+        return Duration.ofMinutes(
+            NpmProxyConfig.intOrDefault(
+                this.adaptiveTtlSettings().string("min-minutes"),
+                NpmProxyConfig.ADAPTIVE_TTL_MIN
+            )
+        );
+    }
+
+    /**
+     * Get maximal adaptive metadata TTL.
+     * @return Maximal TTL (zero if adaptive metadata TTL is disabled)
+     */
+    public Duration adaptiveTtlMax() {
+        return Duration.ofMinutes(
+            NpmProxyConfig.intOrDefault(this.adaptiveTtlSettings().string("max-minutes"), 0)
+        );
+    }
+
+    /**
+     * Get adaptive metadata TTL fraction of expected interval until next
+     * package change.
+     * @return Fraction
+     */
+    public double adaptiveTtlFactor() {
+        // @checkstyle MagicNumberCheck (4 lines)
+        return NpmProxyConfig.intOrDefault(
+            this.adaptiveTtlSettings().string("percent"),
+            NpmProxyConfig.ADAPTIVE_TTL_PERCENT
+        ) / 100.0;
+    }
+
+    /**
+     * Get caching policies of packages. Rules are declared in `policies`
+     * sequence, settings omitted in a rule are taken from the policy of
+     * packages not matched by any rule.
+     * @return Package policies
+     */
+    public PackagePolicies policies() {
+        final PackagePolicies.Rule fallback = new PackagePolicies.Rule(
+            "*",
+            null,
+            Duration.ofMinutes(
+                NpmProxyConfig.intOrDefault(this.yaml.string("negative-ttl-minutes"), 0)
+            ),
+            true,
+            true
+        );
+        final YamlSequence seq = this.yaml.yamlSequence("policies");
+        final List<PackagePolicies.Rule> rules = new ArrayList<>(0);
+        if (seq != null) {
+            for (int idx = 0; idx < seq.size(); idx += 1) {
+                final YamlMapping rule = seq.yamlMapping(idx);
+                final String ttl = rule.string("ttl-minutes");
+                final String negative = rule.string("negative-ttl-minutes");
+                rules.add(
+                    new PackagePolicies.Rule(
+                        Objects.requireNonNull(rule.string("match")),
+                        Optional.ofNullable(ttl).map(Integer::parseInt)
+                            .map(Duration::ofMinutes).orElse(null),
+                        Optional.ofNullable(negative).map(Integer::parseInt)
+                            .map(Duration::ofMinutes).orElse(fallback.negativeTtl()),
+                        NpmProxyConfig.boolOrDefault(rule.string("prefetch"), fallback.prefetch()),
+                        NpmProxyConfig.boolOrDefault(rule.string("hot-tier"), fallback.hot())
+                    )
+                );
+            }
+        }
+        return new PackagePolicies(rules, fallback);
+    }
+
+    /**
+     * Get change notifications batch window.
+     * @return Batch window
+     */
+    public Duration hookWindow() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                this.hookSettings().string("window-ms"), NpmProxyConfig.HOOK_WINDOW
+            )
+        );
+    }
+
+    /**
+     * Get maximum number of concurrent refreshes of notified packages.
+     * @return Number of concurrent refreshes
+     */
+    public int hookConcurrency() {
+        return NpmProxyConfig.intOrDefault(
+            this.hookSettings().string("concurrency"), NpmProxyConfig.HOOK_CONCURRENCY
+        );
+    }
+
+    /**
+     * Get secret of change notifications signatures.
+     * @return Secret (empty if notifications endpoint is disabled)
+     */
+    public String hookSecret() {
+        return StringUtils.defaultString(this.hookSettings().string("secret"));
+    }
+
+    /**
+     * Get upstream CouchDB-style changes feed URL.
+     * @return Feed URL (empty if the feed is not followed)
+     */
+    public String changesUrl() {
+        return StringUtils.defaultString(this.changesSettings().string("url"));
+    }
+
+    /**
+     * Get changes feed reading interval.
+     * @return Reading interval
+     */
+    public Duration changesInterval() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                this.changesSettings().string("interval-ms"), NpmProxyConfig.CHANGES_INTERVAL
+            )
+        );
+    }
+
+    /**
+     * Get maximum number of changes read from the feed at once.
+     * @return Batch size
+     */
+    public int changesBatch() {
+        return NpmProxyConfig.intOrDefault(
+            this.changesSettings().string("batch"), NpmProxyConfig.CHANGES_BATCH
+        );
+    }
+
+    /**
+     * Get number of consecutive remote failures to open circuit breaker.
+     * @return Failure threshold
+     */
+    public int breakerFailures() {
+        return NpmProxyConfig.intOrDefault(
+            this.breakerSettings().string("failure-threshold"),
+            NpmProxyConfig.BREAKER_FAILURES
+        );
+    }
+
+    /**
+     * Get remote call duration that is counted by circuit breaker as failure.
+     * @return Slow call threshold (zero if slow calls are not counted)
+     */
+    public Duration breakerSlowCall() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                this.breakerSettings().string("slow-call-threshold"),
+                0
+            )
+        );
+    }
+
+    /**
+     * Get circuit breaker open duration.
+     * @return Open duration
+     */
+    public Duration breakerOpenDuration() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                this.breakerSettings().string("open-duration"),
+                NpmProxyConfig.BREAKER_OPEN
+            )
+        );
+    }
+
+    /**
+     * Get latency percentile to wait for before hedging remote call.
+     * @return Hedging percentile (0-100)
+     */
+    public int hedgingPercentile() {
+        return NpmProxyConfig.intOrDefault(
+            this.hedgingSettings().string("percentile"),
+            NpmProxyConfig.HEDGING_PERCENTILE
+        );
+    }
+
+    /**
+     * Get minimal delay before hedging remote call.
+     * @return Minimal hedging delay
+     */
+    public Duration hedgingMinDelay() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                this.hedgingSettings().string("min-delay"),
+                NpmProxyConfig.HEDGING_DELAY
+            )
+        );
+    }
+
+    /**
+     * Get hedging budget: ratio of remote calls which may be hedged.
+     * @return Hedging budget (zero if hedging is disabled)
+     */
+    public double hedgingBudget() {
+        // @checkstyle MagicNumberCheck (1 line)
+        return NpmProxyConfig.intOrDefault(this.hedgingSettings().string("budget"), 0) / 100.0;
+    }
+
+    /**
+     * Get maximal number of resumes of an interrupted asset download.
+     * @return Maximal number of resumes (zero if resuming is disabled)
+     */
+    public int downloadResumes() {
+        return NpmProxyConfig.intOrDefault(
+            this.downloadSettings().string("resumes"),
+            NpmProxyConfig.DOWNLOAD_RESUMES
+        );
+    }
+
+    /**
+     * Get number of parallel segments of an asset download.
+     * @return Number of segments (one if segmented download is disabled)
+     */
+    public int downloadSegments() {
+        return Math.max(
+            1, NpmProxyConfig.intOrDefault(this.downloadSettings().string("segments"), 1)
+        );
+    }
+
+    /**
+     * Get asset download segment size. Assets not larger than the segment
+     * are downloaded by single request.
+     * @return Segment size in bytes
+     */
+    public long downloadSegmentSize() {
+        final long size = NpmProxyConfig.intOrDefault(
+            this.downloadSettings().string("segment-size-kb"),
+            NpmProxyConfig.DOWNLOAD_SEGMENT
+        );
+        // @checkstyle MagicNumberCheck (1 line)
+        return size << 10;
+    }
+
+    /**
+     * Get number of asset download retries when downloaded data does not
+     * match integrity from package metadata.
+     * @return Number of retries (zero to fail on the first mismatch)
+     */
+    public int integrityRetries() {
+        return NpmProxyConfig.intOrDefault(
+            this.downloadSettings().string("integrity-retries"),
+            NpmProxyConfig.INTEGRITY_RETRIES
+        );
+    }
+
+    /**
+     * Get initial limit of in-flight calls to an upstream.
+     * @return Initial limit
+     */
+    public int concurrencyInitial() {
+        return NpmProxyConfig.intOrDefault(
+            this.concurrencySettings().string("initial"),
+            NpmProxyConfig.CONCURRENCY_INITIAL
+        );
+    }
+
+    /**
+     * Get maximal limit of in-flight calls to an upstream.
+     * @return Maximal limit
+     */
+    public int concurrencyMax() {
+        return NpmProxyConfig.intOrDefault(
+            this.concurrencySettings().string("max"),
+            NpmProxyConfig.CONCURRENCY_MAX
+        );
+    }
+
+    /**
+     * Get maximal number of retries of a call throttled by an upstream.
+     * @return Maximal number of retries
+     */
+    public int concurrencyRetries() {
+        return NpmProxyConfig.intOrDefault(
+            this.concurrencySettings().string("retries"),
+            NpmProxyConfig.CONCURRENCY_RETRIES
+        );
+    }
+
+    /**
+     * Get maximal pause requested by an upstream (Retry-After) to honour.
+     * Longer pauses are not waited for, throttled call fails instead.
+     * @return Maximal pause
+     */
+    public Duration concurrencyMaxWait() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                this.concurrencySettings().string("max-wait"),
+                NpmProxyConfig.CONCURRENCY_WAIT
+            )
+        );
+    }
+
+    /**
+     * Get dependencies metadata prefetch depth.
+     * @return Prefetch depth (zero if prefetching is disabled)
+     */
+    public int prefetchDepth() {
+        return NpmProxyConfig.intOrDefault(this.prefetchSettings().string("depth"), 0);
+    }
+
+    /**
+     * Get maximum number of concurrent metadata prefetches.
+     * @return Prefetch concurrency
+     */
+    public int prefetchConcurrency() {
+        return NpmProxyConfig.intOrDefault(
+            this.prefetchSettings().string("concurrency"),
+            NpmProxyConfig.PREFETCH_CONCURRENCY
+        );
+    }
+
+    /**
+     * Get maximum number of concurrent cache warm-up fetches.
+     * @return Warm-up concurrency
+     */
+    public int warmUpConcurrency() {
+        return NpmProxyConfig.intOrDefault(
+            this.warmUpSettings().string("concurrency"), NpmProxyConfig.WARMUP_CONCURRENCY
+        );
+    }
+
+    /**
+     * Get bearer token of cache warm-up requests.
+     * @return Token (empty if warm-up endpoint is disabled)
+     */
+    public String warmUpToken() {
+        return StringUtils.defaultString(this.warmUpSettings().string("token"));
+    }
+
+    /**
+     * Get number of the most requested packages refreshed in background.
+     * @return Number of hot packages (zero if background refreshing is disabled)
+     */
+    public int refreshTop() {
+        return NpmProxyConfig.intOrDefault(this.refreshSettings().string("top"), 0);
+    }
+
+    /**
+     * Get time before metadata TTL expiration to refresh hot packages.
+     * @return Refresh lead time
+     */
+    public Duration refreshLead() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                this.refreshSettings().string("lead"),
+                NpmProxyConfig.REFRESH_LEAD
+            )
+        );
+    }
+
+    /**
+     * Get maximum number of background refreshes per tick.
+     * @return Refresh rate
+     */
+    public int refreshRate() {
+        return NpmProxyConfig.intOrDefault(
+            this.refreshSettings().string("rate"),
+            NpmProxyConfig.REFRESH_RATE
+        );
+    }
+
+    /**
+     * Get background refresh ticks interval.
+     * @return Refresh interval
+     */
+    public Duration refreshInterval() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                this.refreshSettings().string("interval"),
+                NpmProxyConfig.REFRESH_INTERVAL
+            )
+        );
+    }
+
+    /**
+     * Get cache size budget.
+     * @return Cache size budget in bytes (zero if cache size is not limited)
+     */
+    public long cacheMaxSize() {
+        final long megabytes = NpmProxyConfig.intOrDefault(
+            this.cacheSettings().string("max-size-mb"), 0
+        );
+        // @checkstyle MagicNumberCheck (1 line)
+        return megabytes << 20;
+    }
+
+    /**
+     * Get cache eviction policy.
+     * @return Eviction policy
+     */
+    public QuotaNpmProxyStorage.Policy cacheEviction() {
+        return QuotaNpmProxyStorage.Policy.of(
+            StringUtils.defaultString(this.cacheSettings().string("eviction"), "lru")
+        );
+    }
+
+    /**
+     * Get number of package metadata transformation threads.
+     * @return Number of threads
+     */
+    public int transformThreads() {
+        return NpmProxyConfig.intOrDefault(
+            this.transformSettings().string("threads"),
+            Math.max(2, Runtime.getRuntime().availableProcessors())
+        );
+    }
+
+    /**
+     * Get maximum number of queued package metadata transformations.
+     * @return Queue size
+     */
+    public int transformQueue() {
+        return NpmProxyConfig.intOrDefault(
+            this.transformSettings().string("queue"),
+            NpmProxyConfig.TRANSFORM_QUEUE
+        );
+    }
+
+    /**
+     * Get package metadata journal flush interval.
+     * @return Flush interval (zero if metadata journal is disabled)
+     */
+    public Duration journalInterval() {
+        return Duration.ofMillis(
+            NpmProxyConfig.intOrDefault(
+                NpmProxyConfig.orEmpty(this.yaml.yamlMapping("journal"))
+                    .string("flush-interval-ms"),
+                NpmProxyConfig.JOURNAL_INTERVAL
+            )
+        );
+    }
+
+    /**
+     * Get capacity of write-behind queue of package metadata.
+     * @return Queue capacity (zero if metadata is written synchronously)
+     */
+    public int writeBehindQueue() {
+        return NpmProxyConfig.intOrDefault(this.writeBehindSettings().string("queue"), 0);
+    }
+
+    /**
+     * Get maximum number of concurrent write-behind storage writes.
+     * @return Number of concurrent writes
+     */
+    public int writeBehindConcurrency() {
+        return NpmProxyConfig.intOrDefault(
+            this.writeBehindSettings().string("concurrency"),
+            NpmProxyConfig.WRITE_BEHIND_CONCURRENCY
+        );
+    }
+
+    /**
+     * Get expected number of cached keys in Bloom filter of cached keys.
+     * @return Expected number of keys (zero if Bloom filter is disabled)
+     */
+    public int bloomEntries() {
+        return NpmProxyConfig.intOrDefault(
+            this.bloomSettings().string("entries"), NpmProxyConfig.BLOOM_ENTRIES
+        );
+    }
+
+    /**
+     * Get Bloom filter false positive probability at expected number of keys.
+     * @return False positive probability
+     */
+    public double bloomFpp() {
+        final String fpp = this.bloomSettings().string("fpp");
+        final double result;
+        if (StringUtils.isEmpty(fpp)) {
+            result = NpmProxyConfig.BLOOM_FPP;
+        } else {
+            result = Double.parseDouble(fpp);
+        }
+        return result;
+    }
+
     /**
      * Get remote repository settings section.
      * @return Remote repository settings
@@ -112,6 +803,152 @@ public final class NpmProxyConfig {
         return Objects.requireNonNull(this.yaml.yamlMapping("remote"));
     }
 
+    /**
+     * Get circuit breaker settings section of remote repository settings.
+     * @return Circuit breaker settings (empty if not configured)
+     */
+    private YamlMapping breakerSettings() {
+        return NpmProxyConfig.orEmpty(this.remoteSettings().yamlMapping("circuit-breaker"));
+    }
+
+    /**
+     * Get hedging settings section of remote repository settings.
+     * @return Hedging settings (empty if not configured)
+     */
+    private YamlMapping hedgingSettings() {
+        return NpmProxyConfig.orEmpty(this.remoteSettings().yamlMapping("hedging"));
+    }
+
+    /**
+     * Get asset download settings section. Unlike other remote settings it
+     * is also read by the proxy itself, so missing remote section is allowed.
+     * @return Download settings (empty if not configured)
+     */
+    private YamlMapping downloadSettings() {
+        return NpmProxyConfig.orEmpty(
+            NpmProxyConfig.orEmpty(this.yaml.yamlMapping("remote")).yamlMapping("download")
+        );
+    }
+
+    /**
+     * Get upstream concurrency limit settings section.
+     * @return Concurrency limit settings (empty if not configured)
+     */
+    private YamlMapping concurrencySettings() {
+        return NpmProxyConfig.orEmpty(this.remoteSettings().yamlMapping("concurrency"));
+    }
+
+    /**
+     * Get dependencies metadata prefetch settings section.
+     * @return Prefetch settings (empty if not configured)
+     */
+    private YamlMapping prefetchSettings() {
+        return NpmProxyConfig.orEmpty(this.yaml.yamlMapping("prefetch"));
+    }
+
+    /**
+     * Get background metadata refresh settings section.
+     * @return Refresh settings (empty if not configured)
+     */
+    private YamlMapping refreshSettings() {
+        return NpmProxyConfig.orEmpty(this.yaml.yamlMapping("refresh"));
+    }
+
+    /**
+     * Get cache settings section.
+     * @return Cache settings (empty if not configured)
+     */
+    private YamlMapping cacheSettings() {
+        return NpmProxyConfig.orEmpty(this.yaml.yamlMapping("cache"));
+    }
+
+    /**
+     * Get changes feed settings section.
+     * @return Changes feed settings (empty if not configured)
+     */
+    private YamlMapping changesSettings() {
+        return NpmProxyConfig.orEmpty(this.yaml.yamlMapping("changes"));
+    }
+
+    /**
+     * Get cache warm-up settings section.
+     * @return Warm-up settings (empty if not configured)
+     */
+    private YamlMapping warmUpSettings() {
+        return NpmProxyConfig.orEmpty(this.yaml.yamlMapping("warm-up"));
+    }
+
+    /**
+     * Get change notifications hook settings section.
+     * @return Hook settings (empty if not configured)
+     */
+    private YamlMapping hookSettings() {
+        return NpmProxyConfig.orEmpty(this.yaml.yamlMapping("hook"));
+    }
+
+    /**
+     * Get adaptive metadata TTL settings section.
+     * @return Adaptive metadata TTL settings (empty if not configured)
+     */
+    private YamlMapping adaptiveTtlSettings() {
+        return NpmProxyConfig.orEmpty(this.yaml.yamlMapping("adaptive-ttl"));
+    }
+
+    /**
+     * Get Bloom filter settings section.
+     * @return Bloom filter settings (empty if not configured)
+     */
+    private YamlMapping bloomSettings() {
+        return NpmProxyConfig.orEmpty(this.yaml.yamlMapping("bloom"));
+    }
+
+    /**
+     * Get package metadata transformation settings section.
+     * @return Transformation settings (empty if not configured)
+     */
+    private YamlMapping transformSettings() {
+        return NpmProxyConfig.orEmpty(this.yaml.yamlMapping("transform"));
+    }
+
+    /**
+     * Get package metadata write-behind settings section.
+     * @return Write-behind settings (empty if not configured)
+     */
+    private YamlMapping writeBehindSettings() {
+        return NpmProxyConfig.orEmpty(this.yaml.yamlMapping("write-behind"));
+    }
+
+    /**
+     * Get boolean parameter or default value.
+     * @param param Parameter value (nullable)
+     * @param defaultValue Default value
+     * @return Parameter value
+     */
+    private static boolean boolOrDefault(final String param, final boolean defaultValue) {
+        final boolean result;
+        if (StringUtils.isEmpty(param)) {
+            result = defaultValue;
+        } else {
+            result = Boolean.parseBoolean(param);
+        }
+        return result;
+    }
+
+    /**
+     * Return given mapping or empty mapping if it is absent.
+     * @param mapping YAML mapping or null
+     * @return Not null YAML mapping
+     */
+    private static YamlMapping orEmpty(final YamlMapping mapping) {
+        final YamlMapping result;
+        if (mapping == null) {
+            result = Yaml.createYamlMappingBuilder().build();
+        } else {
+            result = mapping;
+        }
+        return result;
+    }
+
     /**
      * Parse param as int or return default value.
      * @param param Parameter to parse
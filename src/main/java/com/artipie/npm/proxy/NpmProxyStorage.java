@@ -27,12 +27,13 @@ import com.artipie.npm.proxy.model.NpmAsset;
 import com.artipie.npm.proxy.model.NpmPackage;
 import io.reactivex.Completable;
 import io.reactivex.Maybe;
+import java.io.Closeable;
 
 /**
  * NPM Proxy storage interface.
  * @since 0.1
  */
-public interface NpmProxyStorage {
+public interface NpmProxyStorage extends Closeable {
     /**
      * Persist NPM Package.
      * @param pkg Package to persist
@@ -40,6 +41,14 @@ public interface NpmProxyStorage {
      */
     Completable save(NpmPackage pkg);
 
+    /**
+     * Persist metadata (modification and refresh dates) of NPM Package
+     * which content has not changed since it was persisted.
+     * @param pkg Package to persist metadata of
+     * @return Completion or error signal
+     */
+    Completable refresh(NpmPackage pkg);
+
     /**
      * Persist NPM Asset.
      * @param asset Asset to persist
@@ -60,4 +69,18 @@ public interface NpmProxyStorage {
      * @return NPM asset or empty
      */
     Maybe<NpmAsset> getAsset(String path);
+
+    /**
+     * Delete NPM package metadata.
+     * @param name Package name
+     * @return Completion or error signal
+     */
+    Completable deletePackage(String name);
+
+    /**
+     * Delete NPM asset.
+     * @param path Asset path
+     * @return Completion or error signal
+     */
+    Completable deleteAsset(String path);
 }
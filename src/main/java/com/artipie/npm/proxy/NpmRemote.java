@@ -28,6 +28,7 @@ import com.artipie.npm.proxy.model.NpmPackage;
 import io.reactivex.Maybe;
 import java.io.Closeable;
 import java.nio.file.Path;
+import java.time.Duration;
 
 /**
  * NPM Remote client interface.
@@ -37,7 +38,10 @@ public interface NpmRemote extends Closeable {
     /**
      * Loads package from remote repository.
      * @param name Package name
-     * @return NPM package or empty
+     * @return NPM package, empty if remote repository does not have the
+     *  package, or error if the call failed ({@link ThrottledException} if
+     *  remote repository throttled it, {@link CircuitBreaker.OpenException}
+     *  if it was rejected by open circuit breaker)
      */
     Maybe<NpmPackage> loadPackage(String name);
 
@@ -52,7 +56,41 @@ public interface NpmRemote extends Closeable {
      *
      * @param path Asset path
      * @param tmp Temporary file to store asset data
-     * @return NpmAsset or empty
+     * @return NpmAsset, empty, {@link ThrottledException} or
+     *  {@link CircuitBreaker.OpenException} error
      */
     Maybe<NpmAsset> loadAsset(String path, Path tmp);
+
+    /**
+     * Remote repository throttled the call and asked to retry it later.
+     * @since 0.3
+     */
+    final class ThrottledException extends IllegalStateException {
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Pause requested by remote repository.
+         */
+        private final Duration pause;
+
+        /**
+         * Ctor.
+         * @param pause Pause requested by remote repository
+         */
+        public ThrottledException(final Duration pause) {
+            super(String.format("Remote repository throttled the call for %s", pause));
+            this.pause = pause;
+        }
+
+        /**
+         * Pause requested by remote repository.
+         * @return Pause
+         */
+        public Duration retryAfter() {
+            return this.pause;
+        }
+    }
 }
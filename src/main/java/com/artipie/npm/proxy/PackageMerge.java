@@ -0,0 +1,178 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.npm.proxy.model.NpmPackage;
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+
+/**
+ * Incremental merge of refreshed package metadata into the cached one.
+ * Entries of {@code versions} and {@code time} maps are compared one by one
+ * and only added, changed or removed entries are applied to the cached
+ * document, other top-level fields are compared as a whole. If nothing has
+ * changed, cached content is kept as is, so it does not have to be written
+ * again.
+ * @since 0.3
+ */
+public final class PackageMerge {
+    /**
+     * Top-level maps merged entry by entry.
+     */
+    private static final Collection<String> MAPS = Arrays.asList("versions", "time");
+
+    /**
+     * Cached package.
+     */
+    private final NpmPackage cached;
+
+    /**
+     * Package loaded from remote repository.
+     */
+    private final NpmPackage fresh;
+
+    /**
+     * Ctor.
+     * @param cached Cached package
+     * @param fresh Package loaded from remote repository
+     */
+    public PackageMerge(final NpmPackage cached, final NpmPackage fresh) {
+        this.cached = cached;
+        this.fresh = fresh;
+    }
+
+    /**
+     * Merge refreshed package into the cached one. Merged package has
+     * metadata (modification and refresh dates) of the refreshed one.
+     * @return Merge result
+     */
+    public Result result() {
+        final JsonObject target = new JsonObject(this.cached.content());
+        final JsonObject source = new JsonObject(this.fresh.content());
+        int changes = 0;
+        for (final String field : new ArrayList<>(target.fieldNames())) {
+            if (!source.containsKey(field)) {
+                target.remove(field);
+                changes += 1;
+            }
+        }
+        for (final String field : source.fieldNames()) {
+            final Object value = source.getValue(field);
+            if (PackageMerge.MAPS.contains(field) && value instanceof JsonObject
+                && target.getValue(field) instanceof JsonObject) {
+                changes += PackageMerge.merge(target.getJsonObject(field), (JsonObject) value);
+            } else if (!Objects.equals(target.getValue(field), value)) {
+                target.put(field, value);
+                changes += 1;
+            }
+        }
+        final String content;
+        if (changes == 0) {
+            content = this.cached.content();
+        } else {
+            content = target.encode();
+        }
+        return new Result(
+            new NpmPackage(this.fresh.name(), content, this.fresh.meta()), changes
+        );
+    }
+
+    /**
+     * Apply changed entries of the source map to the target one.
+     * @param target Target map
+     * @param source Source map
+     * @return Number of added, changed and removed entries
+     */
+    private static int merge(final JsonObject target, final JsonObject source) {
+        int changes = 0;
+        for (final String key : new ArrayList<>(target.fieldNames())) {
+            if (!source.containsKey(key)) {
+                target.remove(key);
+                changes += 1;
+            }
+        }
+        for (final String key : source.fieldNames()) {
+            final Object value = source.getValue(key);
+            if (!Objects.equals(target.getValue(key), value)) {
+                target.put(key, value);
+                changes += 1;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Package merge result.
+     * @since 0.3
+     */
+    public static final class Result {
+        /**
+         * Merged package.
+         */
+        private final NpmPackage pkg;
+
+        /**
+         * Number of changed entries.
+         */
+        private final int changes;
+
+        /**
+         * Ctor.
+         * @param pkg Merged package
+         * @param changes Number of changed entries
+         */
+        public Result(final NpmPackage pkg, final int changes) {
+            this.pkg = pkg;
+            this.changes = changes;
+        }
+
+        /**
+         * Merged package.
+         * @return Package
+         */
+        public NpmPackage pkg() {
+            return this.pkg;
+        }
+
+        /**
+         * Number of added, changed and removed {@code versions} and
+         * {@code time} entries and other top-level fields.
+         * @return Changes count
+         */
+        public int changes() {
+            return this.changes;
+        }
+
+        /**
+         * Whether package content has changed and has to be written.
+         * @return True if changed
+         */
+        public boolean changed() {
+            return this.changes > 0;
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Caching policies of packages matched by name. Rule pattern is either exact
+ * package name (e.g. {@code lodash}) or name prefix followed by asterisk
+ * (e.g. {@code @types/*} or {@code *}). Exact name wins, otherwise the rule
+ * with the longest matching prefix is applied, rules declared later do not
+ * override earlier ones with the same pattern. Patterns are precompiled into
+ * hash maps, so matching takes one hash lookup per distinct prefix length.
+ * @since 0.3
+ */
+public final class PackagePolicies {
+    /**
+     * Prefix pattern suffix.
+     */
+    private static final String ANY = "*";
+
+    /**
+     * Policy of packages not matched by any rule.
+     */
+    private final Rule fallback;
+
+    /**
+     * Rules by exact package name.
+     */
+    private final Map<String, Rule> exact;
+
+    /**
+     * Rules by name prefix.
+     */
+    private final Map<String, Rule> prefixes;
+
+    /**
+     * Distinct prefix lengths, longest first.
+     */
+    private final int[] lengths;
+
+    /**
+     * Ctor.
+     * @param rules Rules in order of declaration
+     * @param fallback Policy of packages not matched by any rule
+     */
+    public PackagePolicies(final List<Rule> rules, final Rule fallback) {
+        this.fallback = fallback;
+        this.exact = new HashMap<>();
+        this.prefixes = new HashMap<>();
+        final TreeSet<Integer> sizes = new TreeSet<>();
+        for (final Rule rule : rules) {
+            if (rule.pattern.endsWith(PackagePolicies.ANY)) {
+                final String prefix = rule.pattern.substring(0, rule.pattern.length() - 1);
+                if (prefix.contains(PackagePolicies.ANY)) {
+                    throw new IllegalArgumentException(
+                        String.format("Only trailing wildcard is supported: %s", rule.pattern)
+                    );
+                }
+                this.prefixes.putIfAbsent(prefix, rule);
+                sizes.add(prefix.length());
+            } else if (rule.pattern.contains(PackagePolicies.ANY)) {
+                throw new IllegalArgumentException(
+                    String.format("Only trailing wildcard is supported: %s", rule.pattern)
+                );
+            } else {
+                this.exact.putIfAbsent(rule.pattern, rule);
+            }
+        }
+        this.lengths = sizes.descendingSet().stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Find policy of the package.
+     * @param name Package name
+     * @return Matched rule or fallback policy
+     */
+    public Rule policy(final String name) {
+        Rule result = this.exact.get(name);
+        for (int idx = 0; result == null && idx < this.lengths.length; idx += 1) {
+            if (this.lengths[idx] <= name.length()) {
+                result = this.prefixes.get(name.substring(0, this.lengths[idx]));
+            }
+        }
+        if (result == null) {
+            result = this.fallback;
+        }
+        return result;
+    }
+
+    /**
+     * Caching policy rule.
+     * @since 0.3
+     */
+    public static final class Rule {
+        /**
+         * Package name pattern.
+         */
+        private final String pattern;
+
+        /**
+         * Metadata TTL (nullable).
+         */
+        private final Duration ttl;
+
+        /**
+         * How long packages not found in remote repository are not looked up again.
+         */
+        private final Duration negative;
+
+        /**
+         * Whether package dependencies are prefetched and the package is prefetched.
+         */
+        private final boolean prefetch;
+
+        /**
+         * Whether the package may be admitted to the hot tier refreshed in
+         * background.
+         */
+        private final boolean hot;
+
+        /**
+         * Ctor.
+         * @param pattern Package name pattern
+         * @param ttl Metadata TTL (nullable to use adaptive or global TTL)
+         * @param negative How long packages not found in remote repository are
+         *  not looked up again (zero to look up every time)
+         * @param prefetch Whether the package takes part in prefetching
+         * @param hot Whether the package may be admitted to the hot tier
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        public Rule(final String pattern, final Duration ttl, final Duration negative,
+            final boolean prefetch, final boolean hot) {
+            this.pattern = pattern;
+            this.ttl = ttl;
+            this.negative = negative;
+            this.prefetch = prefetch;
+            this.hot = hot;
+        }
+
+        /**
+         * Metadata TTL.
+         * @return TTL or empty if adaptive or global TTL is used
+         */
+        public Optional<Duration> ttl() {
+            return Optional.ofNullable(this.ttl);
+        }
+
+        /**
+         * Negative cache TTL.
+         * @return How long packages not found in remote repository are not
+         *  looked up again (zero if they are looked up every time)
+         */
+        public Duration negativeTtl() {
+            return this.negative;
+        }
+
+        /**
+         * Prefetch eligibility.
+         * @return Whether the package takes part in prefetching
+         */
+        public boolean prefetch() {
+            return this.prefetch;
+        }
+
+        /**
+         * Hot tier admission.
+         * @return Whether the package may be admitted to the hot tier
+         */
+        public boolean hot() {
+            return this.hot;
+        }
+    }
+}
@@ -0,0 +1,353 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.npm.proxy.model.NpmPackage;
+import com.jcabi.log.Logger;
+import io.reactivex.BackpressureOverflowStrategy;
+import io.reactivex.Maybe;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.functions.Function;
+import io.reactivex.processors.FlowableProcessor;
+import io.reactivex.processors.PublishProcessor;
+import io.reactivex.schedulers.Schedulers;
+import io.vertx.core.json.JsonObject;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dependency-aware package metadata prefetcher. When the package or the asset
+ * is requested, it reads dependencies of the requested (or the latest) version
+ * from the package metadata and warms their metadata into the cache in the
+ * background, so the following client requests are served from the cache.
+ * Prefetching is performed with bounded concurrency and depth; names and asset
+ * versions prefetched or requested recently are not prefetched again. Package
+ * metadata is parsed on the dedicated prefetch pool, so that background work
+ * does not compete with client requests for the transformation pool.
+ * @since 0.3
+ */
+public final class Prefetcher {
+    /**
+     * Maximum number of pending prefetch tasks.
+     */
+    private static final int QUEUE = 1_024;
+
+    /**
+     * Number of recently prefetched names to remember.
+     */
+    private static final int RECENT = 10_000;
+
+    /**
+     * Package metadata loader.
+     */
+    private final Function<String, Maybe<NpmPackage>> loader;
+
+    /**
+     * Prefetch depth (zero disables prefetching).
+     */
+    private final int depth;
+
+    /**
+     * Prefetch pool to parse package metadata.
+     */
+    private final TransformPool pool;
+
+    /**
+     * Prefetch tasks.
+     */
+    private final FlowableProcessor<Task> tasks;
+
+    /**
+     * Prefetch pipeline subscription.
+     */
+    private final Disposable pipeline;
+
+    /**
+     * Recently prefetched or requested names with their states.
+     */
+    private final Map<String, State> recent;
+
+    /**
+     * Number of prefetched packages.
+     */
+    private final AtomicLong prefetched;
+
+    /**
+     * Number of requests for prefetched packages.
+     */
+    private final AtomicLong hits;
+
+    /**
+     * Ctor.
+     * @param loader Package metadata loader
+     * @param depth Prefetch depth (zero disables prefetching)
+     * @param concurrency Maximum number of concurrent prefetches
+     * @param pool Prefetch pool to parse package metadata
+     */
+    public Prefetcher(final Function<String, Maybe<NpmPackage>> loader,
+        final int depth, final int concurrency, final TransformPool pool) {
+        this.loader = loader;
+        this.depth = depth;
+        this.pool = pool;
+        this.recent = Collections.synchronizedMap(
+            new LinkedHashMap<String, State>() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, State> eldest) {
+                    return this.size() > Prefetcher.RECENT;
+                }
+            }
+        );
+        this.prefetched = new AtomicLong();
+        this.hits = new AtomicLong();
+        this.tasks = PublishProcessor.<Task>create().toSerialized();
+        this.pipeline = this.tasks
+            .onBackpressureBuffer(
+                Prefetcher.QUEUE, () -> { }, BackpressureOverflowStrategy.DROP_LATEST
+            )
+            .observeOn(Schedulers.computation())
+            .flatMapMaybe(this::process, false, Math.max(1, concurrency))
+            .subscribe(ignored -> { }, this::failed);
+    }
+
+    /**
+     * Register package request: count the hit if the package was prefetched
+     * and prefetch dependencies of its latest version, unless the package
+     * was requested or scheduled recently.
+     * @param pkg Requested package
+     */
+    public void packageRequested(final NpmPackage pkg) {
+        if (this.depth > 0) {
+            final boolean hit = this.recent.replace(pkg.name(), State.WARMED, State.REQUESTED);
+            if (hit) {
+                this.hits.incrementAndGet();
+            }
+            if (hit || this.recent.putIfAbsent(pkg.name(), State.REQUESTED) == null) {
+                this.tasks.onNext(new Task(pkg.name(), pkg, null, this.depth));
+            }
+        }
+    }
+
+    /**
+     * Register asset request: prefetch dependencies of the asset version,
+     * unless the version was requested recently.
+     * @param path Asset path
+     */
+    public void assetRequested(final String path) {
+        if (this.depth > 0) {
+            final String[] parts = path.split("/-/", 2);
+            final String name = parts[0];
+            final String base = name.substring(name.lastIndexOf('/') + 1);
+            final String file = parts[parts.length - 1];
+            if (parts.length == 2 && file.startsWith(String.format("%s-", base))
+                && file.endsWith(".tgz")) {
+                final String version = file.substring(
+                    base.length() + 1, file.length() - ".tgz".length()
+                );
+                if (this.recent.putIfAbsent(
+                    String.format("%s@%s", name, version), State.REQUESTED
+                ) == null) {
+                    this.tasks.onNext(new Task(name, null, version, this.depth));
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of packages prefetched.
+     * @return Prefetched packages count
+     */
+    public long prefetched() {
+        return this.prefetched.get();
+    }
+
+    /**
+     * Number of client requests for prefetched packages.
+     * @return Hits count
+     */
+    public long hits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Stop prefetching.
+     */
+    public void close() {
+        this.pipeline.dispose();
+    }
+
+    /**
+     * Process prefetch task: schedule dependencies of the package version
+     * and prefetch the package itself if it is a dependency.
+     * @param task Prefetch task
+     * @return Completion signal
+     */
+    private Maybe<Boolean> process(final Task task) {
+        final Maybe<NpmPackage> pkg;
+        if (task.pkg == null) {
+            pkg = Maybe.defer(() -> this.loader.apply(task.name));
+        } else {
+            pkg = Maybe.just(task.pkg);
+        }
+        return pkg.flatMap(
+            loaded -> {
+                if (task.dependency()) {
+                    this.prefetched.incrementAndGet();
+                    this.recent.replace(task.name, State.SCHEDULED, State.WARMED);
+                }
+                final Maybe<Set<String>> deps;
+                if (task.depth > 0) {
+                    deps = this.pool.submit(
+                        () -> Prefetcher.dependencies(loaded, task.version)
+                    ).toMaybe();
+                } else {
+                    deps = Maybe.just(Collections.emptySet());
+                }
+                return deps;
+            }
+        ).map(
+            deps -> {
+                for (final String dep : deps) {
+                    if (this.recent.putIfAbsent(dep, State.SCHEDULED) == null) {
+                        this.tasks.onNext(new Task(dep, null, null, task.depth - 1));
+                    }
+                }
+                return true;
+            }
+        ).doOnError(
+            err -> Logger.debug(
+                Prefetcher.class,
+                "Failed to prefetch %s: %s",
+                task.name,
+                err.getMessage()
+            )
+        ).onErrorComplete();
+    }
+
+    /**
+     * Log pipeline failure.
+     * @param err Error
+     */
+    private void failed(final Throwable err) {
+        Logger.error(Prefetcher.class, "Prefetch pipeline failed: %s", err.getMessage());
+    }
+
+    /**
+     * Read dependencies names of the package version.
+     * @param pkg Package
+     * @param version Version or null for the latest version
+     * @return Dependencies names
+     */
+    private static Set<String> dependencies(final NpmPackage pkg, final String version) {
+        final JsonObject json = new JsonObject(pkg.content());
+        String ver = version;
+        if (ver == null) {
+            ver = json.getJsonObject("dist-tags", new JsonObject()).getString("latest");
+        }
+        final Set<String> result;
+        final JsonObject versions = json.getJsonObject("versions", new JsonObject());
+        if (ver != null && versions.containsKey(ver)) {
+            result = versions.getJsonObject(ver)
+                .getJsonObject("dependencies", new JsonObject())
+                .fieldNames();
+        } else {
+            result = Collections.emptySet();
+        }
+        return result;
+    }
+
+    /**
+     * State of recently seen package.
+     * @since 0.3
+     */
+    private enum State {
+        /**
+         * Package is scheduled for prefetching.
+         */
+        SCHEDULED,
+
+        /**
+         * Package is prefetched and not requested since.
+         */
+        WARMED,
+
+        /**
+         * Package was requested by client.
+         */
+        REQUESTED
+    }
+
+    /**
+     * Prefetch task.
+     * @since 0.3
+     */
+    private static final class Task {
+        /**
+         * Package name.
+         */
+        private final String name;
+
+        /**
+         * Package, if it is already loaded.
+         */
+        private final NpmPackage pkg;
+
+        /**
+         * Version to read dependencies of (null for the latest one).
+         */
+        private final String version;
+
+        /**
+         * Remaining depth of dependencies to prefetch.
+         */
+        private final int depth;
+
+        /**
+         * Ctor.
+         * @param name Package name
+         * @param pkg Package, if it is already loaded
+         * @param version Version to read dependencies of (null for the latest one)
+         * @param depth Remaining depth of dependencies to prefetch
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        Task(final String name, final NpmPackage pkg, final String version, final int depth) {
+            this.name = name;
+            this.pkg = pkg;
+            this.version = version;
+            this.depth = depth;
+        }
+
+        /**
+         * Whether the task is to prefetch the dependency package.
+         * @return True if the package itself should be prefetched
+         */
+        boolean dependency() {
+            return this.pkg == null && this.version == null;
+        }
+    }
+}
@@ -0,0 +1,697 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.asto.Concatenation;
+import com.artipie.asto.Key;
+import com.artipie.asto.Remaining;
+import com.artipie.asto.rx.RxStorage;
+import com.artipie.npm.proxy.model.NpmAsset;
+import com.artipie.npm.proxy.model.NpmPackage;
+import com.jcabi.log.Logger;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import io.vertx.core.json.JsonObject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * NPM Proxy storage with disk quota. It tracks sizes and access recency
+ * (or frequency) of the cached packages metadata and assets in memory and
+ * evicts least recently (or least frequently) used ones together with their
+ * metadata files when the total size exceeds the budget. Cache hits are only
+ * recorded into in-memory buffer which is applied in batches, so they never
+ * cause a storage write. Sizes of objects include sizes of their metadata
+ * files. Objects cached before the start are discovered by listing the
+ * storage at start, they are evicted before the ones accessed after the start.
+ * Their sizes are taken from asset metadata or storage, objects are never read
+ * to measure them: objects of unknown size are tracked on first access.
+ * @since 0.3
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class QuotaNpmProxyStorage implements NpmProxyStorage {
+    /**
+     * Maximum number of buffered cache hits.
+     */
+    private static final int BUFFER = 1_024;
+
+    /**
+     * Package object ID prefix.
+     */
+    private static final String PACKAGE = "package:";
+
+    /**
+     * Asset object ID prefix.
+     */
+    private static final String ASSET = "asset:";
+
+    /**
+     * Package metadata file name.
+     */
+    private static final String META = "/meta.json";
+
+    /**
+     * Package metadata file name.
+     */
+    private static final String PKG_SIDECAR = "/meta.meta";
+
+    /**
+     * Asset metadata file suffix.
+     */
+    private static final String SIDECAR = ".meta";
+
+    /**
+     * Maximum number of objects measured concurrently on start.
+     */
+    private static final int SCAN = 16;
+
+    /**
+     * Origin storage.
+     */
+    private final NpmProxyStorage origin;
+
+    /**
+     * Underlying storage.
+     */
+    private final RxStorage storage;
+
+    /**
+     * Size budget in bytes.
+     */
+    private final long budget;
+
+    /**
+     * Tracked objects by ID.
+     */
+    private final Map<String, Tracked> tracked;
+
+    /**
+     * Tracked objects in eviction order.
+     */
+    private final NavigableSet<Tracked> order;
+
+    /**
+     * Buffered cache hits.
+     */
+    private final Queue<String> hits;
+
+    /**
+     * Number of buffered cache hits.
+     */
+    private final AtomicInteger buffered;
+
+    /**
+     * Evicted objects counter.
+     */
+    private final AtomicLong evicted;
+
+    /**
+     * Storage scan completion.
+     */
+    private final Completable scanned;
+
+    /**
+     * Access counter used as logical time.
+     */
+    private long clock;
+
+    /**
+     * Logical time of objects discovered on start, it decreases, so they go
+     * before accessed ones in eviction order.
+     */
+    private long discovered;
+
+    /**
+     * Total size of tracked objects.
+     */
+    private long total;
+
+    /**
+     * Ctor.
+     * @param origin Origin storage
+     * @param storage Underlying storage to discover cached objects in
+     * @param budget Size budget in bytes
+     * @param policy Eviction policy
+     */
+    @SuppressWarnings("PMD.ConstructorOnlyInitializesOrCallOtherConstructors")
+    public QuotaNpmProxyStorage(final NpmProxyStorage origin, final RxStorage storage,
+        final long budget, final Policy policy) {
+        this.origin = origin;
+        this.storage = storage;
+        this.budget = budget;
+        this.tracked = new HashMap<>();
+        this.order = new TreeSet<>(policy.comparator());
+        this.hits = new ConcurrentLinkedQueue<>();
+        this.buffered = new AtomicInteger();
+        this.evicted = new AtomicLong();
+        this.scanned = Completable.defer(this::scan).cache();
+        this.scanned.subscribe();
+    }
+
+    @Override
+    public Completable save(final NpmPackage pkg) {
+        final String id = QuotaNpmProxyStorage.packageId(pkg.name());
+        return this.origin.save(pkg).andThen(
+            Completable.defer(
+                () -> {
+                    this.track(id, QuotaNpmProxyStorage.size(pkg));
+                    return this.evict(id);
+                }
+            )
+        );
+    }
+
+    @Override
+    public Completable refresh(final NpmPackage pkg) {
+        return this.origin.refresh(pkg);
+    }
+
+    @Override
+    public Completable save(final NpmAsset asset) {
+        final String id = QuotaNpmProxyStorage.assetId(asset.path());
+        final AtomicLong size = new AtomicLong();
+        return this.origin.save(
+            new NpmAsset(
+                asset.path(),
+                Flowable.fromPublisher(asset.dataPublisher())
+                    .doOnNext(buf -> size.addAndGet(buf.remaining())),
+                asset.meta()
+            )
+        ).andThen(
+            Completable.defer(
+                () -> {
+                    this.track(id, size.get() + QuotaNpmProxyStorage.sidecar(asset));
+                    return this.evict(id);
+                }
+            )
+        );
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.origin.close();
+    }
+
+    @Override
+    public Maybe<NpmPackage> getPackage(final String name) {
+        final String id = QuotaNpmProxyStorage.packageId(name);
+        return this.origin.getPackage(name).doOnSuccess(
+            pkg -> {
+                if (!this.hit(id)) {
+                    this.track(id, QuotaNpmProxyStorage.size(pkg));
+                }
+            }
+        );
+    }
+
+    @Override
+    public Maybe<NpmAsset> getAsset(final String path) {
+        final String id = QuotaNpmProxyStorage.assetId(path);
+        return this.origin.getAsset(path).map(
+            asset -> {
+                final NpmAsset result;
+                if (this.hit(id)) {
+                    result = asset;
+                } else {
+                    final AtomicLong size = new AtomicLong();
+                    result = new NpmAsset(
+                        path,
+                        Flowable.fromPublisher(asset.dataPublisher())
+                            .doOnNext(buf -> size.addAndGet(buf.remaining()))
+                            .doOnComplete(
+                                () -> this.track(
+                                    id, size.get() + QuotaNpmProxyStorage.sidecar(asset)
+                                )
+                            ),
+                        asset.meta()
+                    );
+                }
+                return result;
+            }
+        );
+    }
+
+    @Override
+    public Completable deletePackage(final String name) {
+        return this.origin.deletePackage(name)
+            .doOnComplete(() -> this.untrack(QuotaNpmProxyStorage.packageId(name)));
+    }
+
+    @Override
+    public Completable deleteAsset(final String path) {
+        return this.origin.deleteAsset(path)
+            .doOnComplete(() -> this.untrack(QuotaNpmProxyStorage.assetId(path)));
+    }
+
+    /**
+     * Total size of tracked objects.
+     * @return Size in bytes
+     */
+    public long size() {
+        synchronized (this.tracked) {
+            this.drain();
+            return this.total;
+        }
+    }
+
+    /**
+     * Number of evicted objects.
+     * @return Evicted objects count
+     */
+    public long evicted() {
+        return this.evicted.get();
+    }
+
+    /**
+     * Completion of discovering objects cached before the start.
+     * @return Completion
+     */
+    public Completable loaded() {
+        return this.scanned;
+    }
+
+    /**
+     * Discover objects cached before the start by listing the storage and
+     * evict them if the budget is exceeded. Metadata files of assets and
+     * packages, journal and other service files are skipped.
+     * @return Completion
+     */
+    private Completable scan() {
+        return this.storage.list(Key.ROOT).flatMapPublisher(
+            keys -> {
+                final Set<String> all = keys.stream().map(Key::string)
+                    .filter(key -> !key.startsWith("."))
+                    .collect(Collectors.toSet());
+                return Flowable.fromIterable(all)
+                    .filter(key -> !key.endsWith(QuotaNpmProxyStorage.SIDECAR))
+                    .flatMapMaybe(
+                        key -> this.measure(key, all)
+                            .doOnSuccess(
+                                size -> this.discover(QuotaNpmProxyStorage.objectId(key), size)
+                            )
+                            .onErrorComplete(),
+                        false,
+                        QuotaNpmProxyStorage.SCAN
+                    );
+            }
+        ).ignoreElements()
+            .andThen(Completable.defer(() -> this.evict("")))
+            .doOnComplete(
+                () -> Logger.info(
+                    this, "Discovered cached objects of %d bytes in total", this.size()
+                )
+            ).doOnError(
+                err -> Logger.error(
+                    this, "Failed to discover cached objects: %s", err.getMessage()
+                )
+            ).onErrorComplete();
+    }
+
+    /**
+     * Track object discovered on start unless it is already tracked.
+     * @param id Object ID
+     * @param size Object size
+     */
+    private void discover(final String id, final long size) {
+        synchronized (this.tracked) {
+            if (!this.tracked.containsKey(id)) {
+                this.discovered -= 1;
+                final Tracked created = new Tracked(id, size, this.discovered);
+                this.tracked.put(id, created);
+                this.order.add(created);
+                this.total += size;
+            }
+        }
+    }
+
+    /**
+     * Register cache hit of the object if it is tracked.
+     * @param id Object ID
+     * @return True if the object is tracked
+     */
+    private boolean hit(final String id) {
+        final boolean known;
+        synchronized (this.tracked) {
+            known = this.tracked.containsKey(id);
+        }
+        if (known) {
+            this.hits.add(id);
+            if (this.buffered.incrementAndGet() >= QuotaNpmProxyStorage.BUFFER) {
+                synchronized (this.tracked) {
+                    this.drain();
+                }
+            }
+        }
+        return known;
+    }
+
+    /**
+     * Track saved or discovered object.
+     * @param id Object ID
+     * @param size Object size
+     */
+    private void track(final String id, final long size) {
+        synchronized (this.tracked) {
+            this.drain();
+            final Tracked existing = this.tracked.get(id);
+            if (existing == null) {
+                this.clock += 1;
+                final Tracked created = new Tracked(id, size, this.clock);
+                this.tracked.put(id, created);
+                this.order.add(created);
+                this.total += size;
+            } else {
+                this.order.remove(existing);
+                this.total += size - existing.size;
+                existing.size = size;
+                this.access(existing);
+            }
+        }
+    }
+
+    /**
+     * Stop tracking deleted object.
+     * @param id Object ID
+     */
+    private void untrack(final String id) {
+        synchronized (this.tracked) {
+            final Tracked existing = this.tracked.remove(id);
+            if (existing != null) {
+                this.order.remove(existing);
+                this.total -= existing.size;
+            }
+        }
+    }
+
+    /**
+     * Evict objects until total size fits the budget.
+     * @param keep ID of the object which should not be evicted
+     * @return Completion signal
+     */
+    private Completable evict(final String keep) {
+        final List<Tracked> victims = new ArrayList<>(0);
+        synchronized (this.tracked) {
+            this.drain();
+            for (final Tracked candidate : this.order) {
+                if (this.total <= this.budget) {
+                    break;
+                }
+                if (!candidate.id.equals(keep)) {
+                    victims.add(candidate);
+                    this.total -= candidate.size;
+                }
+            }
+            for (final Tracked victim : victims) {
+                this.order.remove(victim);
+                this.tracked.remove(victim.id);
+            }
+        }
+        return Flowable.fromIterable(victims).concatMapCompletable(
+            victim -> this.delete(victim.id)
+                .doOnComplete(this.evicted::incrementAndGet)
+                .onErrorComplete(
+                    err -> {
+                        Logger.warn(
+                            this, "Failed to evict %s: %s", victim.id, err.getMessage()
+                        );
+                        return true;
+                    }
+                )
+        );
+    }
+
+    /**
+     * Apply buffered cache hits. Must be called under the lock.
+     */
+    private void drain() {
+        String id = this.hits.poll();
+        while (id != null) {
+            this.buffered.decrementAndGet();
+            final Tracked existing = this.tracked.get(id);
+            if (existing != null) {
+                this.order.remove(existing);
+                this.access(existing);
+            }
+            id = this.hits.poll();
+        }
+    }
+
+    /**
+     * Register access of the tracked object and put it back into eviction order.
+     * Must be called under the lock with the object removed from the order.
+     * @param existing Tracked object
+     */
+    private void access(final Tracked existing) {
+        this.clock += 1;
+        existing.hits += 1;
+        existing.accessed = this.clock;
+        this.order.add(existing);
+    }
+
+    /**
+     * Delete tracked object from origin storage.
+     * @param id Object ID
+     * @return Completion signal
+     */
+    private Completable delete(final String id) {
+        final Completable result;
+        if (id.startsWith(QuotaNpmProxyStorage.PACKAGE)) {
+            result = this.origin.deletePackage(
+                id.substring(QuotaNpmProxyStorage.PACKAGE.length())
+            );
+        } else {
+            result = this.origin.deleteAsset(id.substring(QuotaNpmProxyStorage.ASSET.length()));
+        }
+        return result;
+    }
+
+    /**
+     * Size of the stored object discovered on start together with its
+     * metadata file. Asset size is taken from its metadata file, other sizes
+     * from the storage, objects are not read.
+     * @param key Object key
+     * @param keys All storage keys
+     * @return Size in bytes or empty if it is unknown
+     */
+    private Maybe<Long> measure(final String key, final Set<String> keys) {
+        final Maybe<Long> result;
+        if (key.endsWith(QuotaNpmProxyStorage.META)) {
+            final String sidecar = key.substring(
+                0, key.length() - QuotaNpmProxyStorage.META.length()
+            ).concat(QuotaNpmProxyStorage.PKG_SIDECAR);
+            final Single<Long> meta;
+            if (keys.contains(sidecar)) {
+                meta = this.known(sidecar).toSingle(0L);
+            } else {
+                meta = Single.just(0L);
+            }
+            result = this.known(key).flatMap(size -> meta.map(extra -> size + extra).toMaybe());
+        } else {
+            final String sidecar = key.concat(QuotaNpmProxyStorage.SIDECAR);
+            if (keys.contains(sidecar)) {
+                result = this.storage.value(new Key.From(sidecar))
+                    .map(Concatenation::new).flatMap(Concatenation::single)
+                    .map(buf -> new String(new Remaining(buf).bytes(), StandardCharsets.UTF_8))
+                    .flatMapMaybe(
+                        json -> {
+                            final long recorded = new NpmAsset.Metadata(new JsonObject(json))
+                                .size();
+                            final Maybe<Long> own;
+                            if (recorded >= 0) {
+                                own = Maybe.just(recorded);
+                            } else {
+                                own = this.known(key);
+                            }
+                            return own.map(
+                                size -> size + json.getBytes(StandardCharsets.UTF_8).length
+                            );
+                        }
+                    );
+            } else {
+                result = this.known(key);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Size of the stored object if storage knows it without reading the object.
+     * @param key Object key
+     * @return Size in bytes or empty if it is unknown
+     */
+    private Maybe<Long> known(final String key) {
+        return this.storage.value(new Key.From(key)).flatMapMaybe(
+            content -> content.size().map(Maybe::just).orElseGet(Maybe::empty)
+        );
+    }
+
+    /**
+     * Package metadata size together with its metadata file.
+     * @param pkg Package
+     * @return Size in bytes
+     */
+    private static long size(final NpmPackage pkg) {
+        return pkg.content().getBytes(StandardCharsets.UTF_8).length
+            + pkg.meta().json().encode().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Asset metadata file size.
+     * @param asset Asset
+     * @return Size in bytes
+     */
+    private static long sidecar(final NpmAsset asset) {
+        return asset.meta().json().encode().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Object ID of the storage key: package metadata or asset.
+     * @param key Storage key
+     * @return Object ID
+     */
+    private static String objectId(final String key) {
+        final String result;
+        if (key.endsWith(QuotaNpmProxyStorage.META)) {
+            result = QuotaNpmProxyStorage.packageId(
+                key.substring(0, key.length() - QuotaNpmProxyStorage.META.length())
+            );
+        } else {
+            result = QuotaNpmProxyStorage.assetId(key);
+        }
+        return result;
+    }
+
+    /**
+     * Package object ID.
+     * @param name Package name
+     * @return Object ID
+     */
+    private static String packageId(final String name) {
+        return QuotaNpmProxyStorage.PACKAGE.concat(name);
+    }
+
+    /**
+     * Asset object ID.
+     * @param path Asset path
+     * @return Object ID
+     */
+    private static String assetId(final String path) {
+        return QuotaNpmProxyStorage.ASSET.concat(path);
+    }
+
+    /**
+     * Eviction policy.
+     * @since 0.3
+     */
+    public enum Policy {
+        /**
+         * Least recently used objects are evicted first.
+         */
+        LRU,
+
+        /**
+         * Least frequently used objects are evicted first, least recently used
+         * of equally used ones.
+         */
+        LFU;
+
+        /**
+         * Parse policy name.
+         * @param name Policy name (case insensitive)
+         * @return Policy
+         */
+        public static Policy of(final String name) {
+            return Policy.valueOf(name.toUpperCase(Locale.US));
+        }
+
+        /**
+         * Eviction order: objects to be evicted first go first.
+         * @return Comparator
+         */
+        Comparator<Tracked> comparator() {
+            final Comparator<Tracked> recency = Comparator.comparingLong(obj -> obj.accessed);
+            final Comparator<Tracked> result;
+            if (this == LFU) {
+                result = Comparator.<Tracked>comparingLong(obj -> obj.hits).thenComparing(recency);
+            } else {
+                result = recency;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Tracked object.
+     * @since 0.3
+     */
+    private static final class Tracked {
+        /**
+         * Object ID.
+         */
+        private final String id;
+
+        /**
+         * Object size.
+         */
+        private long size;
+
+        /**
+         * Number of accesses.
+         */
+        private long hits;
+
+        /**
+         * Last access logical time (unique across objects).
+         */
+        private long accessed;
+
+        /**
+         * Ctor.
+         * @param id Object ID
+         * @param size Object size
+         * @param accessed Last access logical time
+         */
+        Tracked(final String id, final long size, final long accessed) {
+            this.id = id;
+            this.size = size;
+            this.accessed = accessed;
+        }
+    }
+}
@@ -0,0 +1,562 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.jcabi.log.Logger;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.file.OpenOptions;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.file.AsyncFile;
+import io.vertx.reactivex.core.streams.WriteStream;
+import io.vertx.reactivex.ext.web.client.HttpRequest;
+import io.vertx.reactivex.ext.web.client.HttpResponse;
+import io.vertx.reactivex.ext.web.client.WebClient;
+import io.vertx.reactivex.ext.web.codec.BodyCodec;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Asset download from the upstream to the spool file. If the transfer fails
+ * in the middle, the received part is kept and the download is resumed with
+ * {@code Range} request, validated by {@code If-Range} with the entity tag or
+ * last modification date of the first response. If the upstream answers the
+ * resumed request with the whole asset (it was changed or the upstream does
+ * not support ranges), the asset is written from the beginning. Bodies of
+ * error responses are dropped, and the received data is never continued by
+ * {@code Range} request without validator: it is requested from the start.
+ * <p>
+ * Large assets may be downloaded by several segments in parallel: the first
+ * segment request is the probe, if the upstream answers it with the part of
+ * the asset, the rest is split into segments and requested concurrently.
+ * Segment requests are validated by {@code If-Range} with the probe validator,
+ * so that segments of the changed asset are not mixed with the probe data.
+ * If the probe response has no validator, the asset is downloaded whole.
+ * <p>
+ * Asset digests are updated with the data as it arrives. Segments received
+ * concurrently can not be digested in order, so in segmented mode the data
+ * after the probe segment is digested from the file once all segments are done.
+ * @since 0.3
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+final class RangeDownload {
+    /**
+     * Content-Range header pattern.
+     */
+    private static final Pattern CONTENT_RANGE =
+        Pattern.compile("^bytes\\s+(\\d+)-(\\d+)/(\\d+|\\*)$");
+
+    /**
+     * Partial content status.
+     */
+    private static final int PARTIAL = 206;
+
+    /**
+     * OK status.
+     */
+    private static final int OK = 200;
+
+    /**
+     * The Vertx instance.
+     */
+    private final Vertx vertx;
+
+    /**
+     * Web client.
+     */
+    private final WebClient client;
+
+    /**
+     * Response start notifications.
+     */
+    private final ResponseStarts starts;
+
+    /**
+     * Maximal number of resumes of the segment.
+     */
+    private final int resumes;
+
+    /**
+     * Number of parallel segments (1 to disable segmented download).
+     */
+    private final int segments;
+
+    /**
+     * Segment size.
+     */
+    private final long size;
+
+    /**
+     * Ctor.
+     * @param vertx The Vertx instance
+     * @param client Web client
+     * @param starts Response start notifications
+     * @param config NPM Proxy config
+     */
+    RangeDownload(final Vertx vertx, final WebClient client, final ResponseStarts starts,
+        final NpmProxyConfig config) {
+        this(
+            vertx, client, starts,
+            config.downloadResumes(), config.downloadSegments(), config.downloadSegmentSize()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param vertx The Vertx instance
+     * @param client Web client
+     * @param starts Response start notifications
+     * @param resumes Maximal number of resumes of the segment
+     * @param segments Number of parallel segments (1 to disable segmented download)
+     * @param size Segment size
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    RangeDownload(final Vertx vertx, final WebClient client, final ResponseStarts starts,
+        final int resumes, final int segments, final long size) {
+        this.vertx = vertx;
+        this.client = client;
+        this.starts = starts;
+        this.resumes = resumes;
+        this.segments = segments;
+        this.size = size;
+    }
+
+    /**
+     * Download the asset to the file.
+     * @param url Asset URL
+     * @param file File to store asset data
+     * @param chunk Callback to invoke on every received chunk of asset data
+     * @param digests Digests to update with the asset data
+     * @return Response of the first (or the only) request, with 200 or 206 status on success
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    Single<HttpResponse<Void>> download(final String url, final Path file,
+        final Runnable chunk, final Digests digests) {
+        return Single.defer(
+            () -> {
+                final Single<HttpResponse<Void>> result;
+                if (this.segments > 1) {
+                    final Segment probe = new Segment(0, this.size, digests);
+                    result = this.fetch(url, file, probe, chunk, this.resumes).flatMap(
+                        response -> this.rest(url, file, probe, chunk, response)
+                    );
+                } else {
+                    result = this.whole(url, file, chunk, digests);
+                }
+                return result;
+            }
+        );
+    }
+
+    /**
+     * Download the rest of the asset after the probe segment.
+     * @param url Asset URL
+     * @param file File to store asset data
+     * @param probe Probe segment
+     * @param chunk Callback to invoke on every received chunk of asset data
+     * @param response Probe response
+     * @return Probe response, or the response of the whole asset request
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Single<HttpResponse<Void>> rest(final String url, final Path file,
+        final Segment probe, final Runnable chunk, final HttpResponse<Void> response) {
+        final Single<HttpResponse<Void>> result;
+        if (response.statusCode() == RangeDownload.PARTIAL && probe.total > this.size) {
+            if (probe.validator == null) {
+                result = this.whole(url, file, chunk, probe.digests);
+            } else {
+                result = Flowable.fromIterable(this.split(probe))
+                    .flatMapSingle(
+                        seg -> this.fetch(url, file, seg, chunk, this.resumes)
+                            .map(RangeDownload::partial),
+                        false,
+                        this.segments - 1
+                    ).ignoreElements()
+                    .andThen(this.digest(file, probe.to, probe.digests))
+                    .andThen(Single.just(response));
+            }
+        } else {
+            result = this.complete(file, probe, response);
+        }
+        return result;
+    }
+
+    /**
+     * Download the whole asset by one request, resumed on failures.
+     * @param url Asset URL
+     * @param file File to store asset data
+     * @param chunk Callback to invoke on every received chunk of asset data
+     * @param digests Digests to update with the asset data
+     * @return Response
+     */
+    private Single<HttpResponse<Void>> whole(final String url, final Path file,
+        final Runnable chunk, final Digests digests) {
+        final Segment whole = new Segment(0, -1, digests);
+        return this.fetch(url, file, whole, chunk, this.resumes).flatMap(
+            response -> this.complete(file, whole, response)
+        );
+    }
+
+    /**
+     * Fetch the segment, resuming it if the transfer fails in the middle.
+     * @param url Asset URL
+     * @param file File to store asset data
+     * @param seg Segment
+     * @param chunk Callback to invoke on every received chunk of asset data
+     * @param left Number of resumes left
+     * @return Segment response
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Single<HttpResponse<Void>> fetch(final String url, final Path file,
+        final Segment seg, final Runnable chunk, final int left) {
+        return Single.defer(
+            () -> {
+                final long offset = seg.resume();
+                if (seg.from == 0 && offset == 0) {
+                    seg.restart();
+                }
+                return this.vertx.fileSystem().rxOpen(
+                    file.toAbsolutePath().toString(),
+                    new OpenOptions().setSync(true).setTruncateExisting(
+                        seg.from == 0 && offset == 0
+                    )
+                ).flatMap(
+                    asyncfile -> {
+                        asyncfile.setWritePos(offset);
+                        final HttpRequest<Void> request = this.client.getAbs(url).as(
+                            BodyCodec.pipe(
+                                WriteStream.newInstance(
+                                    new TapWriteStream(
+                                        asyncfile.getDelegate(),
+                                        data -> {
+                                            final boolean accepted = seg.written(data);
+                                            if (accepted) {
+                                                chunk.run();
+                                            }
+                                            return accepted;
+                                        }
+                                    )
+                                ),
+                                false
+                            )
+                        );
+                        seg.range().ifPresent(range -> request.putHeader("Range", range));
+                        if (offset > 0 && seg.validator != null) {
+                            request.putHeader("If-Range", seg.validator);
+                        }
+                        this.starts.listen(
+                            request.getDelegate(),
+                            response -> seg.started(response, offset, asyncfile)
+                        );
+                        return request.rxSend().flatMap(
+                            response -> asyncfile.rxClose().andThen(Single.just(response))
+                        ).onErrorResumeNext(
+                            err -> asyncfile.rxClose().onErrorComplete()
+                                .andThen(Single.error(err))
+                        );
+                    }
+                );
+            }
+        ).onErrorResumeNext(
+            err -> {
+                final Single<HttpResponse<Void>> res;
+                if (left > 0 && seg.resumable()) {
+                    Logger.debug(
+                        NpmProxy.class,
+                        "Download of %s failed at %d bytes, resuming: %s",
+                        url, seg.position(), err.getMessage()
+                    );
+                    res = this.fetch(url, file, seg, chunk, left - 1);
+                } else {
+                    res = Single.error(err);
+                }
+                return res;
+            }
+        );
+    }
+
+    /**
+     * Complete download of the whole asset: cut off the rest of previous
+     * content if the asset was written from the beginning on resume.
+     * @param file File to store asset data
+     * @param seg Downloaded segment
+     * @param response Response
+     * @return The same response
+     */
+    private Single<HttpResponse<Void>> complete(final Path file, final Segment seg,
+        final HttpResponse<Void> response) {
+        final Single<HttpResponse<Void>> result;
+        if (response.statusCode() == RangeDownload.OK
+            || response.statusCode() == RangeDownload.PARTIAL) {
+            result = this.vertx.fileSystem()
+                .rxTruncate(file.toAbsolutePath().toString(), seg.position())
+                .andThen(Single.just(response));
+        } else {
+            result = Single.just(response);
+        }
+        return result;
+    }
+
+    /**
+     * Update digests with the file data from the position to the end.
+     * @param file File with asset data
+     * @param from Start position
+     * @param digests Digests to update
+     * @return Completion of the file reading
+     */
+    private Completable digest(final Path file, final long from, final Digests digests) {
+        return this.vertx.fileSystem().rxOpen(
+            file.toAbsolutePath().toString(), new OpenOptions().setWrite(false)
+        ).flatMapCompletable(
+            asyncfile -> asyncfile.setReadPos(from).toFlowable()
+                .doOnNext(buf -> digests.update(buf.getByteBuf().nioBuffer()))
+                .ignoreElements()
+                .andThen(Completable.defer(asyncfile::rxClose))
+                .doOnError(ignored -> asyncfile.rxClose().onErrorComplete().subscribe())
+        );
+    }
+
+    /**
+     * Split the rest of the asset after the probe into segments.
+     * @param probe Probe segment
+     * @return Segments
+     */
+    private List<Segment> split(final Segment probe) {
+        final int count = this.segments - 1;
+        final long rest = probe.total - probe.to;
+        final long step = (rest + count - 1) / count;
+        final List<Segment> parts = new ArrayList<>(count);
+        for (long from = probe.to; from < probe.total; from += step) {
+            final Segment seg = new Segment(from, Math.min(from + step, probe.total), null);
+            seg.validator = probe.validator;
+            parts.add(seg);
+        }
+        return parts;
+    }
+
+    /**
+     * Check the segment response is partial content.
+     * @param response Segment response
+     * @return The same response
+     * @throws IllegalStateException If response is not partial content
+     */
+    private static HttpResponse<Void> partial(final HttpResponse<Void> response) {
+        if (response.statusCode() != RangeDownload.PARTIAL) {
+            throw new IllegalStateException(
+                String.format("Segment request failed with status %d", response.statusCode())
+            );
+        }
+        return response;
+    }
+
+    /**
+     * Asset segment download state.
+     * @since 0.3
+     */
+    private static final class Segment {
+        /**
+         * Segment start.
+         */
+        private final long from;
+
+        /**
+         * Digests to update with segment data, null if data is not digested.
+         */
+        private final Digests digests;
+
+        /**
+         * Segment end (exclusive), -1 for the whole asset.
+         */
+        private long to;
+
+        /**
+         * Bytes of the segment written.
+         */
+        private long done;
+
+        /**
+         * Whole asset size, -1 if unknown.
+         */
+        private long total;
+
+        /**
+         * Entity tag or last modification date to validate resume requests.
+         */
+        private String validator;
+
+        /**
+         * Whether the last response carries asset data.
+         */
+        private boolean data;
+
+        /**
+         * Ctor.
+         * @param from Segment start
+         * @param to Segment end (exclusive), -1 for the whole asset
+         * @param digests Digests to update with segment data, null to skip
+         */
+        Segment(final long from, final long to, final Digests digests) {
+            this.from = from;
+            this.to = to;
+            this.total = -1;
+            this.digests = digests;
+        }
+
+        /**
+         * Current write position.
+         * @return File position
+         */
+        synchronized long position() {
+            return this.from + this.done;
+        }
+
+        /**
+         * Start position of the next request. Received data that can not be
+         * validated is dropped, so the segment is requested from its start.
+         * @return File position
+         */
+        synchronized long resume() {
+            if (this.validator == null) {
+                this.done = 0;
+            }
+            return this.position();
+        }
+
+        /**
+         * Register received data if the response carries asset data.
+         * Data of error responses is neither counted nor digested.
+         * @param data Data received
+         * @return True if data should be written to the file
+         */
+        synchronized boolean written(final Buffer data) {
+            if (this.data) {
+                this.done += data.length();
+                if (this.digests != null) {
+                    this.digests.update(data.getByteBuf().nioBuffer());
+                }
+            }
+            return this.data;
+        }
+
+        /**
+         * Start the segment data over.
+         */
+        synchronized void restart() {
+            if (this.digests != null) {
+                this.digests.reset();
+            }
+        }
+
+        /**
+         * Whether the segment download can be resumed.
+         * @return True if some data was received and it can be validated
+         */
+        synchronized boolean resumable() {
+            return this.done > 0 && this.validator != null;
+        }
+
+        /**
+         * Range header value for the next request.
+         * @return Range or empty if the whole asset is requested
+         */
+        synchronized Optional<String> range() {
+            final Optional<String> result;
+            if (this.to > 0) {
+                result = Optional.of(
+                    String.format("bytes=%d-%d", this.position(), this.to - 1)
+                );
+            } else if (this.done > 0) {
+                result = Optional.of(String.format("bytes=%d-", this.position()));
+            } else {
+                result = Optional.empty();
+            }
+            return result;
+        }
+
+        /**
+         * Handle response start.
+         * @param response Response
+         * @param offset Requested offset
+         * @param file File to write data to
+         * @throws IllegalStateException If response does not match the segment
+         */
+        synchronized void started(final HttpClientResponse response, final long offset,
+            final AsyncFile file) {
+            this.data = false;
+            if (response.statusCode() == RangeDownload.PARTIAL) {
+                final Matcher range = RangeDownload.CONTENT_RANGE.matcher(
+                    String.valueOf(response.getHeader("Content-Range"))
+                );
+                if (!range.matches() || Long.parseLong(range.group(1)) != offset) {
+                    this.validator = null;
+                    throw new IllegalStateException(
+                        String.format(
+                            "Unexpected Content-Range %s for offset %d",
+                            response.getHeader("Content-Range"), offset
+                        )
+                    );
+                }
+                if (!"*".equals(range.group(3))) {
+                    this.total = Long.parseLong(range.group(3));
+                }
+                this.remember(response);
+                this.data = true;
+            } else if (response.statusCode() == RangeDownload.OK) {
+                if (this.from != 0) {
+                    this.validator = null;
+                    throw new IllegalStateException("Asset changed during segmented download");
+                }
+                this.done = 0;
+                this.to = -1;
+                this.restart();
+                file.setWritePos(0);
+                this.validator = null;
+                this.remember(response);
+                this.data = true;
+            }
+        }
+
+        /**
+         * Remember response validator if it is not known yet.
+         * @param response Response
+         */
+        private void remember(final HttpClientResponse response) {
+            if (this.validator == null) {
+                final String etag = response.getHeader("ETag");
+                if (etag != null && !etag.startsWith("W/")) {
+                    this.validator = etag;
+                } else {
+                    this.validator = response.getHeader("Last-Modified");
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,327 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.npm.proxy.model.NpmPackage;
+import com.jcabi.log.Logger;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.reactivex.Scheduler;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.schedulers.Schedulers;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Popularity-driven background metadata refresher. It estimates per-package
+ * request frequency with a count-min sketch, keeps the hottest packages and
+ * refreshes their metadata shortly before the TTL expires, so clients never
+ * pay the refresh cost for popular packages. Refreshes are performed one by
+ * one and at most `rate` per tick, so they do not compete with client traffic.
+ * @since 0.3
+ */
+public final class Refresher {
+    /**
+     * Sketch width per tracked package.
+     */
+    private static final int WIDTH = 16;
+
+    /**
+     * Metadata refresher (loads from remote and saves to the cache).
+     */
+    private final Function<String, Maybe<NpmPackage>> refresh;
+
+    /**
+     * Metadata TTL of the package.
+     */
+    private final Function<NpmPackage, Duration> ttl;
+
+    /**
+     * How long before TTL expiration packages are refreshed.
+     */
+    private final Duration lead;
+
+    /**
+     * Number of hottest packages to keep fresh (zero disables refreshing).
+     */
+    private final int top;
+
+    /**
+     * Maximum number of refreshes per tick.
+     */
+    private final int rate;
+
+    /**
+     * Clock.
+     */
+    private final Clock clock;
+
+    /**
+     * Packages requests frequency sketch.
+     */
+    private final CountMinSketch sketch;
+
+    /**
+     * Hottest packages.
+     */
+    private final Map<String, Hot> hot;
+
+    /**
+     * Number of refreshed packages.
+     */
+    private final AtomicLong refreshed;
+
+    /**
+     * Ticks subscription.
+     */
+    private final Disposable ticks;
+
+    /**
+     * Minimal frequency of the hottest packages.
+     */
+    private long threshold;
+
+    /**
+     * Ctor.
+     * @param refresh Metadata refresher (loads from remote and saves to the cache)
+     * @param ttl Metadata TTL of the package
+     * @param config NPM Proxy configuration
+     */
+    public Refresher(final Function<String, Maybe<NpmPackage>> refresh,
+        final Function<NpmPackage, Duration> ttl, final NpmProxyConfig config) {
+        this(
+            refresh, ttl, config.refreshLead(), config.refreshTop(),
+            config.refreshRate(), config.refreshInterval(), Clock.systemUTC(),
+            Schedulers.computation()
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param refresh Metadata refresher (loads from remote and saves to the cache)
+     * @param ttl Metadata TTL of the package
+     * @param lead How long before TTL expiration packages are refreshed
+     * @param top Number of hottest packages to keep fresh (zero disables refreshing)
+     * @param rate Maximum number of refreshes per tick
+     * @param interval Ticks interval
+     * @param clock Clock
+     * @param scheduler Ticks scheduler
+     * @checkstyle ParameterNumberCheck (10 lines)
+     */
+    @SuppressWarnings("PMD.ConstructorOnlyInitializesOrCallOtherConstructors")
+    Refresher(final Function<String, Maybe<NpmPackage>> refresh,
+        final Function<NpmPackage, Duration> ttl,
+        final Duration lead, final int top, final int rate, final Duration interval,
+        final Clock clock, final Scheduler scheduler) {
+        this.refresh = refresh;
+        this.ttl = ttl;
+        this.lead = lead;
+        this.top = top;
+        this.rate = rate;
+        this.clock = clock;
+        this.sketch = new CountMinSketch(Math.max(1, top) * Refresher.WIDTH);
+        this.hot = new HashMap<>();
+        this.refreshed = new AtomicLong();
+        if (top > 0) {
+            this.ticks = Flowable.interval(interval.toMillis(), TimeUnit.MILLISECONDS, scheduler)
+                .onBackpressureDrop()
+                .concatMapCompletable(tick -> this.tick().ignoreElements(), 1)
+                .subscribe(() -> { }, this::failed);
+        } else {
+            this.ticks = Flowable.never().subscribe();
+        }
+    }
+
+    /**
+     * Register package request.
+     * @param pkg Requested package
+     */
+    public void packageRequested(final NpmPackage pkg) {
+        if (this.top > 0) {
+            synchronized (this.hot) {
+                final long freq = this.sketch.add(pkg.name());
+                final Hot existing = this.hot.get(pkg.name());
+                if (existing == null) {
+                    if (this.hot.size() < this.top) {
+                        this.hot.put(pkg.name(), new Hot(freq, this.expires(pkg)));
+                    } else if (freq > this.threshold) {
+                        this.replaceColdest(pkg, freq);
+                    }
+                } else {
+                    existing.freq = freq;
+                    existing.expires = this.expires(pkg);
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of packages refreshed in background.
+     * @return Refreshed packages count
+     */
+    public long refreshed() {
+        return this.refreshed.get();
+    }
+
+    /**
+     * Stop refreshing.
+     */
+    public void close() {
+        this.ticks.dispose();
+    }
+
+    /**
+     * Refresh the hottest packages which are about to expire.
+     * @return Refreshed packages
+     */
+    Flowable<NpmPackage> tick() {
+        final OffsetDateTime due = OffsetDateTime.now(this.clock).plus(this.lead);
+        final List<String> names;
+        synchronized (this.hot) {
+            long min = Long.MAX_VALUE;
+            for (final Map.Entry<String, Hot> entry : this.hot.entrySet()) {
+                entry.getValue().freq = this.sketch.estimate(entry.getKey());
+                min = Math.min(min, entry.getValue().freq);
+            }
+            if (this.hot.size() >= this.top) {
+                this.threshold = min;
+            }
+            names = this.hot.entrySet().stream()
+                .filter(entry -> !entry.getValue().expires.isAfter(due))
+                .sorted(
+                    Comparator.comparingLong(
+                        (Map.Entry<String, Hot> entry) -> entry.getValue().freq
+                    ).reversed()
+                )
+                .limit(this.rate)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+        }
+        return Flowable.fromIterable(names).concatMapMaybe(
+            name -> this.refresh.apply(name)
+                .doOnSuccess(this::refreshed)
+                .onErrorResumeNext(
+                    (Throwable err) -> {
+                        Logger.debug(
+                            this, "Failed to refresh package %s: %s", name, err.getMessage()
+                        );
+                        return Maybe.empty();
+                    }
+                )
+        );
+    }
+
+    /**
+     * Replace the coldest of the hottest packages.
+     * @param pkg New hot package
+     * @param freq New hot package frequency
+     */
+    private void replaceColdest(final NpmPackage pkg, final long freq) {
+        String coldest = null;
+        long min = Long.MAX_VALUE;
+        for (final Map.Entry<String, Hot> entry : this.hot.entrySet()) {
+            final long current = this.sketch.estimate(entry.getKey());
+            entry.getValue().freq = current;
+            if (current < min) {
+                min = current;
+                coldest = entry.getKey();
+            }
+        }
+        if (freq > min) {
+            this.hot.remove(coldest);
+            this.hot.put(pkg.name(), new Hot(freq, this.expires(pkg)));
+            min = freq;
+            for (final Hot entry : this.hot.values()) {
+                min = Math.min(min, entry.freq);
+            }
+        }
+        this.threshold = min;
+    }
+
+    /**
+     * Register refreshed package.
+     * @param pkg Refreshed package
+     */
+    private void refreshed(final NpmPackage pkg) {
+        this.refreshed.incrementAndGet();
+        synchronized (this.hot) {
+            final Hot existing = this.hot.get(pkg.name());
+            if (existing != null) {
+                existing.expires = this.expires(pkg);
+            }
+        }
+    }
+
+    /**
+     * Metadata expiration time of the package.
+     * @param pkg Package
+     * @return Expiration time
+     */
+    private OffsetDateTime expires(final NpmPackage pkg) {
+        return pkg.meta().lastRefreshed().plus(this.ttl.apply(pkg));
+    }
+
+    /**
+     * Log ticks failure.
+     * @param err Failure
+     */
+    private void failed(final Throwable err) {
+        Logger.error(this, "Background metadata refreshing failed: %s", err.getMessage());
+    }
+
+    /**
+     * Hot package.
+     * @since 0.3
+     */
+    private static final class Hot {
+        /**
+         * Estimated requests frequency.
+         */
+        private long freq;
+
+        /**
+         * Metadata expiration time.
+         */
+        private OffsetDateTime expires;
+
+        /**
+         * Ctor.
+         * @param freq Estimated requests frequency
+         * @param expires Metadata expiration time
+         */
+        Hot(final long freq, final OffsetDateTime expires) {
+            this.freq = freq;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.ext.web.client.HttpRequest;
+import io.vertx.ext.web.client.impl.ClientPhase;
+import io.vertx.ext.web.client.impl.HttpContext;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Web client interceptor which notifies listeners about response start
+ * (status and headers), before response body is streamed. Web client
+ * completes the request only when the whole body is received, so this is the
+ * only way to know response headers of the request which failed in the middle
+ * of the body. Listener may reject the response by throwing an exception,
+ * then the request fails with this exception and its connection is reset.
+ * @since 0.3
+ */
+final class ResponseStarts implements Handler<HttpContext<?>> {
+    /**
+     * Listeners by requests.
+     */
+    private final Map<HttpRequest<?>, Handler<HttpClientResponse>> listeners;
+
+    /**
+     * Ctor.
+     */
+    ResponseStarts() {
+        this.listeners = Collections.synchronizedMap(new WeakHashMap<>());
+    }
+
+    /**
+     * Listen to the request response start.
+     * @param request Web client request
+     * @param listener Response start listener
+     */
+    void listen(final HttpRequest<?> request, final Handler<HttpClientResponse> listener) {
+        this.listeners.put(request, listener);
+    }
+
+    @Override
+    @SuppressWarnings("PMD.AvoidCatchingGenericException")
+    public void handle(final HttpContext<?> ctx) {
+        final ClientPhase phase = ctx.phase();
+        final Handler<HttpClientResponse> listener = this.listeners.get(ctx.request());
+        boolean next = true;
+        if (listener != null && phase == ClientPhase.RECEIVE_RESPONSE) {
+            try {
+                listener.handle(ctx.clientResponse());
+                // @checkstyle IllegalCatchCheck (1 line)
+            } catch (final RuntimeException err) {
+                next = false;
+                ctx.fail(err);
+                ctx.clientRequest().reset();
+            }
+        } else if (phase == ClientPhase.DISPATCH_RESPONSE || phase == ClientPhase.FAILURE) {
+            this.listeners.remove(ctx.request());
+        }
+        if (next) {
+            ctx.next();
+        }
+    }
+}
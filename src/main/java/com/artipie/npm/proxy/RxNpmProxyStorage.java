@@ -29,64 +29,153 @@ import com.artipie.asto.Key;
 import com.artipie.asto.rx.RxStorage;
 import com.artipie.npm.proxy.model.NpmAsset;
 import com.artipie.npm.proxy.model.NpmPackage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
 import io.reactivex.Single;
 import io.vertx.core.json.JsonObject;
 import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
 
 /**
  * Base NPM Proxy storage implementation. It encapsulates storage format details
  * and allows to handle both primary data and metadata files within one calls.
- * It uses underlying RxStorage and works in Rx-way.
+ * It uses underlying RxStorage and works in Rx-way. Metadata file is saved
+ * before the primary data file, so existing data always has its metadata.
+ * With metadata journal, package metadata file is written only once and
+ * later metadata changes are recorded to the journal.
  * @since 0.1
  */
 @SuppressWarnings("PMD.AvoidDuplicateLiterals")
 public final class RxNpmProxyStorage implements NpmProxyStorage {
+    /**
+     * Storage operations measured.
+     */
+    private static final String[] OPERATIONS = {"read", "write"};
+
+    /**
+     * Object types measured.
+     */
+    private static final String[] TYPES = {"package", "asset"};
+
     /**
      * Underlying storage.
      */
     private final RxStorage storage;
 
+    /**
+     * Meter registry.
+     */
+    private final MeterRegistry registry;
+
+    /**
+     * Package metadata journal.
+     */
+    private final Optional<MetadataJournal> journal;
+
+    /**
+     * Storage operation latency timers by operation and object type.
+     */
+    private final Map<String, Timer> timers;
+
+    /**
+     * Storage bytes counters by operation and object type.
+     */
+    private final Map<String, Counter> counters;
+
     /**
      * Ctor.
      * @param storage Underlying storage
      */
     public RxNpmProxyStorage(final RxStorage storage) {
+        this(storage, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Ctor.
+     * @param storage Underlying storage
+     * @param registry Meter registry
+     */
+    public RxNpmProxyStorage(final RxStorage storage, final MeterRegistry registry) {
+        this(storage, registry, Optional.empty());
+    }
+
+    /**
+     * Ctor.
+     * @param storage Underlying storage
+     * @param registry Meter registry
+     * @param journal Package metadata journal
+     */
+    public RxNpmProxyStorage(final RxStorage storage, final MeterRegistry registry,
+        final MetadataJournal journal) {
+        this(storage, registry, Optional.of(journal));
+    }
+
+    /**
+     * Ctor.
+     * @param storage Underlying storage
+     * @param registry Meter registry
+     * @param journal Package metadata journal, if any
+     */
+    private RxNpmProxyStorage(final RxStorage storage, final MeterRegistry registry,
+        final Optional<MetadataJournal> journal) {
         this.storage = storage;
+        this.registry = registry;
+        this.journal = journal;
+        this.timers = RxNpmProxyStorage.timers(registry);
+        this.counters = RxNpmProxyStorage.counters(registry);
     }
 
     @Override
     public Completable save(final NpmPackage pkg) {
         final Key key = new Key.From(pkg.name(), "meta.json");
-        return Completable.concatArray(
-            this.storage.save(
-                key,
-                new Content.From(pkg.content().getBytes(StandardCharsets.UTF_8))
-            ),
-            this.storage.save(
-                new Key.From(pkg.name(), "meta.meta"),
-                new Content.From(
-                    pkg.meta().json().encode().getBytes(StandardCharsets.UTF_8)
-                )
-            )
+        final byte[] content = pkg.content().getBytes(StandardCharsets.UTF_8);
+        return this.timed(
+            "write",
+            "package",
+            Completable.concatArray(
+                this.saveMeta(pkg),
+                Completable.defer(() -> this.storage.save(key, new Content.From(content)))
+            ).doOnComplete(() -> this.bytes("write", "package").increment(content.length))
         );
     }
 
+    @Override
+    public Completable refresh(final NpmPackage pkg) {
+        return this.timed("write", "package", this.saveMeta(pkg));
+    }
+
     @Override
     public Completable save(final NpmAsset asset) {
         final Key key = new Key.From(asset.path());
-        return Completable.concatArray(
-            this.storage.save(
-                key,
-                new Content.From(asset.dataPublisher())
-            ),
-            this.storage.save(
-                new Key.From(
-                    String.format("%s.meta", asset.path())
+        final Counter bytes = this.bytes("write", "asset");
+        return this.timed(
+            "write",
+            "asset",
+            Completable.concatArray(
+                this.storage.save(
+                    new Key.From(
+                        String.format("%s.meta", asset.path())
+                    ),
+                    new Content.From(
+                        asset.meta().json().encode().getBytes(StandardCharsets.UTF_8)
+                    )
                 ),
-                new Content.From(
-                    asset.meta().json().encode().getBytes(StandardCharsets.UTF_8)
+                Completable.defer(
+                    () -> this.storage.save(
+                        key,
+                        new Content.From(
+                            Flowable.fromPublisher(asset.dataPublisher())
+                                .doOnNext(buf -> bytes.increment(buf.remaining()))
+                        )
+                    )
                 )
             )
         );
@@ -99,7 +188,12 @@ public final class RxNpmProxyStorage implements NpmProxyStorage {
             .flatMapMaybe(
                 exists -> {
                     if (exists) {
-                        return this.readPackage(name).toMaybe();
+                        return this.timed("read", "package", this.readPackage(name))
+                            .doOnSuccess(
+                                pkg -> this.bytes("read", "package").increment(
+                                    pkg.content().getBytes(StandardCharsets.UTF_8).length
+                                )
+                            ).toMaybe();
                     } else {
                         return Maybe.empty();
                     }
@@ -114,7 +208,15 @@ public final class RxNpmProxyStorage implements NpmProxyStorage {
             .flatMapMaybe(
                 exists -> {
                     if (exists) {
-                        return this.readAsset(path).toMaybe();
+                        final Counter bytes = this.bytes("read", "asset");
+                        return this.timed("read", "asset", this.readAsset(path)).map(
+                            asset -> new NpmAsset(
+                                asset.path(),
+                                Flowable.fromPublisher(asset.dataPublisher())
+                                    .doOnNext(buf -> bytes.increment(buf.remaining())),
+                                asset.meta()
+                            )
+                        ).toMaybe();
                     } else {
                         return Maybe.empty();
                     }
@@ -122,6 +224,172 @@ public final class RxNpmProxyStorage implements NpmProxyStorage {
             );
     }
 
+    @Override
+    public Completable deletePackage(final String name) {
+        return Completable.concatArray(
+            this.journal.map(jrnl -> jrnl.forget(name)).orElse(Completable.complete()),
+            this.storage.delete(new Key.From(name, "meta.json")),
+            this.storage.delete(new Key.From(name, "meta.meta"))
+        );
+    }
+
+    @Override
+    public Completable deleteAsset(final String path) {
+        return Completable.concatArray(
+            this.storage.delete(new Key.From(path)),
+            this.storage.delete(new Key.From(String.format("%s.meta", path)))
+        );
+    }
+
+    @Override
+    public void close() {
+        this.journal.ifPresent(MetadataJournal::close);
+    }
+
+    /**
+     * Save package metadata: to the journal if it is enabled, metadata file
+     * is written only if the package is not journaled yet.
+     * @param pkg Package
+     * @return Completion
+     */
+    private Completable saveMeta(final NpmPackage pkg) {
+        final Completable file = Completable.defer(
+            () -> this.storage.save(
+                new Key.From(pkg.name(), "meta.meta"),
+                new Content.From(pkg.meta().json().encode().getBytes(StandardCharsets.UTF_8))
+            )
+        );
+        return this.journal.map(
+            jrnl -> jrnl.metadata(pkg.name()).isEmpty().flatMapCompletable(
+                absent -> {
+                    final Completable first;
+                    if (absent) {
+                        first = file;
+                    } else {
+                        first = Completable.complete();
+                    }
+                    return first.andThen(jrnl.record(pkg.name(), pkg.meta()));
+                }
+            )
+        ).orElse(file);
+    }
+
+    /**
+     * Read package metadata: from the journal if it is enabled and has the
+     * package, otherwise from metadata file.
+     * @param name Package name
+     * @return Package metadata
+     */
+    private Single<NpmPackage.Metadata> readMeta(final String name) {
+        final Single<NpmPackage.Metadata> file = Single.defer(
+            () -> this.storage.value(new Key.From(name, "meta.meta"))
+                .map(Concatenation::new).flatMap(Concatenation::single)
+                .map(metadata -> new String(metadata.array(), StandardCharsets.UTF_8))
+                .map(JsonObject::new)
+                .map(NpmPackage.Metadata::new)
+        );
+        return this.journal.map(jrnl -> jrnl.metadata(name).switchIfEmpty(file))
+            .orElse(file);
+    }
+
+    /**
+     * Record storage operation latency.
+     * @param operation Operation name
+     * @param type Object type
+     * @param source Storage operation
+     * @return Storage operation with latency recording
+     */
+    private Completable timed(final String operation, final String type,
+        final Completable source) {
+        return Completable.defer(
+            () -> {
+                final Timer.Sample sample = Timer.start(this.registry);
+                return source.doFinally(() -> sample.stop(this.timer(operation, type)));
+            }
+        );
+    }
+
+    /**
+     * Record storage operation latency.
+     * @param operation Operation name
+     * @param type Object type
+     * @param source Storage operation
+     * @param <T> Result type
+     * @return Storage operation with latency recording
+     */
+    private <T> Single<T> timed(final String operation, final String type,
+        final Single<T> source) {
+        return Single.defer(
+            () -> {
+                final Timer.Sample sample = Timer.start(this.registry);
+                return source.doFinally(() -> sample.stop(this.timer(operation, type)));
+            }
+        );
+    }
+
+    /**
+     * Storage operation latency timer.
+     * @param operation Operation name
+     * @param type Object type
+     * @return Timer
+     */
+    private Timer timer(final String operation, final String type) {
+        return this.timers.get(String.join(":", operation, type));
+    }
+
+    /**
+     * Storage bytes counter.
+     * @param operation Operation name
+     * @param type Object type
+     * @return Counter
+     */
+    private Counter bytes(final String operation, final String type) {
+        return this.counters.get(String.join(":", operation, type));
+    }
+
+    /**
+     * Register storage operation latency timers.
+     * @param registry Meter registry
+     * @return Timers by operation and object type
+     */
+    private static Map<String, Timer> timers(final MeterRegistry registry) {
+        final Map<String, Timer> result = new HashMap<>();
+        for (final String operation : RxNpmProxyStorage.OPERATIONS) {
+            for (final String type : RxNpmProxyStorage.TYPES) {
+                result.put(
+                    String.join(":", operation, type),
+                    Timer.builder("npm.proxy.storage")
+                        .tag("operation", operation)
+                        .tag("type", type)
+                        .register(registry)
+                );
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Register storage bytes counters.
+     * @param registry Meter registry
+     * @return Counters by operation and object type
+     */
+    private static Map<String, Counter> counters(final MeterRegistry registry) {
+        final Map<String, Counter> result = new HashMap<>();
+        for (final String operation : RxNpmProxyStorage.OPERATIONS) {
+            for (final String type : RxNpmProxyStorage.TYPES) {
+                result.put(
+                    String.join(":", operation, type),
+                    Counter.builder("npm.proxy.storage.bytes")
+                        .tag("operation", operation)
+                        .tag("type", type)
+                        .baseUnit("bytes")
+                        .register(registry)
+                );
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
     /**
      * Read NPM package from storage.
      * @param name Package name
@@ -131,15 +399,12 @@ public final class RxNpmProxyStorage implements NpmProxyStorage {
         return this.storage.value(new Key.From(name, "meta.json"))
             .map(Concatenation::new).flatMap(Concatenation::single)
             .zipWith(
-                this.storage.value(new Key.From(name, "meta.meta"))
-                    .map(Concatenation::new).flatMap(Concatenation::single)
-                    .map(metadata -> new String(metadata.array(), StandardCharsets.UTF_8))
-                    .map(JsonObject::new),
+                this.readMeta(name),
                 (content, metadata) ->
                     new NpmPackage(
                         name,
                         new String(content.array(), StandardCharsets.UTF_8),
-                        new NpmPackage.Metadata(metadata)
+                        metadata
                     )
                 );
     }
@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.streams.WriteStream;
+import java.util.function.Predicate;
+
+/**
+ * Write stream decorator that passes every written chunk to the tap before
+ * writing it to the origin stream. It allows to observe downloaded data
+ * (arrival time, size and so on) without an extra pass over it. The tap
+ * may also reject the chunk, then it is not written to the origin stream.
+ * @since 0.3
+ */
+final class TapWriteStream implements WriteStream<Buffer> {
+    /**
+     * Origin stream.
+     */
+    private final WriteStream<Buffer> origin;
+
+    /**
+     * Chunks tap.
+     */
+    private final Predicate<Buffer> tap;
+
+    /**
+     * Ctor.
+     * @param origin Origin stream
+     * @param tap Chunks tap, returns false to drop the chunk
+     */
+    TapWriteStream(final WriteStream<Buffer> origin, final Predicate<Buffer> tap) {
+        this.origin = origin;
+        this.tap = tap;
+    }
+
+    @Override
+    public WriteStream<Buffer> exceptionHandler(final Handler<Throwable> handler) {
+        this.origin.exceptionHandler(handler);
+        return this;
+    }
+
+    @Override
+    public WriteStream<Buffer> write(final Buffer data) {
+        if (this.tap.test(data)) {
+            this.origin.write(data);
+        }
+        return this;
+    }
+
+    @Override
+    public WriteStream<Buffer> write(final Buffer data,
+        final Handler<AsyncResult<Void>> handler) {
+        if (this.tap.test(data)) {
+            this.origin.write(data, handler);
+        } else if (handler != null) {
+            handler.handle(Future.succeededFuture());
+        }
+        return this;
+    }
+
+    @Override
+    public void end() {
+        this.origin.end();
+    }
+
+    @Override
+    public void end(final Handler<AsyncResult<Void>> handler) {
+        this.origin.end(handler);
+    }
+
+    @Override
+    public WriteStream<Buffer> setWriteQueueMaxSize(final int size) {
+        this.origin.setWriteQueueMaxSize(size);
+        return this;
+    }
+
+    @Override
+    public boolean writeQueueFull() {
+        return this.origin.writeQueueFull();
+    }
+
+    @Override
+    public WriteStream<Buffer> drainHandler(final Handler<Void> handler) {
+        this.origin.drainHandler(handler);
+        return this;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.reactivex.Single;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded worker pool for CPU-heavy package metadata transformations, so they
+ * never run on (and stall) Vert.x event loop. Pool has fixed number of daemon
+ * threads and bounded queue; tasks submitted to the full queue are rejected
+ * with {@link BusyException}. Pools are named, so that background work may
+ * have its own pool, reported by its own metrics.
+ * @since 0.3
+ */
+public final class TransformPool {
+    /**
+     * Pool threads counter (for thread names).
+     */
+    private static final AtomicInteger THREADS = new AtomicInteger();
+
+    /**
+     * Executor.
+     */
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * Rejected tasks counter.
+     */
+    private final AtomicLong rejected;
+
+    /**
+     * Ctor.
+     * @param config NPM Proxy configuration
+     * @param registry Meter registry
+     */
+    public TransformPool(final NpmProxyConfig config, final MeterRegistry registry) {
+        this(config.transformThreads(), config.transformQueue(), registry);
+    }
+
+    /**
+     * Ctor.
+     * @param threads Number of worker threads
+     * @param queue Maximum number of queued tasks
+     * @param registry Meter registry
+     */
+    public TransformPool(final int threads, final int queue, final MeterRegistry registry) {
+        this("transform", threads, queue, registry);
+    }
+
+    /**
+     * Ctor.
+     * @param name Pool name for thread names and metrics
+     * @param threads Number of worker threads
+     * @param queue Maximum number of queued tasks
+     * @param registry Meter registry
+     */
+    @SuppressWarnings("PMD.ConstructorOnlyInitializesOrCallOtherConstructors")
+    public TransformPool(final String name, final int threads, final int queue,
+        final MeterRegistry registry) {
+        this.executor = new ThreadPoolExecutor(
+            threads, threads, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queue)),
+            task -> {
+                final Thread thread = new Thread(
+                    task,
+                    String.format(
+                        "npm-proxy-%s-%d", name, TransformPool.THREADS.incrementAndGet()
+                    )
+                );
+                thread.setDaemon(true);
+                return thread;
+            }
+        );
+        this.rejected = new AtomicLong();
+        Gauge.builder(
+            String.format("npm.proxy.%s.queue", name),
+            this.executor, pool -> pool.getQueue().size()
+        ).register(registry);
+        Gauge.builder(
+            String.format("npm.proxy.%s.active", name),
+            this.executor, ThreadPoolExecutor::getActiveCount
+        ).register(registry);
+        FunctionCounter.builder(
+            String.format("npm.proxy.%s.rejected", name), this.rejected, AtomicLong::get
+        ).register(registry);
+    }
+
+    /**
+     * Run task in the pool.
+     * @param task Task
+     * @param <T> Result type
+     * @return Task result emitted on pool thread, or {@link BusyException} if queue is full
+     */
+    public <T> Single<T> submit(final Callable<T> task) {
+        return Single.create(
+            emitter -> {
+                try {
+                    this.executor.execute(
+                        () -> {
+                            if (!emitter.isDisposed()) {
+                                try {
+                                    emitter.onSuccess(task.call());
+                                    // @checkstyle IllegalCatchCheck (1 line)
+                                } catch (final Exception err) {
+                                    emitter.tryOnError(err);
+                                }
+                            }
+                        }
+                    );
+                } catch (final RejectedExecutionException err) {
+                    this.rejected.incrementAndGet();
+                    emitter.tryOnError(new BusyException(err));
+                }
+            }
+        );
+    }
+
+    /**
+     * Stop pool threads.
+     */
+    public void close() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Transformation rejected because pool queue is full.
+     * @since 0.3
+     */
+    public static final class BusyException extends IllegalStateException {
+        /**
+         * Serial version UID.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Ctor.
+         * @param cause Rejection cause
+         */
+        BusyException(final Throwable cause) {
+            super("Transformation pool is busy", cause);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.reactivex.Maybe;
+import io.reactivex.Single;
+import io.reactivex.functions.Function;
+import io.reactivex.schedulers.Schedulers;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Upstream (remote repository mirror). It keeps the peak-EWMA score of
+ * the upstream answer latency: the score jumps to the observed latency
+ * if it is higher than the current one and decays to observed latencies
+ * with time otherwise. Failures are observed as the penalty latency.
+ * Every upstream has its own circuit breaker and in-flight calls limiter,
+ * the breaker judges calls by the time upstream takes to start answering.
+ * @since 0.3
+ */
+public final class Upstream {
+    /**
+     * Latency observed on failed call (in nanos).
+     */
+    private static final double PENALTY = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * EWMA decay time (in nanos).
+     */
+    private static final double DECAY = TimeUnit.SECONDS.toNanos(10);
+
+    /**
+     * Upstream base URL.
+     */
+    private final String base;
+
+    /**
+     * Upstream circuit breaker.
+     */
+    private final CircuitBreaker breaker;
+
+    /**
+     * Upstream in-flight calls limiter.
+     */
+    private final Limiter limiter;
+
+    /**
+     * Current latency cost (in nanos).
+     */
+    private double cost;
+
+    /**
+     * The moment (in nanos) of the last observation.
+     */
+    private long stamp;
+
+    /**
+     * Number of calls in progress.
+     */
+    private int pending;
+
+    /**
+     * Ctor.
+     * @param base Upstream base URL
+     * @param breaker Upstream circuit breaker
+     */
+    public Upstream(final String base, final CircuitBreaker breaker) {
+        this(
+            base,
+            breaker,
+            new Limiter(
+                Integer.MAX_VALUE, Integer.MAX_VALUE, 0, Duration.ZERO, Schedulers.computation()
+            )
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param base Upstream base URL
+     * @param breaker Upstream circuit breaker
+     * @param limiter Upstream in-flight calls limiter
+     */
+    Upstream(final String base, final CircuitBreaker breaker, final Limiter limiter) {
+        this.base = base;
+        this.breaker = breaker;
+        this.limiter = limiter;
+        this.stamp = System.nanoTime();
+    }
+
+    /**
+     * Upstream base URL.
+     * @return Base URL
+     */
+    public String url() {
+        return this.base;
+    }
+
+    /**
+     * Upstream load score, the lower is the better. It is the latency cost
+     * multiplied by the number of calls in progress plus one.
+     * @return Score
+     */
+    public synchronized double score() {
+        return this.cost * (this.pending + 1);
+    }
+
+    /**
+     * Perform the call to the upstream measuring its answer latency.
+     * @param request Request, accepts the call attempt to run when upstream starts answering
+     * @param <T> Result type
+     * @return Call result
+     */
+    public <T> Maybe<T> call(final Function<Attempt, Maybe<T>> request) {
+        return this.breaker.protect(
+            gate -> {
+                final Attempt attempt = new Attempt(this, gate);
+                this.started();
+                return request.apply(attempt)
+                    .doOnSuccess(ignored -> attempt.run())
+                    .doOnComplete(attempt::run)
+                    .doOnError(ignored -> attempt.failed())
+                    .doOnDispose(attempt::cancelled);
+            }
+        );
+    }
+
+    @Override
+    public String toString() {
+        return this.base;
+    }
+
+    /**
+     * Register started call.
+     */
+    private synchronized void started() {
+        this.pending += 1;
+    }
+
+    /**
+     * Register finished call without latency observation.
+     */
+    private synchronized void finished() {
+        this.pending -= 1;
+    }
+
+    /**
+     * Register finished call and update latency cost.
+     * @param nanos Observed latency in nanos
+     */
+    private synchronized void observe(final double nanos) {
+        this.pending -= 1;
+        final long now = System.nanoTime();
+        if (nanos > this.cost) {
+            this.cost = nanos;
+        } else {
+            final double weight = Math.exp(-(now - this.stamp) / Upstream.DECAY);
+            this.cost = this.cost * weight + nanos * (1 - weight);
+        }
+        this.stamp = now;
+    }
+
+    /**
+     * Upstream call attempt, it is run when upstream starts answering.
+     * @since 0.3
+     */
+    public static final class Attempt implements Runnable {
+        /**
+         * Upstream.
+         */
+        private final Upstream upstream;
+
+        /**
+         * Circuit breaker gate of the call.
+         */
+        private final CircuitBreaker.Gate gate;
+
+        /**
+         * The moment (in nanos) the call was started.
+         */
+        private final long start;
+
+        /**
+         * Whether the call latency is observed already.
+         */
+        private final AtomicBoolean done;
+
+        /**
+         * Ctor.
+         * @param upstream Upstream
+         * @param gate Circuit breaker gate of the call
+         */
+        private Attempt(final Upstream upstream, final CircuitBreaker.Gate gate) {
+            this.upstream = upstream;
+            this.gate = gate;
+            this.start = System.nanoTime();
+            this.done = new AtomicBoolean();
+        }
+
+        @Override
+        public void run() {
+            this.gate.answered();
+            if (this.done.compareAndSet(false, true)) {
+                this.upstream.observe(System.nanoTime() - this.start);
+            }
+        }
+
+        /**
+         * Perform the call within the upstream concurrency limit. Calls which
+         * are throttled by the upstream are retried after the requested pause.
+         * Circuit breaker does not count the time spent waiting in the queue
+         * and pausing.
+         * @param priority Call priority
+         * @param call Call
+         * @param throttle Checks whether the result is throttled, returns requested pause
+         * @param <T> Result type
+         * @return Call result
+         */
+        <T> Single<T> limited(final Limiter.Priority priority, final Single<T> call,
+            final Function<? super T, Optional<Duration>> throttle) {
+            return this.upstream.limiter.limited(
+                priority,
+                Single.defer(
+                    () -> {
+                        this.gate.sent();
+                        return call;
+                    }
+                ),
+                throttle
+            );
+        }
+
+        /**
+         * Register failed call.
+         */
+        private void failed() {
+            if (this.done.compareAndSet(false, true)) {
+                this.upstream.observe(Upstream.PENALTY);
+            }
+        }
+
+        /**
+         * Register cancelled call.
+         */
+        private void cancelled() {
+            if (this.done.compareAndSet(false, true)) {
+                this.upstream.finished();
+            }
+        }
+    }
+}
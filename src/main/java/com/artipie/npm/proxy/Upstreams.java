@@ -0,0 +1,97 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Remote repository upstreams (mirrors). It orders upstreams by their
+ * scores, so the call goes to the best upstream first and fails over to
+ * others in the order of their scores. Upstreams with equal scores keep
+ * the configured order.
+ * @since 0.3
+ */
+public final class Upstreams {
+    /**
+     * Upstreams in configured order.
+     */
+    private final List<Upstream> all;
+
+    /**
+     * Ctor.
+     * @param config NPM Proxy config
+     */
+    public Upstreams(final NpmProxyConfig config) {
+        this(
+            config.urls().stream().map(
+                url -> new Upstream(
+                    url,
+                    new CircuitBreaker(
+                        config.breakerFailures(),
+                        config.breakerSlowCall(),
+                        config.breakerOpenDuration()
+                    ),
+                    new Limiter(config)
+                )
+            ).collect(Collectors.toList())
+        );
+    }
+
+    /**
+     * Ctor.
+     * @param all Upstreams in configured order
+     */
+    public Upstreams(final List<Upstream> all) {
+        this.all = all;
+    }
+
+    /**
+     * Upstreams ordered by their scores, the best first.
+     * @return Ordered upstreams
+     */
+    public List<Upstream> ordered() {
+        final Map<Upstream, Double> scores = new IdentityHashMap<>(this.all.size());
+        this.all.forEach(upstream -> scores.put(upstream, upstream.score()));
+        final List<Upstream> result = new ArrayList<>(this.all);
+        result.sort(Comparator.comparingDouble(scores::get));
+        return result;
+    }
+
+    /**
+     * Upstreams ordered by their scores, rotated by one position.
+     * Hedge call uses it to go to the second best upstream first.
+     * @return Ordered upstreams
+     */
+    public List<Upstream> hedgeOrdered() {
+        final List<Upstream> result = this.ordered();
+        Collections.rotate(result, -1);
+        return result;
+    }
+}
@@ -0,0 +1,318 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.jcabi.log.Logger;
+import io.reactivex.Flowable;
+import io.vertx.core.json.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk cache warm-up. It fetches metadata and assets of the listed packages
+ * versions in parallel with bounded concurrency through the regular NPM Proxy
+ * fetch and save paths, which are not counted as client requests. Warm-up
+ * jobs run in the background; their progress can be requested by job ID.
+ * Warm-up requests must be authorized with the configured bearer token, the
+ * endpoint is disabled without it.
+ * @since 0.3
+ */
+public final class WarmUp {
+    /**
+     * Number of last jobs to remember.
+     */
+    private static final int JOBS = 16;
+
+    /**
+     * Bearer authorization scheme prefix.
+     */
+    private static final String BEARER = "Bearer ";
+
+    /**
+     * NPM Proxy.
+     */
+    private final NpmProxy npm;
+
+    /**
+     * Maximum number of concurrent fetches.
+     */
+    private final int concurrency;
+
+    /**
+     * Bearer token of warm-up requests (empty if they are not accepted).
+     */
+    private final String token;
+
+    /**
+     * Last jobs by ID.
+     */
+    private final Map<String, Job> jobs;
+
+    /**
+     * Ctor.
+     * @param npm NPM Proxy
+     * @param config NPM Proxy configuration
+     */
+    public WarmUp(final NpmProxy npm, final NpmProxyConfig config) {
+        this(npm, config.warmUpConcurrency(), config.warmUpToken());
+    }
+
+    /**
+     * Ctor.
+     * @param npm NPM Proxy
+     * @param concurrency Maximum number of concurrent fetches
+     */
+    public WarmUp(final NpmProxy npm, final int concurrency) {
+        this(npm, concurrency, "");
+    }
+
+    /**
+     * Ctor.
+     * @param npm NPM Proxy
+     * @param concurrency Maximum number of concurrent fetches
+     * @param token Bearer token of warm-up requests (empty if they are not accepted)
+     */
+    public WarmUp(final NpmProxy npm, final int concurrency, final String token) {
+        this.npm = npm;
+        this.concurrency = concurrency;
+        this.token = token;
+        this.jobs = Collections.synchronizedMap(
+            new LinkedHashMap<String, Job>() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, Job> eldest) {
+                    return this.size() > WarmUp.JOBS;
+                }
+            }
+        );
+    }
+
+    /**
+     * Whether warm-up requests are accepted: the token to authorize them is
+     * configured.
+     * @return True if enabled
+     */
+    public boolean enabled() {
+        return !this.token.isEmpty();
+    }
+
+    /**
+     * Verify authorization of warm-up request.
+     * @param authorization Value of `Authorization` header (nullable)
+     * @return True if the request has the configured bearer token, requests
+     *  are rejected if the token is not configured
+     */
+    public boolean authorized(final String authorization) {
+        final boolean result;
+        if (!this.enabled() || authorization == null
+            || !authorization.startsWith(WarmUp.BEARER)) {
+            result = false;
+        } else {
+            result = MessageDigest.isEqual(
+                this.token.getBytes(StandardCharsets.UTF_8),
+                authorization.substring(WarmUp.BEARER.length()).trim()
+                    .getBytes(StandardCharsets.UTF_8)
+            );
+        }
+        return result;
+    }
+
+    /**
+     * Start warm-up job.
+     * @param coords Packages coordinates: name to version entries
+     * @return Started job
+     */
+    public Job start(final Collection<Map.Entry<String, String>> coords) {
+        final Set<String> names = coords.stream().map(Map.Entry::getKey)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+        final Job job = new Job(names.size(), coords.size());
+        this.jobs.put(job.id(), job);
+        Flowable.concat(
+            Flowable.fromIterable(names).map(
+                name -> this.npm.backgroundPackage(name).map(ignored -> true)
+                    .doOnSuccess(ignored -> job.packages.incrementAndGet())
+                    .doOnComplete(job.failed::incrementAndGet)
+            ),
+            Flowable.fromIterable(coords).map(
+                coord -> this.npm.backgroundAsset(
+                    WarmUp.assetPath(coord.getKey(), coord.getValue())
+                ).map(ignored -> true)
+                    .doOnSuccess(ignored -> job.assets.incrementAndGet())
+                    .doOnComplete(job.failed::incrementAndGet)
+            )
+        ).flatMapCompletable(
+            fetch -> fetch.doOnError(ignored -> job.failed.incrementAndGet())
+                .onErrorComplete().ignoreElement(),
+            false,
+            this.concurrency
+        ).doOnTerminate(job::finish).subscribe(
+            () -> Logger.info(WarmUp.class, "Warm-up job finished: %s", job.json().encode()),
+            err -> Logger.error(WarmUp.class, "Warm-up job failed: %s", err.getMessage())
+        );
+        return job;
+    }
+
+    /**
+     * Find warm-up job by ID.
+     * @param id Job ID
+     * @return Job if found
+     */
+    public Optional<Job> job(final String id) {
+        return Optional.ofNullable(this.jobs.get(id));
+    }
+
+    /**
+     * Asset path of the package version tarball.
+     * @param name Package name
+     * @param version Package version
+     * @return Asset path
+     */
+    static String assetPath(final String name, final String version) {
+        return String.format(
+            "%s/-/%s-%s.tgz", name, name.substring(name.lastIndexOf('/') + 1), version
+        );
+    }
+
+    /**
+     * Warm-up job.
+     * @since 0.3
+     */
+    public static final class Job {
+        /**
+         * Job ID.
+         */
+        private final String uid;
+
+        /**
+         * Number of packages metadata to fetch.
+         */
+        private final int total;
+
+        /**
+         * Number of assets to fetch.
+         */
+        private final int tarballs;
+
+        /**
+         * Job start time.
+         */
+        private final Instant started;
+
+        /**
+         * Number of packages metadata fetched.
+         */
+        private final AtomicLong packages;
+
+        /**
+         * Number of assets fetched.
+         */
+        private final AtomicLong assets;
+
+        /**
+         * Number of failed fetches.
+         */
+        private final AtomicLong failed;
+
+        /**
+         * Job finish time.
+         */
+        private volatile Instant finished;
+
+        /**
+         * Ctor.
+         * @param total Number of packages metadata to fetch
+         * @param tarballs Number of assets to fetch
+         */
+        Job(final int total, final int tarballs) {
+            this.uid = UUID.randomUUID().toString();
+            this.total = total;
+            this.tarballs = tarballs;
+            this.started = Instant.now();
+            this.packages = new AtomicLong();
+            this.assets = new AtomicLong();
+            this.failed = new AtomicLong();
+        }
+
+        /**
+         * Job ID.
+         * @return ID
+         */
+        public String id() {
+            return this.uid;
+        }
+
+        /**
+         * Whether the job is finished.
+         * @return True if finished
+         */
+        public boolean done() {
+            return this.finished != null;
+        }
+
+        /**
+         * Job progress and summary as JSON.
+         * @return JSON representation
+         */
+        public JsonObject json() {
+            final Instant end = Optional.ofNullable(this.finished).orElseGet(Instant::now);
+            final long millis = Math.max(1, Duration.between(this.started, end).toMillis());
+            final long fetched = this.packages.get() + this.assets.get();
+            return new JsonObject()
+                .put("id", this.uid)
+                .put("status", this.done() ? "done" : "running")
+                .put(
+                    "packages",
+                    new JsonObject().put("total", this.total).put("fetched", this.packages.get())
+                )
+                .put(
+                    "assets",
+                    new JsonObject().put("total", this.tarballs).put("fetched", this.assets.get())
+                )
+                .put("failed", this.failed.get())
+                .put("elapsed-millis", millis)
+                // @checkstyle MagicNumberCheck (1 line)
+                .put("fetches-per-second", fetched * 1000.0 / millis);
+        }
+
+        /**
+         * Mark job finished.
+         */
+        private void finish() {
+            this.finished = Instant.now();
+        }
+    }
+}
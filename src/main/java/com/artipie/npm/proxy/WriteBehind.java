@@ -0,0 +1,303 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.npm.proxy.model.NpmPackage;
+import com.jcabi.log.Logger;
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import io.reactivex.subjects.CompletableSubject;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind persistence of package metadata. Saved packages are put
+ * into the bounded queue and written to the storage in background, so the
+ * client is answered without waiting for storage writes. Repeated saves of
+ * the package waiting in the queue replace the queued one, so only the latest
+ * version is written. Queued and being written packages are visible to
+ * {@link #pending(String)} until they are persisted. If the queue is full,
+ * the package is written synchronously. Zero queue capacity disables
+ * write-behind, packages are always written synchronously.
+ * @since 0.3
+ */
+public final class WriteBehind {
+    /**
+     * Time to wait for queued writes on close (in seconds).
+     */
+    private static final long CLOSE_WAIT = 60;
+
+    /**
+     * Metadata storage.
+     */
+    private final NpmProxyStorage storage;
+
+    /**
+     * Queue capacity (zero to disable write-behind).
+     */
+    private final int capacity;
+
+    /**
+     * Maximum number of concurrent storage writes.
+     */
+    private final int concurrency;
+
+    /**
+     * Queued packages by name, in the order of queueing.
+     */
+    private final Map<String, NpmPackage> queued;
+
+    /**
+     * Packages being written by name.
+     */
+    private final Map<String, NpmPackage> writing;
+
+    /**
+     * Flush waiters.
+     */
+    private final List<CompletableSubject> waiters;
+
+    /**
+     * Number of saves coalesced with the queued ones.
+     */
+    private final AtomicLong coalesced;
+
+    /**
+     * Number of failed background writes.
+     */
+    private final AtomicLong failed;
+
+    /**
+     * Whether queued packages are being picked for writing.
+     */
+    private boolean draining;
+
+    /**
+     * Ctor.
+     * @param storage Metadata storage
+     * @param config NPM Proxy configuration
+     */
+    public WriteBehind(final NpmProxyStorage storage, final NpmProxyConfig config) {
+        this(storage, config.writeBehindQueue(), config.writeBehindConcurrency());
+    }
+
+    /**
+     * Ctor.
+     * @param storage Metadata storage
+     * @param capacity Queue capacity (zero to disable write-behind)
+     * @param concurrency Maximum number of concurrent storage writes
+     */
+    public WriteBehind(final NpmProxyStorage storage, final int capacity,
+        final int concurrency) {
+        this.storage = storage;
+        this.capacity = capacity;
+        this.concurrency = Math.max(1, concurrency);
+        this.queued = new LinkedHashMap<>();
+        this.writing = new HashMap<>();
+        this.waiters = new ArrayList<>(1);
+        this.coalesced = new AtomicLong();
+        this.failed = new AtomicLong();
+    }
+
+    /**
+     * Save package metadata. It completes as soon as the package is queued,
+     * or when it is written if write-behind is disabled or the queue is full.
+     * @param pkg Package
+     * @return Completion
+     */
+    public Completable save(final NpmPackage pkg) {
+        return Completable.defer(
+            () -> {
+                final Completable result;
+                synchronized (this) {
+                    if (this.capacity <= 0) {
+                        result = this.storage.save(pkg);
+                    } else if (this.queued.put(pkg.name(), pkg) != null) {
+                        this.coalesced.incrementAndGet();
+                        result = Completable.complete();
+                    } else if (this.queued.size() > this.capacity
+                        && !this.writing.containsKey(pkg.name())) {
+                        this.queued.remove(pkg.name());
+                        result = this.storage.save(pkg);
+                    } else {
+                        this.drain();
+                        result = Completable.complete();
+                    }
+                }
+                return result;
+            }
+        );
+    }
+
+    /**
+     * Get package metadata which is not persisted yet.
+     * @param name Package name
+     * @return Queued or being written package, or empty
+     */
+    public Maybe<NpmPackage> pending(final String name) {
+        return Maybe.fromCallable(
+            () -> {
+                synchronized (this) {
+                    NpmPackage pkg = this.queued.get(name);
+                    if (pkg == null) {
+                        pkg = this.writing.get(name);
+                    }
+                    return pkg;
+                }
+            }
+        );
+    }
+
+    /**
+     * Wait for all queued packages to be written.
+     * @return Completion
+     */
+    public Completable flush() {
+        return Completable.defer(
+            () -> {
+                final Completable result;
+                synchronized (this) {
+                    if (this.queued.isEmpty() && this.writing.isEmpty()) {
+                        result = Completable.complete();
+                    } else {
+                        final CompletableSubject waiter = CompletableSubject.create();
+                        this.waiters.add(waiter);
+                        result = waiter;
+                    }
+                }
+                return result;
+            }
+        );
+    }
+
+    /**
+     * Number of queued and being written packages.
+     * @return Queue size
+     */
+    public synchronized int size() {
+        return this.queued.size() + this.writing.size();
+    }
+
+    /**
+     * Number of saves coalesced with the queued ones.
+     * @return Coalesced saves count
+     */
+    public long coalesced() {
+        return this.coalesced.get();
+    }
+
+    /**
+     * Number of failed background writes.
+     * @return Failed writes count
+     */
+    public long failed() {
+        return this.failed.get();
+    }
+
+    /**
+     * Flush queued packages to the storage, waiting for a while.
+     */
+    public void close() {
+        if (!this.flush().blockingAwait(WriteBehind.CLOSE_WAIT, TimeUnit.SECONDS)) {
+            Logger.warn(
+                WriteBehind.class,
+                "%d package(s) metadata were not written to the storage on close",
+                this.size()
+            );
+        }
+    }
+
+    /**
+     * Start writing queued packages which are not being written already,
+     * up to concurrency limit. Must be called with the lock held. Writes
+     * completed synchronously call it recursively, such calls return at once
+     * and the outer call picks the next packages.
+     */
+    private void drain() {
+        if (!this.draining) {
+            this.draining = true;
+            try {
+                for (NpmPackage next = this.next(); next != null; next = this.next()) {
+                    this.write(next);
+                }
+            } finally {
+                this.draining = false;
+            }
+            if (this.queued.isEmpty() && this.writing.isEmpty()) {
+                this.waiters.forEach(CompletableSubject::onComplete);
+                this.waiters.clear();
+            }
+        }
+    }
+
+    /**
+     * Take the next queued package to write. Must be called with the lock held.
+     * @return Package or null if concurrency limit is reached or nothing to write
+     */
+    private NpmPackage next() {
+        NpmPackage result = null;
+        if (this.writing.size() < this.concurrency) {
+            for (final NpmPackage pkg : this.queued.values()) {
+                if (!this.writing.containsKey(pkg.name())) {
+                    result = pkg;
+                    break;
+                }
+            }
+            if (result != null) {
+                this.queued.remove(result.name());
+                this.writing.put(result.name(), result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Write package to the storage in background.
+     * @param pkg Package
+     */
+    private void write(final NpmPackage pkg) {
+        this.storage.save(pkg).doOnError(
+            err -> {
+                this.failed.incrementAndGet();
+                Logger.warn(
+                    WriteBehind.class,
+                    "Failed to write %s package metadata: %s",
+                    pkg.name(), err.getMessage()
+                );
+            }
+        ).onErrorComplete().subscribe(
+            () -> {
+                synchronized (this) {
+                    this.writing.remove(pkg.name());
+                    this.drain();
+                }
+            }
+        );
+    }
+}
@@ -33,15 +33,24 @@ import com.artipie.http.rs.RsWithBody;
 import com.artipie.http.rs.RsWithHeaders;
 import com.artipie.http.rs.RsWithStatus;
 import com.artipie.npm.proxy.NpmProxy;
+import com.artipie.npm.proxy.model.NpmAsset;
 import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.reactivex.Flowable;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import org.cactoos.list.ListOf;
 import org.cactoos.map.MapEntry;
 import org.reactivestreams.Publisher;
 
 /**
- * HTTP slice for download asset requests.
+ * HTTP slice for download asset requests. Byte ranges are not served
+ * (HTTP library has no 206 status): {@code Range} header is ignored and
+ * assets are always returned whole with {@code Accept-Ranges: none}.
  * @since 0.1
  * @checkstyle ClassDataAbstractionCouplingCheck (200 lines)
  */
@@ -56,6 +65,11 @@ public final class DownloadAssetSlice implements Slice {
      */
     private final AssetPath path;
 
+    /**
+     * Served bytes counter.
+     */
+    private final Counter served;
+
     /**
      * Ctor.
      *
@@ -63,8 +77,24 @@ public final class DownloadAssetSlice implements Slice {
      * @param path Asset path helper
      */
     public DownloadAssetSlice(final NpmProxy npm, final AssetPath path) {
+        this(npm, path, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param npm NPM Proxy facade
+     * @param path Asset path helper
+     * @param registry Meter registry
+     */
+    public DownloadAssetSlice(final NpmProxy npm, final AssetPath path,
+        final MeterRegistry registry) {
         this.npm = npm;
         this.path = path;
+        this.served = Counter.builder("npm.proxy.served.bytes")
+            .tag("type", "asset")
+            .baseUnit("bytes")
+            .register(registry);
     }
 
     @Override
@@ -78,17 +108,35 @@ public final class DownloadAssetSlice implements Slice {
                         new RsWithBody(
                             new RsWithStatus(RsStatus.OK),
                             new Content.From(
-                                asset.dataPublisher()
+                                Flowable.fromPublisher(asset.dataPublisher())
+                                    .doOnNext(buf -> this.served.increment(buf.remaining()))
                             )
                         ),
-                        new ListOf<Map.Entry<String, String>>(
-                            new MapEntry<>("Content-Type", asset.meta().contentType()),
-                            new MapEntry<>("Last-Modified", asset.meta().lastModified())
-                        )
+                        DownloadAssetSlice.headers(asset.meta())
                     )
                 )
                 .toSingle(new RsNotFound())
+                .onErrorResumeNext(RsUnavailable::fallback)
                 .to(SingleInterop.get())
         );
     }
+
+    /**
+     * Response headers of the asset.
+     * @param meta Asset metadata
+     * @return Headers, with Content-Length if asset size is known
+     */
+    private static List<Map.Entry<String, String>> headers(final NpmAsset.Metadata meta) {
+        final List<Map.Entry<String, String>> headers = new ArrayList<>(
+            new ListOf<Map.Entry<String, String>>(
+                new MapEntry<>("Content-Type", meta.contentType()),
+                new MapEntry<>("Last-Modified", meta.lastModified()),
+                new MapEntry<>("Accept-Ranges", "none")
+            )
+        );
+        if (meta.size() >= 0) {
+            headers.add(new MapEntry<>("Content-Length", String.valueOf(meta.size())));
+        }
+        return headers;
+    }
 }
@@ -34,7 +34,12 @@ import com.artipie.http.rs.RsWithHeaders;
 import com.artipie.http.rs.RsWithStatus;
 import com.artipie.npm.proxy.NpmProxy;
 import com.artipie.npm.proxy.json.ClientContent;
+import com.artipie.npm.proxy.json.TransformedContent;
 import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import java.nio.ByteBuffer;
 import java.util.Map;
 import java.util.stream.StreamSupport;
@@ -60,6 +65,16 @@ public final class DownloadPackageSlice implements Slice {
      */
     private final PackagePath path;
 
+    /**
+     * Client content transformation timer.
+     */
+    private final Timer transform;
+
+    /**
+     * Served bytes counter.
+     */
+    private final Counter served;
+
     /**
      * Ctor.
      *
@@ -67,31 +82,53 @@ public final class DownloadPackageSlice implements Slice {
      * @param path Package path helper
      */
     public DownloadPackageSlice(final NpmProxy npm, final PackagePath path) {
+        this(npm, path, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param npm NPM Proxy facade
+     * @param path Package path helper
+     * @param registry Meter registry
+     */
+    public DownloadPackageSlice(final NpmProxy npm, final PackagePath path,
+        final MeterRegistry registry) {
         this.npm = npm;
         this.path = path;
+        this.transform = TransformedContent.timer(registry, ClientContent.class);
+        this.served = Counter.builder("npm.proxy.served.bytes")
+            .tag("type", "package")
+            .baseUnit("bytes")
+            .register(registry);
     }
 
     @Override
-    @SuppressWarnings("PMD.OnlyOneReturn")
     public Response response(final String line,
         final Iterable<Map.Entry<String, String>> headers,
         final Publisher<ByteBuffer> body) {
         return new AsyncResponse(
             this.npm.getPackage(this.path.value(new RequestLineFrom(line).uri().getPath()))
-                .map(
-                    pkg -> (Response) new RsWithHeaders(
-                        new RsWithBody(
-                            new RsWithStatus(RsStatus.OK),
-                            new Content.From(
-                                this.clientFormat(pkg.content(), headers).getBytes()
-                            )
-                        ),
-                        new ListOf<Map.Entry<String, String>>(
-                            new MapEntry<>("Content-Type", "application/json"),
-                            new MapEntry<>("Last-Modified", pkg.meta().lastModified())
-                        )
+                .flatMapSingleElement(
+                    pkg -> this.npm.transformations().submit(
+                        () -> this.clientFormat(pkg.content(), headers).getBytes()
+                    ).map(
+                        content -> {
+                            this.served.increment(content.length);
+                            return (Response) new RsWithHeaders(
+                                new RsWithBody(
+                                    new RsWithStatus(RsStatus.OK),
+                                    new Content.From(content)
+                                ),
+                                new ListOf<Map.Entry<String, String>>(
+                                    new MapEntry<>("Content-Type", "application/json"),
+                                    new MapEntry<>("Last-Modified", pkg.meta().lastModified())
+                                )
+                            );
+                        }
                     )
                 ).toSingle(new RsNotFound())
+                .onErrorResumeNext(RsUnavailable::fallback)
                 .to(SingleInterop.get())
         );
     }
@@ -109,7 +146,7 @@ public final class DownloadPackageSlice implements Slice {
             .findAny().orElseThrow(
                 () -> new RuntimeException("Could not find Host header in request")
             ).getValue();
-        return new ClientContent(data, this.assetPrefix(host)).value();
+        return new ClientContent(data, this.assetPrefix(host)).value(this.transform);
     }
 
     /**
@@ -0,0 +1,223 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy.http;
+
+import com.artipie.asto.Concatenation;
+import com.artipie.asto.Content;
+import com.artipie.asto.Remaining;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.rq.RequestLineFrom;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.RsWithHeaders;
+import com.artipie.http.rs.RsWithStatus;
+import com.artipie.npm.proxy.Invalidations;
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.StreamSupport;
+import org.cactoos.list.ListOf;
+import org.cactoos.map.MapEntry;
+import org.reactivestreams.Publisher;
+
+/**
+ * HTTP slice for upstream change notifications. POST request with npm hook
+ * payload (JSON object with package `name` and `event`) or JSON array of such
+ * payloads schedules refresh of the notified packages and responds with the
+ * number of accepted notifications. Requests must be signed with the
+ * notifications secret in `X-Npm-Signature` header, larger requests than
+ * the limit are rejected without reading them to the end.
+ * @since 0.3
+ * @checkstyle ClassDataAbstractionCouplingCheck (200 lines)
+ */
+public final class HookSlice implements Slice {
+    /**
+     * Default change event.
+     */
+    private static final String CHANGE = "package:change";
+
+    /**
+     * Default request body size limit (1 MiB).
+     */
+    private static final long LIMIT = 1L << 20;
+
+    /**
+     * Push-based invalidation.
+     */
+    private final Invalidations invalidations;
+
+    /**
+     * Request body size limit in bytes.
+     */
+    private final long limit;
+
+    /**
+     * Ctor.
+     *
+     * @param invalidations Push-based invalidation
+     */
+    public HookSlice(final Invalidations invalidations) {
+        this(invalidations, HookSlice.LIMIT);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param invalidations Push-based invalidation
+     * @param limit Request body size limit in bytes
+     */
+    public HookSlice(final Invalidations invalidations, final long limit) {
+        this.invalidations = invalidations;
+        this.limit = limit;
+    }
+
+    @Override
+    public Response response(final String line,
+        final Iterable<Map.Entry<String, String>> rqheaders,
+        final Publisher<ByteBuffer> body) {
+        final Response response;
+        if (new RequestLineFrom(line).method() == RqMethod.POST) {
+            final String signature = StreamSupport.stream(rqheaders.spliterator(), false)
+                .filter(entry -> entry.getKey().equalsIgnoreCase("X-Npm-Signature"))
+                .map(Map.Entry::getValue)
+                .findFirst()
+                .orElse(null);
+            final AtomicLong size = new AtomicLong();
+            response = new AsyncResponse(
+                new Concatenation(
+                    Flowable.fromPublisher(body).doOnNext(
+                        buf -> {
+                            if (size.addAndGet(buf.remaining()) > this.limit) {
+                                throw new IllegalArgumentException(
+                                    String.format("body exceeds %d bytes", this.limit)
+                                );
+                            }
+                        }
+                    )
+                ).single()
+                    .map(buf -> new Remaining(buf).bytes())
+                    .flatMap(bytes -> this.notified(bytes, signature))
+                    .onErrorReturn(
+                        err -> new RsWithStatus(
+                            new RsWithBody(
+                                String.format("Invalid notification: %s", err.getMessage()),
+                                StandardCharsets.UTF_8
+                            ),
+                            RsStatus.BAD_REQUEST
+                        )
+                    )
+                    .to(SingleInterop.get())
+            );
+        } else {
+            response = new RsWithStatus(RsStatus.METHOD_NOT_ALLOWED);
+        }
+        return response;
+    }
+
+    /**
+     * Register notifications from request body.
+     * @param bytes Request body
+     * @param signature Request signature (nullable)
+     * @return Response
+     */
+    private Single<Response> notified(final byte[] bytes, final String signature) {
+        final Response result;
+        if (this.invalidations.verify(bytes, signature)) {
+            int accepted = 0;
+            for (final JsonObject payload : HookSlice.payloads(bytes)) {
+                if (this.invalidations.notify(
+                    payload.getString("name"), payload.getString("event", HookSlice.CHANGE)
+                )) {
+                    accepted += 1;
+                }
+            }
+            result = new RsWithHeaders(
+                new RsWithBody(
+                    new RsWithStatus(RsStatus.ACCEPTED),
+                    new Content.From(
+                        new JsonObject().put("accepted", accepted).encode()
+                            .getBytes(StandardCharsets.UTF_8)
+                    )
+                ),
+                new ListOf<Map.Entry<String, String>>(
+                    new MapEntry<>("Content-Type", "application/json")
+                )
+            );
+        } else {
+            result = new RsWithStatus(RsStatus.UNAUTHORIZED);
+        }
+        return Single.just(result);
+    }
+
+    /**
+     * Parse notification payloads. All payloads are validated, so that none
+     * of them is notified if some payload is invalid.
+     * @param bytes Request body
+     * @return Valid payloads
+     */
+    private static List<JsonObject> payloads(final byte[] bytes) {
+        final String body = new String(bytes, StandardCharsets.UTF_8).trim();
+        final List<JsonObject> result = new ArrayList<>(1);
+        if (body.startsWith("[")) {
+            for (final Object item : new JsonArray(body)) {
+                if (!(item instanceof JsonObject)) {
+                    throw new IllegalArgumentException("notification is not an object");
+                }
+                result.add(HookSlice.valid((JsonObject) item));
+            }
+        } else {
+            result.add(HookSlice.valid(new JsonObject(body)));
+        }
+        return result;
+    }
+
+    /**
+     * Validate notification payload.
+     * @param payload Payload
+     * @return The same payload
+     * @throws IllegalArgumentException If package name or event is invalid
+     */
+    private static JsonObject valid(final JsonObject payload) {
+        final Object name = payload.getValue("name");
+        if (!(name instanceof String) || ((String) name).isEmpty()) {
+            throw new IllegalArgumentException("package name is missing");
+        }
+        final Object event = payload.getValue("event");
+        if (event != null && !(event instanceof String)) {
+            throw new IllegalArgumentException("event is not a string");
+        }
+        return payload;
+    }
+}
@@ -26,6 +26,7 @@ package com.artipie.npm.proxy.http;
 import com.jcabi.log.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import org.apache.commons.lang3.StringUtils;
 
 /**
  * Base path helper class NPM Proxy.
@@ -53,7 +54,7 @@ public abstract class NpmPath {
     public final String value(final String abspath) {
         final Matcher matcher = this.pattern().matcher(abspath);
         if (matcher.matches()) {
-            final String path = matcher.group(1);
+            final String path = StringUtils.defaultString(matcher.group(1));
             Logger.debug(this, "Determined path is: %s", path);
             return path;
         } else {
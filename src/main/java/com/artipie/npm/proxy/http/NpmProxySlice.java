@@ -31,7 +31,11 @@ import com.artipie.http.rt.SliceRoute;
 import com.artipie.http.slice.LoggingSlice;
 import com.artipie.http.slice.SliceSimple;
 import com.artipie.npm.proxy.NpmProxy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import org.reactivestreams.Publisher;
 
@@ -52,29 +56,67 @@ public final class NpmProxySlice implements Slice {
      * @param path NPM proxy repo path ("" if NPM proxy should handle ROOT context path)
      * @param npm NPM Proxy facade
      */
-    @SuppressWarnings("PMD.ConstructorOnlyInitializesOrCallOtherConstructors")
     public NpmProxySlice(final String path, final NpmProxy npm) {
+        this(path, npm, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param path NPM proxy repo path ("" if NPM proxy should handle ROOT context path)
+     * @param npm NPM Proxy facade
+     * @param registry Meter registry
+     */
+    @SuppressWarnings("PMD.ConstructorOnlyInitializesOrCallOtherConstructors")
+    public NpmProxySlice(final String path, final NpmProxy npm,
+        final MeterRegistry registry) {
         final PackagePath ppath = new PackagePath(path);
         final AssetPath apath = new AssetPath(path);
-        this.route = new SliceRoute(
+        final WarmUpPath wpath = new WarmUpPath(path);
+        final HookPath hpath = new HookPath(path);
+        final List<SliceRoute.Path> routes = new ArrayList<>(6);
+        if (npm.invalidations().enabled()) {
+            routes.add(
+                new SliceRoute.Path(
+                    new RtRule.ByPath(hpath.pattern()),
+                    new LoggingSlice(
+                        new HookSlice(npm.invalidations())
+                    )
+                )
+            );
+        }
+        if (npm.warmUp().enabled()) {
+            // Not wrapped in LoggingSlice: requests carry bearer token in headers
+            routes.add(
+                new SliceRoute.Path(
+                    new RtRule.ByPath(wpath.pattern()),
+                    new WarmUpSlice(npm.warmUp(), wpath)
+                )
+            );
+        }
+        routes.add(
             new SliceRoute.Path(
                 new RtRule.Multiple(
                     new RtRule.ByMethod(RqMethod.GET),
                     new RtRule.ByPath(ppath.pattern())
                 ),
                 new LoggingSlice(
-                    new DownloadPackageSlice(npm, ppath)
+                    new DownloadPackageSlice(npm, ppath, registry)
                 )
-            ),
+            )
+        );
+        routes.add(
             new SliceRoute.Path(
                 new RtRule.Multiple(
                     new RtRule.ByMethod(RqMethod.GET),
                     new RtRule.ByPath(apath.pattern())
                 ),
                 new LoggingSlice(
-                    new DownloadAssetSlice(npm, apath)
+                    new DownloadAssetSlice(npm, apath, registry)
                 )
-            ),
+            )
+        );
+        routes.add(
             new SliceRoute.Path(
                 RtRule.FALLBACK,
                 new LoggingSlice(
@@ -84,6 +126,7 @@ public final class NpmProxySlice implements Slice {
                 )
             )
         );
+        this.route = new SliceRoute(routes);
     }
 
     @Override
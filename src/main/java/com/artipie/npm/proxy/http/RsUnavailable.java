@@ -0,0 +1,104 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy.http;
+
+import com.artipie.asto.Content;
+import com.artipie.http.Connection;
+import com.artipie.http.Headers;
+import com.artipie.http.Response;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.npm.proxy.CircuitBreaker;
+import com.artipie.npm.proxy.NpmRemote;
+import com.artipie.npm.proxy.TransformPool;
+import io.reactivex.Single;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import org.cactoos.iterable.IterableOf;
+import org.cactoos.map.MapEntry;
+
+/**
+ * HTTP 503 response for NPM adapter with Retry-After header.
+ * @since 0.3
+ */
+public final class RsUnavailable implements Response {
+    /**
+     * Pause before retry.
+     */
+    private final Duration pause;
+
+    /**
+     * Ctor.
+     * @param pause Pause before retry
+     */
+    public RsUnavailable(final Duration pause) {
+        this.pause = pause;
+    }
+
+    /**
+     * Response to failed request: calls rejected by busy transformation
+     * pool, throttled calls and calls rejected by open circuit breaker are
+     * answered with 503, so that clients retry, other errors are propagated.
+     * @param err Error
+     * @return Service unavailable response or error
+     */
+    public static Single<Response> fallback(final Throwable err) {
+        final Single<Response> result;
+        if (err instanceof TransformPool.BusyException) {
+            result = Single.just(new RsUnavailable(Duration.ofSeconds(1)));
+        } else if (err instanceof NpmRemote.ThrottledException) {
+            result = Single.just(
+                new RsUnavailable(((NpmRemote.ThrottledException) err).retryAfter())
+            );
+        } else if (err instanceof CircuitBreaker.OpenException) {
+            result = Single.just(
+                new RsUnavailable(((CircuitBreaker.OpenException) err).retryAfter())
+            );
+        } else {
+            result = Single.error(err);
+        }
+        return result;
+    }
+
+    @Override
+    public CompletionStage<Void> send(final Connection connection) {
+        return connection.accept(
+            RsStatus.UNAVAILABLE,
+            new Headers.From(
+                new IterableOf<Map.Entry<String, String>>(
+                    new MapEntry<>("Content-Type", "application/json"),
+                    // @checkstyle MagicNumberCheck (3 lines)
+                    new MapEntry<>(
+                        "Retry-After",
+                        String.valueOf(Math.max(1, (this.pause.toMillis() + 999) / 1000))
+                    )
+                )
+            ),
+            new Content.From("{\"error\" : \"service unavailable\"}".getBytes(
+                    StandardCharsets.UTF_8
+                ))
+        );
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy.http;
+
+import com.artipie.asto.Concatenation;
+import com.artipie.asto.Content;
+import com.artipie.asto.Remaining;
+import com.artipie.http.Response;
+import com.artipie.http.Slice;
+import com.artipie.http.async.AsyncResponse;
+import com.artipie.http.rq.RequestLineFrom;
+import com.artipie.http.rq.RqMethod;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.http.rs.RsWithBody;
+import com.artipie.http.rs.RsWithHeaders;
+import com.artipie.http.rs.RsWithStatus;
+import com.artipie.npm.proxy.WarmUp;
+import com.artipie.npm.proxy.json.PackageList;
+import hu.akarnokd.rxjava2.interop.SingleInterop;
+import io.reactivex.Flowable;
+import io.vertx.core.json.JsonObject;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.StreamSupport;
+import org.cactoos.list.ListOf;
+import org.cactoos.map.MapEntry;
+import org.reactivestreams.Publisher;
+
+/**
+ * HTTP slice for cache warm-up requests. POST request with `package-lock.json`
+ * or `name@version` lines list body starts warm-up job and responds with
+ * its initial progress; GET request with job ID responds with job progress
+ * and, when the job is done, its summary. Requests without the configured
+ * bearer token are rejected, as well as larger requests than the limit.
+ * @since 0.3
+ * @checkstyle ClassDataAbstractionCouplingCheck (200 lines)
+ */
+public final class WarmUpSlice implements Slice {
+    /**
+     * Default request body size limit (16 MiB).
+     */
+    private static final long LIMIT = 1L << 24;
+
+    /**
+     * Cache warm-up.
+     */
+    private final WarmUp warmup;
+
+    /**
+     * Warm-up path helper.
+     */
+    private final WarmUpPath path;
+
+    /**
+     * Request body size limit in bytes.
+     */
+    private final long limit;
+
+    /**
+     * Ctor.
+     *
+     * @param warmup Cache warm-up
+     * @param path Warm-up path helper
+     */
+    public WarmUpSlice(final WarmUp warmup, final WarmUpPath path) {
+        this(warmup, path, WarmUpSlice.LIMIT);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param warmup Cache warm-up
+     * @param path Warm-up path helper
+     * @param limit Request body size limit in bytes
+     */
+    public WarmUpSlice(final WarmUp warmup, final WarmUpPath path, final long limit) {
+        this.warmup = warmup;
+        this.path = path;
+        this.limit = limit;
+    }
+
+    @Override
+    public Response response(final String line,
+        final Iterable<Map.Entry<String, String>> rqheaders,
+        final Publisher<ByteBuffer> body) {
+        final RequestLineFrom rqline = new RequestLineFrom(line);
+        final String id = this.path.value(rqline.uri().getPath());
+        final Response response;
+        if (!this.warmup.authorized(WarmUpSlice.authorization(rqheaders))) {
+            response = new RsWithStatus(RsStatus.UNAUTHORIZED);
+        } else if (rqline.method() == RqMethod.POST && id.isEmpty()) {
+            final AtomicLong size = new AtomicLong();
+            response = new AsyncResponse(
+                new Concatenation(
+                    Flowable.fromPublisher(body).doOnNext(
+                        buf -> {
+                            if (size.addAndGet(buf.remaining()) > this.limit) {
+                                throw new IllegalArgumentException(
+                                    String.format("body exceeds %d bytes", this.limit)
+                                );
+                            }
+                        }
+                    )
+                ).single()
+                    .map(buf -> new String(new Remaining(buf).bytes(), StandardCharsets.UTF_8))
+                    .map(content -> new PackageList(content).value())
+                    .map(
+                        coords -> {
+                            final WarmUp.Job job = this.warmup.start(coords);
+                            return WarmUpSlice.json(RsStatus.ACCEPTED, job.json());
+                        }
+                    )
+                    .onErrorReturn(
+                        err -> new RsWithStatus(
+                            new RsWithBody(
+                                String.format("Invalid packages list: %s", err.getMessage()),
+                                StandardCharsets.UTF_8
+                            ),
+                            RsStatus.BAD_REQUEST
+                        )
+                    )
+                    .to(SingleInterop.get())
+            );
+        } else if (rqline.method() == RqMethod.GET && !id.isEmpty()) {
+            response = this.warmup.job(id)
+                .map(job -> WarmUpSlice.json(RsStatus.OK, job.json()))
+                .orElseGet(RsNotFound::new);
+        } else {
+            response = new RsWithStatus(RsStatus.METHOD_NOT_ALLOWED);
+        }
+        return response;
+    }
+
+    /**
+     * Value of request authorization header.
+     * @param headers Request headers
+     * @return Header value or null if there is no such header
+     */
+    private static String authorization(final Iterable<Map.Entry<String, String>> headers) {
+        return StreamSupport.stream(headers.spliterator(), false)
+            .filter(entry -> entry.getKey().equalsIgnoreCase("Authorization"))
+            .map(Map.Entry::getValue)
+            .findFirst()
+            .orElse(null);
+    }
+
+    /**
+     * JSON response.
+     * @param status Response status
+     * @param json Response JSON
+     * @return Response
+     */
+    private static Response json(final RsStatus status, final JsonObject json) {
+        return new RsWithHeaders(
+            new RsWithBody(
+                new RsWithStatus(status),
+                new Content.From(json.encode().getBytes(StandardCharsets.UTF_8))
+            ),
+            new ListOf<Map.Entry<String, String>>(
+                new MapEntry<>("Content-Type", "application/json")
+            )
+        );
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy.json;
+
+import io.vertx.core.json.JsonObject;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import org.cactoos.map.MapEntry;
+
+/**
+ * List of packages coordinates (name and version). It is read either from
+ * `package-lock.json` (lockfile version 1 `dependencies` tree or lockfile
+ * version 2+ `packages` map) or from plain text list of `name@version` lines.
+ *
+ * @since 0.3
+ */
+public final class PackageList {
+    /**
+     * Lockfile packages map key prefix.
+     */
+    private static final String MODULES = "node_modules/";
+
+    /**
+     * Version pattern (versions referencing git, files and so on are skipped).
+     */
+    private static final Pattern VERSION = Pattern.compile("^\\d+\\.\\d+\\.\\d+.*$");
+
+    /**
+     * Original list content.
+     */
+    private final String content;
+
+    /**
+     * Ctor.
+     * @param content Original list content
+     */
+    public PackageList(final String content) {
+        this.content = content;
+    }
+
+    /**
+     * Returns distinct packages coordinates.
+     * @return Package name to version entries
+     */
+    public Collection<Map.Entry<String, String>> value() {
+        final Set<Map.Entry<String, String>> result = new LinkedHashSet<>();
+        if (this.content.trim().startsWith("{")) {
+            final JsonObject json = new JsonObject(this.content);
+            if (json.containsKey("packages")) {
+                PackageList.packages(json.getJsonObject("packages"), result);
+            } else {
+                PackageList.dependencies(json.getJsonObject("dependencies"), result);
+            }
+        } else {
+            PackageList.lines(this.content, result);
+        }
+        return new ArrayList<>(result);
+    }
+
+    /**
+     * Read lockfile version 2+ packages map.
+     * @param packages Packages map
+     * @param result Coordinates collector
+     */
+    private static void packages(final JsonObject packages,
+        final Set<Map.Entry<String, String>> result) {
+        for (final String key : packages.fieldNames()) {
+            final int idx = key.lastIndexOf(PackageList.MODULES);
+            final JsonObject pkg = packages.getJsonObject(key);
+            if (idx >= 0 && !pkg.getBoolean("link", false)) {
+                PackageList.add(
+                    pkg.getString("name", key.substring(idx + PackageList.MODULES.length())),
+                    pkg.getString("version"),
+                    result
+                );
+            }
+        }
+    }
+
+    /**
+     * Read lockfile version 1 dependencies tree.
+     * @param deps Dependencies tree
+     * @param result Coordinates collector
+     */
+    private static void dependencies(final JsonObject deps,
+        final Set<Map.Entry<String, String>> result) {
+        if (deps != null) {
+            for (final String name : deps.fieldNames()) {
+                final JsonObject dep = deps.getJsonObject(name);
+                PackageList.add(name, dep.getString("version"), result);
+                PackageList.dependencies(dep.getJsonObject("dependencies"), result);
+            }
+        }
+    }
+
+    /**
+     * Read plain text list of `name@version` lines.
+     * @param text Text list
+     * @param result Coordinates collector
+     */
+    private static void lines(final String text, final Set<Map.Entry<String, String>> result) {
+        for (final String raw : text.split("\\R")) {
+            final String line = raw.trim();
+            final int idx = line.lastIndexOf('@');
+            if (!line.startsWith("#") && idx > 0) {
+                PackageList.add(line.substring(0, idx), line.substring(idx + 1), result);
+            }
+        }
+    }
+
+    /**
+     * Add coordinates if version is an exact one.
+     * @param name Package name
+     * @param version Package version
+     * @param result Coordinates collector
+     */
+    private static void add(final String name, final String version,
+        final Set<Map.Entry<String, String>> result) {
+        if (version != null && PackageList.VERSION.matcher(version).matches()) {
+            result.add(new MapEntry<>(name, version));
+        }
+    }
+}
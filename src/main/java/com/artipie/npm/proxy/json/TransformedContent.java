@@ -27,6 +27,9 @@ import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.Option;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.function.Supplier;
 import net.minidev.json.JSONArray;
 
 /**
@@ -56,6 +59,30 @@ public abstract class TransformedContent {
         return this.transformAssetRefs();
     }
 
+    /**
+     * Returns transformed package content as String and records
+     * transformation time.
+     * @param timer Transformation timer, see {@link #timer(MeterRegistry, Class)}
+     * @return Transformed package content
+     */
+    public String value(final Timer timer) {
+        return timer.record((Supplier<String>) this::value);
+    }
+
+    /**
+     * Register transformation timer of the content type. It is registered
+     * once by the content user and passed to {@link #value(Timer)}.
+     * @param registry Meter registry
+     * @param type Content type
+     * @return Timer
+     */
+    public static Timer timer(final MeterRegistry registry,
+        final Class<? extends TransformedContent> type) {
+        return Timer.builder("npm.proxy.transform")
+            .tag("type", type.getSimpleName())
+            .register(registry);
+    }
+
     /**
      * Transforms asset references.
      * @param ref Original asset reference
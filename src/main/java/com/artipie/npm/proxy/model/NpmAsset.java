@@ -25,6 +25,7 @@ package com.artipie.npm.proxy.model;
 
 import io.vertx.core.json.JsonObject;
 import java.nio.ByteBuffer;
+import java.util.Optional;
 import org.reactivestreams.Publisher;
 
 /**
@@ -117,12 +118,33 @@ public final class NpmAsset {
          */
         private final String ctype;
 
+        /**
+         * Asset size in bytes (-1 if unknown).
+         */
+        private final long bytes;
+
+        /**
+         * SHA-512 subresource integrity (null if unknown).
+         */
+        private final String sri;
+
+        /**
+         * Hex SHA-1 digest (null if unknown).
+         */
+        private final String sha;
+
         /**
          * Ctor.
          * @param json JSON representation of metadata
          */
         public Metadata(final JsonObject json) {
-            this(json.getString("last-modified"), json.getString("content-type"));
+            this(
+                json.getString("last-modified"),
+                json.getString("content-type"),
+                json.getLong("size", -1L),
+                json.getString("integrity"),
+                json.getString("shasum")
+            );
         }
 
         /**
@@ -131,8 +153,25 @@ public final class NpmAsset {
          * @param ctype Content type
          */
         Metadata(final String modified, final String ctype) {
+            this(modified, ctype, -1, null, null);
+        }
+
+        /**
+         * Ctor.
+         * @param modified Last modified date
+         * @param ctype Content type
+         * @param size Asset size in bytes (-1 if unknown)
+         * @param integrity SHA-512 subresource integrity (null if unknown)
+         * @param shasum Hex SHA-1 digest (null if unknown)
+         * @checkstyle ParameterNumberCheck (5 lines)
+         */
+        public Metadata(final String modified, final String ctype, final long size,
+            final String integrity, final String shasum) {
             this.modified = modified;
             this.ctype = ctype;
+            this.bytes = size;
+            this.sri = integrity;
+            this.sha = shasum;
         }
 
         /**
@@ -151,6 +190,30 @@ public final class NpmAsset {
             return this.ctype;
         }
 
+        /**
+         * Get asset size. It is unknown for assets cached by previous versions.
+         * @return Size in bytes or -1 if unknown
+         */
+        public long size() {
+            return this.bytes;
+        }
+
+        /**
+         * Get SHA-512 subresource integrity, as NPM {@code dist.integrity}.
+         * @return Integrity or empty if unknown
+         */
+        public Optional<String> integrity() {
+            return Optional.ofNullable(this.sri);
+        }
+
+        /**
+         * Get hex SHA-1 digest, as NPM {@code dist.shasum}.
+         * @return SHA-1 or empty if unknown
+         */
+        public Optional<String> shasum() {
+            return Optional.ofNullable(this.sha);
+        }
+
         /**
          * Get JSON representation of metadata.
          * @return JSON representation
@@ -159,6 +222,15 @@ public final class NpmAsset {
             final JsonObject json = new JsonObject();
             json.put("last-modified", this.modified);
             json.put("content-type", this.ctype);
+            if (this.bytes >= 0) {
+                json.put("size", this.bytes);
+            }
+            if (this.sri != null) {
+                json.put("integrity", this.sri);
+            }
+            if (this.sha != null) {
+                json.put("shasum", this.sha);
+            }
             return json;
         }
     }
@@ -24,8 +24,10 @@
 package com.artipie.npm.proxy.model;
 
 import io.vertx.core.json.JsonObject;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Optional;
 
 /**
  * NPM Package.
@@ -60,7 +62,24 @@ public final class NpmPackage {
         final String content,
         final String modified,
         final OffsetDateTime refreshed) {
-        this(name, content, new Metadata(modified, refreshed));
+        this(name, content, new Metadata(modified, refreshed, null));
+    }
+
+    /**
+     * Ctor.
+     * @param name Package name
+     * @param content JSON data
+     * @param modified Last modified date
+     * @param refreshed Last update date
+     * @param ttl Package metadata TTL
+     * @checkstyle ParameterNumberCheck (10 lines)
+     */
+    public NpmPackage(final String name,
+        final String content,
+        final String modified,
+        final OffsetDateTime refreshed,
+        final Duration ttl) {
+        this(name, content, new Metadata(modified, refreshed, ttl));
     }
 
     /**
@@ -115,6 +134,11 @@ public final class NpmPackage {
          */
         private final OffsetDateTime refreshed;
 
+        /**
+         * Metadata TTL computed for the package (nullable).
+         */
+        private final Duration ttl;
+
         /**
          * Ctor.
          * @param json JSON representation of metadata
@@ -125,7 +149,8 @@ public final class NpmPackage {
                 OffsetDateTime.parse(
                     json.getString("last-refreshed"),
                     DateTimeFormatter.ISO_OFFSET_DATE_TIME
-                )
+                ),
+                Optional.ofNullable(json.getString("ttl")).map(Duration::parse).orElse(null)
             );
         }
 
@@ -133,10 +158,12 @@ public final class NpmPackage {
          * Ctor.
          * @param modified Last modified date
          * @param refreshed Last refreshed date
+         * @param ttl Metadata TTL computed for the package (nullable)
          */
-        Metadata(final String modified, final OffsetDateTime refreshed) {
+        Metadata(final String modified, final OffsetDateTime refreshed, final Duration ttl) {
             this.modified = modified;
             this.refreshed = refreshed;
+            this.ttl = ttl;
         }
 
         /**
@@ -155,6 +182,14 @@ public final class NpmPackage {
             return this.refreshed;
         }
 
+        /**
+         * Get metadata TTL computed for the package.
+         * @return TTL or empty if the global one should be used
+         */
+        public Optional<Duration> ttl() {
+            return Optional.ofNullable(this.ttl);
+        }
+
         /**
          * Get JSON representation of metadata.
          * @return JSON representation
@@ -166,6 +201,9 @@ public final class NpmPackage {
                 "last-refreshed",
                 DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(this.refreshed)
             );
+            if (this.ttl != null) {
+                json.put("ttl", this.ttl.toString());
+            }
             return json;
         }
     }
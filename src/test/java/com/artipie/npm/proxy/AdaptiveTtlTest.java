@@ -0,0 +1,235 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import io.vertx.core.json.JsonObject;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiFunction;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.number.OrderingComparison;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link AdaptiveTtl}.
+ * @since 0.3
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class AdaptiveTtlTest {
+    /**
+     * Simulation start.
+     */
+    private static final OffsetDateTime START =
+        OffsetDateTime.of(2020, 5, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+    /**
+     * Adaptive TTL with 5 minutes - 7 days bounds.
+     */
+    private static final AdaptiveTtl TTL = new AdaptiveTtl(
+        Duration.ofMinutes(5), Duration.ofDays(7), 0.1
+    );
+
+    @Test
+    void refreshesActivePackagesOften() {
+        final List<OffsetDateTime> publishes = new ArrayList<>(10);
+        for (int day = 10; day > 0; day -= 1) {
+            publishes.add(AdaptiveTtlTest.START.minusDays(day));
+        }
+        MatcherAssert.assertThat(
+            AdaptiveTtlTest.TTL.ttl(AdaptiveTtlTest.content(publishes), AdaptiveTtlTest.START)
+                .get(),
+            new IsEqual<>(Duration.ofDays(1).dividedBy(10))
+        );
+    }
+
+    @Test
+    void refreshesAbandonedPackagesRarely() {
+        final List<OffsetDateTime> publishes = new ArrayList<>(1);
+        publishes.add(AdaptiveTtlTest.START.minusYears(3));
+        MatcherAssert.assertThat(
+            AdaptiveTtlTest.TTL.ttl(AdaptiveTtlTest.content(publishes), AdaptiveTtlTest.START)
+                .get(),
+            new IsEqual<>(Duration.ofDays(7))
+        );
+    }
+
+    @Test
+    void keepsMinimalTtlForJustPublishedPackage() {
+        final List<OffsetDateTime> publishes = new ArrayList<>(2);
+        publishes.add(AdaptiveTtlTest.START.minusMinutes(2));
+        publishes.add(AdaptiveTtlTest.START.minusMinutes(1));
+        MatcherAssert.assertThat(
+            AdaptiveTtlTest.TTL.ttl(AdaptiveTtlTest.content(publishes), AdaptiveTtlTest.START)
+                .get(),
+            new IsEqual<>(Duration.ofMinutes(5))
+        );
+    }
+
+    @Test
+    void usesMaximalTtlWithoutTimeField() {
+        MatcherAssert.assertThat(
+            AdaptiveTtlTest.TTL.ttl(
+                JsonPath.parse("{\"name\":\"any\"}"), AdaptiveTtlTest.START
+            ).get(),
+            new IsEqual<>(Duration.ofDays(7))
+        );
+    }
+
+    @Test
+    void isDisabledWithoutMaximalTtl() {
+        MatcherAssert.assertThat(
+            new AdaptiveTtl(Duration.ofMinutes(5), Duration.ZERO, 0.1)
+                .ttl(JsonPath.parse("{}"), AdaptiveTtlTest.START).isPresent(),
+            new IsEqual<>(false)
+        );
+    }
+
+    /**
+     * Simulate a month of hourly requests of 1000 packages: 20 packages
+     * publishing daily and a long tail not published for years. Adaptive TTL
+     * should cut upstream refreshes at least by half compared to the global
+     * one day TTL and serve stale metadata of active packages less often.
+     */
+    @Test
+    void cutsRefreshesOfLongTailInSimulation() {
+        final List<List<OffsetDateTime>> population = AdaptiveTtlTest.population(1_000, 20);
+        final Simulation fixed = new Simulation(population, (content, now) -> Duration.ofDays(1));
+        final Simulation adaptive = new Simulation(
+            population, (content, now) -> AdaptiveTtlTest.TTL.ttl(content, now).get()
+        );
+        MatcherAssert.assertThat(
+            adaptive.refreshes * 2,
+            OrderingComparison.lessThan(fixed.refreshes)
+        );
+        MatcherAssert.assertThat(
+            adaptive.stale,
+            OrderingComparison.lessThan(fixed.stale)
+        );
+    }
+
+    /**
+     * Synthetic packages population.
+     * @param size Number of packages
+     * @param active Number of packages publishing daily
+     * @return Publish dates of every package
+     */
+    private static List<List<OffsetDateTime>> population(final int size, final int active) {
+        final Random random = new Random(42);
+        final List<List<OffsetDateTime>> result = new ArrayList<>(size);
+        for (int idx = 0; idx < size; idx += 1) {
+            final List<OffsetDateTime> publishes = new ArrayList<>(0);
+            if (idx < active) {
+                OffsetDateTime date = AdaptiveTtlTest.START.minusDays(30).plusHours(idx);
+                while (date.isBefore(AdaptiveTtlTest.START.plusDays(Simulation.DAYS))) {
+                    publishes.add(date);
+                    date = date.plusHours(20 + random.nextInt(8));
+                }
+            } else {
+                OffsetDateTime date = AdaptiveTtlTest.START
+                    .minusDays(365 + random.nextInt(4 * 365));
+                for (int count = 1 + random.nextInt(20); count > 0; count -= 1) {
+                    publishes.add(0, date);
+                    date = date.minusDays(1 + random.nextInt(60));
+                }
+            }
+            result.add(publishes);
+        }
+        return result;
+    }
+
+    /**
+     * Package metadata with time field.
+     * @param publishes Publish dates
+     * @return Parsed package metadata
+     */
+    private static DocumentContext content(final List<OffsetDateTime> publishes) {
+        final JsonObject time = new JsonObject()
+            .put("created", publishes.get(0).toString())
+            .put("modified", publishes.get(publishes.size() - 1).toString());
+        for (int idx = 0; idx < publishes.size(); idx += 1) {
+            time.put(String.format("1.0.%d", idx), publishes.get(idx).toString());
+        }
+        return JsonPath.parse(new JsonObject().put("name", "any").put("time", time).encode());
+    }
+
+    /**
+     * Proxy cache simulation with hourly requests of every package.
+     * @since 0.3
+     */
+    private static final class Simulation {
+        /**
+         * Simulated days.
+         */
+        private static final int DAYS = 30;
+
+        /**
+         * Number of upstream refreshes.
+         */
+        private int refreshes;
+
+        /**
+         * Number of requests answered with outdated metadata.
+         */
+        private int stale;
+
+        /**
+         * Ctor.
+         * @param population Publish dates of every package
+         * @param ttl TTL of package metadata at the time
+         */
+        Simulation(final List<List<OffsetDateTime>> population,
+            final BiFunction<DocumentContext, OffsetDateTime, Duration> ttl) {
+            for (final List<OffsetDateTime> publishes : population) {
+                OffsetDateTime expires = AdaptiveTtlTest.START;
+                int cached = 0;
+                for (int hour = 0; hour < Simulation.DAYS * 24; hour += 1) {
+                    final OffsetDateTime now = AdaptiveTtlTest.START.plusHours(hour);
+                    int known = 0;
+                    while (known < publishes.size() && !publishes.get(known).isAfter(now)) {
+                        known += 1;
+                    }
+                    if (!now.isBefore(expires)) {
+                        this.refreshes += 1;
+                        cached = known;
+                        expires = now.plus(
+                            ttl.apply(
+                                AdaptiveTtlTest.content(publishes.subList(0, known)), now
+                            )
+                        );
+                    }
+                    if (cached < known) {
+                        this.stale += 1;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.rx.RxStorage;
+import com.artipie.asto.rx.RxStorageWrapper;
+import com.artipie.npm.proxy.model.NpmPackage;
+import io.reactivex.Completable;
+import io.reactivex.Maybe;
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * Test for {@link BloomNpmProxyStorage}.
+ * @since 0.3
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class BloomNpmProxyStorageTest {
+    /**
+     * Underlying storage.
+     */
+    private RxStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        this.storage = new RxStorageWrapper(new InMemoryStorage());
+    }
+
+    @Test
+    void skipsDefiniteMisses() {
+        final NpmProxyStorage origin = Mockito.mock(NpmProxyStorage.class);
+        final BloomNpmProxyStorage bloom = this.bloom(origin);
+        MatcherAssert.assertThat(
+            bloom.getPackage("absent").isEmpty().blockingGet(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            bloom.getAsset("absent/-/absent-1.0.0.tgz").isEmpty().blockingGet(),
+            new IsEqual<>(true)
+        );
+        Mockito.verifyNoInteractions(origin);
+        MatcherAssert.assertThat(bloom.skipped(), new IsEqual<>(2L));
+    }
+
+    @Test
+    void rebuildsFromStorageKeys() {
+        this.storage.save(
+            new Key.From("cached", "meta.json"), new Content.From(new byte[]{1})
+        ).blockingAwait();
+        final NpmProxyStorage origin = Mockito.mock(NpmProxyStorage.class);
+        final NpmPackage pkg = BloomNpmProxyStorageTest.pkg("cached");
+        Mockito.when(origin.getPackage("cached")).thenReturn(Maybe.just(pkg));
+        MatcherAssert.assertThat(
+            this.bloom(origin).getPackage("cached").blockingGet(),
+            new IsEqual<>(pkg)
+        );
+    }
+
+    @Test
+    void updatesFilterOnSaveAndDelete() {
+        final NpmProxyStorage origin = new RxNpmProxyStorage(this.storage);
+        final BloomNpmProxyStorage bloom = this.bloom(origin);
+        bloom.save(BloomNpmProxyStorageTest.pkg("saved")).blockingAwait();
+        MatcherAssert.assertThat(
+            bloom.getPackage("saved").blockingGet().name(),
+            new IsEqual<>("saved")
+        );
+        bloom.deletePackage("saved").blockingAwait();
+        MatcherAssert.assertThat(
+            bloom.getPackage("saved").isEmpty().blockingGet(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(bloom.skipped(), new IsEqual<>(1L));
+        MatcherAssert.assertThat(bloom.positives(), new IsEqual<>(0L));
+    }
+
+    @Test
+    void doesNotRemoveKeysWhichWereNotAdded() {
+        final NpmProxyStorage origin = Mockito.mock(NpmProxyStorage.class);
+        final NpmPackage pkg = BloomNpmProxyStorageTest.pkg("cached");
+        Mockito.when(origin.save(pkg)).thenReturn(Completable.complete());
+        Mockito.when(origin.getPackage("cached")).thenReturn(Maybe.just(pkg));
+        Mockito.when(origin.deletePackage(Mockito.anyString()))
+            .thenReturn(Completable.complete());
+        final BloomNpmProxyStorage bloom = new BloomNpmProxyStorage(
+            origin, this.storage, new CountingBloomFilter(1, 0.5)
+        );
+        bloom.loaded().blockingAwait();
+        bloom.save(pkg).blockingAwait();
+        for (int idx = 0; idx < 50; idx += 1) {
+            bloom.deletePackage(String.format("absent-%d", idx)).blockingAwait();
+        }
+        MatcherAssert.assertThat(
+            bloom.getPackage("cached").blockingGet().name(),
+            new IsEqual<>("cached")
+        );
+    }
+
+    @Test
+    void persistsFilterOnClose() throws IOException {
+        final NpmProxyStorage origin = new RxNpmProxyStorage(this.storage);
+        final BloomNpmProxyStorage first = this.bloom(origin);
+        first.save(BloomNpmProxyStorageTest.pkg("persisted")).blockingAwait();
+        this.storage.delete(new Key.From("persisted", "meta.json")).blockingAwait();
+        first.close();
+        final BloomNpmProxyStorage second = this.bloom(origin);
+        MatcherAssert.assertThat(
+            second.getPackage("persisted").isEmpty().blockingGet(),
+            new IsEqual<>(true)
+        );
+        MatcherAssert.assertThat(
+            "Filter restored from snapshot should count false positive",
+            second.positives(),
+            new IsEqual<>(1L)
+        );
+        MatcherAssert.assertThat(
+            "Snapshot should be deleted after loading",
+            this.storage.exists(new Key.From(".bloom")).blockingGet(),
+            new IsEqual<>(false)
+        );
+    }
+
+    private BloomNpmProxyStorage bloom(final NpmProxyStorage origin) {
+        final BloomNpmProxyStorage bloom = new BloomNpmProxyStorage(
+            origin, this.storage, new CountingBloomFilter(1_000, 0.01)
+        );
+        bloom.loaded().blockingAwait();
+        return bloom;
+    }
+
+    private static NpmPackage pkg(final String name) {
+        return new NpmPackage(
+            name, "{}", "Tue, 24 Mar 2020 12:15:16 GMT", OffsetDateTime.now()
+        );
+    }
+}
@@ -0,0 +1,299 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.asto.Concatenation;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Remaining;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.rx.RxStorage;
+import com.artipie.asto.rx.RxStorageWrapper;
+import io.reactivex.Completable;
+import io.reactivex.schedulers.TestScheduler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.http.HttpServer;
+import io.vertx.reactivex.core.http.HttpServerRequest;
+import io.vertx.reactivex.ext.web.client.WebClient;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link ChangesFollower} with local fake changes feed server.
+ * @since 0.3
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class ChangesFollowerTest {
+    /**
+     * Vertx instance.
+     */
+    private static Vertx vertx;
+
+    /**
+     * Fake feed changes: package names in order of sequence numbers starting from 1.
+     */
+    private List<String> feed;
+
+    /**
+     * Number of feed requests.
+     */
+    private AtomicInteger requests;
+
+    /**
+     * Whether the fake feed fails.
+     */
+    private boolean failing;
+
+    /**
+     * Fake feed server.
+     */
+    private HttpServer server;
+
+    /**
+     * Refreshed packages names.
+     */
+    private List<String> refreshed;
+
+    /**
+     * Number of attempts to refresh broken package.
+     */
+    private AtomicInteger broken;
+
+    /**
+     * Checkpoint storage.
+     */
+    private RxStorage storage;
+
+    /**
+     * Ticks scheduler.
+     */
+    private TestScheduler scheduler;
+
+    @BeforeEach
+    void setUp() throws IOException, InterruptedException {
+        this.feed = Collections.synchronizedList(new ArrayList<>(0));
+        this.requests = new AtomicInteger();
+        this.refreshed = Collections.synchronizedList(new ArrayList<>(0));
+        this.broken = new AtomicInteger();
+        this.storage = new RxStorageWrapper(new InMemoryStorage());
+        this.scheduler = new TestScheduler();
+        final CountDownLatch latch = new CountDownLatch(1);
+        this.server = ChangesFollowerTest.vertx.createHttpServer()
+            .requestHandler(this::changes)
+            .listen(ChangesFollowerTest.rndPort(), unused -> latch.countDown());
+        latch.await();
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.server.close();
+    }
+
+    @Test
+    void followsFeedFromNowOnFirstStart() {
+        this.feed.addAll(Arrays.asList("old-one", "old-two"));
+        final ChangesFollower follower = this.follower(10);
+        follower.tick().blockingAwait();
+        this.feed.addAll(Arrays.asList("left", "right"));
+        follower.tick().blockingAwait();
+        MatcherAssert.assertThat(this.refreshed, new IsEqual<>(Arrays.asList("left", "right")));
+        MatcherAssert.assertThat(this.checkpoint(), new IsEqual<>("4"));
+        follower.close();
+    }
+
+    @Test
+    void catchesUpInBatchesFromCheckpoint() {
+        this.storage.save(
+            new Key.From(".changes"), new Content.From("2".getBytes(StandardCharsets.UTF_8))
+        ).blockingAwait();
+        for (int idx = 0; idx < 9; idx += 1) {
+            this.feed.add(String.format("pkg-%d", idx));
+        }
+        final ChangesFollower follower = this.follower(3);
+        follower.tick().blockingAwait();
+        MatcherAssert.assertThat(
+            Arrays.asList(this.refreshed.size(), this.requests.get(), follower.changes()),
+            new IsEqual<>(Arrays.asList(7, 3, 7L))
+        );
+        MatcherAssert.assertThat(this.checkpoint(), new IsEqual<>("9"));
+        follower.close();
+    }
+
+    @Test
+    void keepsCheckpointWhenRefreshFails() {
+        this.storage.save(
+            new Key.From(".changes"), new Content.From("0".getBytes(StandardCharsets.UTF_8))
+        ).blockingAwait();
+        this.feed.addAll(Arrays.asList("left", "broken", "right"));
+        final ChangesFollower follower = this.follower(10);
+        follower.tick().blockingAwait();
+        MatcherAssert.assertThat(
+            Arrays.asList(this.checkpoint(), follower.failed(), this.refreshed.size()),
+            new IsEqual<>(Arrays.asList("0", 1L, 2))
+        );
+        follower.close();
+    }
+
+    @Test
+    void givesUpOnPackageFailingToRefresh() throws InterruptedException {
+        this.storage.save(
+            new Key.From(".changes"), new Content.From("0".getBytes(StandardCharsets.UTF_8))
+        ).blockingAwait();
+        this.feed.addAll(Arrays.asList("left", "broken", "right"));
+        final ChangesFollower follower = this.follower(10);
+        follower.tick().blockingAwait();
+        for (int wait = 0; wait < 50 && !"3".equals(this.checkpoint()); wait += 1) {
+            this.scheduler.advanceTimeBy(10, TimeUnit.MINUTES);
+            Thread.sleep(100);
+        }
+        MatcherAssert.assertThat(
+            Arrays.asList(this.checkpoint(), this.broken.get(), this.refreshed),
+            new IsEqual<>(Arrays.asList("3", 3, Arrays.asList("left", "right")))
+        );
+        follower.close();
+    }
+
+    @Test
+    void backsOffAfterFailure() throws InterruptedException {
+        this.failing = true;
+        final ChangesFollower follower = this.follower(10);
+        follower.tick().blockingAwait();
+        follower.tick().blockingAwait();
+        MatcherAssert.assertThat(
+            Arrays.asList(this.requests.get(), follower.failed()),
+            new IsEqual<>(Arrays.asList(1, 1L))
+        );
+        this.failing = false;
+        this.scheduler.advanceTimeBy(2, TimeUnit.SECONDS);
+        for (int wait = 0; wait < 50 && this.storage.list(new Key.From(".changes"))
+            .blockingGet().isEmpty(); wait += 1) {
+            Thread.sleep(100);
+        }
+        MatcherAssert.assertThat(this.requests.get(), new IsEqual<>(2));
+        follower.close();
+    }
+
+    @BeforeAll
+    static void prepare() {
+        ChangesFollowerTest.vertx = Vertx.vertx();
+    }
+
+    @AfterAll
+    static void cleanup() {
+        ChangesFollowerTest.vertx.close();
+    }
+
+    private ChangesFollower follower(final int batch) {
+        return new ChangesFollower(
+            WebClient.create(ChangesFollowerTest.vertx),
+            String.format("http://localhost:%d/_changes", this.server.actualPort()),
+            this.storage,
+            new Invalidations(
+                name -> Completable.fromAction(
+                    () -> {
+                        if ("broken".equals(name)) {
+                            this.broken.incrementAndGet();
+                            throw new IllegalStateException("Remote repository failed");
+                        }
+                        this.refreshed.add(name);
+                    }
+                ),
+                "",
+                Duration.ofHours(1),
+                1,
+                this.scheduler
+            ),
+            batch,
+            Duration.ofSeconds(1),
+            this.scheduler
+        );
+    }
+
+    private String checkpoint() {
+        return new String(
+            this.storage.value(new Key.From(".changes"))
+                .flatMap(content -> new Concatenation(content).single())
+                .map(buf -> new Remaining(buf).bytes())
+                .blockingGet(),
+            StandardCharsets.UTF_8
+        );
+    }
+
+    /**
+     * Fake CouchDB-style changes feed.
+     * @param request Feed request
+     */
+    private void changes(final HttpServerRequest request) {
+        this.requests.incrementAndGet();
+        if (this.failing) {
+            request.response().setStatusCode(500).end();
+        } else {
+            final String since = request.getParam("since");
+            final int limit = Integer.parseInt(request.getParam("limit"));
+            final int from;
+            if ("now".equals(since)) {
+                from = this.feed.size();
+            } else {
+                from = Integer.parseInt(since);
+            }
+            final JsonArray results = new JsonArray();
+            int last = from;
+            for (int seq = from + 1; seq <= this.feed.size() && results.size() < limit;
+                seq += 1) {
+                results.add(
+                    new JsonObject().put("seq", seq).put("id", this.feed.get(seq - 1))
+                        .put("changes", new JsonArray().add(new JsonObject().put("rev", "1-a")))
+                );
+                last = seq;
+            }
+            request.response().putHeader("Content-Type", "application/json").end(
+                new JsonObject().put("results", results).put("last_seq", last).encode()
+            );
+        }
+    }
+
+    private static int rndPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.reactivex.Maybe;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsInstanceOf;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Circuit breaker test.
+ * @since 0.3
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class CircuitBreakerTest {
+    /**
+     * Failures threshold.
+     */
+    private static final int THRESHOLD = 3;
+
+    /**
+     * Open duration.
+     */
+    private static final Duration OPEN = Duration.ofSeconds(30);
+
+    /**
+     * Test clock.
+     */
+    private FakeClock clock;
+
+    /**
+     * Circuit breaker.
+     */
+    private CircuitBreaker breaker;
+
+    /**
+     * Remote calls counter.
+     */
+    private AtomicInteger calls;
+
+    @Test
+    void staysClosedWhileCallsSucceed() {
+        for (int idx = 0; idx < CircuitBreakerTest.THRESHOLD * 2; idx += 1) {
+            this.breaker.protect(this.call(Maybe.just("ok"))).blockingGet();
+        }
+        MatcherAssert.assertThat(
+            this.breaker.state(),
+            new IsEqual<>(CircuitBreaker.State.CLOSED)
+        );
+    }
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        this.fail(CircuitBreakerTest.THRESHOLD);
+        MatcherAssert.assertThat(
+            this.breaker.state(),
+            new IsEqual<>(CircuitBreaker.State.OPEN)
+        );
+        MatcherAssert.assertThat(
+            this.breaker.protect(this.call(Maybe.just("ok")))
+                .onErrorReturnItem("rejected").blockingGet(),
+            new IsEqual<>("rejected")
+        );
+        MatcherAssert.assertThat(
+            "Remote called while breaker is open",
+            this.calls.get(),
+            new IsEqual<>(CircuitBreakerTest.THRESHOLD)
+        );
+    }
+
+    @Test
+    void rejectsWithOpenException() {
+        this.fail(CircuitBreakerTest.THRESHOLD);
+        MatcherAssert.assertThat(
+            this.breaker.protect(Maybe.just("ok")).materialize().blockingGet().getError(),
+            new IsInstanceOf(CircuitBreaker.OpenException.class)
+        );
+    }
+
+    @Test
+    void doesNotOpenWhenFailuresAreInterleaved() {
+        this.fail(CircuitBreakerTest.THRESHOLD - 1);
+        this.breaker.protect(this.call(Maybe.empty())).blockingGet();
+        this.fail(CircuitBreakerTest.THRESHOLD - 1);
+        MatcherAssert.assertThat(
+            this.breaker.state(),
+            new IsEqual<>(CircuitBreaker.State.CLOSED)
+        );
+    }
+
+    @Test
+    void closesAfterSuccessfulProbe() {
+        this.fail(CircuitBreakerTest.THRESHOLD);
+        this.clock.advance(CircuitBreakerTest.OPEN);
+        MatcherAssert.assertThat(
+            this.breaker.protect(this.call(Maybe.just("probe"))).blockingGet(),
+            new IsEqual<>("probe")
+        );
+        MatcherAssert.assertThat(
+            this.breaker.state(),
+            new IsEqual<>(CircuitBreaker.State.CLOSED)
+        );
+    }
+
+    @Test
+    void reopensAfterFailedProbe() {
+        this.fail(CircuitBreakerTest.THRESHOLD);
+        this.clock.advance(CircuitBreakerTest.OPEN);
+        this.fail(1);
+        MatcherAssert.assertThat(
+            this.breaker.state(),
+            new IsEqual<>(CircuitBreaker.State.OPEN)
+        );
+    }
+
+    @Test
+    void countsSlowCallsAsFailures() {
+        final CircuitBreaker slow = new CircuitBreaker(
+            1, Duration.ofSeconds(1), CircuitBreakerTest.OPEN, this.clock
+        );
+        slow.protect(
+            Maybe.fromCallable(
+                () -> {
+                    this.clock.advance(Duration.ofSeconds(2));
+                    return "slow";
+                }
+            )
+        ).blockingGet();
+        MatcherAssert.assertThat(
+            slow.state(),
+            new IsEqual<>(CircuitBreaker.State.OPEN)
+        );
+    }
+
+    @Test
+    void judgesCallByAnswerStart() {
+        final CircuitBreaker slow = new CircuitBreaker(
+            1, Duration.ofSeconds(1), CircuitBreakerTest.OPEN, this.clock
+        );
+        slow.protect(
+            gate -> Maybe.fromCallable(
+                () -> {
+                    this.clock.advance(Duration.ofSeconds(2));
+                    gate.sent();
+                    gate.answered();
+                    this.clock.advance(Duration.ofSeconds(2));
+                    return "streamed";
+                }
+            ).flatMap(ignored -> Maybe.<String>error(new IllegalStateException("broken")))
+        ).onErrorComplete().blockingGet();
+        MatcherAssert.assertThat(
+            slow.state(),
+            new IsEqual<>(CircuitBreaker.State.CLOSED)
+        );
+    }
+
+    @Test
+    void countsSlowAnswerStartAsFailure() {
+        final CircuitBreaker slow = new CircuitBreaker(
+            1, Duration.ofSeconds(1), CircuitBreakerTest.OPEN, this.clock
+        );
+        slow.protect(
+            gate -> Maybe.fromCallable(
+                () -> {
+                    gate.sent();
+                    this.clock.advance(Duration.ofSeconds(2));
+                    gate.answered();
+                    return "slow";
+                }
+            )
+        ).blockingGet();
+        MatcherAssert.assertThat(
+            slow.state(),
+            new IsEqual<>(CircuitBreaker.State.OPEN)
+        );
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.clock = new FakeClock();
+        this.calls = new AtomicInteger();
+        this.breaker = new CircuitBreaker(
+            CircuitBreakerTest.THRESHOLD,
+            Duration.ZERO,
+            CircuitBreakerTest.OPEN,
+            this.clock
+        );
+    }
+
+    private void fail(final int times) {
+        for (int idx = 0; idx < times; idx += 1) {
+            this.breaker.protect(
+                this.call(Maybe.<String>error(new IllegalStateException("failed")))
+            ).onErrorComplete().blockingGet();
+        }
+    }
+
+    private Maybe<String> call(final Maybe<String> result) {
+        return Maybe.defer(
+            () -> {
+                this.calls.incrementAndGet();
+                return result;
+            }
+        );
+    }
+
+    /**
+     * Manually advanced clock.
+     * @since 0.3
+     */
+    private static final class FakeClock extends Clock {
+        /**
+         * Current instant.
+         */
+        private Instant now = Instant.EPOCH;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(final ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return this.now;
+        }
+
+        void advance(final Duration duration) {
+            this.now = this.now.plus(duration);
+        }
+    }
+}
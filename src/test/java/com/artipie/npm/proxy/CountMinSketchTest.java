@@ -0,0 +1,68 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.number.OrderingComparison;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Count-min sketch test.
+ * @since 0.3
+ */
+public final class CountMinSketchTest {
+    @Test
+    void neverUnderestimates() {
+        final CountMinSketch sketch = new CountMinSketch(64);
+        for (int idx = 0; idx < 100; idx += 1) {
+            for (int rep = 0; rep <= idx % 5; rep += 1) {
+                sketch.add(String.format("pkg-%d", idx));
+            }
+        }
+        for (int idx = 0; idx < 100; idx += 1) {
+            MatcherAssert.assertThat(
+                sketch.estimate(String.format("pkg-%d", idx)),
+                OrderingComparison.greaterThanOrEqualTo(idx % 5 + 1L)
+            );
+        }
+    }
+
+    @Test
+    void countsExactlyWithoutCollisions() {
+        final CountMinSketch sketch = new CountMinSketch(1024);
+        sketch.add("left");
+        sketch.add("left");
+        MatcherAssert.assertThat(sketch.add("left"), new IsEqual<>(3L));
+    }
+
+    @Test
+    void fadesOldFrequencies() {
+        final CountMinSketch sketch = new CountMinSketch(4);
+        for (int idx = 0; idx < 40; idx += 1) {
+            sketch.add("left");
+        }
+        MatcherAssert.assertThat(sketch.estimate("left"), new IsEqual<>(20L));
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.number.OrderingComparison;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link CountingBloomFilter}.
+ * @since 0.3
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class CountingBloomFilterTest {
+    @Test
+    void containsAddedItems() {
+        final CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        for (int idx = 0; idx < 1_000; idx += 1) {
+            filter.add(String.format("pkg-%d/meta.json", idx));
+        }
+        for (int idx = 0; idx < 1_000; idx += 1) {
+            MatcherAssert.assertThat(
+                filter.contains(String.format("pkg-%d/meta.json", idx)),
+                new IsEqual<>(true)
+            );
+        }
+    }
+
+    @Test
+    void keepsFalsePositiveRate() {
+        final CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        for (int idx = 0; idx < 1_000; idx += 1) {
+            filter.add(String.format("cached-%d", idx));
+        }
+        int positives = 0;
+        for (int idx = 0; idx < 10_000; idx += 1) {
+            if (filter.contains(String.format("absent-%d", idx))) {
+                positives += 1;
+            }
+        }
+        MatcherAssert.assertThat(positives, OrderingComparison.lessThan(200));
+        MatcherAssert.assertThat(filter.fpp(), OrderingComparison.lessThan(0.02));
+    }
+
+    @Test
+    void removesItems() {
+        final CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+        filter.add("left");
+        filter.add("right");
+        filter.remove("left");
+        MatcherAssert.assertThat(filter.contains("left"), new IsEqual<>(false));
+        MatcherAssert.assertThat(filter.contains("right"), new IsEqual<>(true));
+    }
+
+    @Test
+    void restoresFromBytes() {
+        final CountingBloomFilter filter = new CountingBloomFilter(100, 0.01);
+        filter.add("stored");
+        final CountingBloomFilter restored = new CountingBloomFilter(100, 0.01);
+        MatcherAssert.assertThat(restored.restore(filter.bytes()), new IsEqual<>(true));
+        MatcherAssert.assertThat(restored.contains("stored"), new IsEqual<>(true));
+        MatcherAssert.assertThat(
+            "Filter with other parameters should not be restored",
+            new CountingBloomFilter(200, 0.01).restore(filter.bytes()),
+            new IsEqual<>(false)
+        );
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link Digests}.
+ * @since 0.3
+ */
+final class DigestsTest {
+    @Test
+    void digestsDataByChunks() {
+        final Digests digests = new Digests();
+        digests.update(ByteBuffer.wrap("a".getBytes(StandardCharsets.UTF_8)));
+        digests.update(ByteBuffer.wrap("bc".getBytes(StandardCharsets.UTF_8)));
+        MatcherAssert.assertThat(
+            digests.shasum(),
+            new IsEqual<>("a9993e364706816aba3e25717850c26c9cd0d89d")
+        );
+        MatcherAssert.assertThat(
+            digests.integrity(),
+            new IsEqual<>(
+                //@checkstyle LineLengthCheck (1 line)
+                "sha512-3a81oZNherrMQXNJriBBMRLm+k6JqX6iCp7u5ktV05ohkpkqJ0/BqDa6PCOj/uu9RU1EI2Q86A4qmslPpUyknw=="
+            )
+        );
+    }
+
+    @Test
+    void startsOver() {
+        final Digests digests = new Digests();
+        digests.update(ByteBuffer.wrap("garbage".getBytes(StandardCharsets.UTF_8)));
+        digests.reset();
+        digests.update(ByteBuffer.wrap("abc".getBytes(StandardCharsets.UTF_8)));
+        MatcherAssert.assertThat(
+            digests.shasum(),
+            new IsEqual<>("a9993e364706816aba3e25717850c26c9cd0d89d")
+        );
+    }
+}
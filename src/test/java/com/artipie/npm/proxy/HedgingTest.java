@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.reactivex.Maybe;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Hedging policy test.
+ * @since 0.3
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class HedgingTest {
+    /**
+     * Slow primary call duration (in millis).
+     */
+    private static final long SLOW = 500;
+
+    @Test
+    void doesNotHedgeWithoutLatencyStatistics() {
+        final Hedging hedging = new Hedging(95, Duration.ofMillis(1), 1.0);
+        MatcherAssert.assertThat(
+            hedging.apply(HedgingTest::slowPrimary).blockingGet(),
+            new IsEqual<>("primary")
+        );
+        MatcherAssert.assertThat(hedging.sent(), new IsEqual<>(0L));
+    }
+
+    @Test
+    void hedgeWinsOverSlowPrimary() {
+        final Hedging hedging = HedgingTest.warmedUp(1.0);
+        MatcherAssert.assertThat(
+            hedging.apply(HedgingTest::slowPrimary).blockingGet(),
+            new IsEqual<>("hedge")
+        );
+        MatcherAssert.assertThat("Hedge was not sent", hedging.sent(), new IsEqual<>(1L));
+        MatcherAssert.assertThat("Hedge did not win", hedging.won(), new IsEqual<>(1L));
+    }
+
+    @Test
+    void doesNotHedgeAnsweredCall() {
+        final Hedging hedging = HedgingTest.warmedUp(1.0);
+        MatcherAssert.assertThat(
+            hedging.apply(
+                (hedge, answered) -> {
+                    answered.run();
+                    return Maybe.timer(HedgingTest.SLOW, TimeUnit.MILLISECONDS)
+                        .map(ignored -> "streaming");
+                }
+            ).blockingGet(),
+            new IsEqual<>("streaming")
+        );
+        MatcherAssert.assertThat(hedging.sent(), new IsEqual<>(0L));
+    }
+
+    @Test
+    void respectsBudget() {
+        final Hedging hedging = HedgingTest.warmedUp(0.5);
+        final int calls = 4;
+        for (int idx = 0; idx < calls; idx += 1) {
+            hedging.apply(HedgingTest::slowPrimary).blockingGet();
+        }
+        MatcherAssert.assertThat(hedging.sent(), new IsEqual<>(2L));
+    }
+
+    @Test
+    void ignoresFailedHedge() {
+        final Hedging hedging = HedgingTest.warmedUp(1.0);
+        MatcherAssert.assertThat(
+            hedging.apply(
+                (hedge, answered) -> {
+                    final Maybe<String> result;
+                    if (hedge) {
+                        result = Maybe.error(new IllegalStateException("hedge failed"));
+                    } else {
+                        result = Maybe.timer(HedgingTest.SLOW, TimeUnit.MILLISECONDS)
+                            .map(ignored -> "primary");
+                    }
+                    return result;
+                }
+            ).blockingGet(),
+            new IsEqual<>("primary")
+        );
+        MatcherAssert.assertThat(hedging.won(), new IsEqual<>(0L));
+    }
+
+    private static Hedging warmedUp(final double budget) {
+        final Hedging hedging = new Hedging(95, Duration.ofMillis(1), budget);
+        final int warmup = 16;
+        for (int idx = 0; idx < warmup; idx += 1) {
+            hedging.apply(
+                (hedge, answered) -> {
+                    answered.run();
+                    return Maybe.just("fast");
+                }
+            ).blockingGet();
+        }
+        return hedging;
+    }
+
+    private static Maybe<String> slowPrimary(final boolean hedge, final Runnable answered) {
+        final Maybe<String> result;
+        if (hedge) {
+            result = Maybe.fromCallable(
+                () -> {
+                    answered.run();
+                    return "hedge";
+                }
+            );
+        } else {
+            result = Maybe.timer(HedgingTest.SLOW, TimeUnit.MILLISECONDS)
+                .map(ignored -> "primary");
+        }
+        return result;
+    }
+}
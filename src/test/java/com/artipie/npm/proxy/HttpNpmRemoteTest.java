@@ -25,19 +25,37 @@ package com.artipie.npm.proxy;
 
 import com.amihaiemil.eoyaml.Yaml;
 import com.amihaiemil.eoyaml.YamlMapping;
+import com.amihaiemil.eoyaml.YamlSequenceBuilder;
 import com.artipie.asto.Concatenation;
 import com.artipie.npm.proxy.model.NpmAsset;
 import com.artipie.npm.proxy.model.NpmPackage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.vertx.core.Handler;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.impl.BlockedThreadChecker;
+import io.vertx.core.json.JsonObject;
 import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
 import io.vertx.reactivex.core.http.HttpServer;
+import io.vertx.reactivex.core.http.HttpServerRequest;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.ServerSocket;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.LogRecord;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.core.IsEqual;
 import org.json.JSONException;
@@ -85,6 +103,11 @@ public final class HttpNpmRemoteTest {
      */
     private HttpServer server;
 
+    /**
+     * Http Server port.
+     */
+    private int port;
+
     @Test
     public void loadsPackage() throws IOException, JSONException {
         final String name = "asdas";
@@ -117,6 +140,38 @@ public final class HttpNpmRemoteTest {
         );
     }
 
+    @Test
+    public void recordsUpstreamLatencyByStatus() {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final HttpNpmRemote metered = new HttpNpmRemote(
+            new NpmProxyConfig(
+                Yaml.createYamlMappingBuilder().add(
+                    "remote",
+                    Yaml.createYamlMappingBuilder().add(
+                        "url", String.format("http://localhost:%d", this.port)
+                    ).build()
+                ).build()
+            ),
+            HttpNpmRemoteTest.vertx,
+            registry
+        );
+        try {
+            metered.loadPackage("asdas").blockingGet();
+            metered.loadPackage("absent").blockingGet();
+            MatcherAssert.assertThat(
+                Arrays.asList(
+                    registry.timer("npm.proxy.upstream", "type", "package", "status", "200")
+                        .count(),
+                    registry.timer("npm.proxy.upstream", "type", "package", "status", "404")
+                        .count()
+                ),
+                new IsEqual<>(Arrays.asList(1L, 1L))
+            );
+        } finally {
+            metered.close();
+        }
+    }
+
     @Test
     public void loadsAsset() throws IOException {
         final String path = "asdas/-/asdas-1.0.0.tgz";
@@ -143,6 +198,14 @@ public final class HttpNpmRemoteTest {
                 asset.meta().contentType(),
                 new IsEqual<>(HttpNpmRemoteTest.DEF_CONTENT_TYPE)
             );
+            MatcherAssert.assertThat(
+                asset.meta().size(),
+                new IsEqual<>((long) HttpNpmRemoteTest.DEF_CONTENT.length())
+            );
+            MatcherAssert.assertThat(
+                asset.meta().shasum().get(),
+                new IsEqual<>("8843d7f92416211de9ebb963ff4ce28125932878")
+            );
         } finally {
             Files.delete(tmp);
         }
@@ -169,8 +232,10 @@ public final class HttpNpmRemoteTest {
     @Test
     public void failsToLoadPackage() throws InterruptedException {
         this.stopServer();
-        final Boolean empty = this.remote.loadPackage("asdas").isEmpty().blockingGet();
-        MatcherAssert.assertThat("Unexpected package found", empty);
+        MatcherAssert.assertThat(
+            "Failed package call should be reported as error",
+            this.remote.loadPackage("asdas").materialize().blockingGet().isOnError()
+        );
     }
 
     @Test
@@ -186,16 +251,399 @@ public final class HttpNpmRemoteTest {
         }
     }
 
+    @Test
+    void failsFastOnOpenBreaker() throws InterruptedException, IOException {
+        this.stopServer();
+        final HttpNpmRemote client = new HttpNpmRemote(
+            new NpmProxyConfig(
+                Yaml.createYamlMappingBuilder().add(
+                    "remote",
+                    Yaml.createYamlMappingBuilder()
+                        .add("url", String.format("http://localhost:%d", this.port))
+                        .add(
+                            "circuit-breaker",
+                            Yaml.createYamlMappingBuilder()
+                                .add("failure-threshold", "1")
+                                .build()
+                        ).build()
+                ).build()
+            ),
+            HttpNpmRemoteTest.vertx
+        );
+        final Path tmp = Files.createTempFile("npm-asset-", "tmp");
+        try {
+            client.loadAsset("asdas/-/asdas-1.0.0.tgz", tmp).materialize().blockingGet();
+            MatcherAssert.assertThat(
+                "Asset call rejected by open breaker should fail",
+                client.loadAsset("asdas/-/asdas-1.0.0.tgz", tmp).materialize()
+                    .blockingGet().getError() instanceof CircuitBreaker.OpenException
+            );
+        } finally {
+            Files.delete(tmp);
+            client.close();
+        }
+    }
+
+    @Test
+    void hedgesStalledAssetDownload() throws IOException, InterruptedException {
+        final int port = HttpNpmRemoteTest.rndPort();
+        final AtomicInteger stalled = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final HttpServer slow = HttpNpmRemoteTest.vertx.createHttpServer().requestHandler(
+            req -> {
+                if (req.path().startsWith("/stalled") && stalled.getAndIncrement() == 0) {
+                    // @checkstyle MagicNumberCheck (1 line)
+                    HttpNpmRemoteTest.vertx.setTimer(3_000, id -> req.response().end("late"));
+                } else {
+                    req.response()
+                        .putHeader("Content-Type", HttpNpmRemoteTest.DEF_CONTENT_TYPE)
+                        .end(HttpNpmRemoteTest.DEF_CONTENT);
+                }
+            }
+        ).listen(port, unused -> latch.countDown());
+        latch.await();
+        final HttpNpmRemote hedged = new HttpNpmRemote(
+            new NpmProxyConfig(
+                Yaml.createYamlMappingBuilder().add(
+                    "remote",
+                    Yaml.createYamlMappingBuilder()
+                        .add("url", String.format("http://localhost:%d", port))
+                        .add(
+                            "hedging",
+                            Yaml.createYamlMappingBuilder()
+                                .add("min-delay", "1")
+                                .add("budget", "100")
+                                .build()
+                        ).build()
+                ).build()
+            ),
+            HttpNpmRemoteTest.vertx
+        );
+        final Path tmp = Files.createTempFile("npm-asset-", "tmp");
+        try {
+            final int warmup = 16;
+            for (int idx = 0; idx < warmup; idx += 1) {
+                hedged.loadAsset("fast/-/fast-1.0.0.tgz", tmp).blockingGet();
+            }
+            final NpmAsset asset = hedged.loadAsset("stalled/-/stalled-1.0.0.tgz", tmp)
+                .blockingGet();
+            MatcherAssert.assertThat(
+                new String(
+                    new Concatenation(asset.dataPublisher()).single().blockingGet().array(),
+                    StandardCharsets.UTF_8
+                ),
+                new IsEqual<>(HttpNpmRemoteTest.DEF_CONTENT)
+            );
+            MatcherAssert.assertThat(
+                "Hedge did not win",
+                hedged.assetHedging().won(),
+                new IsEqual<>(1L)
+            );
+        } finally {
+            hedged.close();
+            slow.close();
+            Files.delete(tmp);
+        }
+    }
+
+    @Test
+    void failsOverToAvailableUpstream() throws IOException {
+        final HttpNpmRemote mirrored = this.mirrored(
+            String.format("http://localhost:%d", HttpNpmRemoteTest.rndPort()),
+            String.format("http://localhost:%d", this.port)
+        );
+        try {
+            MatcherAssert.assertThat(
+                mirrored.loadPackage("asdas").blockingGet().name(),
+                new IsEqual<>("asdas")
+            );
+        } finally {
+            mirrored.close();
+        }
+    }
+
+    @Test
+    void failsOverWhenUpstreamDoesNotHavePackage() throws IOException, InterruptedException {
+        final Mirror empty = new Mirror(0, false);
+        final HttpNpmRemote mirrored = this.mirrored(
+            empty.url(),
+            String.format("http://localhost:%d", this.port)
+        );
+        try {
+            MatcherAssert.assertThat(
+                mirrored.loadPackage("asdas").blockingGet().name(),
+                new IsEqual<>("asdas")
+            );
+            MatcherAssert.assertThat(empty.hits.get(), new IsEqual<>(1));
+        } finally {
+            mirrored.close();
+            empty.close();
+        }
+    }
+
+    @Test
+    void prefersFastestUpstream() throws IOException, InterruptedException {
+        // @checkstyle MagicNumberCheck (3 lines)
+        final Mirror slow = new Mirror(300, true);
+        final Mirror fast = new Mirror(0, true);
+        final Mirror medium = new Mirror(150, true);
+        final HttpNpmRemote mirrored = this.mirrored(slow.url(), fast.url(), medium.url());
+        try {
+            final int calls = 10;
+            for (int idx = 0; idx < calls; idx += 1) {
+                mirrored.loadPackage("asdas").blockingGet();
+            }
+            MatcherAssert.assertThat(
+                String.format(
+                    "Unexpected distribution: slow=%d, fast=%d, medium=%d",
+                    slow.hits.get(), fast.hits.get(), medium.hits.get()
+                ),
+                fast.hits.get() >= calls - 2
+            );
+        } finally {
+            mirrored.close();
+            slow.close();
+            fast.close();
+            medium.close();
+        }
+    }
+
+    @Test
+    void retriesThrottledPackageCall() throws IOException, InterruptedException {
+        final AtomicInteger hits = new AtomicInteger();
+        final HttpServer throttling = HttpNpmRemoteTest.serve(
+            req -> {
+                if (hits.incrementAndGet() == 1) {
+                    // @checkstyle MagicNumberCheck (1 line)
+                    req.response().setStatusCode(429).putHeader("Retry-After", "0").end();
+                } else {
+                    req.response().end(HttpNpmRemoteTest.original());
+                }
+            }
+        );
+        final HttpNpmRemote client = this.mirrored(
+            String.format("http://localhost:%d", throttling.actualPort())
+        );
+        try {
+            MatcherAssert.assertThat(
+                "Package was not loaded after retry",
+                client.loadPackage("asdas").blockingGet() != null
+            );
+            MatcherAssert.assertThat(hits.get(), new IsEqual<>(2));
+        } finally {
+            client.close();
+            throttling.close();
+        }
+    }
+
+    @Test
+    void reportsThrottledPackageCall() throws IOException, InterruptedException {
+        final HttpServer throttling = HttpNpmRemoteTest.serve(
+            // @checkstyle MagicNumberCheck (1 line)
+            req -> req.response().setStatusCode(429).putHeader("Retry-After", "3600").end()
+        );
+        final HttpNpmRemote client = this.mirrored(
+            String.format("http://localhost:%d", throttling.actualPort())
+        );
+        try {
+            final Throwable error = client.loadPackage("asdas").materialize()
+                .blockingGet().getError();
+            MatcherAssert.assertThat(
+                "Throttled call should fail",
+                error instanceof NpmRemote.ThrottledException
+            );
+            MatcherAssert.assertThat(
+                ((NpmRemote.ThrottledException) error).retryAfter(),
+                new IsEqual<>(Duration.ofHours(1))
+            );
+        } finally {
+            client.close();
+            throttling.close();
+        }
+    }
+
+    @Test
+    void reportsUnavailablePackageCall() throws IOException, InterruptedException {
+        final HttpServer unavailable = HttpNpmRemoteTest.serve(
+            // @checkstyle MagicNumberCheck (1 line)
+            req -> req.response().setStatusCode(503).putHeader("Retry-After", "3600").end()
+        );
+        final HttpNpmRemote client = this.mirrored(
+            String.format("http://localhost:%d", unavailable.actualPort())
+        );
+        try {
+            final Throwable error = client.loadPackage("asdas").materialize()
+                .blockingGet().getError();
+            MatcherAssert.assertThat(
+                "Unavailable call with Retry-After should be reported as throttled",
+                error instanceof NpmRemote.ThrottledException
+            );
+            MatcherAssert.assertThat(
+                ((NpmRemote.ThrottledException) error).retryAfter(),
+                new IsEqual<>(Duration.ofHours(1))
+            );
+        } finally {
+            client.close();
+            unavailable.close();
+        }
+    }
+
+    @Test
+    void abortsStalledAssetDownload() throws IOException, InterruptedException {
+        final HttpServer stalled = HttpNpmRemoteTest.serve(
+            req -> req.response().setChunked(true).write("stalled")
+        );
+        final HttpNpmRemote client = HttpNpmRemoteTest.timed(stalled, 5_000, 200, 0);
+        final Path tmp = Files.createTempFile("npm-asset-", "tmp");
+        try {
+            final long start = System.currentTimeMillis();
+            MatcherAssert.assertThat(
+                "Stalled download should fail",
+                client.loadAsset("asdas/-/asdas-1.0.0.tgz", tmp).blockingGet() == null
+            );
+            MatcherAssert.assertThat(
+                "Stalled download should fail by idle timeout",
+                System.currentTimeMillis() - start < 2_000
+            );
+        } finally {
+            Files.delete(tmp);
+            client.close();
+            stalled.close();
+        }
+    }
+
+    @Test
+    void completesSlowSteadyAssetDownload() throws IOException, InterruptedException {
+        final HttpServer steady = HttpNpmRemoteTest.serve(HttpNpmRemoteTest.chunks(10));
+        final HttpNpmRemote client = HttpNpmRemoteTest.timed(steady, 300, 300, 5_000);
+        final Path tmp = Files.createTempFile("npm-asset-", "tmp");
+        try {
+            final NpmAsset asset = client.loadAsset("asdas/-/asdas-1.0.0.tgz", tmp).blockingGet();
+            MatcherAssert.assertThat("Steady download should complete", asset != null);
+            MatcherAssert.assertThat(
+                new String(
+                    new Concatenation(asset.dataPublisher()).single().blockingGet().array(),
+                    StandardCharsets.UTF_8
+                ),
+                new IsEqual<>(StringUtils.repeat("chunk", 10))
+            );
+        } finally {
+            Files.delete(tmp);
+            client.close();
+            steady.close();
+        }
+    }
+
+    @Test
+    void abortsAssetDownloadByTotalTimeout() throws IOException, InterruptedException {
+        final HttpServer endless = HttpNpmRemoteTest.serve(
+            HttpNpmRemoteTest.chunks(Integer.MAX_VALUE)
+        );
+        final HttpNpmRemote client = HttpNpmRemoteTest.timed(endless, 300, 300, 500);
+        final Path tmp = Files.createTempFile("npm-asset-", "tmp");
+        try {
+            MatcherAssert.assertThat(
+                "Endless download should fail",
+                client.loadAsset("asdas/-/asdas-1.0.0.tgz", tmp).blockingGet() == null
+            );
+        } finally {
+            Files.delete(tmp);
+            client.close();
+            endless.close();
+        }
+    }
+
+    @Test
+    void abortsPackageCallByFirstByteTimeout() throws IOException, InterruptedException {
+        final HttpServer slow = HttpNpmRemoteTest.serve(
+            req -> HttpNpmRemoteTest.vertx.setTimer(
+                1_000, id -> req.response().end(HttpNpmRemoteTest.original())
+            )
+        );
+        final HttpNpmRemote client = HttpNpmRemoteTest.timed(slow, 200, 5_000, 0);
+        try {
+            MatcherAssert.assertThat(
+                "Slow package call should fail",
+                client.loadPackage("asdas").materialize().blockingGet().isOnError()
+            );
+        } finally {
+            client.close();
+            slow.close();
+        }
+    }
+
+    @Test
+    void doesNotBlockEventLoopOnLargePackage() throws IOException, InterruptedException {
+        final Vertx strict = Vertx.vertx(
+            new VertxOptions()
+                .setEventLoopPoolSize(1)
+                // @checkstyle MagicNumberCheck (2 lines)
+                .setMaxEventLoopExecuteTime(TimeUnit.MILLISECONDS.toNanos(100))
+                .setBlockedThreadCheckInterval(10)
+        );
+        final String name = "large";
+        final Buffer packument = Buffer.buffer(HttpNpmRemoteTest.packument(name));
+        final int large = HttpNpmRemoteTest.rndPort();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final HttpServer medium = HttpNpmRemoteTest.vertx.createHttpServer().requestHandler(
+            req -> req.response().end(packument)
+        ).listen(large, unused -> latch.countDown());
+        latch.await();
+        final List<String> warnings = new CopyOnWriteArrayList<>();
+        final java.util.logging.Handler handler = new java.util.logging.Handler() {
+            @Override
+            public void publish(final LogRecord record) {
+                warnings.add(record.getMessage());
+            }
+
+            @Override
+            public void flush() {
+                // nothing to flush
+            }
+
+            @Override
+            public void close() {
+                // nothing to close
+            }
+        };
+        final java.util.logging.Logger checker =
+            java.util.logging.Logger.getLogger(BlockedThreadChecker.class.getName());
+        checker.addHandler(handler);
+        final HttpNpmRemote client = new HttpNpmRemote(
+            new NpmProxyConfig(
+                Yaml.createYamlMappingBuilder().add(
+                    "remote",
+                    Yaml.createYamlMappingBuilder().add(
+                        "url", String.format("http://localhost:%d", large)
+                    ).build()
+                ).build()
+            ),
+            strict
+        );
+        try {
+            MatcherAssert.assertThat(
+                "Large package was not loaded",
+                client.loadPackage(name).blockingGet() != null
+            );
+            MatcherAssert.assertThat(warnings, new IsEqual<>(Collections.emptyList()));
+        } finally {
+            checker.removeHandler(handler);
+            client.close();
+            medium.close();
+            strict.close();
+        }
+    }
+
     @BeforeEach
     void setUp() throws IOException, InterruptedException {
-        final int port = this.rndPort();
-        this.server = HttpNpmRemoteTest.prepareServer(port);
+        this.port = HttpNpmRemoteTest.rndPort();
+        this.server = HttpNpmRemoteTest.prepareServer(this.port);
         final YamlMapping yaml = Yaml.createYamlMappingBuilder()
             .add(
                 "remote",
                 Yaml.createYamlMappingBuilder().add(
                     "url",
-                        String.format("http://localhost:%d", port)
+                        String.format("http://localhost:%d", this.port)
                 ).build()
             ).build();
         this.remote = new HttpNpmRemote(new NpmProxyConfig(yaml), HttpNpmRemoteTest.vertx);
@@ -217,12 +665,117 @@ public final class HttpNpmRemoteTest {
         HttpNpmRemoteTest.vertx.close();
     }
 
-    private int rndPort() throws IOException {
+    private static int rndPort() throws IOException {
         try (ServerSocket socket = new ServerSocket(0)) {
             return socket.getLocalPort();
         }
     }
 
+    private static HttpServer serve(final Handler<HttpServerRequest> handler)
+        throws IOException, InterruptedException {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final HttpServer server = HttpNpmRemoteTest.vertx.createHttpServer()
+            .requestHandler(handler)
+            .listen(HttpNpmRemoteTest.rndPort(), unused -> latch.countDown());
+        latch.await();
+        return server;
+    }
+
+    private static HttpNpmRemote timed(final HttpServer server, final int first,
+        final int idle, final int total) {
+        return new HttpNpmRemote(
+            new NpmProxyConfig(
+                Yaml.createYamlMappingBuilder().add(
+                    "remote",
+                    Yaml.createYamlMappingBuilder()
+                        .add("url", String.format("http://localhost:%d", server.actualPort()))
+                        .add("first-byte-timeout", String.valueOf(first))
+                        .add("idle-timeout", String.valueOf(idle))
+                        .add("total-timeout", String.valueOf(total))
+                        .build()
+                ).build()
+            ),
+            HttpNpmRemoteTest.vertx
+        );
+    }
+
+    private static Handler<HttpServerRequest> chunks(final int count) {
+        return req -> {
+            req.response().setChunked(true);
+            final AtomicInteger sent = new AtomicInteger();
+            HttpNpmRemoteTest.vertx.setPeriodic(
+                100,
+                id -> {
+                    if (req.response().closed() || sent.get() == count) {
+                        HttpNpmRemoteTest.vertx.cancelTimer(id);
+                        if (!req.response().closed()) {
+                            req.response().end();
+                        }
+                    } else {
+                        sent.incrementAndGet();
+                        req.response().write("chunk");
+                    }
+                }
+            );
+        };
+    }
+
+    private static String original() {
+        try {
+            return IOUtils.resourceToString("/json/original.json", StandardCharsets.UTF_8);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String packument(final String name) {
+        final JsonObject versions = new JsonObject();
+        final JsonObject time = new JsonObject();
+        // @checkstyle MagicNumberCheck (1 line)
+        for (int idx = 0; idx < 20_000; idx = idx + 1) {
+            final String version = String.format("1.0.%d", idx);
+            versions.put(
+                version,
+                new JsonObject()
+                    .put("name", name)
+                    .put("version", version)
+                    .put("description", StringUtils.repeat("x", 200))
+                    .put(
+                        "dist",
+                        new JsonObject().put(
+                            "tarball",
+                            String.format(
+                                "https://registry.npmjs.org/%s/-/%s-%s.tgz", name, name, version
+                            )
+                        )
+                    )
+            );
+            time.put(version, "2020-03-24T12:15:16.000Z");
+        }
+        return new JsonObject()
+            .put("_id", name)
+            .put("name", name)
+            .put("versions", versions)
+            .put("time", time)
+            .toString();
+    }
+
+    private HttpNpmRemote mirrored(final String... urls) {
+        YamlSequenceBuilder seq = Yaml.createYamlSequenceBuilder();
+        for (final String url : urls) {
+            seq = seq.add(url);
+        }
+        return new HttpNpmRemote(
+            new NpmProxyConfig(
+                Yaml.createYamlMappingBuilder().add(
+                    "remote",
+                    Yaml.createYamlMappingBuilder().add("urls", seq.build()).build()
+                ).build()
+            ),
+            HttpNpmRemoteTest.vertx
+        );
+    }
+
     private static HttpServer prepareServer(final int port)
         throws IOException, InterruptedException {
         final String original = IOUtils.resourceToString(
@@ -256,4 +809,74 @@ public final class HttpNpmRemoteTest {
         this.server.close(unused -> latch.countDown());
         latch.await();
     }
+
+    /**
+     * Remote repository mirror stub with injected delay.
+     * @since 0.3
+     */
+    private static final class Mirror {
+        /**
+         * Number of requests handled.
+         */
+        private final AtomicInteger hits;
+
+        /**
+         * Mirror port.
+         */
+        private final int port;
+
+        /**
+         * Http server.
+         */
+        private final HttpServer server;
+
+        /**
+         * Ctor.
+         * @param delay Response delay in millis
+         * @param found Whether mirror has packages
+         * @throws IOException On error
+         * @throws InterruptedException If interrupted
+         */
+        Mirror(final long delay, final boolean found) throws IOException, InterruptedException {
+            this.hits = new AtomicInteger();
+            this.port = HttpNpmRemoteTest.rndPort();
+            final String original = IOUtils.resourceToString(
+                "/json/original.json",
+                StandardCharsets.UTF_8
+            );
+            final CountDownLatch latch = new CountDownLatch(1);
+            this.server = HttpNpmRemoteTest.vertx.createHttpServer().requestHandler(
+                req -> {
+                    this.hits.incrementAndGet();
+                    HttpNpmRemoteTest.vertx.setTimer(
+                        Math.max(1, delay),
+                        id -> {
+                            if (found) {
+                                req.response().end(original);
+                            } else {
+                                // @checkstyle MagicNumberCheck (1 line)
+                                req.response().setStatusCode(404).end();
+                            }
+                        }
+                    );
+                }
+            ).listen(this.port, unused -> latch.countDown());
+            latch.await();
+        }
+
+        /**
+         * Mirror URL.
+         * @return URL
+         */
+        String url() {
+            return String.format("http://localhost:%d", this.port);
+        }
+
+        /**
+         * Stop mirror.
+         */
+        void close() {
+            this.server.close();
+        }
+    }
 }
@@ -0,0 +1,116 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.npm.proxy.model.NpmAsset;
+import io.vertx.core.json.JsonObject;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.apache.commons.io.IOUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link Integrity}.
+ * @since 0.3
+ */
+final class IntegrityTest {
+    @Test
+    void findsIntegrityInPackageMetadata() throws IOException {
+        final Integrity integrity = Integrity.of(
+            IOUtils.resourceToString("/json/cached.json", StandardCharsets.UTF_8),
+            "asdas/-/asdas-1.0.0.tgz"
+        ).get();
+        MatcherAssert.assertThat(
+            "Asset with expected SHA-512 should match",
+            integrity.matches(
+                IntegrityTest.meta(
+                    String.join(
+                        "",
+                        "sha512-kHJzGk3NudKHGhrYS4lhDS8K/QUMbPLEtk22yXiQbcQWD5pSbhOI4A9",
+                        "yk1owav8IVyW1RlAQHkKn7IjONV8Kdg=="
+                    ),
+                    null
+                )
+            )
+        );
+        MatcherAssert.assertThat(
+            "Asset with another SHA-512 should not match",
+            !integrity.matches(IntegrityTest.meta("sha512-other", null))
+        );
+    }
+
+    @Test
+    void doesNotFindUnknownAsset() throws IOException {
+        MatcherAssert.assertThat(
+            Integrity.of(
+                IOUtils.resourceToString("/json/cached.json", StandardCharsets.UTF_8),
+                "asdas/-/asdas-2.0.0.tgz"
+            ),
+            new IsEqual<>(Optional.empty())
+        );
+    }
+
+    @Test
+    void fallsBackToShasum() {
+        final Integrity integrity = new Integrity("sha1-abc", "6470DD");
+        MatcherAssert.assertThat(
+            "Asset with expected SHA-1 should match",
+            integrity.matches(IntegrityTest.meta("sha512-any", "6470dd"))
+        );
+        MatcherAssert.assertThat(
+            "Asset with another SHA-1 should not match",
+            !integrity.matches(IntegrityTest.meta("sha512-any", "ffff"))
+        );
+    }
+
+    @Test
+    void matchesAnyOfSeveralHashes() {
+        MatcherAssert.assertThat(
+            new Integrity("sha512-one?opt sha512-two", null)
+                .matches(IntegrityTest.meta("sha512-one", null)),
+            new IsEqual<>(true)
+        );
+    }
+
+    @Test
+    void getsPackageName() {
+        MatcherAssert.assertThat(
+            Integrity.packageName("@scope/pkg/-/pkg-1.0.0.tgz"),
+            new IsEqual<>(Optional.of("@scope/pkg"))
+        );
+    }
+
+    private static NpmAsset.Metadata meta(final String integrity, final String shasum) {
+        return new NpmAsset.Metadata(
+            new JsonObject()
+                .put("last-modified", "Tue, 24 Mar 2020 12:15:16 GMT")
+                .put("content-type", "application/octet-stream")
+                .put("integrity", integrity)
+                .put("shasum", shasum)
+        );
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.reactivex.Completable;
+import io.reactivex.schedulers.TestScheduler;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link Invalidations}.
+ * @since 0.3
+ */
+final class InvalidationsTest {
+    /**
+     * Refreshed packages names.
+     */
+    private List<String> refreshed;
+
+    /**
+     * Ticks scheduler.
+     */
+    private TestScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        this.refreshed = new ArrayList<>(0);
+        this.scheduler = new TestScheduler();
+    }
+
+    @Test
+    void refreshesBurstOnceAfterWindow() {
+        final Invalidations invalidations = this.invalidations("");
+        invalidations.notify("left", "package:publish");
+        invalidations.notify("left", "package:dist-tag");
+        invalidations.notify("right", "package:publish");
+        invalidations.notify("left", "package:publish");
+        MatcherAssert.assertThat(
+            "Packages should not be refreshed before the window ends",
+            this.refreshed.isEmpty()
+        );
+        this.scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        MatcherAssert.assertThat(this.refreshed, new IsEqual<>(Arrays.asList("left", "right")));
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                invalidations.received(), invalidations.coalesced(), invalidations.refreshed()
+            ),
+            new IsEqual<>(Arrays.asList(4L, 2L, 2L))
+        );
+    }
+
+    @Test
+    void ignoresStars() {
+        final Invalidations invalidations = this.invalidations("");
+        MatcherAssert.assertThat(
+            invalidations.notify("left", "package:star"),
+            new IsEqual<>(false)
+        );
+        invalidations.flush().blockingAwait();
+        MatcherAssert.assertThat(this.refreshed.isEmpty(), new IsEqual<>(true));
+    }
+
+    @Test
+    void verifiesSignature() {
+        final Invalidations invalidations = this.invalidations("s3cret");
+        final byte[] body = "{\"name\":\"left\"}".getBytes(StandardCharsets.UTF_8);
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                invalidations.verify(
+                    body, String.format("sha256=%s", Invalidations.hmac("s3cret", body))
+                ),
+                invalidations.verify(
+                    body, String.format("sha256=%s", Invalidations.hmac("other", body))
+                ),
+                invalidations.verify(body, null),
+                this.invalidations("").verify(body, null)
+            ),
+            new IsEqual<>(Arrays.asList(true, false, false, false))
+        );
+    }
+
+    private Invalidations invalidations(final String secret) {
+        return new Invalidations(
+            name -> Completable.fromAction(() -> this.refreshed.add(name)),
+            secret,
+            Duration.ofSeconds(1),
+            2,
+            this.scheduler
+        );
+    }
+}
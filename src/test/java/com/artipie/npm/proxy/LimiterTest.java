@@ -0,0 +1,150 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.reactivex.Single;
+import io.reactivex.observers.TestObserver;
+import io.reactivex.schedulers.TestScheduler;
+import io.reactivex.subjects.SingleSubject;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link Limiter}.
+ * @since 0.3
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+final class LimiterTest {
+    /**
+     * Throttled call result.
+     */
+    private static final String THROTTLED = "throttled";
+
+    @Test
+    void queuesCallsOverLimit() {
+        final Limiter limiter = LimiterTest.limiter(2, new TestScheduler());
+        final SingleSubject<String> first = SingleSubject.create();
+        final SingleSubject<String> second = SingleSubject.create();
+        final SingleSubject<String> third = SingleSubject.create();
+        LimiterTest.call(limiter, Limiter.Priority.METADATA, first);
+        LimiterTest.call(limiter, Limiter.Priority.METADATA, second);
+        final TestObserver<String> last =
+            LimiterTest.call(limiter, Limiter.Priority.METADATA, third);
+        MatcherAssert.assertThat(
+            "Third call should wait",
+            !third.hasObservers() && limiter.queued() == 1
+        );
+        first.onSuccess("first");
+        MatcherAssert.assertThat("Third call should start", third.hasObservers());
+        third.onSuccess("third");
+        last.assertValue("third");
+    }
+
+    @Test
+    void runsMetadataCallsFirst() {
+        final Limiter limiter = new Limiter(1, 1, 0, Duration.ZERO, new TestScheduler());
+        final SingleSubject<String> busy = SingleSubject.create();
+        final SingleSubject<String> tarball = SingleSubject.create();
+        final SingleSubject<String> metadata = SingleSubject.create();
+        LimiterTest.call(limiter, Limiter.Priority.METADATA, busy);
+        LimiterTest.call(limiter, Limiter.Priority.TARBALL, tarball);
+        LimiterTest.call(limiter, Limiter.Priority.METADATA, metadata);
+        busy.onSuccess("busy");
+        MatcherAssert.assertThat(
+            "Metadata call should start before tarball call",
+            metadata.hasObservers() && !tarball.hasObservers()
+        );
+    }
+
+    @Test
+    void growsLimitOnSuccess() {
+        final Limiter limiter = LimiterTest.limiter(1, new TestScheduler());
+        LimiterTest.call(limiter, Limiter.Priority.METADATA, Single.just("ok"));
+        MatcherAssert.assertThat(limiter.limit(), new IsEqual<>(2));
+    }
+
+    @Test
+    void retriesThrottledCallAfterPause() {
+        final TestScheduler scheduler = new TestScheduler();
+        final Limiter limiter = LimiterTest.limiter(4, scheduler);
+        final AtomicInteger calls = new AtomicInteger();
+        final TestObserver<String> result = LimiterTest.call(
+            limiter,
+            Limiter.Priority.METADATA,
+            Single.fromCallable(
+                () -> {
+                    final String res;
+                    if (calls.incrementAndGet() == 1) {
+                        res = LimiterTest.THROTTLED;
+                    } else {
+                        res = "ok";
+                    }
+                    return res;
+                }
+            )
+        );
+        result.assertNoValues();
+        MatcherAssert.assertThat("Limit should be halved", limiter.limit() == 2);
+        scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+        result.assertValue("ok");
+    }
+
+    @Test
+    void returnsThrottledResultWhenRetriesExhausted() {
+        final TestScheduler scheduler = new TestScheduler();
+        final Limiter limiter = LimiterTest.limiter(4, scheduler);
+        final TestObserver<String> result = LimiterTest.call(
+            limiter, Limiter.Priority.TARBALL, Single.just(LimiterTest.THROTTLED)
+        );
+        scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        result.assertValue(LimiterTest.THROTTLED);
+        MatcherAssert.assertThat(limiter.inflight(), new IsEqual<>(0));
+    }
+
+    private static Limiter limiter(final int initial, final TestScheduler scheduler) {
+        return new Limiter(initial, 16, 2, Duration.ofSeconds(10), scheduler);
+    }
+
+    private static TestObserver<String> call(final Limiter limiter,
+        final Limiter.Priority priority, final Single<String> call) {
+        return limiter.limited(
+            priority,
+            call,
+            res -> {
+                final Optional<Duration> pause;
+                if (LimiterTest.THROTTLED.equals(res)) {
+                    pause = Optional.of(Duration.ofSeconds(5));
+                } else {
+                    pause = Optional.empty();
+                }
+                return pause;
+            }
+        ).test();
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.asto.Key;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.rx.RxStorage;
+import com.artipie.asto.rx.RxStorageWrapper;
+import com.artipie.npm.proxy.model.NpmPackage;
+import io.reactivex.Completable;
+import io.reactivex.schedulers.TestScheduler;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.Comparator;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * Test for {@link MetadataJournal}.
+ * @since 0.3
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class MetadataJournalTest {
+    /**
+     * Underlying storage.
+     */
+    private RxStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        this.storage = new RxStorageWrapper(new InMemoryStorage());
+    }
+
+    @Test
+    void rebuildsIndexFromJournal() {
+        final MetadataJournal first = this.journal();
+        first.record("a", MetadataJournalTest.meta(1)).blockingAwait();
+        first.record("b", MetadataJournalTest.meta(2)).blockingAwait();
+        first.record("a", MetadataJournalTest.meta(3)).blockingAwait();
+        first.flush().blockingAwait();
+        final MetadataJournal second = this.journal();
+        MatcherAssert.assertThat(
+            second.metadata("a").blockingGet().lastRefreshed(),
+            new IsEqual<>(MetadataJournalTest.meta(3).lastRefreshed())
+        );
+        MatcherAssert.assertThat(second.size(), new IsEqual<>(2));
+        second.forget("b").blockingAwait();
+        second.flush().blockingAwait();
+        MatcherAssert.assertThat(
+            "Deleted package should not be journaled",
+            this.journal().metadata("b").isEmpty().blockingGet()
+        );
+    }
+
+    @Test
+    void compactsSegments() {
+        final MetadataJournal journal = this.journal();
+        for (int idx = 0; idx < 70; idx += 1) {
+            journal.record(String.format("p%d", idx % 10), MetadataJournalTest.meta(idx))
+                .blockingAwait();
+            journal.flush().blockingAwait();
+        }
+        final Collection<Key> segments = this.storage.list(new Key.From(".journal"))
+            .blockingGet();
+        MatcherAssert.assertThat(segments.size(), new IsEqual<>(6));
+        final MetadataJournal loaded = this.journal();
+        MatcherAssert.assertThat(
+            loaded.metadata("p9").blockingGet().lastRefreshed(),
+            new IsEqual<>(MetadataJournalTest.meta(69).lastRefreshed())
+        );
+        MatcherAssert.assertThat(loaded.size(), new IsEqual<>(10));
+    }
+
+    @Test
+    void doesNotRestoreDeletedPackagesFromUndeletedSegments() {
+        final MetadataJournal journal = this.journal();
+        for (int idx = 0; idx < 64; idx += 1) {
+            journal.record("gone", MetadataJournalTest.meta(idx)).blockingAwait();
+            journal.flush().blockingAwait();
+        }
+        final Key first = this.storage.list(new Key.From(".journal")).blockingGet().stream()
+            .min(Comparator.comparing(Key::string)).get();
+        final RxStorage failing = Mockito.mock(
+            RxStorage.class, AdditionalAnswers.delegatesTo(this.storage)
+        );
+        Mockito.doReturn(Completable.error(new IllegalStateException("Delete failed")))
+            .when(failing).delete(ArgumentMatchers.eq(first));
+        final MetadataJournal compacting = new MetadataJournal(
+            failing, Duration.ofHours(1), new TestScheduler()
+        );
+        compacting.record("kept", MetadataJournalTest.meta(64)).blockingAwait();
+        compacting.flush().blockingAwait();
+        compacting.forget("gone").blockingAwait();
+        for (int idx = 65; idx < 135; idx += 1) {
+            compacting.record("kept", MetadataJournalTest.meta(idx)).blockingAwait();
+            compacting.flush().blockingAwait();
+        }
+        final MetadataJournal loaded = this.journal();
+        MatcherAssert.assertThat(
+            "Deleted package should not come back from undeleted segments",
+            loaded.metadata("gone").isEmpty().blockingGet()
+        );
+        MatcherAssert.assertThat(
+            loaded.metadata("kept").blockingGet().lastRefreshed(),
+            new IsEqual<>(MetadataJournalTest.meta(134).lastRefreshed())
+        );
+    }
+
+    @Test
+    void keepsBufferedRecordsWhenSaveFails() {
+        final RxStorage failing = Mockito.mock(
+            RxStorage.class, AdditionalAnswers.delegatesTo(this.storage)
+        );
+        Mockito.doReturn(Completable.error(new IllegalStateException("Save failed")))
+            .doAnswer(AdditionalAnswers.delegatesTo(this.storage))
+            .when(failing).save(ArgumentMatchers.any(), ArgumentMatchers.any());
+        final MetadataJournal journal = new MetadataJournal(
+            failing, Duration.ofHours(1), new TestScheduler()
+        );
+        journal.record("a", MetadataJournalTest.meta(1)).blockingAwait();
+        MatcherAssert.assertThat(
+            "First flush should fail",
+            journal.flush().blockingGet() instanceof IllegalStateException
+        );
+        journal.record("b", MetadataJournalTest.meta(2)).blockingAwait();
+        journal.flush().blockingAwait();
+        MatcherAssert.assertThat(
+            this.journal().metadata("a").blockingGet().lastRefreshed(),
+            new IsEqual<>(MetadataJournalTest.meta(1).lastRefreshed())
+        );
+    }
+
+    @Test
+    void doesNotWriteEmptySegments() {
+        final MetadataJournal journal = this.journal();
+        journal.flush().blockingAwait();
+        MatcherAssert.assertThat(
+            this.storage.list(new Key.From(".journal")).blockingGet().isEmpty(),
+            new IsEqual<>(true)
+        );
+    }
+
+    private MetadataJournal journal() {
+        return new MetadataJournal(this.storage, Duration.ofHours(1), new TestScheduler());
+    }
+
+    private static NpmPackage.Metadata meta(final int seconds) {
+        return new NpmPackage(
+            "any", "{}", "Tue, 24 Mar 2020 12:15:16 GMT",
+            OffsetDateTime.of(2020, 4, 24, 12, 0, seconds % 60, 0, ZoneOffset.UTC)
+                .plusMinutes(seconds / 60)
+        ).meta();
+    }
+}
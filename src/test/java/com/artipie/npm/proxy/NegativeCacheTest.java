@@ -0,0 +1,64 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Negative cache test.
+ * @since 0.3
+ */
+public final class NegativeCacheTest {
+    /**
+     * Negative TTL.
+     */
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        final NegativeCache cache = new NegativeCache(2, Clock.systemUTC());
+        cache.add("first", NegativeCacheTest.TTL);
+        cache.add("second", NegativeCacheTest.TTL);
+        cache.contains("first");
+        cache.add("third", NegativeCacheTest.TTL);
+        MatcherAssert.assertThat(cache.size(), new IsEqual<>(2));
+        MatcherAssert.assertThat(cache.contains("first"), new IsEqual<>(true));
+        MatcherAssert.assertThat(cache.contains("second"), new IsEqual<>(false));
+        MatcherAssert.assertThat(cache.contains("third"), new IsEqual<>(true));
+    }
+
+    @Test
+    void expiresEntryOnAccess() throws InterruptedException {
+        final NegativeCache cache = new NegativeCache(2, Clock.systemUTC());
+        cache.add("expired", Duration.ofMillis(1));
+        TimeUnit.MILLISECONDS.sleep(10);
+        MatcherAssert.assertThat(cache.contains("expired"), new IsEqual<>(false));
+        MatcherAssert.assertThat(cache.size(), new IsEqual<>(0));
+    }
+}
@@ -27,6 +27,8 @@ import com.amihaiemil.eoyaml.Yaml;
 import com.amihaiemil.eoyaml.YamlMapping;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collections;
 import org.hamcrest.MatcherAssert;
 import org.hamcrest.core.IsEqual;
 import org.junit.jupiter.api.Test;
@@ -64,4 +66,159 @@ public final class NpmProxyConfigTest {
             )
         );
     }
+
+    @Test
+    void getsPackagePolicies() {
+        final PackagePolicies policies = new NpmProxyConfig(
+            Yaml.createYamlMappingBuilder()
+                .add("negative-ttl-minutes", "1")
+                .add(
+                    "policies",
+                    Yaml.createYamlSequenceBuilder().add(
+                        Yaml.createYamlMappingBuilder()
+                            .add("match", "@types/*")
+                            .add("ttl-minutes", "10080")
+                            .add("hot-tier", "false")
+                            .build()
+                    ).build()
+                ).build()
+        ).policies();
+        final PackagePolicies.Rule types = policies.policy("@types/node");
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                types.ttl().get(), types.negativeTtl(), types.prefetch(), types.hot(),
+                policies.policy("lodash").ttl().isPresent()
+            ),
+            new IsEqual<>(
+                Arrays.asList(Duration.ofDays(7), Duration.ofMinutes(1), true, false, false)
+            )
+        );
+    }
+
+    @Test
+    void getsCircuitBreakerSettings() {
+        final NpmProxyConfig config = new NpmProxyConfig(
+            Yaml.createYamlMappingBuilder().add(
+                "remote",
+                Yaml.createYamlMappingBuilder()
+                    .add("url", "http://localhost")
+                    .add(
+                        "circuit-breaker",
+                        Yaml.createYamlMappingBuilder()
+                            .add("failure-threshold", "10")
+                            .add("slow-call-threshold", "1500")
+                            .add("open-duration", "60000")
+                            .build()
+                    ).build()
+            ).build()
+        );
+        MatcherAssert.assertThat(config.breakerFailures(), new IsEqual<>(10));
+        MatcherAssert.assertThat(
+            config.breakerSlowCall(),
+            new IsEqual<>(Duration.ofMillis(1500))
+        );
+        MatcherAssert.assertThat(
+            config.breakerOpenDuration(),
+            new IsEqual<>(Duration.ofMinutes(1))
+        );
+    }
+
+    @Test
+    void getsDefaultCircuitBreakerSettings() {
+        final NpmProxyConfig config = new NpmProxyConfig(
+            Yaml.createYamlMappingBuilder().add(
+                "remote",
+                Yaml.createYamlMappingBuilder().add("url", "http://localhost").build()
+            ).build()
+        );
+        MatcherAssert.assertThat(config.breakerFailures(), new IsEqual<>(5));
+        MatcherAssert.assertThat(config.breakerSlowCall(), new IsEqual<>(Duration.ZERO));
+    }
+
+    @Test
+    void getsRemoteTimeouts() {
+        final NpmProxyConfig config = new NpmProxyConfig(
+            Yaml.createYamlMappingBuilder().add(
+                "remote",
+                Yaml.createYamlMappingBuilder()
+                    .add("url", "http://localhost")
+                    .add("first-byte-timeout", "3000")
+                    .add("idle-timeout", "15000")
+                    .add("total-timeout", "600000")
+                    .build()
+            ).build()
+        );
+        MatcherAssert.assertThat(
+            config.firstByteTimeout(),
+            new IsEqual<>(Duration.ofSeconds(3))
+        );
+        MatcherAssert.assertThat(
+            config.idleTimeout(),
+            new IsEqual<>(Duration.ofSeconds(15))
+        );
+        MatcherAssert.assertThat(
+            config.totalTimeout(),
+            new IsEqual<>(Duration.ofMinutes(10))
+        );
+    }
+
+    @Test
+    void getsDefaultRemoteTimeouts() {
+        final NpmProxyConfig config = new NpmProxyConfig(
+            Yaml.createYamlMappingBuilder().add(
+                "remote",
+                Yaml.createYamlMappingBuilder()
+                    .add("url", "http://localhost")
+                    .add("request-timeout", "7000")
+                    .build()
+            ).build()
+        );
+        MatcherAssert.assertThat(
+            config.firstByteTimeout(),
+            new IsEqual<>(Duration.ofSeconds(7))
+        );
+        MatcherAssert.assertThat(
+            config.idleTimeout(),
+            new IsEqual<>(Duration.ofSeconds(7))
+        );
+        MatcherAssert.assertThat(
+            config.totalTimeout(),
+            new IsEqual<>(Duration.ofMinutes(5))
+        );
+    }
+
+    @Test
+    void getsUpstreamUrls() {
+        final NpmProxyConfig config = new NpmProxyConfig(
+            Yaml.createYamlMappingBuilder().add(
+                "remote",
+                Yaml.createYamlMappingBuilder().add(
+                    "urls",
+                    Yaml.createYamlSequenceBuilder()
+                        .add("http://mirror.local")
+                        .add("https://registry.npmjs.org")
+                        .build()
+                ).build()
+            ).build()
+        );
+        MatcherAssert.assertThat(
+            config.urls(),
+            new IsEqual<>(Arrays.asList("http://mirror.local", "https://registry.npmjs.org"))
+        );
+        MatcherAssert.assertThat(config.url(), new IsEqual<>("http://mirror.local"));
+    }
+
+    @Test
+    void getsSingleUpstreamUrl() {
+        final NpmProxyConfig config = new NpmProxyConfig(
+            Yaml.createYamlMappingBuilder().add(
+                "remote",
+                Yaml.createYamlMappingBuilder().add("url", "http://localhost").build()
+            ).build()
+        );
+        MatcherAssert.assertThat(
+            config.urls(),
+            new IsEqual<>(Collections.singletonList("http://localhost"))
+        );
+    }
 }
@@ -0,0 +1,453 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.amihaiemil.eoyaml.Yaml;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.npm.proxy.http.NpmProxySlice;
+import com.artipie.vertx.VertxSliceServer;
+import com.jcabi.log.Logger;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClientOptions;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.buffer.Buffer;
+import io.vertx.reactivex.core.http.HttpServer;
+import io.vertx.reactivex.ext.web.client.WebClient;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Offline load test for NPM Proxy. It starts local fake registry serving
+ * generated packages metadata and tarballs with injected latency, and runs
+ * many concurrent simulated `npm install` sessions against NPM Proxy served
+ * over HTTP. It reports throughput, latency percentiles and the number of
+ * upstream requests. Load parameters are configured with system properties:
+ * <ul>
+ *   <li>`npm.load.packages` - number of packages in the fake registry</li>
+ *   <li>`npm.load.versions` - number of versions of each package</li>
+ *   <li>`npm.load.tarball` - tarball size in bytes</li>
+ *   <li>`npm.load.latency` - fake registry latency in millis</li>
+ *   <li>`npm.load.sessions` - number of concurrent install sessions</li>
+ *   <li>`npm.load.deps` - number of dependencies installed by each session</li>
+ * </ul>
+ * @since 0.3
+ * @checkstyle ClassDataAbstractionCouplingCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class NpmProxyLoadITCase {
+    /**
+     * Number of packages in the fake registry.
+     */
+    private static final int PACKAGES = Integer.getInteger("npm.load.packages", 200);
+
+    /**
+     * Number of versions of each package.
+     */
+    private static final int VERSIONS = Integer.getInteger("npm.load.versions", 50);
+
+    /**
+     * Tarball size in bytes.
+     */
+    private static final int TARBALL = Integer.getInteger("npm.load.tarball", 16 * 1024);
+
+    /**
+     * Fake registry latency in millis.
+     */
+    private static final int LATENCY = Integer.getInteger("npm.load.latency", 20);
+
+    /**
+     * Number of concurrent install sessions.
+     */
+    private static final int SESSIONS = Integer.getInteger("npm.load.sessions", 50);
+
+    /**
+     * Number of dependencies installed by each session.
+     */
+    private static final int DEPS = Integer.getInteger("npm.load.deps", 30);
+
+    /**
+     * Maximum number of parallel requests of one session.
+     */
+    private static final int PARALLEL = 8;
+
+    /**
+     * Vertx instance.
+     */
+    private Vertx vertx;
+
+    /**
+     * Fake registry.
+     */
+    private FakeRegistry registry;
+
+    /**
+     * NPM Proxy.
+     */
+    private NpmProxy npm;
+
+    /**
+     * NPM Proxy server.
+     */
+    private VertxSliceServer server;
+
+    /**
+     * NPM Proxy server port.
+     */
+    private int port;
+
+    @BeforeEach
+    void setUp() throws IOException, InterruptedException {
+        this.vertx = Vertx.vertx();
+        this.registry = new FakeRegistry(this.vertx, NpmProxyLoadITCase.freePort());
+        this.registry.start();
+        this.npm = new NpmProxy(
+            new NpmProxyConfig(
+                Yaml.createYamlMappingBuilder().add(
+                    "remote",
+                    Yaml.createYamlMappingBuilder().add("url", this.registry.url()).build()
+                ).build()
+            ),
+            this.vertx,
+            new InMemoryStorage()
+        );
+        this.port = NpmProxyLoadITCase.freePort();
+        this.server = new VertxSliceServer(
+            this.vertx, new NpmProxySlice("npm-proxy", this.npm), this.port
+        );
+        this.server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.server.stop();
+        this.npm.close();
+        this.registry.stop();
+        this.vertx.close();
+    }
+
+    @Test
+    void servesConcurrentInstallSessions() {
+        final WebClient client = WebClient.create(
+            this.vertx, new WebClientOptions().setMaxPoolSize(NpmProxyLoadITCase.SESSIONS)
+        );
+        final Latencies latencies = new Latencies();
+        final AtomicInteger failures = new AtomicInteger();
+        final Random random = new Random(0);
+        final List<List<String>> sessions = new ArrayList<>(NpmProxyLoadITCase.SESSIONS);
+        for (int idx = 0; idx < NpmProxyLoadITCase.SESSIONS; idx += 1) {
+            sessions.add(NpmProxyLoadITCase.dependencies(random));
+        }
+        final long start = System.nanoTime();
+        Flowable.fromIterable(sessions).flatMapCompletable(
+            deps -> Flowable.fromIterable(deps).flatMapSingle(
+                name -> this.get(client, name, latencies, failures).flatMap(
+                    ignored -> this.get(
+                        client,
+                        String.format(
+                            "%s/-/%s-%s.tgz", name, name, NpmProxyLoadITCase.latest()
+                        ),
+                        latencies,
+                        failures
+                    )
+                ),
+                false,
+                NpmProxyLoadITCase.PARALLEL
+            ).ignoreElements()
+        ).blockingAwait();
+        final long elapsed = System.nanoTime() - start;
+        client.close();
+        final List<Long> sorted = latencies.sorted();
+        Logger.info(
+            this,
+            String.join(
+                "\n",
+                "NPM Proxy load test:",
+                "sessions: %d, requests: %d, failures: %d, elapsed: %d ms",
+                "throughput: %.1f requests/s",
+                "latency p50: %.2f ms, p95: %.2f ms, p99: %.2f ms, max: %.2f ms",
+                "upstream requests: %d (packages: %d, tarballs: %d)"
+            ),
+            NpmProxyLoadITCase.SESSIONS,
+            sorted.size(),
+            failures.get(),
+            TimeUnit.NANOSECONDS.toMillis(elapsed),
+            sorted.size() * 1e9 / elapsed,
+            NpmProxyLoadITCase.percentile(sorted, 0.5),
+            NpmProxyLoadITCase.percentile(sorted, 0.95),
+            NpmProxyLoadITCase.percentile(sorted, 0.99),
+            NpmProxyLoadITCase.percentile(sorted, 1.0),
+            this.registry.packages.get() + this.registry.tarballs.get(),
+            this.registry.packages.get(),
+            this.registry.tarballs.get()
+        );
+        MatcherAssert.assertThat(failures.get(), new IsEqual<>(0));
+    }
+
+    /**
+     * Request NPM Proxy and record request latency.
+     * @param client Web client
+     * @param path Requested path
+     * @param latencies Latencies collector
+     * @param failures Failures counter
+     * @return Response body
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private Single<Buffer> get(final WebClient client, final String path,
+        final Latencies latencies, final AtomicInteger failures) {
+        return Single.defer(
+            () -> {
+                final long start = System.nanoTime();
+                return client.get(this.port, "localhost", String.format("/npm-proxy/%s", path))
+                    .rxSend()
+                    .map(
+                        response -> {
+                            latencies.add(System.nanoTime() - start);
+                            // @checkstyle MagicNumberCheck (1 line)
+                            if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                            return response.bodyAsBuffer();
+                        }
+                    );
+            }
+        );
+    }
+
+    /**
+     * Random session dependencies: popular packages are installed more often.
+     * @param random Random generator
+     * @return Packages names
+     */
+    private static List<String> dependencies(final Random random) {
+        return random.doubles(NpmProxyLoadITCase.DEPS)
+            .mapToObj(
+                rnd -> String.format(
+                    "pkg-%d", (int) (NpmProxyLoadITCase.PACKAGES * rnd * rnd)
+                )
+            ).distinct().collect(Collectors.toList());
+    }
+
+    /**
+     * Latest version of the fake registry packages.
+     * @return Version
+     */
+    private static String latest() {
+        return String.format("1.%d.0", NpmProxyLoadITCase.VERSIONS - 1);
+    }
+
+    /**
+     * Latency percentile in millis.
+     * @param sorted Sorted latencies in nanos
+     * @param pct Percentile
+     * @return Latency in millis
+     */
+    private static double percentile(final List<Long> sorted, final double pct) {
+        final double result;
+        if (sorted.isEmpty()) {
+            result = 0;
+        } else {
+            final int idx = (int) Math.ceil(pct * sorted.size()) - 1;
+            // @checkstyle MagicNumberCheck (1 line)
+            result = sorted.get(Math.max(0, idx)) / 1e6;
+        }
+        return result;
+    }
+
+    /**
+     * Find free port.
+     * @return Port number
+     * @throws IOException If fails
+     */
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Latencies collector.
+     * @since 0.3
+     */
+    private static final class Latencies {
+        /**
+         * Latencies in nanos.
+         */
+        private final ConcurrentLinkedQueue<Long> items = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Add latency.
+         * @param nanos Latency in nanos
+         */
+        void add(final long nanos) {
+            this.items.add(nanos);
+        }
+
+        /**
+         * Sorted latencies.
+         * @return Latencies in nanos
+         */
+        List<Long> sorted() {
+            final List<Long> result = new ArrayList<>(this.items);
+            Collections.sort(result);
+            return result;
+        }
+    }
+
+    /**
+     * Fake NPM registry serving generated packages with injected latency.
+     * @since 0.3
+     */
+    private static final class FakeRegistry {
+        /**
+         * Packages metadata requests counter.
+         */
+        private final AtomicLong packages = new AtomicLong();
+
+        /**
+         * Tarballs requests counter.
+         */
+        private final AtomicLong tarballs = new AtomicLong();
+
+        /**
+         * Vertx instance.
+         */
+        private final Vertx vertx;
+
+        /**
+         * Port.
+         */
+        private final int port;
+
+        /**
+         * Tarball content.
+         */
+        private final Buffer tarball;
+
+        /**
+         * Server.
+         */
+        private HttpServer server;
+
+        /**
+         * Ctor.
+         * @param vertx Vertx instance
+         * @param port Port
+         */
+        FakeRegistry(final Vertx vertx, final int port) {
+            this.vertx = vertx;
+            this.port = port;
+            this.tarball = Buffer.newInstance(
+                io.vertx.core.buffer.Buffer.buffer(new byte[NpmProxyLoadITCase.TARBALL])
+            );
+        }
+
+        /**
+         * Registry URL.
+         * @return URL
+         */
+        String url() {
+            return String.format("http://localhost:%d", this.port);
+        }
+
+        /**
+         * Start registry.
+         */
+        void start() {
+            this.server = this.vertx.createHttpServer().requestHandler(
+                req -> this.vertx.setTimer(
+                    NpmProxyLoadITCase.LATENCY,
+                    timer -> {
+                        final String path = req.path().substring(1);
+                        if (path.contains("/-/")) {
+                            this.tarballs.incrementAndGet();
+                            req.response()
+                                .putHeader("Content-Type", "application/octet-stream")
+                                .end(this.tarball);
+                        } else {
+                            this.packages.incrementAndGet();
+                            req.response()
+                                .putHeader("Content-Type", "application/json")
+                                .end(this.packument(path));
+                        }
+                    }
+                )
+            ).rxListen(this.port).blockingGet();
+        }
+
+        /**
+         * Stop registry.
+         */
+        void stop() {
+            this.server.rxClose().blockingAwait();
+        }
+
+        /**
+         * Generate package metadata.
+         * @param name Package name
+         * @return Package metadata JSON
+         */
+        private String packument(final String name) {
+            final JsonObject versions = new JsonObject();
+            for (int idx = 0; idx < NpmProxyLoadITCase.VERSIONS; idx += 1) {
+                final String version = String.format("1.%d.0", idx);
+                versions.put(
+                    version,
+                    new JsonObject()
+                        .put("name", name)
+                        .put("version", version)
+                        .put(
+                            "dist",
+                            new JsonObject().put(
+                                "tarball",
+                                String.format(
+                                    "%s/%s/-/%s-%s.tgz", this.url(), name, name, version
+                                )
+                            )
+                        )
+                );
+            }
+            return new JsonObject()
+                .put("name", name)
+                .put("dist-tags", new JsonObject().put("latest", NpmProxyLoadITCase.latest()))
+                .put("versions", versions)
+                .encode();
+        }
+    }
+}
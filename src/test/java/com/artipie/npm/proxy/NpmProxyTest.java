@@ -26,17 +26,38 @@ package com.artipie.npm.proxy;
 import com.amihaiemil.eoyaml.Yaml;
 import com.amihaiemil.eoyaml.YamlMapping;
 import com.artipie.asto.Content;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.npm.proxy.http.DownloadPackageSlice;
+import com.artipie.npm.proxy.http.PackagePath;
 import com.artipie.npm.proxy.model.NpmAsset;
 import com.artipie.npm.proxy.model.NpmPackage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.reactivex.Completable;
+import io.reactivex.Flowable;
 import io.reactivex.Maybe;
+import io.reactivex.subjects.CompletableSubject;
+import io.vertx.core.json.JsonObject;
 import io.vertx.reactivex.core.Vertx;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
 import org.apache.commons.io.IOUtils;
+import org.cactoos.map.MapEntry;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
 import org.hamcrest.core.IsSame;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.AfterEach;
@@ -75,6 +96,15 @@ public final class NpmProxyTest {
      */
     private static final String DEF_CONTENT = "foobar";
 
+    /**
+     * Integrity of the asset in cached package metadata.
+     */
+    private static final String INTEGRITY = String.join(
+        "",
+        "sha512-kHJzGk3NudKHGhrYS4lhDS8K/QUMbPLEtk22yXiQbcQWD5pSbhOI4A9",
+        "yk1owav8IVyW1RlAQHkKn7IjONV8Kdg=="
+    );
+
     /**
      * The Vertx instance.
      */
@@ -138,6 +168,7 @@ public final class NpmProxyTest {
         Mockito.when(
             this.remote.loadAsset(Mockito.eq(path), Mockito.any())
         ).thenReturn(Maybe.just(loaded));
+        Mockito.when(this.storage.getPackage("asdas")).thenReturn(Maybe.empty());
         Mockito.when(this.storage.save(loaded)).thenReturn(Completable.complete());
         MatcherAssert.assertThat(
             this.npm.getAsset(path).blockingGet(),
@@ -148,6 +179,124 @@ public final class NpmProxyTest {
         Mockito.verify(this.storage).save(loaded);
     }
 
+    @Test
+    public void deletesTemporaryFileAfterColdMiss() throws Exception {
+        final String path = "asdas/-/asdas-1.0.0.tgz";
+        final NpmAsset loaded = defaultAsset();
+        final List<Path> files = new ArrayList<>(1);
+        Mockito.when(this.storage.getAsset(path))
+            .thenReturn(Maybe.empty())
+            .thenReturn(Maybe.just(loaded));
+        Mockito.when(this.storage.getPackage("asdas")).thenReturn(Maybe.empty());
+        Mockito.when(this.storage.save(loaded)).thenReturn(Completable.complete());
+        Mockito.when(
+            this.remote.loadAsset(Mockito.eq(path), Mockito.any())
+        ).thenAnswer(
+            invocation -> {
+                files.add(invocation.getArgument(1));
+                return Maybe.just(loaded);
+            }
+        );
+        this.npm.getAsset(path).blockingGet();
+        for (int wait = 0; wait < 50 && Files.exists(files.get(0)); wait += 1) {
+            Thread.sleep(100);
+        }
+        MatcherAssert.assertThat(
+            "Temporary file should be deleted",
+            !Files.exists(files.get(0))
+        );
+    }
+
+    @Test
+    public void downloadsAgainOnIntegrityMismatch() throws IOException {
+        final String path = "asdas/-/asdas-1.0.0.tgz";
+        final NpmAsset corrupt = NpmProxyTest.digestedAsset("sha512-corrupt");
+        final NpmAsset valid = NpmProxyTest.digestedAsset(NpmProxyTest.INTEGRITY);
+        Mockito.when(this.storage.getAsset(path))
+            .thenReturn(Maybe.empty())
+            .thenReturn(Maybe.just(valid));
+        Mockito.when(this.storage.getPackage("asdas"))
+            .thenReturn(Maybe.just(defaultPackage(OffsetDateTime.now())));
+        Mockito.when(
+            this.remote.loadAsset(Mockito.eq(path), Mockito.any())
+        ).thenReturn(Maybe.just(corrupt)).thenReturn(Maybe.just(valid));
+        Mockito.when(this.storage.save(valid)).thenReturn(Completable.complete());
+        MatcherAssert.assertThat(
+            this.npm.getAsset(path).blockingGet(),
+            new IsSame<>(valid)
+        );
+        Mockito.verify(this.remote, Mockito.times(2))
+            .loadAsset(Mockito.eq(path), Mockito.any());
+        Mockito.verify(this.storage, Mockito.never()).save(corrupt);
+    }
+
+    @Test
+    public void doesNotCacheCorruptAsset() throws IOException {
+        final String path = "asdas/-/asdas-1.0.0.tgz";
+        final NpmAsset corrupt = NpmProxyTest.digestedAsset("sha512-corrupt");
+        Mockito.when(this.storage.getAsset(path)).thenReturn(Maybe.empty());
+        Mockito.when(this.storage.getPackage("asdas"))
+            .thenReturn(Maybe.just(defaultPackage(OffsetDateTime.now())));
+        Mockito.when(
+            this.remote.loadAsset(Mockito.eq(path), Mockito.any())
+        ).thenReturn(Maybe.just(corrupt));
+        MatcherAssert.assertThat(
+            "Corrupt asset should fail",
+            this.npm.getAsset(path).materialize().blockingGet().getError()
+                instanceof Integrity.MismatchException
+        );
+        Mockito.verify(this.remote, Mockito.times(3))
+            .loadAsset(Mockito.eq(path), Mockito.any());
+        Mockito.verify(this.storage, Mockito.never()).save(corrupt);
+    }
+
+    @Test
+    public void doesNotCacheAssetWhenIntegrityLookupFails() {
+        final String path = "asdas/-/asdas-1.0.0.tgz";
+        Mockito.when(this.storage.getAsset(path)).thenReturn(Maybe.empty());
+        Mockito.when(this.storage.getPackage("asdas")).thenReturn(
+            Maybe.error(new TransformPool.BusyException(new RejectedExecutionException()))
+        );
+        MatcherAssert.assertThat(
+            "Busy integrity lookup should fail",
+            this.npm.getAsset(path).materialize().blockingGet().getError()
+                instanceof TransformPool.BusyException
+        );
+        Mockito.verify(this.remote, Mockito.never())
+            .loadAsset(Mockito.eq(path), Mockito.any());
+        Mockito.verify(this.storage, Mockito.never()).save(Mockito.any(NpmAsset.class));
+    }
+
+    @Test
+    public void answersBeforeMetadataIsWritten() throws IOException {
+        final String name = "asdas";
+        final NpmPackage expected = defaultPackage(OffsetDateTime.now());
+        final CompletableSubject write = CompletableSubject.create();
+        final NpmProxy behind = new NpmProxy(
+            new NpmProxyConfig(
+                Yaml.createYamlMappingBuilder().add(
+                    "write-behind", Yaml.createYamlMappingBuilder().add("queue", "8").build()
+                ).build()
+            ),
+            NpmProxyTest.vertx,
+            this.storage,
+            this.remote
+        );
+        Mockito.when(this.storage.getPackage(name)).thenReturn(Maybe.empty());
+        Mockito.doReturn(Maybe.just(expected)).when(this.remote).loadPackage(name);
+        Mockito.when(this.storage.save(expected)).thenReturn(write);
+        MatcherAssert.assertThat(
+            behind.getPackage(name).blockingGet(),
+            new IsSame<>(expected)
+        );
+        MatcherAssert.assertThat(
+            "Package being written should be served from memory",
+            behind.getPackage(name).blockingGet() == expected
+        );
+        Mockito.verify(this.storage).getPackage(name);
+        write.onComplete();
+    }
+
     @Test
     public void getsPackageFromCache() throws IOException {
         final String name = "asdas";
@@ -189,6 +338,7 @@ public final class NpmProxyTest {
     public void doesNotFindAsset() {
         final String path = "asdas/-/asdas-1.0.0.tgz";
         Mockito.when(this.storage.getAsset(path)).thenReturn(Maybe.empty());
+        Mockito.when(this.storage.getPackage("asdas")).thenReturn(Maybe.empty());
         Mockito.when(
             this.remote.loadAsset(Mockito.eq(path), Mockito.any())
         ).thenReturn(Maybe.empty());
@@ -199,6 +349,194 @@ public final class NpmProxyTest {
         Mockito.verify(this.storage).getAsset(path);
     }
 
+    @Test
+    public void countsCacheLookups() throws IOException {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final NpmProxy metered = new NpmProxy(
+            new NpmProxyConfig(Yaml.createYamlMappingBuilder().build()),
+            NpmProxyTest.vertx,
+            this.storage,
+            this.remote,
+            registry
+        );
+        Mockito.when(this.storage.getPackage("fresh"))
+            .thenReturn(Maybe.just(defaultPackage(OffsetDateTime.now())));
+        Mockito.when(this.storage.getPackage("absent")).thenReturn(Maybe.empty());
+        Mockito.when(this.remote.loadPackage("absent")).thenReturn(Maybe.empty());
+        metered.getPackage("fresh").blockingGet();
+        metered.getPackage("absent").blockingGet();
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                registry.counter("npm.proxy.cache", "type", "package", "result", "hit").count(),
+                registry.counter("npm.proxy.cache", "type", "package", "result", "miss").count()
+            ),
+            new IsEqual<>(Arrays.asList(1.0, 1.0))
+        );
+    }
+
+    @Test
+    public void doesNotCountBackgroundLookups() throws IOException {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final NpmProxy metered = new NpmProxy(
+            new NpmProxyConfig(Yaml.createYamlMappingBuilder().build()),
+            NpmProxyTest.vertx,
+            this.storage,
+            this.remote,
+            registry
+        );
+        Mockito.when(this.storage.getPackage("fresh"))
+            .thenReturn(Maybe.just(defaultPackage(OffsetDateTime.now())));
+        Mockito.when(this.storage.getAsset("fresh/-/fresh-1.0.0.tgz"))
+            .thenReturn(Maybe.just(defaultAsset()));
+        metered.backgroundPackage("fresh").blockingGet();
+        metered.backgroundAsset("fresh/-/fresh-1.0.0.tgz").blockingGet();
+        MatcherAssert.assertThat(
+            registry.find("npm.proxy.cache").counters().stream()
+                .mapToDouble(Counter::count).sum(),
+            new IsEqual<>(0.0)
+        );
+    }
+
+    @Test
+    public void reportsBusyPoolOnColdMiss() {
+        final TransformPool pool = new TransformPool(1, 1, new SimpleMeterRegistry());
+        final CountDownLatch release = new CountDownLatch(1);
+        pool.submit(
+            () -> {
+                release.await();
+                return true;
+            }
+        ).subscribe();
+        pool.submit(() -> true).subscribe();
+        Mockito.when(this.storage.getPackage("cold")).thenReturn(Maybe.empty());
+        Mockito.when(this.remote.loadPackage("cold")).thenReturn(
+            Maybe.defer(
+                () -> pool.submit(() -> defaultPackage(OffsetDateTime.now())).toMaybe()
+            )
+        );
+        try {
+            MatcherAssert.assertThat(
+                new DownloadPackageSlice(this.npm, new PackagePath("")).response(
+                    "GET /cold HTTP/1.1",
+                    Collections.<Map.Entry<String, String>>singletonList(
+                        new MapEntry<>("Host", "localhost")
+                    ),
+                    Flowable.empty()
+                ),
+                new RsHasStatus(RsStatus.UNAVAILABLE)
+            );
+        } finally {
+            release.countDown();
+            pool.close();
+        }
+    }
+
+    @Test
+    public void reportsOpenBreakerOnColdMiss() {
+        Mockito.when(this.storage.getPackage("cold")).thenReturn(Maybe.empty());
+        Mockito.when(this.remote.loadPackage("cold")).thenReturn(
+            Maybe.error(new CircuitBreaker.OpenException(Duration.ofSeconds(30)))
+        );
+        MatcherAssert.assertThat(
+            new DownloadPackageSlice(this.npm, new PackagePath("")).response(
+                "GET /cold HTTP/1.1",
+                Collections.<Map.Entry<String, String>>singletonList(
+                    new MapEntry<>("Host", "localhost")
+                ),
+                Flowable.empty()
+            ),
+            new RsHasStatus(RsStatus.UNAVAILABLE)
+        );
+    }
+
+    @Test
+    public void remembersAbsentPackagesByPolicy() {
+        final NpmProxy policed = new NpmProxy(
+            NpmProxyTest.policed("negative-ttl-minutes", "10"),
+            NpmProxyTest.vertx,
+            this.storage,
+            this.remote
+        );
+        Mockito.when(this.storage.getPackage(Mockito.anyString())).thenReturn(Maybe.empty());
+        Mockito.when(this.remote.loadPackage(Mockito.anyString())).thenReturn(Maybe.empty());
+        for (int idx = 0; idx < 2; idx += 1) {
+            policed.getPackage("@corp/absent").blockingGet();
+            policed.getPackage("absent").blockingGet();
+        }
+        Mockito.verify(this.remote, Mockito.times(1)).loadPackage("@corp/absent");
+        Mockito.verify(this.remote, Mockito.times(2)).loadPackage("absent");
+    }
+
+    @Test
+    public void doesNotRememberFailedPackages() {
+        final NpmProxy policed = new NpmProxy(
+            NpmProxyTest.policed("negative-ttl-minutes", "10"),
+            NpmProxyTest.vertx,
+            this.storage,
+            this.remote
+        );
+        Mockito.when(this.storage.getPackage(Mockito.anyString())).thenReturn(Maybe.empty());
+        Mockito.when(this.remote.loadPackage(Mockito.anyString())).thenReturn(
+            Maybe.error(new IllegalStateException("Remote repository failed with status 500"))
+        );
+        for (int idx = 0; idx < 2; idx += 1) {
+            MatcherAssert.assertThat(
+                "Failed package should be reported as not found",
+                policed.getPackage("@corp/failed").isEmpty().blockingGet()
+            );
+        }
+        Mockito.verify(this.remote, Mockito.times(2)).loadPackage("@corp/failed");
+    }
+
+    @Test
+    public void refreshesPackageByPolicyTtl() {
+        final NpmProxy policed = new NpmProxy(
+            NpmProxyTest.policed("ttl-minutes", "10"),
+            NpmProxyTest.vertx,
+            this.storage,
+            this.remote
+        );
+        final NpmPackage cached = new NpmPackage(
+            "@corp/pkg", "{}", NpmProxyTest.LAST_MODIFIED, OffsetDateTime.now().minusMinutes(30)
+        );
+        final NpmPackage other = new NpmPackage(
+            "other", "{}", NpmProxyTest.LAST_MODIFIED, OffsetDateTime.now().minusMinutes(30)
+        );
+        final NpmPackage refreshed = new NpmPackage(
+            "@corp/pkg", "{\"name\":\"@corp/pkg\"}", NpmProxyTest.LAST_MODIFIED,
+            OffsetDateTime.now()
+        );
+        Mockito.when(this.storage.getPackage("@corp/pkg")).thenReturn(Maybe.just(cached));
+        Mockito.when(this.storage.getPackage("other")).thenReturn(Maybe.just(other));
+        Mockito.when(this.storage.save(Mockito.any(NpmPackage.class)))
+            .thenReturn(Completable.complete());
+        Mockito.when(this.remote.loadPackage("@corp/pkg")).thenReturn(Maybe.just(refreshed));
+        MatcherAssert.assertThat(
+            policed.getPackage("@corp/pkg").blockingGet().content(),
+            new IsEqual<>(refreshed.content())
+        );
+        MatcherAssert.assertThat(
+            "Package not matched by policy should use global TTL",
+            policed.getPackage("other").blockingGet(),
+            new IsSame<>(other)
+        );
+    }
+
+    @Test
+    public void refreshesNotifiedPackage() throws IOException {
+        final String name = "asdas";
+        final NpmPackage cached = defaultPackage(OffsetDateTime.now());
+        final NpmPackage published = defaultPackage(OffsetDateTime.now());
+        Mockito.when(this.storage.getPackage(name)).thenReturn(Maybe.just(cached));
+        Mockito.when(this.storage.refresh(Mockito.any(NpmPackage.class)))
+            .thenReturn(Completable.complete());
+        Mockito.when(this.remote.loadPackage(name)).thenReturn(Maybe.just(published));
+        this.npm.invalidations().notify(name, "package:publish");
+        this.npm.invalidations().flush().blockingAwait();
+        Mockito.verify(this.storage, Mockito.never()).save(Mockito.any(NpmPackage.class));
+        Mockito.verify(this.storage).refresh(Mockito.any(NpmPackage.class));
+    }
+
     @BeforeEach
     void setUp() throws IOException {
         final YamlMapping yaml = Yaml.createYamlMappingBuilder()
@@ -229,6 +567,28 @@ public final class NpmProxyTest {
         NpmProxyTest.vertx.close();
     }
 
+    /**
+     * Config with one hour TTL and policy rule for {@code @corp} scope.
+     * @param key Policy setting
+     * @param value Policy setting value
+     * @return Config
+     */
+    private static NpmProxyConfig policed(final String key, final String value) {
+        return new NpmProxyConfig(
+            Yaml.createYamlMappingBuilder()
+                .add("metadata-ttl-minutes", "60")
+                .add(
+                    "policies",
+                    Yaml.createYamlSequenceBuilder().add(
+                        Yaml.createYamlMappingBuilder()
+                            .add("match", "@corp/*")
+                            .add(key, value)
+                            .build()
+                    ).build()
+                ).build()
+        );
+    }
+
     private static NpmPackage defaultPackage(final OffsetDateTime refreshed) throws IOException {
         return new NpmPackage(
             "asdas",
@@ -241,6 +601,20 @@ public final class NpmProxyTest {
         );
     }
 
+    private static NpmAsset digestedAsset(final String integrity) {
+        return new NpmAsset(
+            "asdas/-/asdas-1.0.0.tgz",
+            new Content.From(NpmProxyTest.DEF_CONTENT.getBytes()),
+            new NpmAsset.Metadata(
+                NpmProxyTest.LAST_MODIFIED,
+                NpmProxyTest.DEF_CONTENT_TYPE,
+                NpmProxyTest.DEF_CONTENT.length(),
+                integrity,
+                null
+            )
+        );
+    }
+
     private static NpmAsset defaultAsset() {
         return new NpmAsset(
             "asdas/-/asdas-1.0.0.tgz",
@@ -268,15 +642,47 @@ public final class NpmProxyTest {
             Mockito.doReturn(Maybe.just(refreshed))
                 .when(NpmProxyTest.this.remote).loadPackage(name);
             Mockito.when(
-                NpmProxyTest.this.storage.save(refreshed)
+                NpmProxyTest.this.storage.refresh(Mockito.any(NpmPackage.class))
             ).thenReturn(Completable.complete());
+            final NpmPackage result = NpmProxyTest.this.npm.getPackage(name).blockingGet();
             MatcherAssert.assertThat(
-                NpmProxyTest.this.npm.getPackage(name).blockingGet(),
-                new IsSame<>(refreshed)
+                Arrays.asList(result.content(), result.meta()),
+                new IsEqual<>(Arrays.asList(original.content(), refreshed.meta()))
             );
             Mockito.verify(NpmProxyTest.this.storage).getPackage(name);
             Mockito.verify(NpmProxyTest.this.remote).loadPackage(name);
-            Mockito.verify(NpmProxyTest.this.storage).save(refreshed);
+            Mockito.verify(NpmProxyTest.this.storage).refresh(result);
+            Mockito.verify(NpmProxyTest.this.storage, Mockito.never())
+                .save(Mockito.any(NpmPackage.class));
+        }
+
+        @Test
+        public void getsChangedPackage() throws IOException {
+            final String name = "asdas";
+            final NpmPackage original = NpmProxyTest.defaultPackage(
+                OffsetDateTime.now().minus(2, ChronoUnit.HOURS)
+            );
+            final NpmPackage published = new NpmPackage(
+                name,
+                new JsonObject(original.content()).put("description", "changed").encode(),
+                NpmProxyTest.LAST_MODIFIED,
+                OffsetDateTime.now()
+            );
+            Mockito.doReturn(Maybe.just(original))
+                .when(NpmProxyTest.this.storage).getPackage(name);
+            Mockito.doReturn(Maybe.just(published))
+                .when(NpmProxyTest.this.remote).loadPackage(name);
+            Mockito.when(
+                NpmProxyTest.this.storage.save(Mockito.any(NpmPackage.class))
+            ).thenReturn(Completable.complete());
+            final NpmPackage result = NpmProxyTest.this.npm.getPackage(name).blockingGet();
+            MatcherAssert.assertThat(
+                new JsonObject(result.content()),
+                new IsEqual<>(new JsonObject(published.content()))
+            );
+            Mockito.verify(NpmProxyTest.this.storage).save(result);
+            Mockito.verify(NpmProxyTest.this.storage, Mockito.never())
+                .refresh(Mockito.any(NpmPackage.class));
         }
 
         @Test
@@ -0,0 +1,108 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.npm.proxy.model.NpmPackage;
+import io.vertx.core.json.JsonObject;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsSame;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link PackageMerge}.
+ * @since 0.3
+ */
+final class PackageMergeTest {
+    /**
+     * Package content with one version.
+     */
+    private static final String CACHED = String.join(
+        "",
+        "{\"name\":\"pkg\",\"dist-tags\":{\"latest\":\"1.0.0\"},",
+        "\"versions\":{\"1.0.0\":{\"dist\":{\"tarball\":\"/pkg/-/pkg-1.0.0.tgz\"}}},",
+        "\"time\":{\"modified\":\"2020-01-01T00:00:00Z\",\"1.0.0\":\"2020-01-01T00:00:00Z\"}}"
+    );
+
+    @Test
+    void keepsCachedContentWhenNothingChanged() {
+        final NpmPackage fresh = PackageMergeTest.pkg(
+            new JsonObject(PackageMergeTest.CACHED).encodePrettily(), OffsetDateTime.now()
+        );
+        final PackageMerge.Result merge = new PackageMerge(
+            PackageMergeTest.pkg(PackageMergeTest.CACHED, OffsetDateTime.now().minusHours(1)),
+            fresh
+        ).result();
+        MatcherAssert.assertThat(
+            Arrays.asList(merge.changed(), merge.pkg().content()),
+            new IsEqual<>(Arrays.asList(false, PackageMergeTest.CACHED))
+        );
+        MatcherAssert.assertThat(merge.pkg().meta(), new IsSame<>(fresh.meta()));
+    }
+
+    @Test
+    void appliesOnlyChangedEntries() {
+        final JsonObject published = new JsonObject(PackageMergeTest.CACHED);
+        published.getJsonObject("dist-tags").put("latest", "1.1.0");
+        published.getJsonObject("versions").put(
+            "1.1.0",
+            new JsonObject().put(
+                "dist", new JsonObject().put("tarball", "/pkg/-/pkg-1.1.0.tgz")
+            )
+        );
+        published.getJsonObject("time")
+            .put("modified", "2020-02-01T00:00:00Z")
+            .put("1.1.0", "2020-02-01T00:00:00Z");
+        final PackageMerge.Result merge = new PackageMerge(
+            PackageMergeTest.pkg(PackageMergeTest.CACHED, OffsetDateTime.now().minusHours(1)),
+            PackageMergeTest.pkg(published.encode(), OffsetDateTime.now())
+        ).result();
+        MatcherAssert.assertThat(merge.changes(), new IsEqual<>(4));
+        MatcherAssert.assertThat(
+            new JsonObject(merge.pkg().content()),
+            new IsEqual<>(published)
+        );
+    }
+
+    @Test
+    void removesUnpublishedVersions() {
+        final JsonObject unpublished = new JsonObject(PackageMergeTest.CACHED);
+        unpublished.getJsonObject("versions").remove("1.0.0");
+        unpublished.getJsonObject("time").remove("1.0.0");
+        final PackageMerge.Result merge = new PackageMerge(
+            PackageMergeTest.pkg(PackageMergeTest.CACHED, OffsetDateTime.now().minusHours(1)),
+            PackageMergeTest.pkg(unpublished.encode(), OffsetDateTime.now())
+        ).result();
+        MatcherAssert.assertThat(
+            Arrays.asList(merge.changes(), new JsonObject(merge.pkg().content())),
+            new IsEqual<>(Arrays.asList(2, unpublished))
+        );
+    }
+
+    private static NpmPackage pkg(final String content, final OffsetDateTime refreshed) {
+        return new NpmPackage("pkg", content, "Tue, 24 Mar 2020 12:15:16 GMT", refreshed);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsSame;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link PackagePolicies}.
+ * @since 0.3
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+final class PackagePoliciesTest {
+    /**
+     * Fallback policy.
+     */
+    private static final PackagePolicies.Rule FALLBACK = PackagePoliciesTest.rule("*");
+
+    @Test
+    void prefersExactNameToPrefix() {
+        final PackagePolicies.Rule exact = PackagePoliciesTest.rule("@types/node");
+        MatcherAssert.assertThat(
+            new PackagePolicies(
+                Arrays.asList(PackagePoliciesTest.rule("@types/*"), exact),
+                PackagePoliciesTest.FALLBACK
+            ).policy("@types/node"),
+            new IsSame<>(exact)
+        );
+    }
+
+    @Test
+    void prefersLongestPrefix() {
+        final PackagePolicies.Rule longest = PackagePoliciesTest.rule("@corp/internal-*");
+        final PackagePolicies policies = new PackagePolicies(
+            Arrays.asList(
+                PackagePoliciesTest.rule("@*"),
+                longest,
+                PackagePoliciesTest.rule("@corp/*")
+            ),
+            PackagePoliciesTest.FALLBACK
+        );
+        MatcherAssert.assertThat(policies.policy("@corp/internal-api"), new IsSame<>(longest));
+        MatcherAssert.assertThat(
+            policies.policy("@corp"),
+            new IsEqual<>(policies.policy("@other/pkg"))
+        );
+    }
+
+    @Test
+    void fallsBackWhenNothingMatches() {
+        MatcherAssert.assertThat(
+            new PackagePolicies(
+                Collections.singletonList(PackagePoliciesTest.rule("@corp/*")),
+                PackagePoliciesTest.FALLBACK
+            ).policy("lodash"),
+            new IsSame<>(PackagePoliciesTest.FALLBACK)
+        );
+    }
+
+    @Test
+    void rejectsInnerWildcards() {
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new PackagePolicies(
+                Collections.singletonList(PackagePoliciesTest.rule("@corp/*-api")),
+                PackagePoliciesTest.FALLBACK
+            )
+        );
+    }
+
+    private static PackagePolicies.Rule rule(final String pattern) {
+        return new PackagePolicies.Rule(pattern, Duration.ofMinutes(1), Duration.ZERO, true, true);
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.npm.proxy.model.NpmPackage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.reactivex.Maybe;
+import io.vertx.core.json.JsonObject;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Dependencies metadata prefetcher test.
+ * @since 0.3
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class PrefetcherTest {
+    /**
+     * Packages registry: name to dependencies of the latest version.
+     */
+    private Map<String, Collection<String>> registry;
+
+    /**
+     * Loaded packages names.
+     */
+    private Set<String> loaded;
+
+    /**
+     * Meter registry.
+     */
+    private SimpleMeterRegistry meters;
+
+    /**
+     * Transformation pool.
+     */
+    private TransformPool pool;
+
+    /**
+     * Prefetcher.
+     */
+    private Prefetcher prefetcher;
+
+    @Test
+    void prefetchesDependenciesOfLatestVersion() throws InterruptedException {
+        this.prefetcher = this.prefetcher(1, 4);
+        this.prefetcher.packageRequested(this.pkg("app"));
+        this.await(2);
+        MatcherAssert.assertThat(
+            this.loaded,
+            new IsEqual<>(new HashSet<>(Arrays.asList("left", "right")))
+        );
+    }
+
+    @Test
+    void respectsDepth() throws InterruptedException {
+        this.prefetcher = this.prefetcher(2, 4);
+        this.prefetcher.packageRequested(this.pkg("app"));
+        this.await(3);
+        TimeUnit.MILLISECONDS.sleep(100);
+        MatcherAssert.assertThat(
+            this.loaded,
+            new IsEqual<>(new HashSet<>(Arrays.asList("left", "right", "deep")))
+        );
+    }
+
+    @Test
+    void prefetchesDependenciesOfAssetVersion() throws InterruptedException {
+        this.prefetcher = this.prefetcher(1, 4);
+        this.prefetcher.assetRequested("@scope/app/-/app-1.0.0.tgz");
+        this.await(2);
+        MatcherAssert.assertThat(
+            this.loaded,
+            new IsEqual<>(new HashSet<>(Arrays.asList("@scope/app", "old")))
+        );
+    }
+
+    @Test
+    void countsHits() throws InterruptedException {
+        this.prefetcher = this.prefetcher(1, 4);
+        this.prefetcher.packageRequested(this.pkg("app"));
+        this.await(2);
+        this.prefetcher.packageRequested(this.pkg("left"));
+        this.prefetcher.packageRequested(this.pkg("left"));
+        MatcherAssert.assertThat(this.prefetcher.hits(), new IsEqual<>(1L));
+    }
+
+    @Test
+    void skipsRecentlyRequestedPackages() throws InterruptedException {
+        this.prefetcher = this.prefetcher(1, 4);
+        final CountDownLatch latch = new CountDownLatch(1);
+        this.pool.submit(
+            () -> {
+                latch.await();
+                return true;
+            }
+        ).subscribe();
+        this.prefetcher.packageRequested(this.pkg("app"));
+        this.prefetcher.packageRequested(this.pkg("app"));
+        TimeUnit.MILLISECONDS.sleep(100);
+        latch.countDown();
+        this.await(2);
+        MatcherAssert.assertThat(
+            "Package is parsed once",
+            this.meters.get("npm.proxy.transform.rejected").functionCounter().count(),
+            new IsEqual<>(0.0)
+        );
+        MatcherAssert.assertThat(
+            this.loaded,
+            new IsEqual<>(new HashSet<>(Arrays.asList("left", "right")))
+        );
+    }
+
+    @Test
+    void skipsRecentlyRequestedAssets() throws InterruptedException {
+        final AtomicInteger loads = new AtomicInteger();
+        this.prefetcher = new Prefetcher(
+            name -> Maybe.fromCallable(
+                () -> {
+                    if ("@scope/app".equals(name)) {
+                        loads.incrementAndGet();
+                    }
+                    this.loaded.add(name);
+                    return this.pkg(name);
+                }
+            ),
+            1,
+            4,
+            this.pool
+        );
+        this.prefetcher.assetRequested("@scope/app/-/app-1.0.0.tgz");
+        this.prefetcher.assetRequested("@scope/app/-/app-1.0.0.tgz");
+        this.await(2);
+        TimeUnit.MILLISECONDS.sleep(100);
+        MatcherAssert.assertThat(loads.get(), new IsEqual<>(1));
+    }
+
+    @Test
+    void doesNotPrefetchWhenDisabled() throws InterruptedException {
+        this.prefetcher = this.prefetcher(0, 4);
+        this.prefetcher.packageRequested(this.pkg("app"));
+        TimeUnit.MILLISECONDS.sleep(100);
+        MatcherAssert.assertThat(this.loaded.isEmpty(), new IsEqual<>(true));
+    }
+
+    @Test
+    void boundsConcurrency() throws InterruptedException {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger max = new AtomicInteger();
+        this.prefetcher = new Prefetcher(
+            name -> Maybe.fromCallable(
+                () -> {
+                    max.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    return this.pkg(name);
+                }
+            ).delay(50, TimeUnit.MILLISECONDS).doOnSuccess(
+                pkg -> {
+                    active.decrementAndGet();
+                    this.loaded.add(pkg.name());
+                }
+            ),
+            1,
+            1,
+            this.pool
+        );
+        this.prefetcher.packageRequested(this.pkg("app"));
+        this.await(2);
+        MatcherAssert.assertThat(max.get(), new IsEqual<>(1));
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.registry = new ConcurrentHashMap<>();
+        this.registry.put("app", Arrays.asList("left", "right"));
+        this.registry.put("left", Arrays.asList("deep"));
+        this.registry.put("right", Arrays.asList("deep"));
+        this.registry.put("deep", Arrays.asList("deeper"));
+        this.loaded = ConcurrentHashMap.newKeySet();
+        this.meters = new SimpleMeterRegistry();
+        this.pool = new TransformPool(1, 1, this.meters);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.prefetcher.close();
+        this.pool.close();
+    }
+
+    private Prefetcher prefetcher(final int depth, final int concurrency) {
+        return new Prefetcher(
+            name -> Maybe.fromCallable(
+                () -> {
+                    final NpmPackage pkg = this.pkg(name);
+                    this.loaded.add(name);
+                    return pkg;
+                }
+            ),
+            depth,
+            concurrency,
+            this.pool
+        );
+    }
+
+    private void await(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (this.loaded.size() < count && System.currentTimeMillis() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+    }
+
+    private NpmPackage pkg(final String name) {
+        final JsonObject deps = new JsonObject();
+        this.registry.getOrDefault(name, Arrays.asList())
+            .forEach(dep -> deps.put(dep, "^1.0.0"));
+        return new NpmPackage(
+            name,
+            new JsonObject()
+                .put("name", name)
+                .put("dist-tags", new JsonObject().put("latest", "2.0.0"))
+                .put(
+                    "versions",
+                    new JsonObject()
+                        .put(
+                            "1.0.0",
+                            new JsonObject().put(
+                                "dependencies", new JsonObject().put("old", "^1.0.0")
+                            )
+                        )
+                        .put("2.0.0", new JsonObject().put("dependencies", deps))
+                ).encode(),
+            "Tue, 24 Mar 2020 12:15:16 GMT",
+            OffsetDateTime.now()
+        );
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.asto.Concatenation;
+import com.artipie.asto.Content;
+import com.artipie.asto.Key;
+import com.artipie.asto.Storage;
+import com.artipie.asto.memory.InMemoryStorage;
+import com.artipie.asto.rx.RxStorageWrapper;
+import com.artipie.npm.proxy.model.NpmAsset;
+import com.artipie.npm.proxy.model.NpmPackage;
+import io.vertx.core.json.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * NPM Proxy storage with disk quota test.
+ * @since 0.3
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class QuotaNpmProxyStorageTest {
+    /**
+     * Size of saved asset together with its metadata file.
+     */
+    private static final long UNIT = 4 + new NpmAsset.Metadata(
+        new JsonObject().put("last-modified", "").put("content-type", "application/octet-stream")
+    ).json().encode().getBytes(StandardCharsets.UTF_8).length;
+
+    /**
+     * Storage budget: two saved assets fit into it, three do not.
+     */
+    private static final long BUDGET = 2 * QuotaNpmProxyStorageTest.UNIT + 2;
+
+    /**
+     * Underlying storage.
+     */
+    private Storage delegate;
+
+    @BeforeEach
+    void setUp() {
+        this.delegate = new InMemoryStorage();
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        final QuotaNpmProxyStorage storage = this.storage(QuotaNpmProxyStorage.Policy.LRU);
+        this.save(storage, "a");
+        this.save(storage, "b");
+        this.read(storage, "a");
+        this.save(storage, "c");
+        MatcherAssert.assertThat(
+            this.keys(),
+            new IsEqual<>(
+                Arrays.asList(
+                    "a/-/a-1.0.0.tgz", "a/-/a-1.0.0.tgz.meta",
+                    "c/-/c-1.0.0.tgz", "c/-/c-1.0.0.tgz.meta"
+                )
+            )
+        );
+        MatcherAssert.assertThat(storage.evicted(), new IsEqual<>(1L));
+        MatcherAssert.assertThat(
+            storage.size(), new IsEqual<>(2 * QuotaNpmProxyStorageTest.UNIT)
+        );
+    }
+
+    @Test
+    void evictsLeastFrequentlyUsed() {
+        final QuotaNpmProxyStorage storage = this.storage(QuotaNpmProxyStorage.Policy.LFU);
+        this.save(storage, "a");
+        this.save(storage, "b");
+        this.read(storage, "a");
+        this.read(storage, "a");
+        this.read(storage, "b");
+        this.save(storage, "c");
+        MatcherAssert.assertThat(
+            this.keys(),
+            new IsEqual<>(
+                Arrays.asList(
+                    "a/-/a-1.0.0.tgz", "a/-/a-1.0.0.tgz.meta",
+                    "c/-/c-1.0.0.tgz", "c/-/c-1.0.0.tgz.meta"
+                )
+            )
+        );
+    }
+
+    @Test
+    void evictsPackagesWithMetadata() {
+        final QuotaNpmProxyStorage storage = this.storage(QuotaNpmProxyStorage.Policy.LRU);
+        storage.save(new NpmPackage("pkg", "{\"n\":1}", "", OffsetDateTime.now()))
+            .blockingAwait();
+        this.save(storage, "a");
+        MatcherAssert.assertThat(
+            this.keys(),
+            new IsEqual<>(Arrays.asList("a/-/a-1.0.0.tgz", "a/-/a-1.0.0.tgz.meta"))
+        );
+    }
+
+    @Test
+    void tracksObjectsCachedBeforeStart() {
+        this.save(this.storage(QuotaNpmProxyStorage.Policy.LRU), "a");
+        final QuotaNpmProxyStorage storage = this.storage(QuotaNpmProxyStorage.Policy.LRU);
+        this.read(storage, "a");
+        MatcherAssert.assertThat(storage.size(), new IsEqual<>(QuotaNpmProxyStorageTest.UNIT));
+    }
+
+    @Test
+    void takesAssetSizeFromMetadataOnStart() {
+        final String meta = new JsonObject().put("size", 1000).encode();
+        this.delegate.save(
+            new Key.From(QuotaNpmProxyStorageTest.path("a")),
+            new Content.From("data".getBytes(StandardCharsets.UTF_8))
+        ).join();
+        this.delegate.save(
+            new Key.From(String.format("%s.meta", QuotaNpmProxyStorageTest.path("a"))),
+            new Content.From(meta.getBytes(StandardCharsets.UTF_8))
+        ).join();
+        final QuotaNpmProxyStorage storage = new QuotaNpmProxyStorage(
+            new RxNpmProxyStorage(new RxStorageWrapper(this.delegate)),
+            new RxStorageWrapper(this.delegate),
+            10_000,
+            QuotaNpmProxyStorage.Policy.LRU
+        );
+        storage.loaded().blockingAwait();
+        MatcherAssert.assertThat(storage.size(), new IsEqual<>(1000L + meta.length()));
+    }
+
+    @Test
+    void evictsObjectsCachedBeforeStart() {
+        final NpmProxyStorage unlimited = new RxNpmProxyStorage(
+            new RxStorageWrapper(this.delegate)
+        );
+        unlimited.save(new NpmPackage("pkg", "{\"n\":1}", "", OffsetDateTime.now()))
+            .blockingAwait();
+        this.save(unlimited, "a");
+        this.save(unlimited, "b");
+        final QuotaNpmProxyStorage storage = this.storage(QuotaNpmProxyStorage.Policy.LRU);
+        MatcherAssert.assertThat(
+            Arrays.asList(storage.size() <= QuotaNpmProxyStorageTest.BUDGET, storage.evicted() > 0),
+            new IsEqual<>(Arrays.asList(true, true))
+        );
+        this.save(storage, "c");
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                this.keys().contains("c/-/c-1.0.0.tgz"),
+                storage.size() <= QuotaNpmProxyStorageTest.BUDGET
+            ),
+            new IsEqual<>(Arrays.asList(true, true))
+        );
+    }
+
+    /**
+     * Create storage with budget for two saved assets.
+     * @param policy Eviction policy
+     * @return Storage
+     */
+    private QuotaNpmProxyStorage storage(final QuotaNpmProxyStorage.Policy policy) {
+        final QuotaNpmProxyStorage storage = new QuotaNpmProxyStorage(
+            new RxNpmProxyStorage(new RxStorageWrapper(this.delegate)),
+            new RxStorageWrapper(this.delegate),
+            QuotaNpmProxyStorageTest.BUDGET,
+            policy
+        );
+        storage.loaded().blockingAwait();
+        return storage;
+    }
+
+    /**
+     * Save 4 bytes asset of the package.
+     * @param storage Storage
+     * @param name Package name
+     */
+    private void save(final NpmProxyStorage storage, final String name) {
+        storage.save(
+            new NpmAsset(
+                QuotaNpmProxyStorageTest.path(name),
+                new Content.From("data".getBytes(StandardCharsets.UTF_8)),
+                "", "application/octet-stream"
+            )
+        ).blockingAwait();
+    }
+
+    /**
+     * Read asset of the package.
+     * @param storage Storage
+     * @param name Package name
+     */
+    private void read(final NpmProxyStorage storage, final String name) {
+        new Concatenation(
+            storage.getAsset(QuotaNpmProxyStorageTest.path(name)).blockingGet().dataPublisher()
+        ).single().blockingGet();
+    }
+
+    /**
+     * All storage keys.
+     * @return Sorted keys
+     */
+    private List<String> keys() {
+        return this.delegate.list(Key.ROOT).join().stream()
+            .map(Key::string).sorted().collect(Collectors.toList());
+    }
+
+    /**
+     * Asset path of the package.
+     * @param name Package name
+     * @return Asset path
+     */
+    private static String path(final String name) {
+        return String.format("%s/-/%s-1.0.0.tgz", name, name);
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.reactivex.Single;
+import io.vertx.ext.web.client.impl.WebClientInternal;
+import io.vertx.reactivex.core.Vertx;
+import io.vertx.reactivex.core.http.HttpServer;
+import io.vertx.reactivex.core.http.HttpServerRequest;
+import io.vertx.reactivex.ext.web.client.HttpResponse;
+import io.vertx.reactivex.ext.web.client.WebClient;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.apache.commons.lang3.StringUtils;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Test for {@link RangeDownload}.
+ * @since 0.3
+ * @checkstyle MagicNumberCheck (500 lines)
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+final class RangeDownloadTest {
+    /**
+     * Range header pattern.
+     */
+    private static final Pattern RANGE = Pattern.compile("^bytes=(\\d+)-(\\d*)$");
+
+    /**
+     * Vertx instance.
+     */
+    private static Vertx vertx;
+
+    /**
+     * Asset content served.
+     */
+    private volatile String content;
+
+    /**
+     * Requests served: Range and If-Range headers.
+     */
+    private List<String> requests;
+
+    /**
+     * Number of requests to interrupt in the middle.
+     */
+    private AtomicInteger interrupts;
+
+    /**
+     * Number of requests to answer with error.
+     */
+    private AtomicInteger failures;
+
+    /**
+     * Http server.
+     */
+    private HttpServer server;
+
+    /**
+     * Web client.
+     */
+    private WebClient client;
+
+    /**
+     * Response start notifications.
+     */
+    private ResponseStarts starts;
+
+    /**
+     * Spool file.
+     */
+    private Path file;
+
+    @Test
+    void resumesInterruptedDownload() throws IOException {
+        this.content = StringUtils.repeat("0123456789", 1000);
+        this.interrupts.set(1);
+        final Digests digests = new Digests();
+        new RangeDownload(RangeDownloadTest.vertx, this.client, this.starts, 3, 1, 0)
+            .download(this.url(), this.file, () -> { }, digests)
+            .blockingGet();
+        MatcherAssert.assertThat(this.downloaded(), new IsEqual<>(this.content));
+        MatcherAssert.assertThat(
+            digests.integrity(),
+            new IsEqual<>(RangeDownloadTest.integrity(this.content))
+        );
+        MatcherAssert.assertThat(
+            this.requests.get(1),
+            new IsEqual<>("bytes=5000- \"v10\"")
+        );
+    }
+
+    @Test
+    void restartsDownloadWhenAssetChanged() throws IOException {
+        this.content = StringUtils.repeat("0123456789", 1000);
+        this.interrupts.set(1);
+        final String changed = "changed";
+        final Digests digests = new Digests();
+        new RangeDownload(RangeDownloadTest.vertx, this.client, this.starts, 3, 1, 0)
+            .download(
+                this.url(), this.file,
+                () -> {
+                    if (this.interrupts.get() == 0) {
+                        this.content = changed;
+                    }
+                },
+                digests
+            ).blockingGet();
+        MatcherAssert.assertThat(this.downloaded(), new IsEqual<>(changed));
+        MatcherAssert.assertThat(
+            digests.integrity(),
+            new IsEqual<>(RangeDownloadTest.integrity(changed))
+        );
+    }
+
+    @Test
+    void downloadsBySegments() throws IOException {
+        this.content = StringUtils.repeat("0123456789", 1000);
+        final Digests digests = new Digests();
+        new RangeDownload(RangeDownloadTest.vertx, this.client, this.starts, 3, 4, 1000)
+            .download(this.url(), this.file, () -> { }, digests)
+            .blockingGet();
+        MatcherAssert.assertThat(this.downloaded(), new IsEqual<>(this.content));
+        MatcherAssert.assertThat(this.requests.size(), new IsEqual<>(4));
+        MatcherAssert.assertThat(
+            "Segment requests are not validated",
+            this.requests.stream().filter(req -> req.endsWith(" \"v10\"")).count(),
+            new IsEqual<>(3L)
+        );
+        MatcherAssert.assertThat(
+            digests.integrity(),
+            new IsEqual<>(RangeDownloadTest.integrity(this.content))
+        );
+    }
+
+    @Test
+    void dropsErrorBodyOnRetry() throws IOException {
+        this.content = StringUtils.repeat("0123456789", 1000);
+        this.failures.set(1);
+        final Digests digests = new Digests();
+        final Single<HttpResponse<Void>> download = new RangeDownload(
+            RangeDownloadTest.vertx, this.client, this.starts, 3, 1, 0
+        ).download(this.url(), this.file, () -> { }, digests);
+        MatcherAssert.assertThat(
+            download.blockingGet().statusCode(),
+            new IsEqual<>(503)
+        );
+        download.blockingGet();
+        MatcherAssert.assertThat(this.downloaded(), new IsEqual<>(this.content));
+        MatcherAssert.assertThat(
+            digests.integrity(),
+            new IsEqual<>(RangeDownloadTest.integrity(this.content))
+        );
+        MatcherAssert.assertThat(
+            "Retry must not continue error body by range",
+            this.requests.get(1),
+            new IsEqual<>("null null")
+        );
+    }
+
+    @Test
+    void downloadsWholeAssetWhenRangesAreNotSupported() throws IOException {
+        this.content = "no ranges";
+        new RangeDownload(RangeDownloadTest.vertx, this.client, this.starts, 3, 4, 4)
+            .download(String.format("%s?whole", this.url()), this.file, () -> { }, new Digests())
+            .blockingGet();
+        MatcherAssert.assertThat(this.downloaded(), new IsEqual<>(this.content));
+    }
+
+    @BeforeEach
+    void setUp(@TempDir final Path tmp) throws IOException, InterruptedException {
+        this.file = tmp.resolve("asset.tgz");
+        this.requests = new CopyOnWriteArrayList<>();
+        this.interrupts = new AtomicInteger();
+        this.failures = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(1);
+        this.server = RangeDownloadTest.vertx.createHttpServer()
+            .requestHandler(this::serve)
+            .listen(RangeDownloadTest.port(), unused -> latch.countDown());
+        latch.await();
+        this.starts = new ResponseStarts();
+        this.client = WebClient.create(RangeDownloadTest.vertx);
+        ((WebClientInternal) this.client.getDelegate()).addInterceptor(this.starts);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.client.close();
+        this.server.close();
+    }
+
+    @BeforeAll
+    static void prepare() {
+        RangeDownloadTest.vertx = Vertx.vertx();
+    }
+
+    @AfterAll
+    static void cleanup() {
+        RangeDownloadTest.vertx.close();
+    }
+
+    private void serve(final HttpServerRequest req) {
+        final String range = req.getHeader("Range");
+        this.requests.add(String.format("%s %s", range, req.getHeader("If-Range")));
+        if (this.failures.getAndDecrement() > 0) {
+            req.response().setStatusCode(503).end("<html>Service Unavailable</html>");
+        } else {
+            this.answer(req, range);
+        }
+    }
+
+    private void answer(final HttpServerRequest req, final String range) {
+        final byte[] data = this.content.getBytes(StandardCharsets.UTF_8);
+        final String etag = String.format("\"v%d\"", this.content.length() / 1000);
+        final Matcher matcher;
+        if (range == null) {
+            matcher = null;
+        } else {
+            matcher = RangeDownloadTest.RANGE.matcher(range);
+        }
+        final boolean partial = matcher != null && matcher.matches()
+            && etag.equals(StringUtils.defaultString(req.getHeader("If-Range"), etag))
+            && !req.uri().endsWith("?whole");
+        int from = 0;
+        int to = data.length;
+        if (partial) {
+            from = Integer.parseInt(matcher.group(1));
+            if (!matcher.group(2).isEmpty()) {
+                to = Math.min(to, Integer.parseInt(matcher.group(2)) + 1);
+            }
+            req.response().setStatusCode(206).putHeader(
+                "Content-Range", String.format("bytes %d-%d/%d", from, to - 1, data.length)
+            );
+        }
+        req.response()
+            .putHeader("ETag", etag)
+            .putHeader("Content-Length", String.valueOf(to - from));
+        if (this.interrupts.getAndDecrement() > 0) {
+            req.response().write(
+                io.vertx.reactivex.core.buffer.Buffer.buffer(
+                    new String(data, from, (to - from) / 2, StandardCharsets.UTF_8)
+                ),
+                ignored -> req.connection().close()
+            );
+        } else {
+            req.response().end(
+                io.vertx.reactivex.core.buffer.Buffer.buffer(
+                    new String(data, from, to - from, StandardCharsets.UTF_8)
+                )
+            );
+        }
+    }
+
+    private String url() {
+        return String.format("http://localhost:%d/asset.tgz", this.server.actualPort());
+    }
+
+    private String downloaded() throws IOException {
+        return new String(Files.readAllBytes(this.file), StandardCharsets.UTF_8);
+    }
+
+    private static String integrity(final String data) {
+        final Digests digests = new Digests();
+        digests.update(ByteBuffer.wrap(data.getBytes(StandardCharsets.UTF_8)));
+        return digests.integrity();
+    }
+
+    private static int port() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.npm.proxy.model.NpmPackage;
+import io.reactivex.Maybe;
+import io.reactivex.schedulers.TestScheduler;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Popularity-driven background metadata refresher test.
+ * @since 0.3
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class RefresherTest {
+    /**
+     * Current time.
+     */
+    private static final Instant NOW = Instant.parse("2020-05-01T12:00:00Z");
+
+    /**
+     * Refreshed packages names.
+     */
+    private List<String> refreshed;
+
+    /**
+     * Ticks scheduler.
+     */
+    private TestScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        this.refreshed = Collections.synchronizedList(new ArrayList<>());
+        this.scheduler = new TestScheduler();
+    }
+
+    @Test
+    void refreshesHotPackagesBeforeExpiration() {
+        final Refresher refresher = this.refresher(2, 10);
+        this.request(refresher, "hot", 3, 55);
+        this.request(refresher, "fresh", 3, 10);
+        this.scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        MatcherAssert.assertThat(this.refreshed, new IsEqual<>(Arrays.asList("hot")));
+        MatcherAssert.assertThat(refresher.refreshed(), new IsEqual<>(1L));
+    }
+
+    @Test
+    void keepsOnlyTheHottestPackages() {
+        final Refresher refresher = this.refresher(2, 10);
+        this.request(refresher, "cold", 1, 55);
+        this.request(refresher, "warm", 2, 55);
+        this.request(refresher, "hot", 3, 55);
+        this.scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        MatcherAssert.assertThat(this.refreshed, new IsEqual<>(Arrays.asList("hot", "warm")));
+    }
+
+    @Test
+    void limitsRefreshesPerTick() {
+        final Refresher refresher = this.refresher(3, 1);
+        this.request(refresher, "one", 3, 55);
+        this.request(refresher, "two", 2, 55);
+        this.request(refresher, "three", 1, 55);
+        this.scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        MatcherAssert.assertThat(this.refreshed, new IsEqual<>(Arrays.asList("one")));
+    }
+
+    @Test
+    void doesNothingWhenDisabled() {
+        final Refresher refresher = this.refresher(0, 10);
+        this.request(refresher, "hot", 3, 55);
+        this.scheduler.advanceTimeBy(1, TimeUnit.MINUTES);
+        MatcherAssert.assertThat(this.refreshed.isEmpty(), new IsEqual<>(true));
+    }
+
+    /**
+     * Create refresher with one hour TTL, five minutes lead and one minute interval.
+     * @param top Number of hot packages
+     * @param rate Refreshes per tick
+     * @return Refresher
+     */
+    private Refresher refresher(final int top, final int rate) {
+        return new Refresher(
+            name -> {
+                this.refreshed.add(name);
+                return Maybe.just(
+                    new NpmPackage(
+                        name, "{}", "", OffsetDateTime.ofInstant(RefresherTest.NOW, ZoneOffset.UTC)
+                    )
+                );
+            },
+            pkg -> Duration.ofHours(1),
+            Duration.ofMinutes(5),
+            top,
+            rate,
+            Duration.ofMinutes(1),
+            Clock.fixed(RefresherTest.NOW, ZoneOffset.UTC),
+            this.scheduler
+        );
+    }
+
+    /**
+     * Register package requests.
+     * @param refresher Refresher
+     * @param name Package name
+     * @param times Number of requests
+     * @param age Package metadata age in minutes
+     * @checkstyle ParameterNumberCheck (5 lines)
+     */
+    private void request(final Refresher refresher, final String name, final int times,
+        final int age) {
+        final NpmPackage pkg = new NpmPackage(
+            name, "{}", "",
+            OffsetDateTime.ofInstant(RefresherTest.NOW, ZoneOffset.UTC).minusMinutes(age)
+        );
+        for (int idx = 0; idx < times; idx += 1) {
+            refresher.packageRequested(pkg);
+        }
+    }
+}
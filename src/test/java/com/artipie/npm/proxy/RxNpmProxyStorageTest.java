@@ -31,13 +31,17 @@ import com.artipie.asto.memory.InMemoryStorage;
 import com.artipie.asto.rx.RxStorageWrapper;
 import com.artipie.npm.proxy.model.NpmAsset;
 import com.artipie.npm.proxy.model.NpmPackage;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import io.reactivex.schedulers.TestScheduler;
 import io.vertx.core.json.JsonObject;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.Month;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.Arrays;
 import java.util.concurrent.ExecutionException;
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
@@ -119,6 +123,52 @@ public final class RxNpmProxyStorageTest {
         );
     }
 
+    @Test
+    public void journalsPackageRefreshes() throws IOException {
+        final RxStorageWrapper rxstorage = new RxStorageWrapper(this.delegate);
+        final NpmProxyStorage journaled = new RxNpmProxyStorage(
+            rxstorage,
+            new CompositeMeterRegistry(),
+            new MetadataJournal(rxstorage, Duration.ofHours(1), new TestScheduler())
+        );
+        final OffsetDateTime later = RxNpmProxyStorageTest.REFRESHED.plusHours(1);
+        journaled.save(
+            new NpmPackage(
+                "asdas", RxNpmProxyStorageTest.readContent(),
+                RxNpmProxyStorageTest.MODIFIED, RxNpmProxyStorageTest.REFRESHED
+            )
+        ).blockingAwait();
+        journaled.save(
+            new NpmPackage(
+                "asdas", RxNpmProxyStorageTest.readContent(),
+                RxNpmProxyStorageTest.MODIFIED, later
+            )
+        ).blockingAwait();
+        MatcherAssert.assertThat(
+            journaled.getPackage("asdas").blockingGet().meta().lastRefreshed(),
+            new IsEqual<>(later)
+        );
+        MatcherAssert.assertThat(
+            "Metadata file should be written only once",
+            this.storage.getPackage("asdas").blockingGet().meta().lastRefreshed()
+                .equals(RxNpmProxyStorageTest.REFRESHED)
+        );
+    }
+
+    @Test
+    public void refreshesPackageMetadataOnly() throws IOException {
+        this.doSavePackage("asdas", RxNpmProxyStorageTest.REFRESHED);
+        final OffsetDateTime later = RxNpmProxyStorageTest.REFRESHED.plusHours(1);
+        this.storage.refresh(
+            new NpmPackage("asdas", "{}", RxNpmProxyStorageTest.MODIFIED, later)
+        ).blockingAwait();
+        final NpmPackage pkg = this.storage.getPackage("asdas").blockingGet();
+        MatcherAssert.assertThat(
+            Arrays.asList(pkg.content(), pkg.meta().lastRefreshed()),
+            new IsEqual<>(Arrays.asList(RxNpmProxyStorageTest.readContent(), later))
+        );
+    }
+
     @Test
     public void savesAsset() throws ExecutionException, InterruptedException {
         final String path = "asdas/-/asdas-1.0.0.tgz";
@@ -172,6 +222,35 @@ public final class RxNpmProxyStorageTest {
         );
     }
 
+    @Test
+    public void keepsAssetSizeAndDigests() {
+        final String path = "asdas/-/asdas-1.0.1.tgz";
+        this.storage.save(
+            new NpmAsset(
+                path,
+                new Content.From(RxNpmProxyStorageTest.DEF_CONTENT.getBytes()),
+                new NpmAsset.Metadata(
+                    RxNpmProxyStorageTest.MODIFIED,
+                    RxNpmProxyStorageTest.CONTENT_TYPE,
+                    RxNpmProxyStorageTest.DEF_CONTENT.length(),
+                    "sha512-abc",
+                    "def"
+                )
+            )
+        ).blockingAwait();
+        final NpmAsset.Metadata meta = this.storage.getAsset(path).blockingGet().meta();
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                meta.size(), meta.integrity().get(), meta.shasum().get()
+            ),
+            new IsEqual<>(
+                Arrays.asList(
+                    (long) RxNpmProxyStorageTest.DEF_CONTENT.length(), "sha512-abc", "def"
+                )
+            )
+        );
+    }
+
     @Test
     public void loadsAsset() {
         final String path = "asdas/-/asdas-1.0.0.tgz";
@@ -214,6 +293,19 @@ public final class RxNpmProxyStorageTest {
         );
     }
 
+    @Test
+    public void deletesPackageAndAsset() throws IOException {
+        final String path = "asdas/-/asdas-1.0.0.tgz";
+        this.doSavePackage("asdas", RxNpmProxyStorageTest.REFRESHED);
+        this.doSaveAsset(path);
+        this.storage.deletePackage("asdas").blockingAwait();
+        this.storage.deleteAsset(path).blockingAwait();
+        MatcherAssert.assertThat(
+            "Deleted objects found",
+            this.delegate.list(new Key.From("asdas")).join().isEmpty()
+        );
+    }
+
     @BeforeEach
     void setUp() {
         this.delegate = new InMemoryStorage();
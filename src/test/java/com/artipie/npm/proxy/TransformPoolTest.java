@@ -0,0 +1,85 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.StringStartsWith;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link TransformPool}.
+ * @since 0.3
+ */
+final class TransformPoolTest {
+    @Test
+    void runsTaskOnPoolThread() {
+        final TransformPool pool = new TransformPool(1, 1, new SimpleMeterRegistry());
+        try {
+            MatcherAssert.assertThat(
+                pool.submit(() -> Thread.currentThread().getName()).blockingGet(),
+                new StringStartsWith("npm-proxy-transform-")
+            );
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    void rejectsTaskWhenQueueIsFull() throws InterruptedException {
+        final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        final TransformPool pool = new TransformPool(1, 1, registry);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            pool.submit(
+                () -> {
+                    started.countDown();
+                    return release.await(1, TimeUnit.MINUTES);
+                }
+            ).subscribe();
+            started.await();
+            pool.submit(() -> true).subscribe();
+            MatcherAssert.assertThat(
+                registry.get("npm.proxy.transform.queue").gauge().value(),
+                new IsEqual<>(1.0)
+            );
+            Assertions.assertThrows(
+                TransformPool.BusyException.class,
+                () -> pool.submit(() -> true).blockingGet()
+            );
+            MatcherAssert.assertThat(
+                registry.get("npm.proxy.transform.rejected").functionCounter().count(),
+                new IsEqual<>(1.0)
+            );
+        } finally {
+            release.countDown();
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import io.reactivex.Maybe;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Upstreams test.
+ * @since 0.3
+ */
+public final class UpstreamsTest {
+    /**
+     * First upstream.
+     */
+    private Upstream first;
+
+    /**
+     * Second upstream.
+     */
+    private Upstream second;
+
+    /**
+     * Upstreams.
+     */
+    private Upstreams upstreams;
+
+    @Test
+    void keepsConfiguredOrderInitially() {
+        MatcherAssert.assertThat(
+            this.upstreams.ordered(),
+            new IsEqual<>(Arrays.asList(this.first, this.second))
+        );
+    }
+
+    @Test
+    void prefersFasterUpstream() {
+        this.first.call(
+            answered -> Maybe.timer(100, TimeUnit.MILLISECONDS)
+        ).blockingGet();
+        this.second.call(answered -> Maybe.just(0L)).blockingGet();
+        MatcherAssert.assertThat(
+            this.upstreams.ordered(),
+            new IsEqual<>(Arrays.asList(this.second, this.first))
+        );
+    }
+
+    @Test
+    void measuresLatencyToFirstAnswer() {
+        this.first.call(
+            answered -> Maybe.fromCallable(
+                () -> {
+                    answered.run();
+                    return 0L;
+                }
+            ).delay(100, TimeUnit.MILLISECONDS)
+        ).blockingGet();
+        this.second.call(
+            answered -> Maybe.timer(50, TimeUnit.MILLISECONDS)
+        ).blockingGet();
+        MatcherAssert.assertThat(
+            this.upstreams.ordered(),
+            new IsEqual<>(Arrays.asList(this.first, this.second))
+        );
+    }
+
+    @Test
+    void penalizesFailedUpstream() {
+        this.first.call(
+            answered -> Maybe.error(new IllegalStateException("failed"))
+        ).onErrorComplete().blockingGet();
+        this.second.call(
+            answered -> Maybe.timer(100, TimeUnit.MILLISECONDS)
+        ).blockingGet();
+        MatcherAssert.assertThat(
+            this.upstreams.ordered(),
+            new IsEqual<>(Arrays.asList(this.second, this.first))
+        );
+    }
+
+    @Test
+    void hedgesToSecondBestUpstream() {
+        MatcherAssert.assertThat(
+            this.upstreams.hedgeOrdered(),
+            new IsEqual<>(Arrays.asList(this.second, this.first))
+        );
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.first = UpstreamsTest.upstream("http://first");
+        this.second = UpstreamsTest.upstream("http://second");
+        this.upstreams = new Upstreams(Arrays.asList(this.first, this.second));
+    }
+
+    private static Upstream upstream(final String url) {
+        return new Upstream(
+            url,
+            new CircuitBreaker(5, Duration.ZERO, Duration.ofSeconds(30))
+        );
+    }
+}
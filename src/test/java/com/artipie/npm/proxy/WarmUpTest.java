@@ -0,0 +1,112 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.npm.proxy.model.NpmAsset;
+import com.artipie.npm.proxy.model.NpmPackage;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import io.vertx.core.json.JsonObject;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.cactoos.map.MapEntry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * Bulk cache warm-up test.
+ * @since 0.3
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class WarmUpTest {
+    @Test
+    void fetchesPackagesOnceAndAllAssets() throws InterruptedException {
+        final NpmProxy npm = Mockito.mock(NpmProxy.class);
+        Mockito.when(npm.backgroundPackage(ArgumentMatchers.anyString())).thenAnswer(
+            inv -> Maybe.just(
+                new NpmPackage(inv.getArgument(0), "{}", "", OffsetDateTime.now())
+            )
+        );
+        Mockito.when(npm.backgroundAsset(ArgumentMatchers.anyString())).thenAnswer(
+            inv -> Maybe.just(new NpmAsset(inv.getArgument(0), Flowable.empty(), "", ""))
+        );
+        final WarmUp.Job job = new WarmUp(npm, 2).start(
+            Arrays.asList(
+                new MapEntry<>("left", "1.0.0"),
+                new MapEntry<>("left", "2.0.0"),
+                new MapEntry<>("@vue/cli", "4.0.0")
+            )
+        );
+        final JsonObject json = WarmUpTest.await(job);
+        Mockito.verify(npm, Mockito.times(1)).backgroundPackage("left");
+        Mockito.verify(npm).backgroundAsset("left/-/left-2.0.0.tgz");
+        Mockito.verify(npm).backgroundAsset("@vue/cli/-/cli-4.0.0.tgz");
+        MatcherAssert.assertThat(
+            Arrays.asList(
+                json.getJsonObject("packages").getLong("fetched"),
+                json.getJsonObject("assets").getLong("fetched"),
+                json.getLong("failed")
+            ),
+            new IsEqual<>(Arrays.asList(2L, 3L, 0L))
+        );
+    }
+
+    @Test
+    void countsFailures() throws InterruptedException {
+        final NpmProxy npm = Mockito.mock(NpmProxy.class);
+        Mockito.when(npm.backgroundPackage("gone")).thenReturn(Maybe.empty());
+        Mockito.when(npm.backgroundAsset("gone/-/gone-1.0.0.tgz"))
+            .thenReturn(Maybe.error(new IllegalStateException("Failed")));
+        final WarmUp warmup = new WarmUp(npm, 2);
+        final WarmUp.Job job = warmup.start(
+            Arrays.asList(new MapEntry<>("gone", "1.0.0"))
+        );
+        MatcherAssert.assertThat(
+            WarmUpTest.await(job).getLong("failed"),
+            new IsEqual<>(2L)
+        );
+        MatcherAssert.assertThat(
+            warmup.job(job.id()).isPresent(),
+            new IsEqual<>(true)
+        );
+    }
+
+    /**
+     * Wait for the job to finish.
+     * @param job Warm-up job
+     * @return Job summary
+     * @throws InterruptedException If interrupted
+     */
+    private static JsonObject await(final WarmUp.Job job) throws InterruptedException {
+        // @checkstyle MagicNumberCheck (3 lines)
+        for (int attempt = 0; attempt < 100 && !job.done(); attempt += 1) {
+            TimeUnit.MILLISECONDS.sleep(50);
+        }
+        return job.json();
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy;
+
+import com.artipie.npm.proxy.model.NpmPackage;
+import io.reactivex.Completable;
+import io.reactivex.subjects.CompletableSubject;
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.hamcrest.core.IsSame;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+/**
+ * Test for {@link WriteBehind}.
+ * @since 0.3
+ */
+@ExtendWith(MockitoExtension.class)
+final class WriteBehindTest {
+    /**
+     * Mocked metadata storage.
+     */
+    @Mock
+    private NpmProxyStorage storage;
+
+    /**
+     * Packages saved to the storage.
+     */
+    private List<NpmPackage> saved;
+
+    /**
+     * Storage writes completions.
+     */
+    private List<CompletableSubject> writes;
+
+    @Test
+    void answersBeforeWriteAndFlushes() {
+        final WriteBehind behind = new WriteBehind(this.storage, 8, 2);
+        final NpmPackage pkg = WriteBehindTest.pkg("a", "1");
+        MatcherAssert.assertThat(
+            "Save should complete before storage write",
+            behind.save(pkg).blockingGet() == null
+        );
+        MatcherAssert.assertThat(
+            behind.pending("a").blockingGet(),
+            new IsSame<>(pkg)
+        );
+        final Completable flush = behind.flush().cache();
+        flush.subscribe();
+        MatcherAssert.assertThat(
+            "Flush should wait for storage write",
+            !flush.blockingAwait(0, TimeUnit.MILLISECONDS)
+        );
+        this.writes.get(0).onComplete();
+        flush.blockingAwait();
+        MatcherAssert.assertThat(
+            "Written package should not be pending",
+            behind.pending("a").isEmpty().blockingGet()
+        );
+    }
+
+    @Test
+    void coalescesRepeatedSaves() {
+        final WriteBehind behind = new WriteBehind(this.storage, 8, 1);
+        behind.save(WriteBehindTest.pkg("a", "1")).blockingAwait();
+        behind.save(WriteBehindTest.pkg("a", "2")).blockingAwait();
+        behind.save(WriteBehindTest.pkg("a", "3")).blockingAwait();
+        this.writes.get(0).onComplete();
+        this.writes.get(1).onComplete();
+        behind.flush().blockingAwait();
+        MatcherAssert.assertThat(
+            this.saved.stream().map(NpmPackage::content).collect(Collectors.toList()),
+            new IsEqual<>(Arrays.asList("1", "3"))
+        );
+        MatcherAssert.assertThat(behind.coalesced(), new IsEqual<>(1L));
+    }
+
+    @Test
+    void writesSynchronouslyWhenQueueIsFull() {
+        final WriteBehind behind = new WriteBehind(this.storage, 1, 1);
+        behind.save(WriteBehindTest.pkg("a", "1")).blockingAwait();
+        behind.save(WriteBehindTest.pkg("b", "1")).blockingAwait();
+        final Completable full = behind.save(WriteBehindTest.pkg("c", "1")).cache();
+        full.subscribe();
+        MatcherAssert.assertThat(
+            "Save should wait for storage write when queue is full",
+            !full.blockingAwait(0, TimeUnit.MILLISECONDS)
+        );
+        MatcherAssert.assertThat(
+            this.saved.stream().map(NpmPackage::name).collect(Collectors.toList()),
+            new IsEqual<>(Arrays.asList("a", "c"))
+        );
+        this.writes.forEach(CompletableSubject::onComplete);
+        full.blockingAwait();
+    }
+
+    @Test
+    void writesSynchronouslyWhenDisabled() {
+        final WriteBehind behind = new WriteBehind(this.storage, 0, 1);
+        final Completable save = behind.save(WriteBehindTest.pkg("a", "1")).cache();
+        save.subscribe();
+        MatcherAssert.assertThat(
+            "Save should wait for storage write",
+            !save.blockingAwait(0, TimeUnit.MILLISECONDS)
+        );
+        MatcherAssert.assertThat(
+            "Package should not be pending",
+            behind.pending("a").isEmpty().blockingGet()
+        );
+    }
+
+    @BeforeEach
+    void setUp() {
+        this.saved = new CopyOnWriteArrayList<>();
+        this.writes = new CopyOnWriteArrayList<>();
+        Mockito.lenient().when(this.storage.save(Mockito.any(NpmPackage.class))).thenAnswer(
+            inv -> Completable.defer(
+                () -> {
+                    final CompletableSubject write = CompletableSubject.create();
+                    this.saved.add(inv.getArgument(0));
+                    this.writes.add(write);
+                    return write;
+                }
+            )
+        );
+    }
+
+    private static NpmPackage pkg(final String name, final String content) {
+        return new NpmPackage(name, content, "", OffsetDateTime.now());
+    }
+}
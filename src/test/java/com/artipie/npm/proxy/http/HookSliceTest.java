@@ -0,0 +1,243 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy.http;
+
+import com.amihaiemil.eoyaml.Yaml;
+import com.artipie.asto.Content;
+import com.artipie.http.Response;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.npm.proxy.Invalidations;
+import com.artipie.npm.proxy.NpmProxyConfig;
+import io.reactivex.Completable;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.cactoos.map.MapEntry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test for {@link HookSlice} with local stub notifications sender.
+ * @since 0.3
+ */
+final class HookSliceTest {
+    /**
+     * Notifications secret.
+     */
+    private static final String SECRET = "s3cret";
+
+    /**
+     * Refreshed packages names.
+     */
+    private List<String> refreshed;
+
+    /**
+     * Push-based invalidation.
+     */
+    private Invalidations invalidations;
+
+    @BeforeEach
+    void setUp() {
+        this.refreshed = new ArrayList<>(0);
+        this.invalidations = new Invalidations(
+            name -> Completable.fromAction(() -> this.refreshed.add(name)),
+            new NpmProxyConfig(
+                Yaml.createYamlMappingBuilder().add(
+                    "hook",
+                    Yaml.createYamlMappingBuilder()
+                        .add("secret", HookSliceTest.SECRET)
+                        .add("window-ms", "3600000")
+                        .build()
+                ).build()
+            )
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.invalidations.close();
+    }
+
+    @Test
+    void refreshesNotifiedPackages() {
+        final StubSender sender = new StubSender(HookSliceTest.SECRET);
+        MatcherAssert.assertThat(
+            sender.send(
+                new HookSlice(this.invalidations),
+                StubSender.payload("@corp/lib", "package:publish")
+            ),
+            new RsHasStatus(RsStatus.ACCEPTED)
+        );
+        sender.send(
+            new HookSlice(this.invalidations),
+            new JsonArray()
+                .add(StubSender.payload("@corp/lib", "package:dist-tag"))
+                .add(StubSender.payload("lodash", "package:publish"))
+                .add(StubSender.payload("lodash", "package:star"))
+        );
+        this.invalidations.flush().blockingAwait();
+        MatcherAssert.assertThat(
+            this.refreshed,
+            new IsEqual<>(Arrays.asList("@corp/lib", "lodash"))
+        );
+    }
+
+    @Test
+    void rejectsUnsignedNotifications() {
+        MatcherAssert.assertThat(
+            new StubSender("wrong").send(
+                new HookSlice(this.invalidations),
+                StubSender.payload("lodash", "package:publish")
+            ),
+            new RsHasStatus(RsStatus.UNAUTHORIZED)
+        );
+        MatcherAssert.assertThat(this.invalidations.received(), new IsEqual<>(0L));
+    }
+
+    @Test
+    void rejectsInvalidNotifications() {
+        MatcherAssert.assertThat(
+            new StubSender(HookSliceTest.SECRET).send(
+                new HookSlice(this.invalidations),
+                new JsonObject().put("event", "package:publish")
+            ),
+            new RsHasStatus(RsStatus.BAD_REQUEST)
+        );
+    }
+
+    @Test
+    void rejectsBatchWithInvalidNotification() {
+        MatcherAssert.assertThat(
+            new StubSender(HookSliceTest.SECRET).send(
+                new HookSlice(this.invalidations),
+                new JsonArray()
+                    .add(StubSender.payload("lodash", "package:publish"))
+                    .add(new JsonObject().put("event", "package:publish"))
+            ),
+            new RsHasStatus(RsStatus.BAD_REQUEST)
+        );
+        MatcherAssert.assertThat(this.invalidations.received(), new IsEqual<>(0L));
+    }
+
+    @Test
+    void rejectsTooLargeNotifications() {
+        final JsonArray payloads = new JsonArray();
+        for (int idx = 0; idx < 10; idx += 1) {
+            payloads.add(StubSender.payload(String.format("pkg-%d", idx), "package:publish"));
+        }
+        MatcherAssert.assertThat(
+            new StubSender(HookSliceTest.SECRET).send(
+                // @checkstyle MagicNumberCheck (1 line)
+                new HookSlice(this.invalidations, 256),
+                payloads
+            ),
+            new RsHasStatus(RsStatus.BAD_REQUEST)
+        );
+        MatcherAssert.assertThat(this.invalidations.received(), new IsEqual<>(0L));
+    }
+
+    /**
+     * Local stub of npm hooks notifications sender.
+     * @since 0.3
+     */
+    private static final class StubSender {
+        /**
+         * Signing secret.
+         */
+        private final String secret;
+
+        /**
+         * Ctor.
+         * @param secret Signing secret
+         */
+        StubSender(final String secret) {
+            this.secret = secret;
+        }
+
+        /**
+         * Send signed notification.
+         * @param slice Hook slice
+         * @param json Notification body
+         * @return Response
+         */
+        Response send(final HookSlice slice, final Object json) {
+            final byte[] body = json.toString().getBytes(StandardCharsets.UTF_8);
+            return slice.response(
+                "POST /-/hook HTTP/1.1",
+                Collections.<Map.Entry<String, String>>singletonList(
+                    new MapEntry<>("X-Npm-Signature", this.signature(body))
+                ),
+                new Content.From(body)
+            );
+        }
+
+        /**
+         * Notification payload like the one npm hooks send.
+         * @param name Package name
+         * @param event Change event
+         * @return Payload
+         */
+        static JsonObject payload(final String name, final String event) {
+            return new JsonObject()
+                .put("event", event)
+                .put("name", name)
+                .put("type", "package")
+                .put("version", "1.0.0")
+                .put("change", new JsonObject().put("version", "1.0.0"));
+        }
+
+        /**
+         * Notification signature.
+         * @param body Notification body
+         * @return Signature
+         */
+        private String signature(final byte[] body) {
+            try {
+                final Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(
+                    new SecretKeySpec(this.secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256")
+                );
+                final StringBuilder hex = new StringBuilder("sha256=");
+                for (final byte item : mac.doFinal(body)) {
+                    hex.append(String.format("%02x", item));
+                }
+                return hex.toString();
+            } catch (final GeneralSecurityException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy.http;
+
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * WarmUpPath tests.
+ * @since 0.3
+ */
+public final class WarmUpPathTest {
+    @Test
+    void getsEmptyPathForJobStart() {
+        MatcherAssert.assertThat(
+            new WarmUpPath("npm-proxy").value("/npm-proxy/-/warm-up"),
+            new IsEqual<>("")
+        );
+    }
+
+    @Test
+    void getsJobId() {
+        MatcherAssert.assertThat(
+            new WarmUpPath("").value("/-/warm-up/abc"),
+            new IsEqual<>("abc")
+        );
+    }
+
+    @Test
+    void doesNotMatchPackagesAndAssets() {
+        final WarmUpPath path = new WarmUpPath("npm-proxy");
+        MatcherAssert.assertThat(
+            path.pattern().matcher("/npm-proxy/warm-up").matches()
+                || path.pattern().matcher("/npm-proxy/-/warm-upXYZ").matches()
+                || path.pattern().matcher("/npm-proxy/warm-up/-/warm-up-1.0.0.tgz").matches(),
+            new IsEqual<>(false)
+        );
+    }
+}
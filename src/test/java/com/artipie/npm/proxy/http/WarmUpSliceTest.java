@@ -0,0 +1,121 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy.http;
+
+import com.artipie.asto.Content;
+import com.artipie.http.Response;
+import com.artipie.http.hm.RsHasStatus;
+import com.artipie.http.rs.RsStatus;
+import com.artipie.npm.proxy.NpmProxy;
+import com.artipie.npm.proxy.WarmUp;
+import io.reactivex.Maybe;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import org.cactoos.map.MapEntry;
+import org.hamcrest.MatcherAssert;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+/**
+ * Test for {@link WarmUpSlice}.
+ * @since 0.3
+ */
+final class WarmUpSliceTest {
+    /**
+     * Warm-up requests token.
+     */
+    private static final String TOKEN = "t0ken";
+
+    @Test
+    void startsJobWithToken() {
+        final NpmProxy npm = Mockito.mock(NpmProxy.class);
+        Mockito.when(npm.backgroundPackage(ArgumentMatchers.anyString())).thenReturn(Maybe.empty());
+        Mockito.when(npm.backgroundAsset(ArgumentMatchers.anyString())).thenReturn(Maybe.empty());
+        MatcherAssert.assertThat(
+            WarmUpSliceTest.send(
+                new WarmUp(npm, 1, WarmUpSliceTest.TOKEN),
+                String.format("Bearer %s", WarmUpSliceTest.TOKEN)
+            ),
+            new RsHasStatus(RsStatus.ACCEPTED)
+        );
+    }
+
+    @Test
+    void rejectsTooLargeRequests() {
+        final NpmProxy npm = Mockito.mock(NpmProxy.class);
+        MatcherAssert.assertThat(
+            new WarmUpSlice(
+                new WarmUp(npm, 1, WarmUpSliceTest.TOKEN), new WarmUpPath(""), 4
+            ).response(
+                "POST /-/warm-up HTTP/1.1",
+                Collections.<Map.Entry<String, String>>singletonList(
+                    new MapEntry<>(
+                        "Authorization", String.format("Bearer %s", WarmUpSliceTest.TOKEN)
+                    )
+                ),
+                new Content.From("left@1.0.0".getBytes(StandardCharsets.UTF_8))
+            ),
+            new RsHasStatus(RsStatus.BAD_REQUEST)
+        );
+        Mockito.verifyNoInteractions(npm);
+    }
+
+    @Test
+    void rejectsRequestsWithoutToken() {
+        final NpmProxy npm = Mockito.mock(NpmProxy.class);
+        MatcherAssert.assertThat(
+            WarmUpSliceTest.send(new WarmUp(npm, 1, WarmUpSliceTest.TOKEN), "Bearer wrong"),
+            new RsHasStatus(RsStatus.UNAUTHORIZED)
+        );
+        Mockito.verifyNoInteractions(npm);
+    }
+
+    @Test
+    void rejectsRequestsWhenTokenIsNotConfigured() {
+        MatcherAssert.assertThat(
+            WarmUpSliceTest.send(
+                new WarmUp(Mockito.mock(NpmProxy.class), 1), "Bearer "
+            ),
+            new RsHasStatus(RsStatus.UNAUTHORIZED)
+        );
+    }
+
+    /**
+     * Send warm-up request.
+     * @param warmup Cache warm-up
+     * @param authorization Authorization header value
+     * @return Response
+     */
+    private static Response send(final WarmUp warmup, final String authorization) {
+        return new WarmUpSlice(warmup, new WarmUpPath("")).response(
+            "POST /-/warm-up HTTP/1.1",
+            Collections.<Map.Entry<String, String>>singletonList(
+                new MapEntry<>("Authorization", authorization)
+            ),
+            new Content.From("left@1.0.0".getBytes(StandardCharsets.UTF_8))
+        );
+    }
+}
@@ -30,6 +30,7 @@ import java.nio.charset.StandardCharsets;
 import net.minidev.json.JSONArray;
 import org.apache.commons.io.IOUtils;
 import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
 import org.hamcrest.core.StringStartsWith;
 import org.junit.jupiter.api.Test;
 
@@ -56,4 +57,13 @@ public class ClientContentTest {
             );
         }
     }
+
+    @Test
+    public void transformsSameValueTwice() throws IOException {
+        final ClientContent content = new ClientContent(
+            IOUtils.resourceToString("/json/cached.json", StandardCharsets.UTF_8),
+            "http://localhost"
+        );
+        MatcherAssert.assertThat(content.value(), new IsEqual<>(content.value()));
+    }
 }
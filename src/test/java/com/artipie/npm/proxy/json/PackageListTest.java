@@ -0,0 +1,100 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2020 artipie
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.artipie.npm.proxy.json;
+
+import java.util.Arrays;
+import org.cactoos.map.MapEntry;
+import org.hamcrest.MatcherAssert;
+import org.hamcrest.core.IsEqual;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Packages list test.
+ * @since 0.3
+ */
+@SuppressWarnings("PMD.AvoidDuplicateLiterals")
+public final class PackageListTest {
+    @Test
+    void readsLockfileVersionTwo() {
+        MatcherAssert.assertThat(
+            new PackageList(
+                String.join(
+                    "",
+                    "{\"lockfileVersion\": 2, \"packages\": {",
+                    "\"\": {\"name\": \"app\", \"version\": \"1.0.0\"},",
+                    "\"node_modules/left\": {\"version\": \"1.2.3\"},",
+                    "\"node_modules/@vue/cli\": {\"version\": \"4.0.0\"},",
+                    "\"node_modules/left/node_modules/deep\": {\"version\": \"0.1.0\"},",
+                    "\"node_modules/local\": {\"resolved\": \"../local\", \"link\": true},",
+                    "\"node_modules/git\": {\"version\": \"git+ssh://host/git.git\"}",
+                    "}}"
+                )
+            ).value(),
+            new IsEqual<>(
+                Arrays.asList(
+                    new MapEntry<>("left", "1.2.3"),
+                    new MapEntry<>("@vue/cli", "4.0.0"),
+                    new MapEntry<>("deep", "0.1.0")
+                )
+            )
+        );
+    }
+
+    @Test
+    void readsLockfileVersionOne() {
+        MatcherAssert.assertThat(
+            new PackageList(
+                String.join(
+                    "",
+                    "{\"lockfileVersion\": 1, \"dependencies\": {",
+                    "\"left\": {\"version\": \"1.2.3\", \"dependencies\": {",
+                    "\"deep\": {\"version\": \"0.1.0\"}}},",
+                    "\"right\": {\"version\": \"2.0.0\"}",
+                    "}}"
+                )
+            ).value(),
+            new IsEqual<>(
+                Arrays.asList(
+                    new MapEntry<>("left", "1.2.3"),
+                    new MapEntry<>("deep", "0.1.0"),
+                    new MapEntry<>("right", "2.0.0")
+                )
+            )
+        );
+    }
+
+    @Test
+    void readsPlainList() {
+        MatcherAssert.assertThat(
+            new PackageList("# comment\nleft@1.2.3\n\n@vue/cli@4.0.0\r\nleft@1.2.3\n")
+                .value(),
+            new IsEqual<>(
+                Arrays.asList(
+                    new MapEntry<>("left", "1.2.3"),
+                    new MapEntry<>("@vue/cli", "4.0.0")
+                )
+            )
+        );
+    }
+}